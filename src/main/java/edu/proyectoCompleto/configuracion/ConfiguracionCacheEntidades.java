@@ -0,0 +1,73 @@
+package edu.proyectoCompleto.configuracion;
+
+import java.net.URI;
+import java.util.List;
+import java.util.OptionalLong;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+import javax.cache.CacheManager;
+import javax.cache.Caching;
+
+import org.hibernate.cache.jcache.ConfigSettings;
+import org.hibernate.cfg.AvailableSettings;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import com.github.benmanes.caffeine.jcache.configuration.CaffeineConfiguration;
+import com.github.benmanes.caffeine.jcache.spi.CaffeineCachingProvider;
+
+/**
+ * Configuración de la caché de segundo nivel de Hibernate para usuarios y clubs.
+ * <p>
+ * Las entidades y la resolución de su clave natural (el email) se guardan en memoria
+ * con Caffeine a través de JCache. Cada región admite como mucho
+ * {@code cache.entidades.maximo} elementos y los descarta
+ * {@code cache.entidades.ttl-segundos} después de escribirlos, para acotar lo que puede
+ * durar un dato cambiado fuera de Hibernate (por ejemplo, la importación por COPY).
+ * Las entidades que pasan por la caché se cargan siempre en la base de datos
+ * principal, nunca en transacciones de solo lectura: la réplica puede ir retrasada y
+ * la caché guardaría su versión atrasada hasta que caducara.
+ * Con {@code cache.entidades.estadisticas} Hibernate cuenta los aciertos y fallos de
+ * cada región, que se consultan en {@code GET /api/admin/cache}.
+ * </p>
+ */
+@Configuration
+public class ConfiguracionCacheEntidades {
+
+	/** Regiones declaradas en las anotaciones {@code @Cache} y {@code @NaturalIdCache} de las entidades. */
+	public static final List<String> REGIONES = List.of("usuarios", "usuarios-email", "clubs", "clubs-email");
+
+	/**
+	 * Gestor de cachés propio con las regiones ya creadas con su tamaño y su caducidad.
+	 * Se identifica con una URI única para no compartirlo con otros contextos de la misma JVM.
+	 */
+	@Bean(destroyMethod = "close")
+	public CacheManager gestorCacheEntidades(@Value("${cache.entidades.maximo:10000}") long maximo,
+			@Value("${cache.entidades.ttl-segundos:600}") long ttlSegundos) {
+		CacheManager gestor = Caching.getCachingProvider(CaffeineCachingProvider.class.getName())
+				.getCacheManager(URI.create("entidades-" + UUID.randomUUID()), getClass().getClassLoader());
+		for (String region : REGIONES) {
+			CaffeineConfiguration<Object, Object> configuracion = new CaffeineConfiguration<>();
+			configuracion.setMaximumSize(OptionalLong.of(maximo));
+			configuracion.setExpireAfterWrite(OptionalLong.of(TimeUnit.SECONDS.toNanos(ttlSegundos)));
+			gestor.createCache(region, configuracion);
+		}
+		return gestor;
+	}
+
+	/** Activa la caché de segundo nivel de Hibernate con el gestor anterior. */
+	@Bean
+	public HibernatePropertiesCustomizer cacheSegundoNivel(CacheManager gestorCacheEntidades,
+			@Value("${cache.entidades.estadisticas:true}") boolean estadisticas) {
+		return propiedades -> {
+			propiedades.put(AvailableSettings.USE_SECOND_LEVEL_CACHE, true);
+			propiedades.put(AvailableSettings.CACHE_REGION_FACTORY, "jcache");
+			propiedades.put(ConfigSettings.CACHE_MANAGER, gestorCacheEntidades);
+			propiedades.put(ConfigSettings.MISSING_CACHE_STRATEGY, "fail"); // Toda región debe estar en REGIONES
+			propiedades.put(AvailableSettings.GENERATE_STATISTICS, estadisticas);
+		};
+	}
+}
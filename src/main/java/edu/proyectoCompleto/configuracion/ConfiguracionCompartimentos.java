@@ -0,0 +1,40 @@
+package edu.proyectoCompleto.configuracion;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import edu.proyectoCompleto.utils.Compartimento;
+
+/**
+ * Configuración de los compartimentos (bulkheads) que aíslan el trabajo costoso.
+ * <p>
+ * Cada compartimento tiene sus propios hilos y su propia cola, configurables con
+ * las propiedades {@code compartimentos.<nombre>.hilos} y
+ * {@code compartimentos.<nombre>.cola}.
+ * </p>
+ */
+@Configuration
+public class ConfiguracionCompartimentos {
+
+	/** Compartimento para el login de usuarios (comprobación BCrypt). */
+	@Bean
+	public Compartimento compartimentoLogin(@Value("${compartimentos.login.hilos:4}") int hilos,
+			@Value("${compartimentos.login.cola:50}") int cola) {
+		return new Compartimento("login", hilos, cola);
+	}
+
+	/** Compartimento para el registro de usuarios (cifrado BCrypt de la contraseña). */
+	@Bean
+	public Compartimento compartimentoRegistro(@Value("${compartimentos.registro.hilos:2}") int hilos,
+			@Value("${compartimentos.registro.cola:20}") int cola) {
+		return new Compartimento("registro", hilos, cola);
+	}
+
+	/** Compartimento para las subidas de imágenes. */
+	@Bean
+	public Compartimento compartimentoSubidas(@Value("${compartimentos.subidas.hilos:4}") int hilos,
+			@Value("${compartimentos.subidas.cola:20}") int cola) {
+		return new Compartimento("subidas", hilos, cola);
+	}
+}
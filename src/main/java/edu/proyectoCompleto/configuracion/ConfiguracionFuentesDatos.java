@@ -0,0 +1,68 @@
+package edu.proyectoCompleto.configuracion;
+
+import javax.sql.DataSource;
+
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import com.zaxxer.hikari.HikariDataSource;
+
+/**
+ * Configuración de las fuentes de datos cuando hay una réplica de lectura.
+ * <p>
+ * Solo se activa si se define {@code replica.datasource.jdbc-url}; sin ella se usa la
+ * fuente de datos única de Spring Boot. La principal se configura como siempre con
+ * {@code spring.datasource.*} y la réplica con {@code replica.datasource.*}, cada una
+ * con su propio pool de Hikari. Las transacciones {@code @Transactional(readOnly = true)}
+ * van a la réplica (también las consultas de los repositorios hechas fuera de una
+ * transacción de escritura, que Spring Data ejecuta como de solo lectura) y el resto
+ * a la principal.
+ * </p>
+ */
+@Configuration
+@ConditionalOnProperty("replica.datasource.jdbc-url")
+public class ConfiguracionFuentesDatos {
+
+	/** Pool de la base de datos principal, con las propiedades {@code spring.datasource.*}. */
+	@Bean
+	@ConfigurationProperties("spring.datasource.hikari")
+	public HikariDataSource fuentePrincipal(DataSourceProperties propiedades) {
+		HikariDataSource fuente = propiedades.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+		fuente.setPoolName("principal");
+		return fuente;
+	}
+
+	/** Pool de la réplica, con las propiedades de Hikari bajo {@code replica.datasource.*}. */
+	@Bean
+	@ConfigurationProperties("replica.datasource")
+	public HikariDataSource fuenteReplica() {
+		HikariDataSource fuente = new HikariDataSource();
+		fuente.setPoolName("replica");
+		fuente.setReadOnly(true);
+		return fuente;
+	}
+
+	@Bean
+	public VigilanteReplica vigilanteReplica(@Qualifier("fuenteReplica") DataSource replica,
+			@Value("${replica.retraso-maximo-segundos:5}") double retrasoMaximoSegundos) {
+		return new VigilanteReplica(replica, retrasoMaximoSegundos);
+	}
+
+	/**
+	 * Fuente de datos que usan JPA y JDBC: enruta cada transacción y retrasa la
+	 * obtención de la conexión hasta saber si es de solo lectura.
+	 */
+	@Bean
+	@Primary
+	public DataSource dataSource(@Qualifier("fuentePrincipal") DataSource principal,
+			@Qualifier("fuenteReplica") DataSource replica, VigilanteReplica vigilanteReplica) {
+		return new LazyConnectionDataSourceProxy(new FuenteDatosEnrutada(principal, replica, vigilanteReplica));
+	}
+}
@@ -0,0 +1,82 @@
+package edu.proyectoCompleto.configuracion;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.Map;
+
+import javax.sql.DataSource;
+
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Fuente de datos que envía las transacciones de solo lectura a la réplica y el
+ * resto a la principal.
+ * <p>
+ * La decisión se toma al pedir la conexión, así que debe usarse detrás de un
+ * {@link org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy}: el gestor
+ * de transacciones pide la conexión antes de marcar la transacción como de solo
+ * lectura, y el proxy la retrasa hasta la primera sentencia. Si la réplica no está
+ * disponible según el {@link VigilanteReplica}, o falla al dar una conexión, se usa
+ * la principal.
+ * </p>
+ */
+public class FuenteDatosEnrutada extends AbstractRoutingDataSource {
+
+	/** Destinos posibles de una conexión. */
+	enum Destino {
+		PRINCIPAL, REPLICA
+	}
+
+	private final DataSource principal;
+	private final VigilanteReplica vigilanteReplica;
+
+	/**
+	 * @param principal        fuente de datos de la base de datos principal
+	 * @param replica          fuente de datos de la réplica de lectura
+	 * @param vigilanteReplica indica si la réplica está al día y responde
+	 */
+	public FuenteDatosEnrutada(DataSource principal, DataSource replica, VigilanteReplica vigilanteReplica) {
+		this.principal = principal;
+		this.vigilanteReplica = vigilanteReplica;
+		setTargetDataSources(Map.of(Destino.PRINCIPAL, principal, Destino.REPLICA, replica));
+		setDefaultTargetDataSource(principal);
+		afterPropertiesSet();
+	}
+
+	@Override
+	protected Object determineCurrentLookupKey() {
+		return TransactionSynchronizationManager.isCurrentTransactionReadOnly() && vigilanteReplica.disponible()
+				? Destino.REPLICA
+				: Destino.PRINCIPAL;
+	}
+
+	@Override
+	public Connection getConnection() throws SQLException {
+		DataSource destino = determineTargetDataSource();
+		if (destino == principal) {
+			return principal.getConnection();
+		}
+		try {
+			return destino.getConnection();
+		} catch (SQLException e) {
+			// La réplica ha caído entre dos comprobaciones: esta y las siguientes lecturas van a la principal
+			vigilanteReplica.marcarCaida(e);
+			return principal.getConnection();
+		}
+	}
+
+	@Override
+	public Connection getConnection(String username, String password) throws SQLException {
+		DataSource destino = determineTargetDataSource();
+		if (destino == principal) {
+			return principal.getConnection(username, password);
+		}
+		try {
+			return destino.getConnection(username, password);
+		} catch (SQLException e) {
+			vigilanteReplica.marcarCaida(e);
+			return principal.getConnection(username, password);
+		}
+	}
+}
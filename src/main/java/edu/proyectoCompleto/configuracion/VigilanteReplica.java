@@ -0,0 +1,104 @@
+package edu.proyectoCompleto.configuracion;
+
+import javax.sql.DataSource;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+
+/**
+ * Vigila la réplica de lectura y decide si se le pueden enviar consultas.
+ * <p>
+ * Cada {@code replica.comprobacion-ms} milisegundos mide cuántos segundos lleva la
+ * réplica por detrás de la principal. Si no responde o el retraso supera
+ * {@code replica.retraso-maximo-segundos}, las transacciones de solo lectura vuelven
+ * a la principal hasta la siguiente comprobación correcta. Al arrancar se considera
+ * no disponible hasta que la primera comprobación termina bien.
+ * </p>
+ */
+public class VigilanteReplica {
+
+	private static final Logger log = LoggerFactory.getLogger(VigilanteReplica.class);
+
+	/**
+	 * Retraso de la réplica en segundos. Si ya ha aplicado todo lo recibido el retraso
+	 * es 0 aunque la última transacción sea antigua (la principal puede estar parada);
+	 * una base de datos que no está en recuperación no es una réplica y tampoco tiene retraso.
+	 */
+	private static final String CONSULTA_RETRASO = "select case "
+			+ "when not pg_is_in_recovery() or pg_last_wal_receive_lsn() = pg_last_wal_replay_lsn() then 0 "
+			+ "else coalesce(extract(epoch from now() - pg_last_xact_replay_timestamp()), 0) end";
+
+	private final JdbcTemplate jdbcTemplate;
+	private final double retrasoMaximoSegundos;
+
+	private volatile boolean disponible; // Si las lecturas pueden ir a la réplica
+	private volatile double retrasoSegundos = -1; // Último retraso medido (-1 si no se ha podido medir)
+
+	/**
+	 * @param replica               fuente de datos de la réplica
+	 * @param retrasoMaximoSegundos retraso a partir del cual las lecturas vuelven a la principal
+	 */
+	public VigilanteReplica(DataSource replica, double retrasoMaximoSegundos) {
+		this.jdbcTemplate = new JdbcTemplate(replica);
+		this.retrasoMaximoSegundos = retrasoMaximoSegundos;
+	}
+
+	/**
+	 * Mide el retraso de la réplica y actualiza su disponibilidad.
+	 */
+	@Scheduled(fixedDelayString = "${replica.comprobacion-ms:5000}")
+	public void comprobar() {
+		try {
+			Double retraso = jdbcTemplate.queryForObject(CONSULTA_RETRASO, Double.class);
+			registrarRetraso(retraso == null ? 0 : retraso);
+		} catch (DataAccessException e) {
+			marcarCaida(e);
+		}
+	}
+
+	/**
+	 * Registra un retraso medido y decide con él si la réplica está disponible.
+	 */
+	void registrarRetraso(double segundos) {
+		retrasoSegundos = segundos;
+		boolean aceptable = segundos <= retrasoMaximoSegundos;
+		if (aceptable != disponible) {
+			if (aceptable) {
+				log.info("Réplica disponible (retraso {} s); las lecturas vuelven a la réplica.", segundos);
+			} else {
+				log.warn("Réplica con {} s de retraso; las lecturas van a la principal.", segundos);
+			}
+		}
+		disponible = aceptable;
+	}
+
+	/**
+	 * Marca la réplica como no disponible hasta la siguiente comprobación correcta.
+	 *
+	 * @param causa error al conectar o consultar la réplica
+	 */
+	public void marcarCaida(Exception causa) {
+		if (disponible) {
+			log.warn("Réplica no disponible; las lecturas van a la principal: {}", causa.getMessage());
+		}
+		disponible = false;
+		retrasoSegundos = -1;
+	}
+
+	/**
+	 * @return true si las transacciones de solo lectura pueden ir a la réplica
+	 */
+	public boolean disponible() {
+		return disponible;
+	}
+
+	/**
+	 * @return el último retraso medido en segundos, o -1 si la réplica no responde
+	 */
+	public double getRetrasoSegundos() {
+		return retrasoSegundos;
+	}
+}
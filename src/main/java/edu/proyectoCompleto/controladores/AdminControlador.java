@@ -0,0 +1,157 @@
+package edu.proyectoCompleto.controladores;
+
+import java.io.InputStream;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import edu.proyectoCompleto.configuracion.VigilanteReplica;
+import edu.proyectoCompleto.importacion.FormatoImportacion;
+import edu.proyectoCompleto.importacion.ImportacionEnCursoException;
+import edu.proyectoCompleto.importacion.ImportadorUsuarios;
+import edu.proyectoCompleto.seguridad.LimitadorLogin;
+import edu.proyectoCompleto.servicios.EstadisticasCacheServicio;
+import edu.proyectoCompleto.servicios.EventosServicio;
+import jakarta.servlet.http.HttpServletRequest;
+
+/**
+ * Controlador REST con las operaciones de administración.
+ * <p>
+ * La ruta base es {@code /api/admin} y solo pueden usarla los usuarios con rol ADMIN.
+ * </p>
+ */
+@RestController
+@RequestMapping("/api/admin")
+public class AdminControlador {
+
+	private static final Logger log = LoggerFactory.getLogger(AdminControlador.class);
+
+	private final ImportadorUsuarios importadorUsuarios;
+	private final ObjectProvider<VigilanteReplica> vigilanteReplica; // Solo existe si hay réplica configurada
+	private final EstadisticasCacheServicio estadisticasCache;
+	private final EventosServicio eventos;
+	private final LimitadorLogin limitadorLogin;
+
+	@Autowired
+	public AdminControlador(ImportadorUsuarios importadorUsuarios, ObjectProvider<VigilanteReplica> vigilanteReplica,
+			EstadisticasCacheServicio estadisticasCache, EventosServicio eventos, LimitadorLogin limitadorLogin) {
+		this.importadorUsuarios = importadorUsuarios;
+		this.vigilanteReplica = vigilanteReplica;
+		this.estadisticasCache = estadisticasCache;
+		this.eventos = eventos;
+		this.limitadorLogin = limitadorLogin;
+	}
+
+	/**
+	 * Endpoint con los contadores del límite de intentos de login.
+	 * <p>
+	 * Devuelve los intentos permitidos y rechazados desde el arranque, los emails e IPs
+	 * que se están recordando y los olvidados antes de tiempo por falta de sitio.
+	 * </p>
+	 *
+	 * @return ResponseEntity con los contadores
+	 */
+	@GetMapping("/login")
+	public ResponseEntity<?> estadoLogin() {
+		Map<String, Object> estado = new LinkedHashMap<>();
+		estado.put("permitidos", limitadorLogin.getPermitidos());
+		estado.put("rechazados", limitadorLogin.getRechazados());
+		estado.put("claves", limitadorLogin.getClaves());
+		estado.put("desplazadas", limitadorLogin.getDesplazadas());
+		return ResponseEntity.ok(estado);
+	}
+
+	/**
+	 * Endpoint con las estadísticas de la caché de segundo nivel.
+	 * <p>
+	 * Devuelve, para cada región (entidades y resolución de emails), los aciertos,
+	 * fallos y escrituras acumulados desde el arranque y los elementos en memoria.
+	 * </p>
+	 *
+	 * @return ResponseEntity con las estadísticas por región
+	 */
+	@GetMapping("/cache")
+	public ResponseEntity<?> estadisticasCache() {
+		return ResponseEntity.ok(estadisticasCache.porRegion());
+	}
+
+	/**
+	 * Endpoint con el estado de la réplica de lectura.
+	 * <p>
+	 * Indica si las transacciones de solo lectura se están enviando a la réplica y el
+	 * último retraso medido en segundos (-1 si no responde). Responde 404 si no hay
+	 * réplica configurada.
+	 * </p>
+	 *
+	 * @return ResponseEntity con el estado de la réplica
+	 */
+	@GetMapping("/replica")
+	public ResponseEntity<?> estadoReplica() {
+		VigilanteReplica vigilante = vigilanteReplica.getIfAvailable();
+		if (vigilante == null) {
+			return ResponseEntity.status(HttpStatus.NOT_FOUND).body("No hay réplica de lectura configurada.");
+		}
+		Map<String, Object> estado = new LinkedHashMap<>();
+		estado.put("disponible", vigilante.disponible());
+		estado.put("retrasoSegundos", vigilante.getRetrasoSegundos());
+		return ResponseEntity.ok(estado);
+	}
+
+	/**
+	 * Endpoint con el estado de las suscripciones a eventos de cambios.
+	 * <p>
+	 * Devuelve las suscripciones abiertas y las cerradas desde el arranque por no leer
+	 * los eventos a tiempo.
+	 * </p>
+	 *
+	 * @return ResponseEntity con el estado de las suscripciones
+	 */
+	@GetMapping("/eventos")
+	public ResponseEntity<?> estadoEventos() {
+		Map<String, Object> estado = new LinkedHashMap<>();
+		estado.put("suscriptores", eventos.getSuscriptores());
+		estado.put("desbordados", eventos.getDesbordados());
+		return ResponseEntity.ok(estado);
+	}
+
+	/**
+	 * Endpoint para importar usuarios de forma masiva.
+	 * <p>
+	 * El cuerpo de la petición es el propio fichero (no multipart), en CSV con
+	 * cabecera o en NDJSON ({@code Content-Type: application/x-ndjson}), y se lee en
+	 * streaming sin cargarlo en memoria. Responde con el resumen de la importación y,
+	 * si hubo filas rechazadas, la ruta en el servidor del fichero de rechazos.
+	 * </p>
+	 *
+	 * @param contentType tipo de contenido, del que se deduce el formato
+	 * @param request     petición HTTP cuyo cuerpo es el fichero
+	 * @return ResponseEntity con el resumen o el mensaje de error
+	 */
+	@PostMapping("/usuarios/importacion")
+	public ResponseEntity<?> importarUsuarios(@RequestHeader(value = HttpHeaders.CONTENT_TYPE, required = false) String contentType,
+			HttpServletRequest request) {
+		try (InputStream entrada = request.getInputStream()) {
+			return ResponseEntity.ok(importadorUsuarios.importar(entrada, FormatoImportacion.deducir(contentType)));
+		} catch (ImportacionEnCursoException e) {
+			return ResponseEntity.status(HttpStatus.CONFLICT).body(e.getMessage());
+		} catch (IllegalArgumentException e) {
+			return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(e.getMessage());
+		} catch (Exception e) {
+			// El mensaje puede llevar el SQL o los datos del fichero: solo va al log
+			log.error("Error al importar los usuarios.", e);
+			return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body("Error al importar los usuarios.");
+		}
+	}
+}
@@ -1,20 +1,52 @@
 package edu.proyectoCompleto.controladores;
 
 import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.channels.Channels;
+import java.nio.channels.ReadableByteChannel;
 
-import jakarta.persistence.EntityNotFoundException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
 
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.util.unit.DataSize;
 import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
 import edu.proyectoCompleto.dtos.ClubDto;
+import edu.proyectoCompleto.dtos.EventoCambio;
+import edu.proyectoCompleto.dtos.Pagina;
+import edu.proyectoCompleto.dtos.PerfilClub;
+import edu.proyectoCompleto.dtos.ResumenClub;
+import edu.proyectoCompleto.medios.AlmacenMedios;
+import edu.proyectoCompleto.medios.GeneradorVariantes;
+import edu.proyectoCompleto.medios.MedioNoValidoException;
+import edu.proyectoCompleto.medios.ServidorMedios;
+import edu.proyectoCompleto.seguridad.LimitadorLogin;
+import edu.proyectoCompleto.servicios.BusquedaClubsServicio;
+import edu.proyectoCompleto.servicios.CambiosServicio;
+import edu.proyectoCompleto.servicios.EventosServicio;
 import edu.proyectoCompleto.servicios.GestionClubInterfaz;
+import edu.proyectoCompleto.utils.Compartimento;
+import edu.proyectoCompleto.utils.CompartimentoSaturadoException;
+import edu.proyectoCompleto.utils.CursorCambios;
+import edu.proyectoCompleto.utils.EtagVersion;
+import edu.proyectoCompleto.utils.IndiceEspacial;
 
 /**
  * Controlador REST para manejar las operaciones relacionadas con los clubs.
@@ -27,16 +59,59 @@ import edu.proyectoCompleto.servicios.GestionClubInterfaz;
 @RequestMapping("/api/clubs")
 public class ClubControlador {
 private final GestionClubInterfaz clubInterfaz;
+private final Compartimento compartimentoSubidas;
+private final LimitadorLogin limitadorLogin;
+private final AlmacenMedios almacenMedios;
+private final DataSize tamanoMaximoImagen;
+
+    private static final String COORDENADAS_NO_VALIDAS =
+            "La latitud (-90 a 90) y la longitud (-180 a 180) deben indicarse juntas.";
+
+    @Value("${listados.tamano-maximo:200}")
+    private int tamanoMaximoPagina; // Número máximo de clubs por página en los listados
+
+    @Value("${lotes.maximo:500}")
+    private int maximoLote; // Número máximo de clubs en un alta o un borrado por lotes
+
+    @Autowired
+    private ServidorMedios servidorMedios; // Envía las imágenes con ETag, Range y caché
+
+    @Autowired
+    private GeneradorVariantes generadorVariantes; // Elige la miniatura adecuada al tamaño pedido
+
+    @Autowired
+    private BusquedaClubsServicio busquedaClubs; // Búsqueda aproximada por nombre y sede, y por cercanía
+
+    @Autowired
+    private EventosServicio eventos; // Envía los cambios en los clubs a los suscriptores
+
+    @Autowired
+    private CambiosServicio cambios; // Cambios en los clubs desde el cursor de un cliente
+
+    @Value("${busqueda.clubs.radio-maximo-km:200}")
+    private double radioMaximoKm; // Radio máximo de las búsquedas de clubs cercanos
     
     /**
-     * Constructor que inyecta la dependencia de {@link GestionClubInterfaz}.
+     * Constructor que inyecta la dependencia de {@link GestionClubInterfaz}, el
+     * compartimento de subidas, el limitador de intentos de login y el almacén de medios.
      *
      * @param clubInterfaz instancia del servicio de clubs
+     * @param compartimentoSubidas compartimento para las subidas de imágenes
+     * @param limitadorLogin limitador de intentos de login por email e IP
+     * @param almacenMedios almacén al que se copian las imágenes subidas
+     * @param tamanoMaximoImagen tamaño máximo de una imagen subida
      */
 
     @Autowired
-    public ClubControlador(GestionClubInterfaz clubInterfaz) {
+    public ClubControlador(GestionClubInterfaz clubInterfaz,
+            @Qualifier("compartimentoSubidas") Compartimento compartimentoSubidas,
+            LimitadorLogin limitadorLogin, AlmacenMedios almacenMedios,
+            @Value("${medios.tamano-maximo:5MB}") DataSize tamanoMaximoImagen) {
         this.clubInterfaz = clubInterfaz;
+        this.compartimentoSubidas = compartimentoSubidas;
+        this.limitadorLogin = limitadorLogin;
+        this.almacenMedios = almacenMedios;
+        this.tamanoMaximoImagen = tamanoMaximoImagen;
     }
     /**
      * Endpoint para crear un nuevo club.
@@ -52,6 +127,9 @@ private final GestionClubInterfaz clubInterfaz;
 
     @PostMapping
     public ResponseEntity<String> crearClub(@RequestBody ClubDto clubDto) {
+        if (!IndiceEspacial.coordenadasValidas(clubDto.getLatitudClub(), clubDto.getLongitudClub())) {
+            return ResponseEntity.badRequest().body(COORDENADAS_NO_VALIDAS);
+        }
         try {
             clubInterfaz.altaClub(clubDto);
             return ResponseEntity.status(HttpStatus.CREATED).body("Club creado con éxito.");
@@ -62,6 +140,155 @@ private final GestionClubInterfaz clubInterfaz;
         }
     }
     
+    /**
+     * Endpoint para listar los clubs, paginados por id.
+     * <p>
+     * No hay número de página: cada respuesta incluye en {@code siguiente} el valor de
+     * {@code despuesDe} para pedir la página siguiente (null en la última).
+     * </p>
+     *
+     * @param despuesDe id del último club de la página anterior (0 para la primera)
+     * @param sede sede por la que filtrar (opcional)
+     * @param tamano número de clubs por página (se limita a {@code listados.tamano-maximo})
+     * @return ResponseEntity con la página de clubs
+     */
+    @GetMapping
+    public ResponseEntity<Pagina<ResumenClub>> listarClubs(@RequestParam(defaultValue = "0") long despuesDe,
+            @RequestParam(required = false) String sede, @RequestParam(defaultValue = "50") int tamano) {
+        int tamanoPagina = Math.max(1, Math.min(tamano, tamanoMaximoPagina));
+        return ResponseEntity.ok(clubInterfaz.listarClubs(despuesDe, sede, tamanoPagina));
+    }
+
+    /**
+     * Endpoint para buscar clubs por parte de su nombre o de su sede.
+     * <p>
+     * Tolera erratas, tildes y palabras a medio escribir, y devuelve primero los
+     * clubs más parecidos, pensado para sugerir resultados mientras se escribe.
+     * </p>
+     *
+     * @param q      texto buscado
+     * @param limite número máximo de clubs (se limita a {@code listados.tamano-maximo})
+     * @return ResponseEntity con los clubs encontrados, o 400 si no se indica texto
+     */
+    @GetMapping("/buscar")
+    public ResponseEntity<?> buscarClubs(@RequestParam(required = false) String q,
+            @RequestParam(defaultValue = "10") int limite) {
+        if (q == null || q.isBlank()) {
+            return ResponseEntity.badRequest().body("Indica el texto a buscar.");
+        }
+        int maximo = Math.max(1, Math.min(limite, tamanoMaximoPagina));
+        return ResponseEntity.ok(busquedaClubs.buscar(q.trim(), maximo));
+    }
+
+    /**
+     * Endpoint para buscar los clubs más cercanos a una posición.
+     * <p>
+     * Solo tiene en cuenta los clubs con ubicación. Devuelve cada club con su distancia
+     * en kilómetros, del más al menos cercano.
+     * </p>
+     *
+     * @param lat     latitud de la posición en grados
+     * @param lon     longitud de la posición en grados
+     * @param radioKm distancia máxima en kilómetros (se limita a {@code busqueda.clubs.radio-maximo-km})
+     * @param limit   número máximo de clubs (se limita a {@code listados.tamano-maximo})
+     * @return ResponseEntity con los clubs encontrados, o 400 si la posición o el radio no son válidos
+     */
+    @GetMapping("/cercanos")
+    public ResponseEntity<?> buscarCercanos(@RequestParam double lat, @RequestParam double lon,
+            @RequestParam(defaultValue = "10") double radioKm, @RequestParam(defaultValue = "10") int limit) {
+        if (!IndiceEspacial.coordenadasValidas(lat, lon)) {
+            return ResponseEntity.badRequest().body(COORDENADAS_NO_VALIDAS);
+        }
+        if (!(radioKm > 0)) {
+            return ResponseEntity.badRequest().body("El radio debe ser mayor que 0.");
+        }
+        int maximo = Math.max(1, Math.min(limit, tamanoMaximoPagina));
+        return ResponseEntity.ok(busquedaClubs.cercanos(lat, lon, Math.min(radioKm, radioMaximoKm), maximo));
+    }
+
+    /**
+     * Endpoint con los cambios en los clubs como Server-Sent Events, para no tener que
+     * consultar el listado periódicamente.
+     * <p>
+     * Envía un evento {@code alta}, {@code modificacion} o {@code baja} con el id y la
+     * versión del club por cada cambio confirmado, solo de los clubs de {@code ids} si
+     * se indican. Un cliente que no lee al ritmo de los eventos recibe
+     * {@code desbordado} y se le cierra la conexión. Devuelve 503 si ya hay demasiadas
+     * suscripciones abiertas, en total o de este cliente.
+     * </p>
+     *
+     * @param ids     identificadores de los clubs que interesan (opcional, todos si no se indican)
+     * @param request petición HTTP, para limitar las suscripciones de cada cliente
+     * @return ResponseEntity con el flujo de eventos
+     */
+    @GetMapping(path = "/eventos", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public ResponseEntity<SseEmitter> suscribirEventos(@RequestParam(required = false) Set<Long> ids,
+            HttpServletRequest request) {
+        if (ids != null && ids.size() > maximoLote) {
+            return ResponseEntity.badRequest().build();
+        }
+        return eventos.suscribir(EventoCambio.Entidad.CLUB, ids == null ? Set.of() : ids, request.getRemoteAddr())
+                .map(ResponseEntity::ok)
+                .orElseGet(() -> ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                        .header(HttpHeaders.RETRY_AFTER, "10").build());
+    }
+
+    /**
+     * Endpoint de sincronización incremental: los clubs dados de alta, modificados o
+     * eliminados desde el cursor de la sincronización anterior.
+     * <p>
+     * La primera vez se llama sin {@code desde}. Cada respuesta trae en {@code siguiente}
+     * el cursor para la próxima llamada, que el cliente guarda tal cual; si
+     * {@code completa} es false quedan más cambios y se puede pedir la página siguiente
+     * en el momento. Devuelve 400 si el cursor no es válido y 410 si el cliente lleva
+     * más de {@code cambios.retencion-bajas-dias} sin sincronizar, porque ya no se
+     * guardan las bajas de entonces: debe volver a sincronizar sin cursor.
+     * </p>
+     *
+     * @param desde cursor de la sincronización anterior (opcional)
+     * @param tamano número máximo de cambios (se limita a {@code listados.tamano-maximo})
+     * @return ResponseEntity con la página de cambios
+     */
+    @GetMapping("/cambios")
+    public ResponseEntity<?> cambiosClubs(@RequestParam(required = false) String desde,
+            @RequestParam(defaultValue = "100") int tamano) {
+        CursorCambios cursor;
+        try {
+            cursor = CursorCambios.leer(desde);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
+        int tamanoPagina = Math.max(1, Math.min(tamano, tamanoMaximoPagina));
+        return cambios.cambiosClubs(cursor, tamanoPagina)
+                .<ResponseEntity<?>>map(ResponseEntity::ok)
+                .orElseGet(() -> ResponseEntity.status(HttpStatus.GONE)
+                        .body("El cursor ha caducado: vuelve a cargar los clubs y sincroniza sin cursor."));
+    }
+
+    /**
+     * Endpoint para dar de alta un lote de clubs (solo ADMIN).
+     * <p>
+     * Cada club se resuelve por separado: la respuesta indica, en el mismo orden que
+     * el lote, cuáles se han creado y cuáles se han rechazado por repetir el email,
+     * sin abortar el resto.
+     * </p>
+     *
+     * @param clubsDto clubs a crear
+     * @return ResponseEntity con el resultado de cada club, o el mensaje de error
+     */
+    @PostMapping("/batch")
+    public ResponseEntity<?> crearClubs(@RequestBody List<ClubDto> clubsDto) {
+        if (clubsDto.size() > maximoLote) {
+            return ResponseEntity.status(HttpStatus.PAYLOAD_TOO_LARGE)
+                    .body("El lote no puede superar los " + maximoLote + " clubs.");
+        }
+        try {
+            return ResponseEntity.ok(clubInterfaz.altaClubs(clubsDto));
+        } catch (Exception e) {
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body("Error al crear los clubs: " + e.getMessage());
+        }
+    }
+
     /**
      * Endpoint para eliminar un club por su nombre.
      * <p>
@@ -75,14 +302,37 @@ private final GestionClubInterfaz clubInterfaz;
     @DeleteMapping("/{nombreClub}")
     public ResponseEntity<String> eliminarClub(@PathVariable String nombreClub) {
         try {
-            clubInterfaz.eliminarClub(nombreClub);
+            if (clubInterfaz.eliminarClub(nombreClub) == 0) {
+                return ResponseEntity.status(HttpStatus.NOT_FOUND).body("Club no encontrado: " + nombreClub);
+            }
             return ResponseEntity.ok("Club eliminado con éxito.");
-        } catch (EntityNotFoundException e) {
-            return ResponseEntity.status(HttpStatus.NOT_FOUND).body("Club no encontrado: " + nombreClub);
         } catch (Exception e) {
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body("Error al eliminar el club: " + e.getMessage());
         }
     }
+
+    /**
+     * Endpoint para eliminar un lote de clubs por sus identificadores (solo ADMIN).
+     * <p>
+     * Todo el lote se borra con una única sentencia DELETE y se devuelve el número
+     * de clubs eliminados; los identificadores que no existen simplemente no cuentan.
+     * </p>
+     *
+     * @param idsClub identificadores de los clubs a eliminar
+     * @return ResponseEntity con el número de clubs eliminados
+     */
+    @PostMapping("/batch/delete")
+    public ResponseEntity<?> eliminarClubs(@RequestBody List<Long> idsClub) {
+        if (idsClub.size() > maximoLote) {
+            return ResponseEntity.status(HttpStatus.PAYLOAD_TOO_LARGE)
+                    .body("El lote no puede superar los " + maximoLote + " clubs.");
+        }
+        try {
+            return ResponseEntity.ok(Map.of("eliminados", clubInterfaz.eliminarClubs(idsClub)));
+        } catch (Exception e) {
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body("Error al eliminar los clubs: " + e.getMessage());
+        }
+    }
     
 
     /**
@@ -91,14 +341,22 @@ private final GestionClubInterfaz clubInterfaz;
      * Recibe un {@link LoginClub} con las credenciales del club (email y contraseña).
      * Si las credenciales son válidas, devuelve un mensaje de bienvenida con estado HTTP 200 (OK).
      * Si las credenciales son incorrectas, devuelve un estado HTTP 401 (Unauthorized).
+     * Si se supera el límite de intentos por email o IP, devuelve un estado HTTP 429
+     * (Too Many Requests) sin consultar la base de datos.
      * </p>
      *
      * @param loginDto datos de inicio de sesión (email y contraseña)
+     * @param request petición HTTP, para obtener la IP del cliente
      * @return ResponseEntity con el mensaje de éxito o error
      */
 
     @PostMapping("/login")
-    public ResponseEntity<String> loginClub(@RequestBody ClubDto clubDto) {
+    public ResponseEntity<String> loginClub(@RequestBody ClubDto clubDto, HttpServletRequest request) {
+        if (!limitadorLogin.permitir(clubDto.getEmailClub(), request.getRemoteAddr())) {
+            return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                    .header(HttpHeaders.RETRY_AFTER, "60")
+                    .body("Demasiados intentos de inicio de sesión. Inténtalo más tarde.");
+        }
         try {
             Optional<ClubDto> clubOpt = clubInterfaz.loginClub(clubDto.getEmailClub(), clubDto.getPasswdClub());
             if (clubOpt.isPresent()) {
@@ -111,43 +369,128 @@ private final GestionClubInterfaz clubInterfaz;
         }
     }
     
+    /**
+     * Endpoint para descargar la imagen de un club.
+     * <p>
+     * Solo consulta la clave de la imagen; si el cliente envía {@code If-None-Match} con
+     * ese valor se responde 304 sin leer el fichero. Admite peticiones {@code Range}.
+     * Con {@code size} se sirve la miniatura más pequeña que cubre ese lado, o el
+     * original mientras la miniatura no se ha generado (sin que se guarde en caché).
+     * </p>
+     *
+     * @param idClub identificador del club
+     * @param size lado en píxeles que necesita el cliente (opcional)
+     * @param request petición HTTP
+     * @param response respuesta HTTP en la que se escribe la imagen
+     */
+    @GetMapping("/{idClub}/imagen")
+    public void obtenerImagen(@PathVariable long idClub, @RequestParam(required = false) Integer size,
+            HttpServletRequest request, HttpServletResponse response) throws IOException {
+        Optional<String> refImagen = clubInterfaz.obtenerRefImagen(idClub);
+        if (refImagen.isEmpty()) {
+            response.sendError(HttpStatus.NOT_FOUND.value(), "Imagen no encontrada.");
+            return;
+        }
+        GeneradorVariantes.Eleccion eleccion = generadorVariantes.elegir(refImagen.get(), size);
+        servidorMedios.servir(eleccion.clave(), eleccion.provisional(), request, response);
+    }
+
+    /**
+     * Endpoint para obtener los datos públicos y la ubicación de un club.
+     * <p>
+     * La versión del club va en la cabecera {@code ETag}; enviándola en {@code If-Match}
+     * al modificarlo, la modificación no pisa los cambios hechos entretanto desde otro
+     * dispositivo.
+     * </p>
+     *
+     * @param idClub identificador del club
+     * @return ResponseEntity con los datos del club, o 404 si no existe
+     */
+    @GetMapping("/{idClub}")
+    public ResponseEntity<?> obtenerClub(@PathVariable long idClub) {
+        Optional<PerfilClub> perfil = clubInterfaz.obtenerClub(idClub);
+        if (perfil.isEmpty()) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).body("Club no encontrado.");
+        }
+        return ResponseEntity.ok().eTag(EtagVersion.etag(perfil.get().getVersionClub())).body(perfil.get());
+    }
+
     /**
      * Endpoint para modificar los campos nombre, sede e imagen de un club.
      * <p>
      * Recibe el identificador del club a modificar y los datos actualizados (nombre, sede e imagen).
-     * Si la modificación es exitosa, devuelve un estado HTTP 200 (OK).
-     * Si el club no existe, devuelve un estado HTTP 404 (Not Found).
+     * Si la modificación es exitosa, devuelve un estado HTTP 200 (OK) con la nueva versión
+     * en {@code ETag}. Si el club no existe, devuelve un estado HTTP 404 (Not Found).
+     * Con {@code If-Match} solo se modifica si el club sigue en la versión de ese ETag; si
+     * otro lo ha modificado antes devuelve 412 (Precondition Failed) y no cambia nada.
+     * La imagen se copia por bloques al almacén de medios, comprobando su tamaño y su
+     * formato mientras se lee, y al servicio solo se le pasa su clave. Devuelve 413 si
+     * supera el tamaño máximo y 415 si no es una imagen admitida.
      * </p>
      *
      * @param idClub identificador del club a modificar
+     * @param ifMatch ETag de la versión que se modifica (opcional)
      * @param nuevoNombre nuevo nombre del club
      * @param nuevaSede nueva sede del club
      * @param nuevaImagen nueva imagen del club (como archivo en multipart)
+     * @param latitud nueva latitud de la sede (junto con la longitud)
+     * @param longitud nueva longitud de la sede (junto con la latitud)
      * @return ResponseEntity con el mensaje de éxito o error
      */
     @PutMapping("/{idClub}")
-    public ResponseEntity<String> modificarClub(
+    public CompletableFuture<ResponseEntity<String>> modificarClub(
             @PathVariable long idClub,
+            @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch,
             @RequestParam(required = false) String nuevoNombre,
             @RequestParam(required = false) String nuevaSede,
-            @RequestParam(required = false) MultipartFile nuevaImagen) {
+            @RequestParam(required = false) MultipartFile nuevaImagen,
+            @RequestParam(required = false) Double latitud,
+            @RequestParam(required = false) Double longitud) {
 
+        if (!IndiceEspacial.coordenadasValidas(latitud, longitud)) {
+            return CompletableFuture.completedFuture(ResponseEntity.badRequest().body(COORDENADAS_NO_VALIDAS));
+        }
+        Long versionEsperada;
+        try {
+            versionEsperada = EtagVersion.versionEsperada(ifMatch);
+        } catch (IllegalArgumentException e) {
+            return CompletableFuture.completedFuture(ResponseEntity.badRequest().body(e.getMessage()));
+        }
         try {
-            byte[] imagenBytes = null;
+            // La lectura de la imagen y la escritura en base de datos ocupan el compartimento de subidas
+            return compartimentoSubidas.enviar(() -> {
+                try {
+                    String refImagen = null;
 
-            if (nuevaImagen != null && !nuevaImagen.isEmpty()) {
-                imagenBytes = nuevaImagen.getBytes(); // Convertir la imagen a bytes
-            }
+                    if (nuevaImagen != null && !nuevaImagen.isEmpty()) {
+                        // Copiar la imagen al almacén sin cargarla entera en memoria
+                        try (ReadableByteChannel canal = Channels.newChannel(nuevaImagen.getInputStream())) {
+                            refImagen = almacenMedios.guardarImagen(canal, tamanoMaximoImagen.toBytes());
+                        }
+                    }
 
-            boolean exito = clubInterfaz.modificarClub(idClub, nuevoNombre, nuevaSede, imagenBytes);
+                    Optional<Long> version = clubInterfaz.modificarClub(idClub, versionEsperada, nuevoNombre,
+                            nuevaSede, refImagen, latitud, longitud);
 
-            if (exito) {
-                return ResponseEntity.ok("Club modificado con éxito.");
-            } else {
-                return ResponseEntity.status(HttpStatus.NOT_FOUND).body("Club no encontrado.");
-            }
-        } catch (IOException e) {
-            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body("Error al procesar la imagen.");
+                    if (version.isPresent()) {
+                        return ResponseEntity.ok().eTag(EtagVersion.etag(version.get())).body("Club modificado con éxito.");
+                    } else {
+                        return ResponseEntity.status(HttpStatus.NOT_FOUND).body("Club no encontrado.");
+                    }
+                } catch (OptimisticLockingFailureException e) {
+                    return ResponseEntity.status(HttpStatus.PRECONDITION_FAILED)
+                            .body("El club ha cambiado desde que se leyó. Vuelve a obtenerlo antes de modificarlo.");
+                } catch (MedioNoValidoException e) {
+                    return ResponseEntity.status(e.getMotivo() == MedioNoValidoException.Motivo.DEMASIADO_GRANDE
+                            ? HttpStatus.PAYLOAD_TOO_LARGE : HttpStatus.UNSUPPORTED_MEDIA_TYPE).body(e.getMessage());
+                } catch (IOException | UncheckedIOException e) {
+                    return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body("Error al procesar la imagen.");
+                }
+            });
+        } catch (CompartimentoSaturadoException e) {
+            return CompletableFuture.completedFuture(ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                    .header(HttpHeaders.RETRY_AFTER, "1")
+                    .body("Servidor ocupado, inténtalo de nuevo en unos segundos."));
         }
     }
 }
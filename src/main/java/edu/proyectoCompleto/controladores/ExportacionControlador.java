@@ -0,0 +1,90 @@
+package edu.proyectoCompleto.controladores;
+
+import java.time.Duration;
+import java.util.concurrent.Callable;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.NativeWebRequest;
+import org.springframework.web.context.request.async.AsyncWebRequest;
+import org.springframework.web.context.request.async.CallableProcessingInterceptor;
+import org.springframework.web.context.request.async.WebAsyncUtils;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import edu.proyectoCompleto.servicios.ExportacionServicio;
+import jakarta.servlet.http.HttpServletRequest;
+
+/**
+ * Controlador REST para exportar todos los usuarios y clubs.
+ * <p>
+ * La ruta base es {@code /api/export} y solo pueden usarla los usuarios con rol
+ * ADMIN. Las respuestas son NDJSON ({@code application/x-ndjson}) y se escriben en
+ * streaming según se leen las filas.
+ * </p>
+ * <p>
+ * Una exportación completa puede durar varios minutos, así que solo estas respuestas
+ * tienen un tiempo máximo de {@code exportacion.tiempo-maximo}; el resto de peticiones
+ * asíncronas conservan el del servidor.
+ * </p>
+ */
+@RestController
+@RequestMapping("/api/export")
+public class ExportacionControlador {
+
+	private static final MediaType NDJSON = MediaType.parseMediaType("application/x-ndjson");
+
+	private final ExportacionServicio exportacionServicio;
+	private final Duration tiempoMaximo;
+
+	@Autowired
+	public ExportacionControlador(ExportacionServicio exportacionServicio,
+			@Value("${exportacion.tiempo-maximo:30m}") Duration tiempoMaximo) {
+		this.exportacionServicio = exportacionServicio;
+		this.tiempoMaximo = tiempoMaximo;
+	}
+
+	/**
+	 * Endpoint para exportar todos los usuarios, sin fotos ni contraseñas.
+	 *
+	 * @param request petición HTTP, para ampliar su tiempo máximo
+	 * @return ResponseEntity con un usuario por línea
+	 */
+	@GetMapping("/usuarios")
+	public ResponseEntity<StreamingResponseBody> exportarUsuarios(HttpServletRequest request) {
+		ampliarTiempoMaximo(request);
+		return ResponseEntity.ok().contentType(NDJSON).body(exportacionServicio::exportarUsuarios);
+	}
+
+	/**
+	 * Endpoint para exportar todos los clubs, sin imágenes ni contraseñas.
+	 *
+	 * @param request petición HTTP, para ampliar su tiempo máximo
+	 * @return ResponseEntity con un club por línea
+	 */
+	@GetMapping("/clubs")
+	public ResponseEntity<StreamingResponseBody> exportarClubs(HttpServletRequest request) {
+		ampliarTiempoMaximo(request);
+		return ResponseEntity.ok().contentType(NDJSON).body(exportacionServicio::exportarClubs);
+	}
+
+	/**
+	 * Aplica {@code exportacion.tiempo-maximo} a esta petición cuando empiece a escribirse
+	 * la respuesta en segundo plano, en lugar del tiempo máximo general.
+	 */
+	private void ampliarTiempoMaximo(HttpServletRequest request) {
+		WebAsyncUtils.getAsyncManager(request).registerCallableInterceptor(ExportacionControlador.class,
+				new CallableProcessingInterceptor() {
+					@Override
+					public <T> void beforeConcurrentHandling(NativeWebRequest peticion, Callable<T> tarea) {
+						if (peticion instanceof AsyncWebRequest asincrona) {
+							asincrona.setTimeout(tiempoMaximo.toMillis());
+						}
+					}
+				});
+	}
+}
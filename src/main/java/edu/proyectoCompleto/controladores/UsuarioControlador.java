@@ -1,28 +1,61 @@
 package edu.proyectoCompleto.controladores;
 
-import jakarta.persistence.EntityNotFoundException;
 
 import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.channels.Channels;
+import java.nio.channels.ReadableByteChannel;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.util.unit.DataSize;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
+import edu.proyectoCompleto.dtos.EventoCambio;
+import edu.proyectoCompleto.dtos.FichaUsuario;
+import edu.proyectoCompleto.dtos.Pagina;
+import edu.proyectoCompleto.dtos.PerfilUsuario;
 import edu.proyectoCompleto.dtos.UsuarioDto;
+import edu.proyectoCompleto.medios.AlmacenMedios;
+import edu.proyectoCompleto.medios.GeneradorVariantes;
+import edu.proyectoCompleto.medios.MedioNoValidoException;
+import edu.proyectoCompleto.medios.ServidorMedios;
+import edu.proyectoCompleto.seguridad.LimitadorLogin;
+import edu.proyectoCompleto.seguridad.UsuarioAutenticado;
+import edu.proyectoCompleto.seguridad.UsuarioToken;
+import edu.proyectoCompleto.servicios.DisponibilidadServicio;
+import edu.proyectoCompleto.servicios.EventosServicio;
 import edu.proyectoCompleto.servicios.GestionUsuarioInterfaz;
+import edu.proyectoCompleto.utils.Compartimento;
+import edu.proyectoCompleto.utils.CompartimentoSaturadoException;
+import edu.proyectoCompleto.utils.EtagVersion;
 import edu.proyectoCompleto.utils.JwtUtil;
 import jakarta.validation.constraints.Email;
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.Size;
 import jakarta.validation.Valid;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
 
 /**
  * Controlador REST para manejar las operaciones relacionadas con los usuarios.
@@ -40,102 +73,458 @@ public class UsuarioControlador {
 	@Autowired
 	private JwtUtil jwtUtil; // Inyectamos el JwtUtil para generar el token JWT
 
+	@Autowired
+	private LimitadorLogin limitadorLogin; // Limita los intentos de login por email e IP
+
+	@Autowired
+	private AlmacenMedios almacenMedios; // Almacén al que se copian las fotos subidas
+
+	@Value("${medios.tamano-maximo:5MB}")
+	private DataSize tamanoMaximoImagen; // Tamaño máximo de una foto subida
+
+	@Value("${listados.tamano-maximo:200}")
+	private int tamanoMaximoPagina; // Número máximo de usuarios por página en los listados
+
+	@Value("${lotes.maximo:500}")
+	private int maximoLote; // Número máximo de usuarios en un alta o un borrado por lotes
+
+	@Value("${usuarios.rol-por-defecto:USUARIO}")
+	private String rolPorDefecto; // Rol de los usuarios que se registran sin ser ADMIN
+
+	@Autowired
+	private ServidorMedios servidorMedios; // Envía las fotos con ETag, Range y caché
+
+	@Autowired
+	private GeneradorVariantes generadorVariantes; // Elige la miniatura adecuada al tamaño pedido
+
+	@Autowired
+	private DisponibilidadServicio disponibilidad; // Comprueba nicknames, emails y DNIs con filtros en memoria
+
+	@Autowired
+	private EventosServicio eventos; // Envía los cambios en los usuarios a los suscriptores
+
+	// Compartimentos que aíslan el trabajo costoso de los hilos de Tomcat
+	private final Compartimento compartimentoLogin;
+	private final Compartimento compartimentoRegistro;
+	private final Compartimento compartimentoSubidas;
+
 	/**
-     * Constructor que inyecta la dependencia de {@link GestionUsuarioInterfaz} y AuthenticationManager.
+     * Constructor que inyecta la dependencia de {@link GestionUsuarioInterfaz}, AuthenticationManager
+     * y los compartimentos de login, registro y subidas.
      *
      * @param usuarioInterfaz instancia del servicio de usuarios
      * @param authenticationManager instancia del AuthenticationManager
+     * @param compartimentoLogin compartimento para las comprobaciones de contraseña del login
+     * @param compartimentoRegistro compartimento para el cifrado de contraseñas del registro
+     * @param compartimentoSubidas compartimento para las subidas de fotos
      */
     @Autowired
-    public UsuarioControlador(GestionUsuarioInterfaz usuarioInterfaz, AuthenticationManager authenticationManager) {
+    public UsuarioControlador(GestionUsuarioInterfaz usuarioInterfaz, AuthenticationManager authenticationManager,
+            @Qualifier("compartimentoLogin") Compartimento compartimentoLogin,
+            @Qualifier("compartimentoRegistro") Compartimento compartimentoRegistro,
+            @Qualifier("compartimentoSubidas") Compartimento compartimentoSubidas) {
         this.usuarioInterfaz = usuarioInterfaz;
         this.authenticationManager = authenticationManager;
+        this.compartimentoLogin = compartimentoLogin;
+        this.compartimentoRegistro = compartimentoRegistro;
+        this.compartimentoSubidas = compartimentoSubidas;
     }
 
 	/**
 	 * Endpoint para crear un nuevo usuario.
+	 * <p>
+	 * El alta (que cifra la contraseña con BCrypt) se ejecuta en el compartimento de
+	 * registro; si está saturado se responde al momento con 503. El usuario recibe
+	 * siempre el rol {@code usuarios.rol-por-defecto}: solo un ADMIN puede elegir otro.
+	 * </p>
 	 *
 	 * @param usuarioDto datos del usuario a crear
 	 * @return ResponseEntity con el mensaje de éxito o error
 	 */
 	@PostMapping
-	public ResponseEntity<String> crearUsuario(@RequestBody UsuarioDto usuarioDto) {
+	public CompletableFuture<ResponseEntity<String>> crearUsuario(@RequestBody UsuarioDto usuarioDto) {
+		asignarRol(usuarioDto, esAdmin()); // Antes de cambiar de hilo: el contexto de seguridad es del hilo de la petición
 		try {
-			usuarioInterfaz.altaUsuario(usuarioDto);
-			return ResponseEntity.status(HttpStatus.CREATED).body("Usuario creado con éxito.");
-		} catch (DataIntegrityViolationException e) {
-			return ResponseEntity.status(HttpStatus.BAD_REQUEST).body("Error: " + e.getMessage());
-		} catch (Exception e) {
-			return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
-					.body("Error al crear el usuario: " + e.getMessage());
+			return compartimentoRegistro.enviar(() -> {
+				try {
+					usuarioInterfaz.altaUsuario(usuarioDto);
+					return ResponseEntity.status(HttpStatus.CREATED).body("Usuario creado con éxito.");
+				} catch (DataIntegrityViolationException e) {
+					return ResponseEntity.status(HttpStatus.BAD_REQUEST).body("Error: " + e.getMessage());
+				} catch (Exception e) {
+					return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+							.body("Error al crear el usuario: " + e.getMessage());
+				}
+			});
+		} catch (CompartimentoSaturadoException e) {
+			return saturado();
 		}
 	}
 
 	/**
-	 * Endpoint para eliminar un usuario por su nombre.
+	 * Endpoint para listar los usuarios, paginados por id.
+	 * <p>
+	 * No hay número de página: cada respuesta incluye en {@code siguiente} el valor de
+	 * {@code despuesDe} para pedir la página siguiente (null en la última), así que las
+	 * páginas profundas cuestan lo mismo que la primera.
+	 * </p>
 	 *
-	 * @param nombreUsuario nombre del usuario a eliminar
-	 * @return ResponseEntity con el mensaje de éxito o error
+	 * @param despuesDe id del último usuario de la página anterior (0 para la primera)
+	 * @param rol       rol por el que filtrar (opcional)
+	 * @param tamano    número de usuarios por página (se limita a {@code listados.tamano-maximo})
+	 * @return ResponseEntity con la página de usuarios
+	 */
+	@GetMapping
+	public ResponseEntity<Pagina<FichaUsuario>> listarUsuarios(@RequestParam(defaultValue = "0") long despuesDe,
+			@RequestParam(required = false) String rol, @RequestParam(defaultValue = "50") int tamano) {
+		int tamanoPagina = Math.max(1, Math.min(tamano, tamanoMaximoPagina));
+		return ResponseEntity.ok(usuarioInterfaz.listarUsuarios(despuesDe, rol, tamanoPagina));
+	}
+
+	/**
+	 * Endpoint para comprobar, mientras se rellena el registro, si un nickname, un email
+	 * o un DNI están libres.
+	 * <p>
+	 * Solo se responde por los campos enviados. Casi todas las respuestas "libre" salen
+	 * de los filtros en memoria sin consultar la base de datos.
+	 * </p>
+	 *
+	 * @param nickname nickname que se quiere registrar (opcional)
+	 * @param email    email que se quiere registrar (opcional)
+	 * @param dni      DNI que se quiere registrar (opcional)
+	 * @return ResponseEntity con true (libre) o false (en uso) por cada campo, o 400 si no se envía ninguno
+	 */
+	@GetMapping("/disponibilidad")
+	public ResponseEntity<?> comprobarDisponibilidad(@RequestParam(required = false) String nickname,
+			@RequestParam(required = false) String email, @RequestParam(required = false) String dni) {
+		Map<String, Boolean> disponibles = new LinkedHashMap<>();
+		if (nickname != null && !nickname.isBlank()) {
+			disponibles.put("nickname", disponibilidad.disponible(DisponibilidadServicio.Campo.NICKNAME, nickname));
+		}
+		if (email != null && !email.isBlank()) {
+			disponibles.put("email", disponibilidad.disponible(DisponibilidadServicio.Campo.EMAIL, email));
+		}
+		if (dni != null && !dni.isBlank()) {
+			disponibles.put("dni", disponibilidad.disponible(DisponibilidadServicio.Campo.DNI, dni));
+		}
+		if (disponibles.isEmpty()) {
+			return ResponseEntity.badRequest().body("Indica al menos un nickname, un email o un DNI.");
+		}
+		return ResponseEntity.ok(disponibles);
+	}
+
+	/**
+	 * Endpoint con los cambios en los usuarios como Server-Sent Events (solo ADMIN).
+	 * <p>
+	 * Envía un evento {@code alta}, {@code modificacion} o {@code baja} con el id y la
+	 * versión del usuario por cada cambio confirmado, solo de los usuarios de
+	 * {@code ids} si se indican. Las importaciones masivas no generan eventos. Un
+	 * cliente que no lee al ritmo de los eventos recibe {@code desbordado} y se le
+	 * cierra la conexión. Devuelve 503 si ya hay demasiadas suscripciones abiertas,
+	 * en total o de este cliente.
+	 * </p>
+	 *
+	 * @param ids     identificadores de los usuarios que interesan (opcional, todos si no se indican)
+	 * @param request petición HTTP, para limitar las suscripciones de cada cliente
+	 * @return ResponseEntity con el flujo de eventos
+	 */
+	@GetMapping(path = "/eventos", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+	public ResponseEntity<SseEmitter> suscribirEventos(@RequestParam(required = false) Set<Long> ids,
+			HttpServletRequest request) {
+		if (ids != null && ids.size() > maximoLote) {
+			return ResponseEntity.badRequest().build();
+		}
+		return eventos.suscribir(EventoCambio.Entidad.USUARIO, ids == null ? Set.of() : ids, request.getRemoteAddr())
+				.map(ResponseEntity::ok)
+				.orElseGet(() -> ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+						.header(HttpHeaders.RETRY_AFTER, "10").build());
+	}
+
+	/**
+	 * Endpoint para dar de alta un lote de usuarios (por ejemplo, una liga completa; solo ADMIN).
+	 * <p>
+	 * Cada usuario se resuelve por separado: la respuesta indica, en el mismo orden
+	 * que el lote, cuáles se han creado y cuáles se han rechazado por repetir
+	 * nickname, email o DNI, sin abortar el resto. Se ejecuta en el compartimento de
+	 * registro, como el alta individual, y los roles se asignan igual que en él.
+	 * </p>
+	 *
+	 * @param usuariosDto usuarios a crear
+	 * @return ResponseEntity con el resultado de cada usuario, o el mensaje de error
+	 */
+	@PostMapping("/batch")
+	public CompletableFuture<ResponseEntity<?>> crearUsuarios(@RequestBody List<UsuarioDto> usuariosDto) {
+		if (usuariosDto.size() > maximoLote) {
+			return CompletableFuture.completedFuture(ResponseEntity.status(HttpStatus.PAYLOAD_TOO_LARGE)
+					.body("El lote no puede superar los " + maximoLote + " usuarios."));
+		}
+		boolean admin = esAdmin();
+		usuariosDto.forEach(dto -> asignarRol(dto, admin));
+		try {
+			return compartimentoRegistro.enviar(() -> {
+				try {
+					return ResponseEntity.ok(usuarioInterfaz.altaUsuarios(usuariosDto));
+				} catch (Exception e) {
+					return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+							.body("Error al crear los usuarios: " + e.getMessage());
+				}
+			});
+		} catch (CompartimentoSaturadoException e) {
+			return CompletableFuture.completedFuture(respuestaSaturado());
+		}
+	}
+
+	/**
+	 * Endpoint para eliminar un usuario por su nickname.
+	 *
+	 * @param nicknameUsuario nickname del usuario a eliminar
+	 * @return ResponseEntity con el mensaje de éxito o 404 si el usuario no existe
 	 */
 	@DeleteMapping("/{nicknameUsuario}")
 	public ResponseEntity<String> eliminarUsuario(@PathVariable String nicknameUsuario) {
 		try {
-			usuarioInterfaz.eliminarUsuario(nicknameUsuario);
+			if (!usuarioInterfaz.eliminarUsuario(nicknameUsuario)) {
+				return ResponseEntity.status(HttpStatus.NOT_FOUND).body("Usuario no encontrado: " + nicknameUsuario);
+			}
 			return ResponseEntity.ok("Usuario eliminado con éxito.");
-		} catch (EntityNotFoundException e) {
-			return ResponseEntity.status(HttpStatus.NOT_FOUND).body("Usuario no encontrado: " + nicknameUsuario);
 		} catch (Exception e) {
 			return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
 					.body("Error al eliminar el usuario: " + e.getMessage());
 		}
 	}
 
+	/**
+	 * Endpoint para eliminar un lote de usuarios por sus nicknames (solo ADMIN).
+	 * <p>
+	 * Todo el lote se borra con una única sentencia DELETE. La respuesta indica qué
+	 * nicknames se han eliminado y cuáles no existían.
+	 * </p>
+	 *
+	 * @param nicknamesUsuario nicknames de los usuarios a eliminar
+	 * @return ResponseEntity con los nicknames eliminados y los no encontrados
+	 */
+	@PostMapping("/batch/delete")
+	public ResponseEntity<?> eliminarUsuarios(@RequestBody List<String> nicknamesUsuario) {
+		if (nicknamesUsuario.size() > maximoLote) {
+			return ResponseEntity.status(HttpStatus.PAYLOAD_TOO_LARGE)
+					.body("El lote no puede superar los " + maximoLote + " usuarios.");
+		}
+		try {
+			List<String> eliminados = usuarioInterfaz.eliminarUsuarios(nicknamesUsuario);
+			Set<String> noEncontrados = new LinkedHashSet<>(nicknamesUsuario);
+			eliminados.forEach(noEncontrados::remove);
+			Map<String, Object> respuesta = new LinkedHashMap<>();
+			respuesta.put("eliminados", eliminados);
+			respuesta.put("noEncontrados", noEncontrados);
+			return ResponseEntity.ok(respuesta);
+		} catch (Exception e) {
+			return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+					.body("Error al eliminar los usuarios: " + e.getMessage());
+		}
+	}
+
+	/**
+	 * Endpoint para obtener la ficha de un usuario (con token del propio usuario o de rol ADMIN).
+	 * <p>
+	 * La ficha lleva el email y el teléfono, así que un usuario solo puede ver la suya;
+	 * con la de otro se responde 403.
+	 * </p>
+	 * <p>
+	 * La versión del usuario va en la cabecera {@code ETag}; enviándola en
+	 * {@code If-Match} al modificarlo, la modificación no pisa los cambios hechos
+	 * entretanto desde otro dispositivo.
+	 * </p>
+	 *
+	 * @param idUsuario identificador del usuario
+	 * @return ResponseEntity con la ficha del usuario, o 404 si no existe
+	 */
+	@GetMapping("/{idUsuario}")
+	public ResponseEntity<?> obtenerUsuario(@PathVariable long idUsuario) {
+		if (!esAdmin() && !esElUsuario(idUsuario)) {
+			return ResponseEntity.status(HttpStatus.FORBIDDEN).body("Solo puedes consultar tu propia ficha.");
+		}
+		Optional<PerfilUsuario> perfil = usuarioInterfaz.obtenerUsuario(idUsuario);
+		if (perfil.isEmpty()) {
+			return ResponseEntity.status(HttpStatus.NOT_FOUND).body("Usuario no encontrado.");
+		}
+		return ResponseEntity.ok().eTag(EtagVersion.etag(perfil.get().getVersionUsuario())).body(perfil.get());
+	}
+
 	/**
 	 * Endpoint para modificar los campos nombre, teléfono e imagen de un usuario.
+	 * <p>
+	 * La foto se copia por bloques al almacén de medios, comprobando su tamaño y su
+	 * formato mientras se lee, y al servicio solo se le pasa su clave. Devuelve 413 si
+	 * supera el tamaño máximo y 415 si no es una imagen admitida.
+	 * </p>
+	 * <p>
+	 * Con {@code If-Match} solo se modifica si el usuario sigue en la versión de ese
+	 * ETag; si otro lo ha modificado antes se responde 412 y no se cambia nada. La
+	 * respuesta lleva en {@code ETag} la nueva versión.
+	 * </p>
 	 *
 	 * @param idUsuario     identificador del usuario a modificar
+	 * @param ifMatch       ETag de la versión que se modifica (opcional)
 	 * @param nuevoNombre   nuevo nombre del usuario
 	 * @param nuevoTelefono nuevo teléfono del usuario
 	 * @param nuevaFoto     nueva foto del usuario (como archivo en multipart)
 	 * @return ResponseEntity con el mensaje de éxito o error
 	 */
 	@PutMapping("/{idUsuario}")
-	public ResponseEntity<String> modificarUsuario(@PathVariable long idUsuario,
+	public CompletableFuture<ResponseEntity<String>> modificarUsuario(@PathVariable long idUsuario,
+			@RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch,
 			@RequestParam(required = false) String nuevoNombre, @RequestParam(required = false) String nuevoTelefono,
 			@RequestParam(required = false) MultipartFile nuevaFoto) {
 
+		Long versionEsperada;
 		try {
-			byte[] fotoBytes = null;
+			versionEsperada = EtagVersion.versionEsperada(ifMatch);
+		} catch (IllegalArgumentException e) {
+			return CompletableFuture.completedFuture(ResponseEntity.badRequest().body(e.getMessage()));
+		}
+		try {
+			// La lectura de la foto y la escritura en base de datos ocupan el compartimento de subidas
+			return compartimentoSubidas.enviar(() -> {
+				try {
+					String refFoto = null;
 
-			if (nuevaFoto != null && !nuevaFoto.isEmpty()) {
-				fotoBytes = nuevaFoto.getBytes(); // Convertir la foto a bytes
-			}
+					if (nuevaFoto != null && !nuevaFoto.isEmpty()) {
+						// Copiar la foto al almacén sin cargarla entera en memoria
+						try (ReadableByteChannel canal = Channels.newChannel(nuevaFoto.getInputStream())) {
+							refFoto = almacenMedios.guardarImagen(canal, tamanoMaximoImagen.toBytes());
+						}
+					}
 
-			boolean exito = usuarioInterfaz.modificarUsuario(idUsuario, nuevoNombre, nuevoTelefono, fotoBytes);
+					Optional<Long> version = usuarioInterfaz.modificarUsuario(idUsuario, versionEsperada, nuevoNombre,
+							nuevoTelefono, refFoto);
 
-			if (exito) {
-				return ResponseEntity.ok("Usuario modificado con éxito.");
-			} else {
-				return ResponseEntity.status(HttpStatus.NOT_FOUND).body("Usuario no encontrado.");
-			}
-		} catch (IOException e) {
-			return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body("Error al procesar la foto.");
+					if (version.isPresent()) {
+						return ResponseEntity.ok().eTag(EtagVersion.etag(version.get())).body("Usuario modificado con éxito.");
+					} else {
+						return ResponseEntity.status(HttpStatus.NOT_FOUND).body("Usuario no encontrado.");
+					}
+				} catch (OptimisticLockingFailureException e) {
+					return ResponseEntity.status(HttpStatus.PRECONDITION_FAILED)
+							.body("El usuario ha cambiado desde que se leyó. Vuelve a obtenerlo antes de modificarlo.");
+				} catch (MedioNoValidoException e) {
+					return ResponseEntity.status(e.getMotivo() == MedioNoValidoException.Motivo.DEMASIADO_GRANDE
+							? HttpStatus.PAYLOAD_TOO_LARGE : HttpStatus.UNSUPPORTED_MEDIA_TYPE).body(e.getMessage());
+				} catch (IOException | UncheckedIOException e) {
+					return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body("Error al procesar la foto.");
+				}
+			});
+		} catch (CompartimentoSaturadoException e) {
+			return saturado();
+		}
+	}
+
+	/**
+	 * Endpoint para descargar la foto de un usuario.
+	 * <p>
+	 * Solo consulta la clave de la foto; si el cliente envía {@code If-None-Match} con
+	 * ese valor se responde 304 sin leer el fichero. Admite peticiones {@code Range}.
+	 * Con {@code size} se sirve la miniatura más pequeña que cubre ese lado, o el
+	 * original mientras la miniatura no se ha generado (sin que se guarde en caché).
+	 * </p>
+	 *
+	 * @param idUsuario identificador del usuario
+	 * @param size      lado en píxeles que necesita el cliente (opcional)
+	 * @param request   petición HTTP
+	 * @param response  respuesta HTTP en la que se escribe la foto
+	 */
+	@GetMapping("/{idUsuario}/foto")
+	public void obtenerFoto(@PathVariable long idUsuario, @RequestParam(required = false) Integer size,
+			HttpServletRequest request, HttpServletResponse response) throws IOException {
+		Optional<String> refFoto = usuarioInterfaz.obtenerRefFoto(idUsuario);
+		if (refFoto.isEmpty()) {
+			response.sendError(HttpStatus.NOT_FOUND.value(), "Foto no encontrada.");
+			return;
 		}
+		GeneradorVariantes.Eleccion eleccion = generadorVariantes.elegir(refFoto.get(), size);
+		servidorMedios.servir(eleccion.clave(), eleccion.provisional(), request, response);
 	}
 
+	/**
+	 * Endpoint para el inicio de sesión de un usuario.
+	 * <p>
+	 * Antes de nada se aplica el límite de intentos por email e IP (429 si se supera).
+	 * La comprobación de la contraseña (BCrypt) se ejecuta en el compartimento de
+	 * login; si está saturado se responde al momento con 503.
+	 * </p>
+	 *
+	 * @param email    email del usuario
+	 * @param password contraseña del usuario
+	 * @param request  petición HTTP, para obtener la IP del cliente
+	 * @return ResponseEntity con el token JWT o el mensaje de error
+	 */
 	@PostMapping("/login")
-	public ResponseEntity<String> login(@Valid @RequestParam @Email String email,
-			@Valid @RequestParam @NotBlank @Size(min = 6) String password) {
+	public CompletableFuture<ResponseEntity<String>> login(@Valid @RequestParam @Email String email,
+			@Valid @RequestParam @NotBlank @Size(min = 6) String password, HttpServletRequest request) {
+		if (!limitadorLogin.permitir(email, request.getRemoteAddr())) {
+			return CompletableFuture.completedFuture(ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+					.header(HttpHeaders.RETRY_AFTER, "60")
+					.body("Demasiados intentos de inicio de sesión. Inténtalo más tarde."));
+		}
 		try {
-			Authentication authentication = authenticationManager
-					.authenticate(new UsernamePasswordAuthenticationToken(email, password));
+			return compartimentoLogin.enviar(() -> {
+				try {
+					Authentication authentication = authenticationManager
+							.authenticate(new UsernamePasswordAuthenticationToken(email, password));
 
-			// Generamos el token JWT
-			String token = jwtUtil.generarToken(email);
+					// Generamos el token JWT con el id y el rol para no consultar la base de datos en cada petición
+					UsuarioAutenticado usuario = (UsuarioAutenticado) authentication.getPrincipal();
+					String rol = usuario.getAuthorities().iterator().next().getAuthority().substring("ROLE_".length());
+					String token = jwtUtil.generarToken(usuario.getUsername(), usuario.getIdUsuario(), rol);
 
-			return ResponseEntity.ok("Token JWT: " + token);
-		} catch (Exception e) {
-			return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body("Credenciales inválidas.");
+					return ResponseEntity.ok("Token JWT: " + token);
+				} catch (Exception e) {
+					return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body("Credenciales inválidas.");
+				}
+			});
+		} catch (CompartimentoSaturadoException e) {
+			return saturado();
 		}
 	}
+
+	/**
+	 * Deja en el alta el rol que le corresponde: el indicado solo si quien la hace es
+	 * ADMIN, y si no (o si no indica ninguno) el rol por defecto.
+	 */
+	private void asignarRol(UsuarioDto usuarioDto, boolean admin) {
+		if (usuarioDto != null && (!admin || usuarioDto.getRol() == null || usuarioDto.getRol().isBlank())) {
+			usuarioDto.setRol(rolPorDefecto);
+		}
+	}
+
+	/**
+	 * @return si la petición trae un token válido de rol ADMIN
+	 */
+	private static boolean esAdmin() {
+		Authentication autenticacion = SecurityContextHolder.getContext().getAuthentication();
+		return autenticacion != null && autenticacion.getAuthorities().stream()
+				.anyMatch(autoridad -> "ROLE_ADMIN".equals(autoridad.getAuthority()));
+	}
+
+	/**
+	 * @param idUsuario identificador de un usuario
+	 * @return si la petición trae un token válido de ese usuario
+	 */
+	private static boolean esElUsuario(long idUsuario) {
+		Authentication autenticacion = SecurityContextHolder.getContext().getAuthentication();
+		return autenticacion != null && autenticacion.getPrincipal() instanceof UsuarioToken token
+				&& token.idUsuario() == idUsuario;
+	}
+
+	/**
+	 * Respuesta inmediata cuando un compartimento no admite más trabajo.
+	 */
+	private static CompletableFuture<ResponseEntity<String>> saturado() {
+		return CompletableFuture.completedFuture(respuestaSaturado());
+	}
+
+	private static ResponseEntity<String> respuestaSaturado() {
+		return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+				.header(HttpHeaders.RETRY_AFTER, "1")
+				.body("Servidor ocupado, inténtalo de nuevo en unos segundos.");
+	}
 }
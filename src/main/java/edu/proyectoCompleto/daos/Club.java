@@ -1,40 +1,51 @@
 package edu.proyectoCompleto.daos;
 
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+import org.hibernate.annotations.NaturalId;
+import org.hibernate.annotations.NaturalIdCache;
+
+import jakarta.persistence.Cacheable;
 import jakarta.persistence.Entity;
-import jakarta.persistence.FetchType;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
+import jakarta.persistence.SequenceGenerator;
 import jakarta.persistence.Table;
+import jakarta.persistence.Version;
 
-import java.util.Arrays;
 import java.util.Objects;
 
-import jakarta.persistence.Basic;
 import jakarta.persistence.Column;
 
 /**
  * Clase que representa la entidad Club en la base de datos.
  * <p>
  * Esta clase contiene los atributos que definen a un club, como su nombre,
- * email, contraseña, sede y una imagen. Está mapeada como una entidad JPA para 
+ * email, contraseña, sede y la referencia a su imagen. Está mapeada como una entidad JPA para 
  * facilitar su persistencia en la base de datos.
  * </p>
  */
 @Entity // Indica que esta clase es una entidad JPA
 @Table(name = "clubs", schema = "proyecto") // Define el nombre de la tabla y el esquema
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "clubs") // Caché de segundo nivel por id
+@NaturalIdCache(region = "clubs-email") // Caché de la resolución email -> id
 public class Club {
 
     /** Identificador único del club, generado automáticamente. */
     @Id // Marca este campo como la clave primaria
-    @GeneratedValue(strategy = GenerationType.IDENTITY) // Genera el ID automáticamente
+    // Secuencia con bloques de 50 ids: permite agrupar los INSERT en lotes JDBC (IDENTITY lo impide)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "club_seq")
+    @SequenceGenerator(name = "club_seq", sequenceName = "clubs_id_seq", schema = "proyecto", allocationSize = 50)
     @Column(name = "id_club", nullable = false, updatable = false) // Configura la columna de la base de datos
     private long idClub;
 
     @Column(name = "nombre_club", nullable = false, length = 100) // Campo requerido, longitud máxima 100
     private String nombreClub;
 
-    /** Email de contacto del club. */
+    /** Email de contacto del club: clave natural (inmutable) con la que inicia sesión. */
+    @NaturalId
     @Column(name = "email_club", nullable = false, unique = true, length = 150) // Campo único y requerido
     private String emailClub;
 
@@ -46,10 +57,25 @@ public class Club {
     @Column(name = "sede_club", nullable = true, length = 200) // Campo opcional
     private String sedeClub;
 
-    /** Imagen del club en formato de bytes. */
-    @Column(name = "logo_club", columnDefinition = "bytea") // Personaliza la definición del tipo de columna
-    @Basic(fetch = FetchType.LAZY) // Indica carga diferida para este campo
-    private byte[] imagenClub;
+    /** Clave de la imagen del club en el almacén de medios; los bytes no se guardan en la tabla. */
+    @Column(name = "ref_logo_club", nullable = true, length = 80) // Campo opcional
+    private String refImagenClub;
+
+    /** Latitud de la sede en grados, o null si el club no tiene ubicación. */
+    @Column(name = "latitud_club", nullable = true) // Campo opcional, junto con la longitud
+    private Double latitudClub;
+
+    /** Longitud de la sede en grados, o null si el club no tiene ubicación. */
+    @Column(name = "longitud_club", nullable = true) // Campo opcional, junto con la latitud
+    private Double longitudClub;
+
+    /**
+     * Versión de la fila para el bloqueo optimista: aumenta con cada modificación y se
+     * expone como ETag para que las modificaciones concurrentes no se pisen.
+     */
+    @Version
+    @Column(name = "version_club", nullable = false)
+    private Long versionClub;
 
     /******************************* CONSTRUCTORES ***********************************/
 
@@ -66,14 +92,14 @@ public class Club {
      * @param emailClub el email del club
      * @param passwdClub la contraseña del club
      * @param sedeClub la sede del club
-     * @param imagenClub la imagen del club en formato de bytes
+     * @param refImagenClub la clave de la imagen del club en el almacén de medios
      */
-    public Club(String nombreClub, String emailClub, String passwdClub, String sedeClub, byte[] imagenClub) {
+    public Club(String nombreClub, String emailClub, String passwdClub, String sedeClub, String refImagenClub) {
         this.nombreClub = nombreClub;
         this.emailClub = emailClub;
         this.passwdClub = passwdClub;
         this.sedeClub = sedeClub;
-        this.imagenClub = imagenClub;
+        this.refImagenClub = refImagenClub;
     }
 
     /******************************* GETTERS Y SETTERS **************************************/
@@ -113,12 +139,36 @@ public class Club {
         this.sedeClub = sedeClub;
     }
 
-    public byte[] getImagenClub() {
-        return imagenClub;
+    public String getRefImagenClub() {
+        return refImagenClub;
+    }
+
+    public void setRefImagenClub(String refImagenClub) {
+        this.refImagenClub = refImagenClub;
+    }
+
+    public Double getLatitudClub() {
+        return latitudClub;
+    }
+
+    public void setLatitudClub(Double latitudClub) {
+        this.latitudClub = latitudClub;
+    }
+
+    public Double getLongitudClub() {
+        return longitudClub;
+    }
+
+    public void setLongitudClub(Double longitudClub) {
+        this.longitudClub = longitudClub;
+    }
+
+    public Long getVersionClub() {
+        return versionClub;
     }
 
-    public void setImagenClub(byte[] imagenClub) {
-        this.imagenClub = imagenClub;
+    public void setVersionClub(Long versionClub) {
+        this.versionClub = versionClub;
     }
 
     /*************************************** METODOS ***************************************/
@@ -130,12 +180,12 @@ public class Club {
     @Override
     public String toString() {
         return "ClubDto [nombreClub=" + nombreClub + ", emailClub=" + emailClub + ", passwdClub=" + passwdClub
-                + ", sedeClub=" + sedeClub + ", imagenClub=" + Arrays.toString(imagenClub) + "]";
+                + ", sedeClub=" + sedeClub + ", refImagenClub=" + refImagenClub + "]";
     }
 
     @Override
     public int hashCode() {
-        return Objects.hash(nombreClub, emailClub, passwdClub, sedeClub, imagenClub);
+        return Objects.hash(nombreClub, emailClub, passwdClub, sedeClub, refImagenClub);
     }
 }
 
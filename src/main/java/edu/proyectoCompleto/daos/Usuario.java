@@ -1,24 +1,34 @@
 package edu.proyectoCompleto.daos;
 
-import java.util.Arrays;
 import java.util.Objects;
 
-import jakarta.persistence.Basic;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+import org.hibernate.annotations.NaturalId;
+import org.hibernate.annotations.NaturalIdCache;
+
+import jakarta.persistence.Cacheable;
 import jakarta.persistence.Column;
 import jakarta.persistence.Entity;
-import jakarta.persistence.FetchType;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
+import jakarta.persistence.SequenceGenerator;
 import jakarta.persistence.Table;
+import jakarta.persistence.Version;
 
 @Entity
 @Table(name = "usuarios",schema="proyecto") // Nombre de la tabla en la base de datos
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "usuarios") // Caché de segundo nivel por id
+@NaturalIdCache(region = "usuarios-email") // Caché de la resolución email -> id
 public class Usuario {
 
     /** Identificador único del usuario, generado automáticamente. */
     @Id // Marca este campo como la clave primaria
-    @GeneratedValue(strategy = GenerationType.IDENTITY) // Genera el ID automáticamente
+    // Secuencia con bloques de 50 ids: permite agrupar los INSERT en lotes JDBC (IDENTITY lo impide)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "usuario_seq")
+    @SequenceGenerator(name = "usuario_seq", sequenceName = "usuarios_id_seq", schema = "proyecto", allocationSize = 50)
     @Column(name = "id_usuario", nullable = false, updatable = false) // Configuración de la columna en la base de datos
     private long idUsuario;
 
@@ -34,10 +44,12 @@ public class Usuario {
     @Column(name = "telefono_usuario", nullable = true, length = 15) // Campo opcional
     private String telefonoUsuario;
 
-    @Column(name = "foto_usuario", columnDefinition = "bytea") // Personaliza el tipo de columna
-    @Basic(fetch = FetchType.LAZY) // Indica carga diferida para este campo
-    private byte[] fotoUsuario;
+    /** Clave de la foto en el almacén de medios; los bytes no se guardan en la tabla. */
+    @Column(name = "ref_foto_usuario", nullable = true, length = 80) // Campo opcional
+    private String refFotoUsuario;
 
+    /** Email del usuario: clave natural (inmutable) con la que se identifica al iniciar sesión. */
+    @NaturalId
     @Column(name = "email_usuario", nullable = false, unique = true, length = 150) // Campo único y requerido
     private String emailUsuario;
 
@@ -48,6 +60,14 @@ public class Usuario {
     @Column(name = "rol_usuario", nullable = false, length = 50) // Campo requerido con longitud máxima
     private String rol;
 
+    /**
+     * Versión de la fila para el bloqueo optimista: aumenta con cada modificación y se
+     * expone como ETag para que las modificaciones concurrentes no se pisen.
+     */
+    @Version
+    @Column(name = "version_usuario", nullable = false)
+    private Long versionUsuario;
+
     // ============================
     // Constructores
     // ============================
@@ -63,12 +83,12 @@ public class Usuario {
      * Útil para crear nuevos objetos antes de persistirlos.
      */
     public Usuario(String nicknameUsuario, String nombreUsuario, String dniUsuario, String telefonoUsuario, 
-                   byte[] fotoUsuario, String emailUsuario, String passwdUsuario, String rol) {
+                   String refFotoUsuario, String emailUsuario, String passwdUsuario, String rol) {
         this.nicknameUsuario = nicknameUsuario;
         this.nombreUsuario = nombreUsuario;
         this.dniUsuario = dniUsuario;
         this.telefonoUsuario = telefonoUsuario;
-        this.fotoUsuario = fotoUsuario;
+        this.refFotoUsuario = refFotoUsuario;
         this.emailUsuario = emailUsuario;
         this.passwdUsuario = passwdUsuario;
         this.rol = rol;
@@ -79,14 +99,14 @@ public class Usuario {
      * Útil para pruebas o cuando el ID ya está definido.
      */
     public Usuario(long idUsuario, String nicknameUsuario, String nombreUsuario, String dniUsuario, 
-                   String telefonoUsuario, byte[] fotoUsuario, String emailUsuario, 
+                   String telefonoUsuario, String refFotoUsuario, String emailUsuario, 
                    String passwdUsuario, String rol) {
         this.idUsuario = idUsuario;
         this.nicknameUsuario = nicknameUsuario;
         this.nombreUsuario = nombreUsuario;
         this.dniUsuario = dniUsuario;
         this.telefonoUsuario = telefonoUsuario;
-        this.fotoUsuario = fotoUsuario;
+        this.refFotoUsuario = refFotoUsuario;
         this.emailUsuario = emailUsuario;
         this.passwdUsuario = passwdUsuario;
         this.rol = rol;
@@ -136,12 +156,12 @@ public class Usuario {
         this.telefonoUsuario = telefonoUsuario;
     }
 
-    public byte[] getFotoUsuario() {
-        return fotoUsuario;
+    public String getRefFotoUsuario() {
+        return refFotoUsuario;
     }
 
-    public void setFotoUsuario(byte[] fotoUsuario) {
-        this.fotoUsuario = fotoUsuario;
+    public void setRefFotoUsuario(String refFotoUsuario) {
+        this.refFotoUsuario = refFotoUsuario;
     }
 
     public String getEmailUsuario() {
@@ -168,6 +188,14 @@ public class Usuario {
         this.rol = rol;
     }
 
+    public Long getVersionUsuario() {
+        return versionUsuario;
+    }
+
+    public void setVersionUsuario(Long versionUsuario) {
+        this.versionUsuario = versionUsuario;
+    }
+
     // ============================
     // Método toString
     // ============================
@@ -180,13 +208,14 @@ public class Usuario {
                ", nombreUsuario='" + nombreUsuario + '\'' +
                ", dniUsuario='" + dniUsuario + '\'' +
                ", telefonoUsuario='" + telefonoUsuario + '\'' +
+               ", refFotoUsuario='" + refFotoUsuario + '\'' +
                ", emailUsuario='" + emailUsuario + '\'' +
                ", rol='" + rol + '\'' +
                '}';
     }
     @Override
     public int hashCode() {
-        return Objects.hash(nicknameUsuario, nombreUsuario, dniUsuario, telefonoUsuario, fotoUsuario, emailUsuario, passwdUsuario, rol);
+        return Objects.hash(nicknameUsuario, nombreUsuario, dniUsuario, telefonoUsuario, refFotoUsuario, emailUsuario, passwdUsuario, rol);
     }
 
     @Override
@@ -200,7 +229,7 @@ public class Usuario {
                 Objects.equals(nombreUsuario, other.nombreUsuario) &&
                 Objects.equals(dniUsuario, other.dniUsuario) &&
                 Objects.equals(telefonoUsuario, other.telefonoUsuario) &&
-                Arrays.equals(fotoUsuario, other.fotoUsuario) &&
+                Objects.equals(refFotoUsuario, other.refFotoUsuario) &&
                 Objects.equals(emailUsuario, other.emailUsuario) &&
                 Objects.equals(passwdUsuario, other.passwdUsuario) &&
                 Objects.equals(rol, other.rol); // Compara el rol también
@@ -0,0 +1,78 @@
+package edu.proyectoCompleto.dtos;
+
+/**
+ * Cambio de un club en la sincronización incremental ({@code GET /api/clubs/cambios}).
+ * <p>
+ * Si el club sigue existiendo lleva sus datos tal como están ahora, no tal como
+ * quedaron en cada cambio: varios cambios seguidos llegan como uno solo. Si se ha
+ * eliminado ({@code baja}) solo lleva el id.
+ * </p>
+ */
+public class CambioClub {
+
+	private final long idClub;
+	private final boolean baja;
+	private final String nombreClub;
+	private final String sedeClub;
+	private final Double latitudClub;
+	private final Double longitudClub;
+	private final Long versionClub;
+
+	public CambioClub(long idClub, String nombreClub, String sedeClub, Double latitudClub,
+			Double longitudClub, long versionClub) {
+		this.idClub = idClub;
+		this.baja = false;
+		this.nombreClub = nombreClub;
+		this.sedeClub = sedeClub;
+		this.latitudClub = latitudClub;
+		this.longitudClub = longitudClub;
+		this.versionClub = versionClub;
+	}
+
+	private CambioClub(long idClub) {
+		this.idClub = idClub;
+		this.baja = true;
+		this.nombreClub = null;
+		this.sedeClub = null;
+		this.latitudClub = null;
+		this.longitudClub = null;
+		this.versionClub = null;
+	}
+
+	/**
+	 * @param idClub id del club eliminado
+	 * @return el cambio que anuncia su baja
+	 */
+	public static CambioClub baja(long idClub) {
+		return new CambioClub(idClub);
+	}
+
+	public long getIdClub() {
+		return idClub;
+	}
+
+	public boolean isBaja() {
+		return baja;
+	}
+
+	public String getNombreClub() {
+		return nombreClub;
+	}
+
+	public String getSedeClub() {
+		return sedeClub;
+	}
+
+	public Double getLatitudClub() {
+		return latitudClub;
+	}
+
+	public Double getLongitudClub() {
+		return longitudClub;
+	}
+
+	/** @return versión del club (su ETag), o null en las bajas */
+	public Long getVersionClub() {
+		return versionClub;
+	}
+}
@@ -0,0 +1,14 @@
+package edu.proyectoCompleto.dtos;
+
+/**
+ * Proyección con los campos únicos de un usuario, usada para detectar duplicados
+ * antes de un alta por lotes.
+ */
+public interface ClavesUsuario {
+
+	String getNicknameUsuario();
+
+	String getEmailUsuario();
+
+	String getDniUsuario();
+}
@@ -0,0 +1,50 @@
+package edu.proyectoCompleto.dtos;
+
+/**
+ * Club encontrado por una búsqueda de cercanía, con su distancia a la posición buscada.
+ */
+public class ClubCercano {
+
+	private final long idClub;
+	private final String nombreClub;
+	private final String sedeClub;
+	private final double latitudClub;
+	private final double longitudClub;
+
+	/** Distancia en kilómetros a la posición buscada. */
+	private final double distanciaKm;
+
+	public ClubCercano(long idClub, String nombreClub, String sedeClub, double latitudClub, double longitudClub,
+			double distanciaKm) {
+		this.idClub = idClub;
+		this.nombreClub = nombreClub;
+		this.sedeClub = sedeClub;
+		this.latitudClub = latitudClub;
+		this.longitudClub = longitudClub;
+		this.distanciaKm = distanciaKm;
+	}
+
+	public long getIdClub() {
+		return idClub;
+	}
+
+	public String getNombreClub() {
+		return nombreClub;
+	}
+
+	public String getSedeClub() {
+		return sedeClub;
+	}
+
+	public double getLatitudClub() {
+		return latitudClub;
+	}
+
+	public double getLongitudClub() {
+		return longitudClub;
+	}
+
+	public double getDistanciaKm() {
+		return distanciaKm;
+	}
+}
@@ -26,6 +26,12 @@ public class ClubDto {
     
     /** Imagen del club en formato de bytes. */
     private byte[] imagenClub;
+
+    /** Latitud de la sede en grados (opcional, junto con la longitud). */
+    private Double latitudClub;
+
+    /** Longitud de la sede en grados (opcional, junto con la latitud). */
+    private Double longitudClub;
     
     
 
@@ -143,6 +149,42 @@ public class ClubDto {
     public void setImagenClub(byte[] imagenClub) {
         this.imagenClub = imagenClub;
     }
+
+    /**
+     * Obtiene la latitud de la sede del club.
+     *
+     * @return la latitud en grados, o null si no tiene ubicación
+     */
+    public Double getLatitudClub() {
+        return latitudClub;
+    }
+
+    /**
+     * Establece la latitud de la sede del club.
+     *
+     * @param latitudClub la latitud en grados (-90 a 90)
+     */
+    public void setLatitudClub(Double latitudClub) {
+        this.latitudClub = latitudClub;
+    }
+
+    /**
+     * Obtiene la longitud de la sede del club.
+     *
+     * @return la longitud en grados, o null si no tiene ubicación
+     */
+    public Double getLongitudClub() {
+        return longitudClub;
+    }
+
+    /**
+     * Establece la longitud de la sede del club.
+     *
+     * @param longitudClub la longitud en grados (-180 a 180)
+     */
+    public void setLongitudClub(Double longitudClub) {
+        this.longitudClub = longitudClub;
+    }
     
 	 /*************************************** METODOS ***************************************/
     /**
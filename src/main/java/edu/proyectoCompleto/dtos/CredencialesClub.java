@@ -0,0 +1,61 @@
+package edu.proyectoCompleto.dtos;
+
+/**
+ * Proyección inmutable con los datos de un club necesarios para autenticarlo.
+ * <p>
+ * Se obtiene con una consulta que solo selecciona estas columnas, de modo que el
+ * login no carga la imagen del club ni deja la entidad, con su contraseña, en la
+ * caché de segundo nivel.
+ * </p>
+ */
+public class CredencialesClub {
+
+	/** Nombre del club. */
+	private final String nombreClub;
+
+	/** Email del club, usado para iniciar sesión. */
+	private final String emailClub;
+
+	/** Sede del club. */
+	private final String sedeClub;
+
+	/** Contraseña del club. */
+	private final String passwdClub;
+
+	/**
+	 * Constructor con todos los campos, usado por la consulta de proyección.
+	 *
+	 * @param nombreClub nombre del club
+	 * @param emailClub  email del club
+	 * @param sedeClub   sede del club
+	 * @param passwdClub contraseña del club
+	 */
+	public CredencialesClub(String nombreClub, String emailClub, String sedeClub, String passwdClub) {
+		this.nombreClub = nombreClub;
+		this.emailClub = emailClub;
+		this.sedeClub = sedeClub;
+		this.passwdClub = passwdClub;
+	}
+
+	public String getNombreClub() {
+		return nombreClub;
+	}
+
+	public String getEmailClub() {
+		return emailClub;
+	}
+
+	public String getSedeClub() {
+		return sedeClub;
+	}
+
+	public String getPasswdClub() {
+		return passwdClub;
+	}
+
+	@Override
+	public String toString() {
+		return "CredencialesClub [nombreClub=" + nombreClub + ", emailClub=" + emailClub + ", sedeClub=" + sedeClub
+				+ "]";
+	}
+}
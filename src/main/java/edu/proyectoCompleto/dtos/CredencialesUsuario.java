@@ -0,0 +1,70 @@
+package edu.proyectoCompleto.dtos;
+
+/**
+ * Proyección inmutable con los datos de un usuario necesarios para autenticarlo.
+ * <p>
+ * Se obtiene con una consulta que solo selecciona estas columnas, de modo que
+ * la autenticación nunca carga la foto del usuario.
+ * </p>
+ */
+public class CredencialesUsuario {
+
+	/** Identificador del usuario. */
+	private final long idUsuario;
+
+	/** Nickname del usuario. */
+	private final String nicknameUsuario;
+
+	/** Email del usuario, usado como nombre de usuario. */
+	private final String emailUsuario;
+
+	/** Contraseña cifrada del usuario. */
+	private final String passwdUsuario;
+
+	/** Rol del usuario, sin el prefijo "ROLE_". */
+	private final String rol;
+
+	/**
+	 * Constructor con todos los campos, usado por la consulta de proyección.
+	 *
+	 * @param idUsuario       identificador del usuario
+	 * @param nicknameUsuario nickname del usuario
+	 * @param emailUsuario    email del usuario
+	 * @param passwdUsuario   contraseña cifrada del usuario
+	 * @param rol             rol del usuario
+	 */
+	public CredencialesUsuario(long idUsuario, String nicknameUsuario, String emailUsuario, String passwdUsuario,
+			String rol) {
+		this.idUsuario = idUsuario;
+		this.nicknameUsuario = nicknameUsuario;
+		this.emailUsuario = emailUsuario;
+		this.passwdUsuario = passwdUsuario;
+		this.rol = rol;
+	}
+
+	public long getIdUsuario() {
+		return idUsuario;
+	}
+
+	public String getNicknameUsuario() {
+		return nicknameUsuario;
+	}
+
+	public String getEmailUsuario() {
+		return emailUsuario;
+	}
+
+	public String getPasswdUsuario() {
+		return passwdUsuario;
+	}
+
+	public String getRol() {
+		return rol;
+	}
+
+	@Override
+	public String toString() {
+		return "CredencialesUsuario [idUsuario=" + idUsuario + ", nicknameUsuario=" + nicknameUsuario
+				+ ", emailUsuario=" + emailUsuario + ", rol=" + rol + "]";
+	}
+}
@@ -0,0 +1,60 @@
+package edu.proyectoCompleto.dtos;
+
+/**
+ * Cambio confirmado en un club o un usuario, tal como se envía a los suscriptores
+ * de {@code /api/clubs/eventos} y {@code /api/usuarios/eventos}.
+ * <p>
+ * Solo lleva el identificador y la versión: quien necesite los datos los pide con
+ * {@code GET /api/clubs/{id}} o {@code GET /api/usuarios/{id}}.
+ * </p>
+ */
+public class EventoCambio {
+
+	/** Tipo de elemento que ha cambiado. */
+	public enum Entidad {
+		CLUB, USUARIO
+	}
+
+	/** Qué le ha pasado al elemento. */
+	public enum Tipo {
+		ALTA, MODIFICACION, BAJA
+	}
+
+	private final Entidad entidad;
+	private final Tipo tipo;
+	private final long id;
+
+	/** Versión del elemento tras el cambio; null en las bajas. */
+	private final Long version;
+
+	/** Instante del commit, en milisegundos desde 1970. */
+	private final long instante;
+
+	public EventoCambio(Entidad entidad, Tipo tipo, long id, Long version, long instante) {
+		this.entidad = entidad;
+		this.tipo = tipo;
+		this.id = id;
+		this.version = version;
+		this.instante = instante;
+	}
+
+	public Entidad getEntidad() {
+		return entidad;
+	}
+
+	public Tipo getTipo() {
+		return tipo;
+	}
+
+	public long getId() {
+		return id;
+	}
+
+	public Long getVersion() {
+		return version;
+	}
+
+	public long getInstante() {
+		return instante;
+	}
+}
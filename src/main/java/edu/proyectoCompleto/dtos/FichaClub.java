@@ -0,0 +1,19 @@
+package edu.proyectoCompleto.dtos;
+
+/**
+ * Proyección con los datos de un club para la exportación de administración.
+ * <p>
+ * A diferencia de {@link ResumenClub} lleva el email, que solo ven los
+ * administradores. Ni la imagen ni la contraseña salen de la base de datos.
+ * </p>
+ */
+public interface FichaClub {
+
+	long getIdClub();
+
+	String getNombreClub();
+
+	String getEmailClub();
+
+	String getSedeClub();
+}
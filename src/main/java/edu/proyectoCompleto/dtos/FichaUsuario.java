@@ -0,0 +1,23 @@
+package edu.proyectoCompleto.dtos;
+
+/**
+ * Proyección con los datos públicos de un usuario para los listados.
+ * <p>
+ * Spring Data solo selecciona las columnas de estos getters: ni la foto ni la
+ * contraseña salen de la base de datos.
+ * </p>
+ */
+public interface FichaUsuario {
+
+	long getIdUsuario();
+
+	String getNicknameUsuario();
+
+	String getNombreUsuario();
+
+	String getEmailUsuario();
+
+	String getTelefonoUsuario();
+
+	String getRol();
+}
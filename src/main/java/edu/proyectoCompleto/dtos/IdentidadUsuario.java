@@ -0,0 +1,17 @@
+package edu.proyectoCompleto.dtos;
+
+/**
+ * Proyección con los datos que identifican a un usuario.
+ * <p>
+ * Basta para las operaciones que solo necesitan localizar al usuario (por ejemplo,
+ * para borrarlo e invalidar sus tokens) sin cargar la entidad completa.
+ * </p>
+ */
+public interface IdentidadUsuario {
+
+	long getIdUsuario();
+
+	String getNicknameUsuario();
+
+	String getEmailUsuario();
+}
@@ -0,0 +1,52 @@
+package edu.proyectoCompleto.dtos;
+
+import java.util.List;
+import java.util.function.ToLongFunction;
+
+/**
+ * Página de un listado paginado por clave (keyset).
+ * <p>
+ * En lugar de un número de página, cada página devuelve el cursor desde el que se
+ * pide la siguiente: el id del último elemento. Así cualquier página cuesta lo
+ * mismo, por profunda que sea.
+ * </p>
+ *
+ * @param <T> tipo de los elementos
+ */
+public class Pagina<T> {
+
+	private final List<T> elementos;
+
+	/** Valor de {@code despuesDe} para pedir la página siguiente, o null si es la última. */
+	private final Long siguiente;
+
+	public Pagina(List<T> elementos, Long siguiente) {
+		this.elementos = elementos;
+		this.siguiente = siguiente;
+	}
+
+	/**
+	 * Construye la página a partir de una consulta que pidió un elemento más del tamaño
+	 * de página: si ese elemento existe, hay página siguiente y se descarta.
+	 *
+	 * @param consultados elementos consultados (como mucho {@code tamano + 1})
+	 * @param tamano      tamaño de la página
+	 * @param id          función que obtiene el id de un elemento
+	 * @return la página
+	 */
+	public static <T> Pagina<T> desde(List<T> consultados, int tamano, ToLongFunction<T> id) {
+		if (consultados.size() <= tamano) {
+			return new Pagina<>(consultados, null);
+		}
+		List<T> elementos = consultados.subList(0, tamano);
+		return new Pagina<>(List.copyOf(elementos), id.applyAsLong(elementos.get(tamano - 1)));
+	}
+
+	public List<T> getElementos() {
+		return elementos;
+	}
+
+	public Long getSiguiente() {
+		return siguiente;
+	}
+}
@@ -0,0 +1,42 @@
+package edu.proyectoCompleto.dtos;
+
+import java.util.List;
+
+/**
+ * Página de la sincronización incremental: los cambios posteriores al cursor del
+ * cliente y el cursor desde el que pedir los siguientes.
+ * <p>
+ * A diferencia de {@link Pagina}, siempre hay cursor siguiente: el cliente lo guarda
+ * y lo vuelve a enviar en la próxima sincronización, aunque hoy no haya más cambios.
+ * </p>
+ *
+ * @param <T> tipo de los cambios
+ */
+public class PaginaCambios<T> {
+
+	private final List<T> elementos;
+
+	/** Cursor opaco para pedir los cambios posteriores a los de esta página. */
+	private final String siguiente;
+
+	/** Si no quedan más cambios por ahora: el cliente está al día hasta {@code siguiente}. */
+	private final boolean completa;
+
+	public PaginaCambios(List<T> elementos, String siguiente, boolean completa) {
+		this.elementos = elementos;
+		this.siguiente = siguiente;
+		this.completa = completa;
+	}
+
+	public List<T> getElementos() {
+		return elementos;
+	}
+
+	public String getSiguiente() {
+		return siguiente;
+	}
+
+	public boolean isCompleta() {
+		return completa;
+	}
+}
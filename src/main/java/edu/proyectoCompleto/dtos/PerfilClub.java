@@ -0,0 +1,13 @@
+package edu.proyectoCompleto.dtos;
+
+/**
+ * Proyección con los datos públicos de un club, su ubicación y la versión de su fila.
+ * <p>
+ * La versión se envía también como ETag: el cliente la devuelve en {@code If-Match}
+ * al modificar el club para no pisar los cambios hechos desde otro dispositivo.
+ * </p>
+ */
+public interface PerfilClub extends UbicacionClub {
+
+	long getVersionClub();
+}
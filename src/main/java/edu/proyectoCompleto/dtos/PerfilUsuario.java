@@ -0,0 +1,13 @@
+package edu.proyectoCompleto.dtos;
+
+/**
+ * Proyección con la ficha de un usuario y la versión de su fila.
+ * <p>
+ * La versión se envía también como ETag: el cliente la devuelve en {@code If-Match}
+ * al modificar el usuario para no pisar los cambios hechos desde otro dispositivo.
+ * </p>
+ */
+public interface PerfilUsuario extends FichaUsuario {
+
+	long getVersionUsuario();
+}
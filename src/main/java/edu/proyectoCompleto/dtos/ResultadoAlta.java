@@ -0,0 +1,73 @@
+package edu.proyectoCompleto.dtos;
+
+import java.util.List;
+
+/**
+ * Resultado del alta de un elemento dentro de un lote.
+ * <p>
+ * Cada elemento del lote se resuelve por separado: un duplicado o un dato
+ * incorrecto solo afecta a su propio resultado y no impide el alta del resto.
+ * </p>
+ */
+public class ResultadoAlta {
+
+	/** Estado final del elemento. */
+	public enum Estado {
+		CREADO, DUPLICADO, ERROR
+	}
+
+	/** Posición del elemento en el lote recibido, empezando por 0. */
+	private final int indice;
+
+	private final Estado estado;
+
+	/** Identificador asignado, solo si se ha creado. */
+	private final Long id;
+
+	/** Campos únicos que ya estaban en uso (nickname, email o DNI), solo si es un duplicado. */
+	private final List<String> camposDuplicados;
+
+	/** Descripción del error, solo si no se ha podido crear por otro motivo. */
+	private final String mensaje;
+
+	private ResultadoAlta(int indice, Estado estado, Long id, List<String> camposDuplicados, String mensaje) {
+		this.indice = indice;
+		this.estado = estado;
+		this.id = id;
+		this.camposDuplicados = camposDuplicados;
+		this.mensaje = mensaje;
+	}
+
+	public static ResultadoAlta creado(int indice, long id) {
+		return new ResultadoAlta(indice, Estado.CREADO, id, List.of(), null);
+	}
+
+	public static ResultadoAlta duplicado(int indice, List<String> camposDuplicados) {
+		return new ResultadoAlta(indice, Estado.DUPLICADO, null, List.copyOf(camposDuplicados),
+				"Ya existe un registro con " + String.join(", ", camposDuplicados) + ".");
+	}
+
+	public static ResultadoAlta error(int indice, String mensaje) {
+		return new ResultadoAlta(indice, Estado.ERROR, null, List.of(), mensaje);
+	}
+
+	public int getIndice() {
+		return indice;
+	}
+
+	public Estado getEstado() {
+		return estado;
+	}
+
+	public Long getId() {
+		return id;
+	}
+
+	public List<String> getCamposDuplicados() {
+		return camposDuplicados;
+	}
+
+	public String getMensaje() {
+		return mensaje;
+	}
+}
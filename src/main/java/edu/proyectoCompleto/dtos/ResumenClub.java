@@ -0,0 +1,21 @@
+package edu.proyectoCompleto.dtos;
+
+/**
+ * Proyección con los datos básicos de un club.
+ * <p>
+ * Spring Data solo selecciona las columnas de estos getters, así que los listados y
+ * las búsquedas de clubs no leen la imagen ni la contraseña.
+ * </p>
+ * <p>
+ * No lleva el email: es con lo que el club inicia sesión y estos datos se sirven sin
+ * autenticar. La exportación de administración usa {@link FichaClub}.
+ * </p>
+ */
+public interface ResumenClub {
+
+	long getIdClub();
+
+	String getNombreClub();
+
+	String getSedeClub();
+}
@@ -0,0 +1,14 @@
+package edu.proyectoCompleto.dtos;
+
+/**
+ * Proyección con los datos básicos de un club y su ubicación.
+ * <p>
+ * Es lo que necesitan los índices de búsqueda de clubs: sin imagen ni contraseña.
+ * </p>
+ */
+public interface UbicacionClub extends ResumenClub {
+
+	Double getLatitudClub();
+
+	Double getLongitudClub();
+}
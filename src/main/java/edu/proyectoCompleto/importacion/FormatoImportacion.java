@@ -0,0 +1,32 @@
+package edu.proyectoCompleto.importacion;
+
+import java.util.Locale;
+
+/**
+ * Formatos de fichero admitidos por la importación masiva de usuarios.
+ */
+public enum FormatoImportacion {
+
+	/** CSV con cabecera; los nombres de columna son los campos de {@code UsuarioDto}. */
+	CSV,
+
+	/** Un objeto JSON por línea, con los campos de {@code UsuarioDto}. */
+	NDJSON;
+
+	/**
+	 * Deduce el formato a partir del nombre del fichero o del tipo de contenido.
+	 *
+	 * @param nombre nombre del fichero o valor de {@code Content-Type} (puede ser null)
+	 * @return NDJSON si el nombre lo indica; CSV en cualquier otro caso
+	 */
+	public static FormatoImportacion deducir(String nombre) {
+		if (nombre != null) {
+			String minusculas = nombre.toLowerCase(Locale.ROOT);
+			if (minusculas.endsWith(".ndjson") || minusculas.endsWith(".jsonl") || minusculas.contains("ndjson")
+					|| minusculas.contains("json")) {
+				return NDJSON;
+			}
+		}
+		return CSV;
+	}
+}
@@ -0,0 +1,13 @@
+package edu.proyectoCompleto.importacion;
+
+/**
+ * Excepción lanzada al pedir una importación de usuarios mientras otra sigue en curso.
+ */
+public class ImportacionEnCursoException extends RuntimeException {
+
+	private static final long serialVersionUID = 1L;
+
+	public ImportacionEnCursoException() {
+		super("Ya hay una importación de usuarios en curso.");
+	}
+}
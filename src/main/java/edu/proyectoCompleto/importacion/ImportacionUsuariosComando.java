@@ -0,0 +1,75 @@
+package edu.proyectoCompleto.importacion;
+
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.List;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.SpringApplication;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.stereotype.Component;
+
+/**
+ * Comando que importa usuarios desde un fichero y cierra la aplicación.
+ * <p>
+ * Se ejecuta arrancando con {@code --importar-usuarios=<fichero>}. El formato se
+ * deduce de la extensión ({@code .ndjson} o {@code .jsonl} para NDJSON; CSV en
+ * otro caso). Las filas rechazadas se escriben en {@code <fichero>.rechazos.csv},
+ * o en la ruta indicada con {@code --rechazos=<fichero>}.
+ * </p>
+ */
+@Component
+public class ImportacionUsuariosComando implements ApplicationRunner {
+
+	private static final Logger log = LoggerFactory.getLogger(ImportacionUsuariosComando.class);
+
+	/** Opción de línea de comandos con el fichero a importar. */
+	public static final String OPCION = "importar-usuarios";
+
+	/** Opción de línea de comandos con el fichero de rechazos. */
+	public static final String OPCION_RECHAZOS = "rechazos";
+
+	private final ImportadorUsuarios importador;
+	private final ConfigurableApplicationContext contexto;
+
+	public ImportacionUsuariosComando(ImportadorUsuarios importador, ConfigurableApplicationContext contexto) {
+		this.importador = importador;
+		this.contexto = contexto;
+	}
+
+	@Override
+	public void run(ApplicationArguments args) throws Exception {
+		if (!args.containsOption(OPCION)) {
+			return;
+		}
+		List<String> valores = args.getOptionValues(OPCION);
+		if (valores.isEmpty() || valores.get(0).isBlank()) {
+			log.error("Uso: --{}=<fichero.csv|fichero.ndjson> [--{}=<fichero>]", OPCION, OPCION_RECHAZOS);
+			System.exit(SpringApplication.exit(contexto, () -> 2));
+			return;
+		}
+		Path fichero = Paths.get(valores.get(0));
+		Path rechazos = args.containsOption(OPCION_RECHAZOS) && !args.getOptionValues(OPCION_RECHAZOS).isEmpty()
+				? Paths.get(args.getOptionValues(OPCION_RECHAZOS).get(0))
+				: Paths.get(fichero + ".rechazos.csv");
+
+		int codigo = 0;
+		try (InputStream entrada = Files.newInputStream(fichero)) {
+			ResultadoImportacion resultado = importador.importar(entrada,
+					FormatoImportacion.deducir(fichero.getFileName().toString()), rechazos);
+			if (resultado.ficheroRechazos() != null) {
+				log.warn("{} filas rechazadas; detalle en {}", resultado.rechazadas(), resultado.ficheroRechazos());
+			}
+		} catch (Exception e) {
+			log.error("La importación de {} ha fallado y no se ha importado ningún usuario.", fichero, e);
+			codigo = 1;
+		}
+		int salida = codigo;
+		System.exit(SpringApplication.exit(contexto, () -> salida));
+	}
+}
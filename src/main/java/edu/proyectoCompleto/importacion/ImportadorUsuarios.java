@@ -0,0 +1,473 @@
+package edu.proyectoCompleto.importacion;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.regex.Pattern;
+
+import javax.sql.DataSource;
+
+import org.postgresql.PGConnection;
+import org.postgresql.copy.CopyIn;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.stereotype.Component;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import edu.proyectoCompleto.servicios.CambiosServicio;
+import edu.proyectoCompleto.servicios.DisponibilidadServicio;
+
+/**
+ * Importación masiva de usuarios desde un fichero CSV o NDJSON.
+ * <p>
+ * El fichero se lee en streaming, por tandas de {@code importacion.filas-por-tanda}
+ * filas. Las contraseñas de cada tanda se cifran con BCrypt en paralelo, en un
+ * {@link ForkJoinPool} con un hilo por núcleo, y las filas se envían con
+ * {@code COPY} (el {@code CopyManager} del driver de PostgreSQL) a una tabla
+ * temporal. Al terminar, una única sentencia {@code INSERT ... SELECT ... ON
+ * CONFLICT DO NOTHING} pasa las filas a {@code proyecto.usuarios}. Todo ocurre en
+ * una transacción: o se importa el fichero entero o no se importa nada. Esa
+ * transacción solo escribe usuarios y se marca como larga para no retener la
+ * sincronización de cambios de los clubs.
+ * </p>
+ * <p>
+ * Las filas mal formadas y las que repiten nickname, email o DNI no se importan y
+ * se escriben en un fichero de rechazos (CSV con la línea, el motivo y el detalle).
+ * Las contraseñas que ya vienen cifradas con BCrypt se copian tal cual. Solo se
+ * admite una importación a la vez.
+ * </p>
+ */
+@Component
+public class ImportadorUsuarios {
+
+	private static final Logger log = LoggerFactory.getLogger(ImportadorUsuarios.class);
+
+	/** Campos de cada fila, con los mismos nombres que {@code UsuarioDto}. */
+	private static final String[] CAMPOS = { "nicknameUsuario", "nombreUsuario", "dniUsuario", "telefonoUsuario",
+			"emailUsuario", "passwdUsuario", "rol" };
+
+	/** Longitud máxima de cada campo, igual que las columnas de {@code proyecto.usuarios}. */
+	private static final int[] LONGITUDES = { 50, 100, 20, 15, 150, 255, 50 };
+
+	private static final int TELEFONO = 3;
+	private static final int PASSWD = 5;
+
+	/** Tamaño de los bloques de ids de la secuencia, igual que el {@code allocationSize} de Usuario. */
+	private static final int TAMANO_BLOQUE_IDS = 50;
+
+	private static final Pattern BCRYPT = Pattern.compile("^\\$2[aby]?\\$\\d{2}\\$[./A-Za-z0-9]{53}$");
+
+	private static final String TABLA_TEMPORAL = "create temp table importacion_usuarios ("
+			+ "linea bigint not null, id_usuario bigint not null, nickname_usuario text, nombre_usuario text, "
+			+ "dni_usuario text, telefono_usuario text, email_usuario text, passwd_usuario text, rol_usuario text"
+			+ ") on commit drop";
+
+	private static final String COPIA = "copy importacion_usuarios (linea, id_usuario, nickname_usuario, "
+			+ "nombre_usuario, dni_usuario, telefono_usuario, email_usuario, passwd_usuario, rol_usuario) "
+			+ "from stdin (format csv)";
+
+	private static final String FUSION = "insert into proyecto.usuarios (id_usuario, nickname_usuario, "
+			+ "nombre_usuario, dni_usuario, telefono_usuario, email_usuario, passwd_usuario, rol_usuario) "
+			+ "select id_usuario, nickname_usuario, nombre_usuario, dni_usuario, telefono_usuario, email_usuario, "
+			+ "passwd_usuario, rol_usuario from importacion_usuarios order by linea "
+			+ "on conflict do nothing";
+
+	private static final String NO_IMPORTADAS = "select s.linea, s.nickname_usuario, s.email_usuario, s.dni_usuario "
+			+ "from importacion_usuarios s where not exists "
+			+ "(select 1 from proyecto.usuarios u where u.id_usuario = s.id_usuario) order by s.linea";
+
+	private final DataSource dataSource;
+	private final JdbcTemplate jdbcTemplate;
+	private final PasswordEncoder passwordEncoder;
+	private final ObjectMapper objectMapper;
+	private final int filasPorTanda;
+	private final Path directorioRechazos;
+	private final DisponibilidadServicio disponibilidad;
+
+	private final AtomicBoolean enCurso = new AtomicBoolean();
+
+	public ImportadorUsuarios(DataSource dataSource, JdbcTemplate jdbcTemplate, PasswordEncoder passwordEncoder,
+			ObjectMapper objectMapper, @Value("${importacion.filas-por-tanda:5000}") int filasPorTanda,
+			@Value("${importacion.directorio-rechazos:importaciones}") String directorioRechazos,
+			DisponibilidadServicio disponibilidad) {
+		this.dataSource = dataSource;
+		this.jdbcTemplate = jdbcTemplate;
+		this.passwordEncoder = passwordEncoder;
+		this.objectMapper = objectMapper;
+		this.filasPorTanda = filasPorTanda;
+		this.directorioRechazos = Paths.get(directorioRechazos).toAbsolutePath().normalize();
+		this.disponibilidad = disponibilidad;
+	}
+
+	/**
+	 * Importa los usuarios del fichero, escribiendo los rechazos en un fichero nuevo
+	 * del directorio {@code importacion.directorio-rechazos}.
+	 *
+	 * @see #importar(InputStream, FormatoImportacion, Path)
+	 */
+	public ResultadoImportacion importar(InputStream entrada, FormatoImportacion formato)
+			throws IOException, SQLException {
+		String marca = LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss"));
+		return importar(entrada, formato, directorioRechazos.resolve("usuarios-" + marca + ".rechazos.csv"));
+	}
+
+	/**
+	 * Importa los usuarios del fichero.
+	 *
+	 * @param entrada         contenido del fichero, en UTF-8
+	 * @param formato         formato del fichero
+	 * @param ficheroRechazos fichero en el que se escriben las filas rechazadas (solo se crea si hay alguna)
+	 * @return el resumen de la importación
+	 * @throws ImportacionEnCursoException si ya hay una importación en curso
+	 * @throws IllegalArgumentException    si a un CSV le faltan columnas obligatorias en la cabecera
+	 */
+	public ResultadoImportacion importar(InputStream entrada, FormatoImportacion formato, Path ficheroRechazos)
+			throws IOException, SQLException {
+		if (!enCurso.compareAndSet(false, true)) {
+			throw new ImportacionEnCursoException();
+		}
+		ForkJoinPool cifrado = new ForkJoinPool(Runtime.getRuntime().availableProcessors());
+		try (LectorFilas lector = new LectorFilas(entrada, formato);
+				Rechazos rechazos = new Rechazos(ficheroRechazos);
+				Connection conexion = dataSource.getConnection()) {
+			boolean autoCommit = conexion.getAutoCommit();
+			conexion.setAutoCommit(false);
+			try {
+				try (Statement sentencia = conexion.createStatement()) {
+					sentencia.execute(CambiosServicio.MARCAR_TRANSACCION_LARGA);
+					sentencia.execute(TABLA_TEMPORAL);
+				}
+				copiar(conexion, lector, rechazos, cifrado);
+
+				long importadas;
+				try (Statement sentencia = conexion.createStatement()) {
+					importadas = sentencia.executeUpdate(FUSION);
+					try (ResultSet noImportadas = sentencia.executeQuery(NO_IMPORTADAS)) {
+						while (noImportadas.next()) {
+							rechazos.registrar(noImportadas.getLong(1), "El nickname, el email o el DNI ya están en uso.",
+									noImportadas.getString(2) + " / " + noImportadas.getString(3) + " / "
+											+ noImportadas.getString(4));
+						}
+					}
+				}
+				conexion.commit();
+				if (importadas > 0) {
+					disponibilidad.solicitarReconstruccion(); // Los usuarios importados no están en los filtros
+				}
+
+				ResultadoImportacion resultado = new ResultadoImportacion(lector.leidas(), importadas,
+						rechazos.total(), rechazos.total() > 0 ? ficheroRechazos.toString() : null);
+				log.info("Importación de usuarios terminada: {} leídas, {} importadas, {} rechazadas.",
+						resultado.leidas(), resultado.importadas(), resultado.rechazadas());
+				return resultado;
+			} catch (IOException | SQLException | RuntimeException e) {
+				conexion.rollback();
+				throw e;
+			} finally {
+				conexion.setAutoCommit(autoCommit);
+			}
+		} finally {
+			cifrado.shutdown();
+			enCurso.set(false);
+		}
+	}
+
+	/**
+	 * Lee el fichero por tandas y envía cada tanda a la tabla temporal con COPY.
+	 */
+	private void copiar(Connection conexion, LectorFilas lector, Rechazos rechazos, ForkJoinPool cifrado)
+			throws IOException, SQLException {
+		CopyIn copia = conexion.unwrap(PGConnection.class).getCopyAPI().copyIn(COPIA);
+		try {
+			List<Fila> tanda;
+			while (!(tanda = lector.siguienteTanda(filasPorTanda, rechazos)).isEmpty()) {
+				List<Fila> filas = tanda;
+				// BCrypt es lo más costoso: se reparte entre todos los núcleos
+				List<String> cifradas = cifrado.submit(() -> filas.parallelStream()
+						.map(fila -> cifrar(fila.valores()[PASSWD])).toList()).join();
+				Deque<Long> ids = reservarIds(filas.size());
+
+				StringBuilder csv = new StringBuilder(filas.size() * 160);
+				for (int i = 0; i < filas.size(); i++) {
+					Fila fila = filas.get(i);
+					csv.append(fila.linea()).append(',').append(ids.removeFirst());
+					for (int campo = 0; campo < CAMPOS.length; campo++) {
+						csv.append(',');
+						anadirCsv(csv, campo == PASSWD ? cifradas.get(i) : fila.valores()[campo]);
+					}
+					csv.append('\n');
+				}
+				byte[] datos = csv.toString().getBytes(StandardCharsets.UTF_8);
+				copia.writeToCopy(datos, 0, datos.length);
+			}
+			copia.endCopy();
+		} finally {
+			if (copia.isActive()) {
+				copia.cancelCopy();
+			}
+		}
+	}
+
+	/**
+	 * Reserva ids de la secuencia de usuarios en bloques, igual que Hibernate, para que
+	 * las altas de la aplicación y la importación nunca compartan un id.
+	 * <p>
+	 * Se usa otra conexión porque la de la importación está ocupada con el COPY; la
+	 * secuencia no es transaccional, así que los ids reservados no se devuelven si la
+	 * importación falla (solo quedan huecos).
+	 * </p>
+	 */
+	private Deque<Long> reservarIds(int cantidad) {
+		Deque<Long> ids = new ArrayDeque<>(cantidad + TAMANO_BLOQUE_IDS);
+		while (ids.size() < cantidad) {
+			int bloques = (cantidad - ids.size() + TAMANO_BLOQUE_IDS - 1) / TAMANO_BLOQUE_IDS;
+			List<Long> altos = jdbcTemplate.queryForList(
+					"select nextval('proyecto.usuarios_id_seq') from generate_series(1, ?)", Long.class, bloques);
+			for (long alto : altos) {
+				// Hibernate trata de forma especial el primer valor de la secuencia: no se usa ese bloque
+				if (alto <= TAMANO_BLOQUE_IDS) {
+					continue;
+				}
+				for (long id = alto - TAMANO_BLOQUE_IDS + 1; id <= alto; id++) {
+					ids.add(id);
+				}
+			}
+		}
+		return ids;
+	}
+
+	private String cifrar(String passwd) {
+		return BCRYPT.matcher(passwd).matches() ? passwd : passwordEncoder.encode(passwd);
+	}
+
+	/**
+	 * Comprueba los campos de una fila.
+	 *
+	 * @return el motivo del rechazo, o null si la fila es válida
+	 */
+	static String validar(String[] valores) {
+		for (int campo = 0; campo < CAMPOS.length; campo++) {
+			String valor = valores[campo];
+			if (valor == null || valor.isBlank()) {
+				if (campo != TELEFONO) {
+					return "Falta el campo " + CAMPOS[campo] + ".";
+				}
+				valores[campo] = null;
+			} else if (valor.length() > LONGITUDES[campo]) {
+				return "El campo " + CAMPOS[campo] + " supera los " + LONGITUDES[campo] + " caracteres.";
+			}
+		}
+		return null;
+	}
+
+	/** Añade un valor con el formato CSV de COPY: entre comillas, o vacío para NULL. */
+	private static void anadirCsv(StringBuilder csv, String valor) {
+		if (valor != null) {
+			csv.append('"').append(valor.replace("\"", "\"\"")).append('"');
+		}
+	}
+
+	/**
+	 * Separa una línea CSV en campos, admitiendo comillas dobles y {@code ""} como
+	 * comilla escapada.
+	 *
+	 * @return los campos, o null si hay comillas sin cerrar
+	 */
+	static List<String> partirCsv(String linea) {
+		List<String> campos = new ArrayList<>();
+		StringBuilder actual = new StringBuilder();
+		boolean entreComillas = false;
+		for (int i = 0; i < linea.length(); i++) {
+			char c = linea.charAt(i);
+			if (entreComillas) {
+				if (c == '"' && i + 1 < linea.length() && linea.charAt(i + 1) == '"') {
+					actual.append('"');
+					i++;
+				} else if (c == '"') {
+					entreComillas = false;
+				} else {
+					actual.append(c);
+				}
+			} else if (c == '"') {
+				entreComillas = true;
+			} else if (c == ',') {
+				campos.add(actual.toString().trim());
+				actual.setLength(0);
+			} else {
+				actual.append(c);
+			}
+		}
+		if (entreComillas) {
+			return null;
+		}
+		campos.add(actual.toString().trim());
+		return campos;
+	}
+
+	/** Fila válida del fichero, con sus valores en el orden de {@link #CAMPOS}. */
+	private record Fila(long linea, String[] valores) {
+	}
+
+	/**
+	 * Lee las filas del fichero en streaming, descartando las mal formadas.
+	 */
+	private final class LectorFilas implements Closeable {
+
+		private final BufferedReader lector;
+		private final FormatoImportacion formato;
+		private int[] columnas; // Posición de cada campo en el CSV, según la cabecera
+		private long linea;
+		private long leidas;
+
+		LectorFilas(InputStream entrada, FormatoImportacion formato) {
+			this.lector = new BufferedReader(new InputStreamReader(entrada, StandardCharsets.UTF_8));
+			this.formato = formato;
+		}
+
+		List<Fila> siguienteTanda(int maximo, Rechazos rechazos) throws IOException {
+			List<Fila> tanda = new ArrayList<>(Math.min(maximo, 1024));
+			String texto;
+			while (tanda.size() < maximo && (texto = lector.readLine()) != null) {
+				linea++;
+				if (texto.isBlank()) {
+					continue;
+				}
+				if (formato == FormatoImportacion.CSV && columnas == null) {
+					leerCabecera(texto);
+					continue;
+				}
+				leidas++;
+				String[] valores = new String[CAMPOS.length];
+				String motivo = formato == FormatoImportacion.CSV ? leerCsv(texto, valores) : leerJson(texto, valores);
+				if (motivo == null) {
+					motivo = validar(valores);
+				}
+				if (motivo != null) {
+					rechazos.registrar(linea, motivo, texto);
+				} else {
+					tanda.add(new Fila(linea, valores));
+				}
+			}
+			return tanda;
+		}
+
+		long leidas() {
+			return leidas;
+		}
+
+		private void leerCabecera(String texto) {
+			List<String> cabecera = partirCsv(texto.startsWith("\uFEFF") ? texto.substring(1) : texto);
+			Map<String, Integer> posiciones = new HashMap<>();
+			for (int i = 0; cabecera != null && i < cabecera.size(); i++) {
+				posiciones.put(cabecera.get(i), i);
+			}
+			columnas = new int[CAMPOS.length];
+			for (int campo = 0; campo < CAMPOS.length; campo++) {
+				Integer posicion = posiciones.get(CAMPOS[campo]);
+				if (posicion == null && campo != TELEFONO) {
+					throw new IllegalArgumentException("Falta la columna " + CAMPOS[campo] + " en la cabecera del CSV.");
+				}
+				columnas[campo] = posicion == null ? -1 : posicion;
+			}
+		}
+
+		private String leerCsv(String texto, String[] valores) {
+			List<String> campos = partirCsv(texto);
+			if (campos == null) {
+				return "Comillas sin cerrar.";
+			}
+			for (int campo = 0; campo < CAMPOS.length; campo++) {
+				int posicion = columnas[campo];
+				valores[campo] = posicion >= 0 && posicion < campos.size() ? campos.get(posicion) : null;
+			}
+			return null;
+		}
+
+		private String leerJson(String texto, String[] valores) {
+			JsonNode nodo;
+			try {
+				nodo = objectMapper.readTree(texto);
+			} catch (IOException e) {
+				return "JSON no válido.";
+			}
+			if (nodo == null || !nodo.isObject()) {
+				return "Se esperaba un objeto JSON.";
+			}
+			for (int campo = 0; campo < CAMPOS.length; campo++) {
+				JsonNode valor = nodo.get(CAMPOS[campo]);
+				valores[campo] = valor == null || valor.isNull() ? null : valor.asText().trim();
+			}
+			return null;
+		}
+
+		@Override
+		public void close() throws IOException {
+			lector.close();
+		}
+	}
+
+	/**
+	 * Fichero CSV con las filas rechazadas; solo se crea al registrar el primer rechazo.
+	 */
+	static final class Rechazos implements Closeable {
+
+		private final Path fichero;
+		private BufferedWriter escritor;
+		private long total;
+
+		Rechazos(Path fichero) {
+			this.fichero = fichero;
+		}
+
+		void registrar(long linea, String motivo, String detalle) throws IOException {
+			if (escritor == null) {
+				Files.createDirectories(fichero.toAbsolutePath().getParent());
+				escritor = Files.newBufferedWriter(fichero, StandardCharsets.UTF_8);
+				escritor.write("linea,motivo,detalle\n");
+			}
+			StringBuilder fila = new StringBuilder().append(linea).append(',');
+			anadirCsv(fila, motivo);
+			fila.append(',');
+			anadirCsv(fila, detalle);
+			escritor.write(fila.append('\n').toString());
+			total++;
+		}
+
+		long total() {
+			return total;
+		}
+
+		@Override
+		public void close() throws IOException {
+			if (escritor != null) {
+				escritor.close();
+			}
+		}
+	}
+}
@@ -0,0 +1,12 @@
+package edu.proyectoCompleto.importacion;
+
+/**
+ * Resumen de una importación masiva de usuarios.
+ *
+ * @param leidas          filas de datos leídas del fichero
+ * @param importadas      usuarios insertados
+ * @param rechazadas      filas descartadas (formato incorrecto o restricciones incumplidas)
+ * @param ficheroRechazos ruta del fichero con las filas rechazadas, o null si no hubo ninguna
+ */
+public record ResultadoImportacion(long leidas, long importadas, long rechazadas, String ficheroRechazos) {
+}
@@ -0,0 +1,92 @@
+package edu.proyectoCompleto.medios;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.file.Path;
+import java.util.Optional;
+
+/**
+ * Almacén de ficheros multimedia (fotos de usuario y logos de club).
+ * <p>
+ * Los contenidos se direccionan por su SHA-256: la clave de un fichero depende solo
+ * de sus bytes, así que una misma imagen se guarda una única vez aunque la usen
+ * varios usuarios o clubs. Las entidades solo guardan esa clave.
+ * </p>
+ */
+public interface AlmacenMedios {
+
+	/**
+	 * Guarda un contenido y devuelve su clave. Si ya existía, no se vuelve a escribir.
+	 *
+	 * @param contenido bytes del fichero
+	 * @return la clave del contenido ({@code <sha256>.<extensión>})
+	 * @throws IOException si no se puede escribir el contenido
+	 */
+	String guardar(byte[] contenido) throws IOException;
+
+	/**
+	 * Guarda una imagen leyéndola por bloques desde un canal, sin copiarla entera en memoria.
+	 * <p>
+	 * El tamaño se comprueba mientras se lee y el formato se reconoce por los primeros
+	 * bytes; si algo no es válido se descarta lo escrito y no queda nada en el almacén.
+	 * </p>
+	 *
+	 * @param origen       canal del que se lee la imagen
+	 * @param tamanoMaximo número máximo de bytes admitidos
+	 * @return la clave de la imagen ({@code <sha256>.<extensión>})
+	 * @throws MedioNoValidoException si supera el tamaño máximo o no es una imagen admitida
+	 * @throws IOException            si no se puede leer el origen o escribir el contenido
+	 */
+	String guardarImagen(ReadableByteChannel origen, long tamanoMaximo) throws IOException;
+
+	/**
+	 * Guarda un contenido derivado de otro (por ejemplo, una miniatura) con la clave
+	 * indicada. Como se calcula de forma determinista a partir del original, la
+	 * clave del original basta para direccionarlo.
+	 *
+	 * @param clave     clave del contenido derivado
+	 * @param contenido bytes del contenido derivado
+	 * @throws IOException si no se puede escribir el contenido
+	 */
+	void guardarDerivado(String clave, byte[] contenido) throws IOException;
+
+	/**
+	 * Abre un contenido para leerlo.
+	 *
+	 * @param clave clave devuelta por {@link #guardar(byte[])}
+	 * @return un flujo con los bytes del contenido
+	 * @throws IOException si el contenido no existe o no se puede leer
+	 */
+	InputStream abrir(String clave) throws IOException;
+
+	/**
+	 * Devuelve el tamaño en bytes de un contenido.
+	 *
+	 * @param clave clave del contenido
+	 * @return el tamaño del contenido
+	 * @throws IOException si el contenido no existe o no se puede consultar
+	 */
+	long tamano(String clave) throws IOException;
+
+	/**
+	 * Devuelve la ruta del contenido en el disco local, si el almacén la tiene.
+	 * <p>
+	 * Permite enviar el fichero sin copiarlo a memoria ({@code sendfile} o
+	 * {@code FileChannel.transferTo}). Los almacenes remotos devuelven vacío y el
+	 * contenido se sirve con {@link #abrir(String)}.
+	 * </p>
+	 *
+	 * @param clave clave del contenido
+	 * @return la ruta local del contenido, o vacío si no está en disco local
+	 */
+	Optional<Path> rutaLocal(String clave);
+
+	/**
+	 * Indica si existe un contenido con la clave indicada.
+	 *
+	 * @param clave clave del contenido
+	 * @return true si el contenido existe
+	 */
+	boolean existe(String clave);
+}
@@ -0,0 +1,215 @@
+package edu.proyectoCompleto.medios;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.Optional;
+import java.util.regex.Pattern;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+/**
+ * Almacén de medios en el sistema de ficheros local.
+ * <p>
+ * Cada contenido se guarda en {@code <directorio>/<ab>/<cd>/<sha256>.<extensión>},
+ * repartido en subdirectorios por los primeros caracteres del hash para no
+ * acumular miles de ficheros en una misma carpeta. La escritura se hace en un
+ * fichero temporal que después se mueve de forma atómica, así que nunca se ve
+ * un fichero a medio escribir.
+ * </p>
+ */
+@Component
+@ConditionalOnProperty(name = "medios.almacen", havingValue = "local", matchIfMissing = true)
+public class AlmacenMediosLocal implements AlmacenMedios {
+
+	/** Tamaño del bloque con el que se copian las subidas. */
+	private static final int TAMANO_BLOQUE = 64 * 1024;
+
+	/** Formato válido de una clave: hash SHA-256 en hexadecimal, sufijo opcional de variante y extensión. */
+	private static final Pattern FORMATO_CLAVE = Pattern.compile("[0-9a-f]{64}(_[0-9]{1,4})?\\.[a-z0-9]{1,5}");
+
+	private final Path directorio;
+
+	public AlmacenMediosLocal(@Value("${medios.local.directorio:medios}") String directorio) throws IOException {
+		this.directorio = Paths.get(directorio).toAbsolutePath().normalize();
+		Files.createDirectories(this.directorio);
+	}
+
+	@Override
+	public String guardar(byte[] contenido) throws IOException {
+		String clave = hash(contenido) + "." + extension(contenido);
+		escribir(clave, contenido);
+		return clave;
+	}
+
+	@Override
+	public void guardarDerivado(String clave, byte[] contenido) throws IOException {
+		escribir(clave, contenido);
+	}
+
+	@Override
+	public String guardarImagen(ReadableByteChannel origen, long tamanoMaximo) throws IOException {
+		MessageDigest digest = nuevoDigest();
+		ByteBuffer bloque = ByteBuffer.allocate(TAMANO_BLOQUE);
+		Path temporal = Files.createTempFile(directorio, "subida-", ".tmp");
+		try {
+			TipoImagen tipo = null;
+			long total = 0;
+			try (FileChannel destino = FileChannel.open(temporal, StandardOpenOption.WRITE)) {
+				while (origen.read(bloque) >= 0) {
+					// Esperamos a tener la cabecera completa (o el fichero entero) antes de reconocer el formato
+					if (tipo == null && bloque.position() < TipoImagen.BYTES_CABECERA && bloque.hasRemaining()) {
+						continue;
+					}
+					if (tipo == null) {
+						tipo = reconocer(bloque);
+					}
+					total += bloque.position();
+					if (total > tamanoMaximo) {
+						throw demasiadoGrande(tamanoMaximo);
+					}
+					bloque.flip();
+					digest.update(bloque.duplicate());
+					while (bloque.hasRemaining()) {
+						destino.write(bloque);
+					}
+					bloque.clear();
+				}
+				if (bloque.position() > 0) { // Fichero más pequeño que la cabecera
+					if (tipo == null) {
+						tipo = reconocer(bloque);
+					}
+					total += bloque.position();
+					if (total > tamanoMaximo) {
+						throw demasiadoGrande(tamanoMaximo);
+					}
+					bloque.flip();
+					digest.update(bloque.duplicate());
+					destino.write(bloque);
+				}
+			}
+			if (tipo == null) {
+				throw new MedioNoValidoException(MedioNoValidoException.Motivo.TIPO_NO_ADMITIDO, "El fichero está vacío.");
+			}
+			String clave = HexFormat.of().formatHex(digest.digest()) + "." + tipo.getExtension();
+			Path ruta = ruta(clave);
+			if (!Files.exists(ruta)) {
+				Files.createDirectories(ruta.getParent());
+				mover(temporal, ruta);
+			}
+			return clave;
+		} finally {
+			Files.deleteIfExists(temporal);
+		}
+	}
+
+	@Override
+	public InputStream abrir(String clave) throws IOException {
+		return Files.newInputStream(ruta(clave));
+	}
+
+	@Override
+	public long tamano(String clave) throws IOException {
+		return Files.size(ruta(clave));
+	}
+
+	@Override
+	public Optional<Path> rutaLocal(String clave) {
+		return existe(clave) ? Optional.of(ruta(clave)) : Optional.empty();
+	}
+
+	@Override
+	public boolean existe(String clave) {
+		return FORMATO_CLAVE.matcher(clave).matches() && Files.exists(ruta(clave));
+	}
+
+	/**
+	 * Calcula la ruta de un contenido a partir de su clave, validando antes el formato
+	 * para que una clave manipulada no pueda salir del directorio del almacén.
+	 */
+	Path ruta(String clave) {
+		if (!FORMATO_CLAVE.matcher(clave).matches()) {
+			throw new IllegalArgumentException("Clave de medio no válida: " + clave);
+		}
+		return directorio.resolve(clave.substring(0, 2)).resolve(clave.substring(2, 4)).resolve(clave);
+	}
+
+	/**
+	 * Escribe el contenido con la clave indicada, salvo que ya exista (mismo contenido).
+	 */
+	private void escribir(String clave, byte[] contenido) throws IOException {
+		Path destino = ruta(clave);
+		if (Files.exists(destino)) {
+			return;
+		}
+		Files.createDirectories(destino.getParent());
+		Path temporal = Files.createTempFile(destino.getParent(), "subida-", ".tmp");
+		try {
+			Files.write(temporal, contenido);
+			mover(temporal, destino);
+		} finally {
+			Files.deleteIfExists(temporal);
+		}
+	}
+
+	/**
+	 * Mueve el temporal a su destino; si otro hilo ya ha guardado el mismo contenido
+	 * se conserva el existente, que es idéntico.
+	 */
+	static void mover(Path temporal, Path destino) throws IOException {
+		try {
+			Files.move(temporal, destino, StandardCopyOption.ATOMIC_MOVE);
+		} catch (FileAlreadyExistsException e) {
+			// Mismo contenido guardado a la vez por otra petición
+		}
+	}
+
+	/**
+	 * Reconoce el formato a partir del principio del bloque leído.
+	 */
+	private static TipoImagen reconocer(ByteBuffer bloque) {
+		byte[] cabecera = new byte[Math.min(bloque.position(), TipoImagen.BYTES_CABECERA)];
+		bloque.duplicate().flip().get(cabecera);
+		TipoImagen tipo = TipoImagen.detectar(cabecera, cabecera.length);
+		if (tipo == null) {
+			throw new MedioNoValidoException(MedioNoValidoException.Motivo.TIPO_NO_ADMITIDO,
+					"Formato de imagen no admitido (se aceptan JPEG, PNG, GIF y WebP).");
+		}
+		return tipo;
+	}
+
+	private static MedioNoValidoException demasiadoGrande(long tamanoMaximo) {
+		return new MedioNoValidoException(MedioNoValidoException.Motivo.DEMASIADO_GRANDE,
+				"La imagen supera el tamaño máximo de " + tamanoMaximo + " bytes.");
+	}
+
+	private static String extension(byte[] contenido) {
+		TipoImagen tipo = TipoImagen.detectar(contenido, contenido.length);
+		return tipo != null ? tipo.getExtension() : "bin";
+	}
+
+	private static String hash(byte[] contenido) {
+		return HexFormat.of().formatHex(nuevoDigest().digest(contenido));
+	}
+
+	private static MessageDigest nuevoDigest() {
+		try {
+			return MessageDigest.getInstance("SHA-256");
+		} catch (NoSuchAlgorithmException e) {
+			throw new IllegalStateException("SHA-256 no está disponible en esta JVM.", e);
+		}
+	}
+}
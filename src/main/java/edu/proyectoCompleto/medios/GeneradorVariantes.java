@@ -0,0 +1,267 @@
+package edu.proyectoCompleto.medios;
+
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReader;
+import javax.imageio.stream.ImageInputStream;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import edu.proyectoCompleto.utils.CacheAcotada;
+
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Genera en segundo plano versiones reducidas (variantes) de las imágenes subidas.
+ * <p>
+ * Cada imagen se reduce a los lados configurados en {@code medios.variantes.tamanos}
+ * manteniendo la proporción, y cada variante se guarda junto al original con la
+ * clave {@code <sha256>_<lado>.<extensión>}. El trabajo se hace en un grupo de
+ * hilos del tamaño del número de núcleos con una cola acotada; si la cola está
+ * llena la petición se descarta, porque los endpoints de lectura sirven el
+ * original mientras no exista la variante y vuelven a pedirla.
+ * </p>
+ * <p>
+ * Solo se usa {@link ImageIO} del JDK, que lee JPEG, PNG y GIF; las imágenes WebP
+ * se sirven siempre en su tamaño original.
+ * </p>
+ * <p>
+ * Unos pocos megas comprimidos pueden declarar una imagen enorme que ocuparía gigas
+ * al decodificarla. Antes de decodificar se leen las dimensiones de la cabecera y las
+ * imágenes de más de {@code medios.variantes.maximo-pixeles} no se reducen: se
+ * sirven siempre en su tamaño original.
+ * </p>
+ */
+@Component
+public class GeneradorVariantes {
+
+	private static final Logger log = LoggerFactory.getLogger(GeneradorVariantes.class);
+
+	private final AlmacenMedios almacenMedios;
+	private final int[] tamanos;
+	private final long maximoPixeles;
+	private final ThreadPoolExecutor ejecutor;
+
+	/** Claves originales con una generación pendiente, para no encolarlas dos veces. */
+	private final Set<String> pendientes = ConcurrentHashMap.newKeySet();
+
+	/** Claves ya procesadas, para no volver a decodificar imágenes menores que la variante pedida. */
+	private final CacheAcotada<String, Boolean> procesadas = new CacheAcotada<>(10_000);
+
+	public GeneradorVariantes(AlmacenMedios almacenMedios,
+			@Value("${medios.variantes.tamanos:64,128,256}") int[] tamanos,
+			@Value("${medios.variantes.hilos:0}") int hilos,
+			@Value("${medios.variantes.cola:200}") int tamanoCola,
+			@Value("${medios.variantes.maximo-pixeles:40000000}") long maximoPixeles) {
+		this.almacenMedios = almacenMedios;
+		this.tamanos = Arrays.stream(tamanos).filter(t -> t > 0).sorted().distinct().toArray();
+		this.maximoPixeles = maximoPixeles;
+		int numeroHilos = hilos > 0 ? hilos : Runtime.getRuntime().availableProcessors();
+		AtomicInteger contador = new AtomicInteger();
+		this.ejecutor = new ThreadPoolExecutor(numeroHilos, numeroHilos, 60, TimeUnit.SECONDS,
+				new ArrayBlockingQueue<>(tamanoCola), tarea -> {
+					Thread hilo = new Thread(tarea, "variantes-" + contador.incrementAndGet());
+					hilo.setDaemon(true);
+					hilo.setPriority(Thread.NORM_PRIORITY - 1); // Por debajo de las peticiones
+					return hilo;
+				}, new ThreadPoolExecutor.AbortPolicy());
+		this.ejecutor.allowCoreThreadTimeOut(true);
+	}
+
+	/**
+	 * Encola la generación de las variantes de una imagen.
+	 *
+	 * @param clave clave de la imagen original en el almacén
+	 */
+	public void encolar(String clave) {
+		if (clave == null || tamanos.length == 0 || !admiteVariantes(clave) || !pendientes.add(clave)) {
+			return;
+		}
+		try {
+			ejecutor.execute(() -> {
+				try {
+					generar(clave);
+					procesadas.guardar(clave, Boolean.TRUE, System.currentTimeMillis() + TimeUnit.HOURS.toMillis(1));
+				} catch (IOException | RuntimeException e) {
+					log.warn("No se pudieron generar las variantes de {}: {}", clave, e.getMessage());
+				} finally {
+					pendientes.remove(clave);
+				}
+			});
+		} catch (RejectedExecutionException e) {
+			pendientes.remove(clave);
+			log.debug("Cola de variantes llena; se descarta {}", clave);
+		}
+	}
+
+	/**
+	 * Contenido elegido para un tamaño pedido.
+	 *
+	 * @param clave       clave que se debe servir
+	 * @param provisional true si es el original en lugar de una variante que todavía se
+	 *                    está generando: la misma URL servirá pronto otro contenido
+	 */
+	public record Eleccion(String clave, boolean provisional) {
+	}
+
+	/**
+	 * Elige la clave que conviene servir para el tamaño pedido: la variante más
+	 * pequeña cuyo lado es al menos el pedido o, si no existe todavía, el original.
+	 * Si falta una variante que debería existir, se encola su generación.
+	 *
+	 * @param clave  clave de la imagen original
+	 * @param tamano lado en píxeles que necesita el cliente (null para el original)
+	 * @return la clave que se debe servir y si es provisional
+	 */
+	public Eleccion elegir(String clave, Integer tamano) {
+		if (tamano == null || tamano <= 0 || !admiteVariantes(clave)) {
+			return new Eleccion(clave, false);
+		}
+		for (int lado : tamanos) {
+			if (lado >= tamano) {
+				String variante = claveVariante(clave, lado);
+				if (almacenMedios.existe(variante)) {
+					return new Eleccion(variante, false);
+				}
+				// Si ya se procesó, la imagen es más pequeña que la variante y basta el original
+				if (procesadas.obtener(clave).isPresent()) {
+					return new Eleccion(clave, false);
+				}
+				encolar(clave);
+				return new Eleccion(clave, true);
+			}
+		}
+		return new Eleccion(clave, false); // Se pide más que la variante mayor: el original
+	}
+
+	/**
+	 * Calcula la clave de la variante de un lado dado.
+	 *
+	 * @param clave clave de la imagen original ({@code <sha256>.<extensión>})
+	 * @param lado  lado máximo de la variante en píxeles
+	 * @return la clave de la variante
+	 */
+	public static String claveVariante(String clave, int lado) {
+		TipoImagen formato = formatoVariante(TipoImagen.desdeClave(clave));
+		String hash = clave.substring(0, clave.lastIndexOf('.'));
+		return hash + "_" + lado + "." + formato.getExtension();
+	}
+
+	/**
+	 * Genera las variantes que falten de una imagen.
+	 */
+	private void generar(String clave) throws IOException {
+		BufferedImage original;
+		try (InputStream entrada = almacenMedios.abrir(clave)) {
+			original = leer(entrada, clave);
+		}
+		if (original == null) {
+			return; // Formato que ImageIO no sabe leer, o demasiado grande para decodificarla
+		}
+		TipoImagen formato = formatoVariante(TipoImagen.desdeClave(clave));
+		int ladoOriginal = Math.max(original.getWidth(), original.getHeight());
+		for (int lado : tamanos) {
+			if (lado >= ladoOriginal) {
+				break; // No se amplían imágenes: para este tamaño se sirve el original
+			}
+			String variante = claveVariante(clave, lado);
+			if (almacenMedios.existe(variante)) {
+				continue;
+			}
+			BufferedImage reducida = reducir(original, lado, formato == TipoImagen.PNG);
+			ByteArrayOutputStream salida = new ByteArrayOutputStream();
+			ImageIO.write(reducida, formato == TipoImagen.PNG ? "png" : "jpg", salida);
+			almacenMedios.guardarDerivado(variante, salida.toByteArray());
+		}
+	}
+
+	/**
+	 * Decodifica la imagen si sus dimensiones no superan {@code medios.variantes.maximo-pixeles}.
+	 *
+	 * @return la imagen, o null si ImageIO no sabe leerla o es demasiado grande
+	 */
+	BufferedImage leer(InputStream entrada, String clave) throws IOException {
+		try (ImageInputStream imagen = ImageIO.createImageInputStream(entrada)) {
+			Iterator<ImageReader> lectores = imagen == null ? null : ImageIO.getImageReaders(imagen);
+			if (lectores == null || !lectores.hasNext()) {
+				return null;
+			}
+			ImageReader lector = lectores.next();
+			try {
+				lector.setInput(imagen, true, true);
+				// Solo la cabecera: todavía no se ha reservado memoria para los píxeles
+				long pixeles = (long) lector.getWidth(0) * lector.getHeight(0);
+				if (pixeles > maximoPixeles) {
+					log.warn("No se generan variantes de {}: {} píxeles, más de {}", clave, pixeles, maximoPixeles);
+					return null;
+				}
+				return lector.read(0);
+			} finally {
+				lector.dispose();
+			}
+		}
+	}
+
+	/**
+	 * Reduce la imagen para que su lado mayor mida {@code lado} píxeles, a mitades
+	 * sucesivas y un último paso bilineal para conservar la calidad.
+	 */
+	private static BufferedImage reducir(BufferedImage original, int lado, boolean conTransparencia) {
+		double escala = (double) lado / Math.max(original.getWidth(), original.getHeight());
+		int anchoFinal = Math.max(1, (int) Math.round(original.getWidth() * escala));
+		int altoFinal = Math.max(1, (int) Math.round(original.getHeight() * escala));
+		int tipo = conTransparencia ? BufferedImage.TYPE_INT_ARGB : BufferedImage.TYPE_INT_RGB;
+
+		BufferedImage actual = original;
+		int ancho = original.getWidth();
+		int alto = original.getHeight();
+		do {
+			ancho = Math.max(anchoFinal, ancho / 2);
+			alto = Math.max(altoFinal, alto / 2);
+			BufferedImage siguiente = new BufferedImage(ancho, alto, tipo);
+			Graphics2D g = siguiente.createGraphics();
+			try {
+				g.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+				g.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+				g.drawImage(actual, 0, 0, ancho, alto, null);
+			} finally {
+				g.dispose();
+			}
+			actual = siguiente;
+		} while (ancho != anchoFinal || alto != altoFinal);
+		return actual;
+	}
+
+	/** Las fotos JPEG se reducen a JPEG; el resto (PNG, GIF) a PNG para conservar la transparencia. */
+	private static TipoImagen formatoVariante(TipoImagen original) {
+		return original == TipoImagen.JPEG ? TipoImagen.JPEG : TipoImagen.PNG;
+	}
+
+	private static boolean admiteVariantes(String clave) {
+		TipoImagen tipo = TipoImagen.desdeClave(clave);
+		return tipo == TipoImagen.JPEG || tipo == TipoImagen.PNG || tipo == TipoImagen.GIF;
+	}
+
+	@PreDestroy
+	public void detener() {
+		ejecutor.shutdownNow();
+	}
+}
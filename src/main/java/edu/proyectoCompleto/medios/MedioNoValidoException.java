@@ -0,0 +1,28 @@
+package edu.proyectoCompleto.medios;
+
+/**
+ * Excepción lanzada cuando un fichero subido no se acepta en el almacén de medios.
+ */
+public class MedioNoValidoException extends RuntimeException {
+
+	private static final long serialVersionUID = 1L;
+
+	/** Motivo por el que se rechaza el fichero. */
+	public enum Motivo {
+		/** El fichero supera el tamaño máximo permitido. */
+		DEMASIADO_GRANDE,
+		/** Los primeros bytes no corresponden a ningún formato de imagen admitido. */
+		TIPO_NO_ADMITIDO
+	}
+
+	private final Motivo motivo;
+
+	public MedioNoValidoException(Motivo motivo, String mensaje) {
+		super(mensaje);
+		this.motivo = motivo;
+	}
+
+	public Motivo getMotivo() {
+		return motivo;
+	}
+}
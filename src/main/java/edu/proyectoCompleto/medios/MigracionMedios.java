@@ -0,0 +1,102 @@
+package edu.proyectoCompleto.medios;
+
+import java.io.IOException;
+import java.util.List;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.SpringApplication;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+/**
+ * Comando que traslada las imágenes guardadas como {@code bytea} en las tablas al
+ * almacén de medios.
+ * <p>
+ * Se ejecuta arrancando la aplicación con {@code --migrar-medios}. Recorre por
+ * lotes las filas que aún tienen bytes en {@code foto_usuario} o
+ * {@code logo_club}, guarda cada imagen en el {@link AlmacenMedios}, escribe su
+ * clave en {@code ref_foto_usuario} o {@code ref_logo_club} y vacía la columna
+ * antigua. Es idempotente: si se interrumpe, basta con volver a lanzarlo. Al
+ * terminar la aplicación se cierra.
+ * </p>
+ */
+@Component
+public class MigracionMedios implements ApplicationRunner {
+
+	private static final Logger log = LoggerFactory.getLogger(MigracionMedios.class);
+
+	/** Opción de línea de comandos que activa la migración. */
+	public static final String OPCION = "migrar-medios";
+
+	private static final int TAMANO_LOTE = 100;
+
+	private final JdbcTemplate jdbcTemplate;
+	private final AlmacenMedios almacenMedios;
+	private final ConfigurableApplicationContext contexto;
+
+	public MigracionMedios(JdbcTemplate jdbcTemplate, AlmacenMedios almacenMedios,
+			ConfigurableApplicationContext contexto) {
+		this.jdbcTemplate = jdbcTemplate;
+		this.almacenMedios = almacenMedios;
+		this.contexto = contexto;
+	}
+
+	@Override
+	public void run(ApplicationArguments args) throws Exception {
+		if (!args.containsOption(OPCION)) {
+			return;
+		}
+		long usuarios = migrar("usuarios", "id_usuario", "foto_usuario", "ref_foto_usuario");
+		long clubs = migrar("clubs", "id_club", "logo_club", "ref_logo_club");
+		log.info("Migración de medios terminada: {} fotos de usuario y {} logos de club trasladados. "
+				+ "Las columnas foto_usuario y logo_club ya pueden eliminarse.", usuarios, clubs);
+		System.exit(SpringApplication.exit(contexto, () -> 0));
+	}
+
+	/**
+	 * Traslada al almacén los bytes de una columna, recorriendo la tabla por lotes
+	 * ordenados por id para no cargar más de un lote en memoria.
+	 *
+	 * @return número de filas migradas
+	 */
+	private long migrar(String tabla, String columnaId, String columnaBytes, String columnaRef) throws IOException {
+		if (!existeColumna(tabla, columnaBytes)) {
+			log.info("La tabla proyecto.{} no tiene la columna {}; no hay nada que migrar.", tabla, columnaBytes);
+			return 0;
+		}
+		String consultaIds = "select " + columnaId + " from proyecto." + tabla + " where " + columnaBytes
+				+ " is not null and " + columnaId + " > ? order by " + columnaId + " limit " + TAMANO_LOTE;
+		String consultaBytes = "select " + columnaBytes + " from proyecto." + tabla + " where " + columnaId + " = ?";
+		String actualizacion = "update proyecto." + tabla + " set " + columnaRef + " = ?, " + columnaBytes
+				+ " = null where " + columnaId + " = ?";
+
+		long migradas = 0;
+		long ultimoId = Long.MIN_VALUE;
+		List<Long> ids;
+		do {
+			ids = jdbcTemplate.queryForList(consultaIds, Long.class, ultimoId);
+			for (Long id : ids) {
+				// Se lee una imagen cada vez para no tener todo el lote en memoria
+				byte[] contenido = jdbcTemplate.queryForObject(consultaBytes, byte[].class, id);
+				if (contenido != null && contenido.length > 0) {
+					String clave = almacenMedios.guardar(contenido);
+					jdbcTemplate.update(actualizacion, clave, id);
+					migradas++;
+				}
+				ultimoId = id;
+			}
+			log.info("proyecto.{}: {} imágenes migradas", tabla, migradas);
+		} while (ids.size() == TAMANO_LOTE);
+		return migradas;
+	}
+
+	private boolean existeColumna(String tabla, String columna) {
+		Integer total = jdbcTemplate.queryForObject("select count(*) from information_schema.columns "
+				+ "where table_schema = 'proyecto' and table_name = ? and column_name = ?", Integer.class, tabla, columna);
+		return total != null && total > 0;
+	}
+}
@@ -0,0 +1,232 @@
+package edu.proyectoCompleto.medios;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Optional;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+/**
+ * Envía al cliente un contenido del {@link AlmacenMedios} con soporte de caché HTTP.
+ * <p>
+ * El ETag es el hash del contenido (parte de su clave), así que una petición con
+ * {@code If-None-Match} se responde con 304 sin abrir el fichero. Las URLs de las
+ * imágenes son las del usuario o el club, no las del contenido, y cambian de
+ * contenido con cada subida: se envían con {@code no-cache} para que navegadores y
+ * CDNs las revaliden siempre, que aquí es un 304 barato. Admite peticiones
+ * {@code Range} de un único intervalo y, cuando el contenido está en disco local,
+ * lo envía sin copiarlo a memoria: con {@code sendfile} si Tomcat lo admite o con
+ * {@link FileChannel#transferTo} en caso contrario.
+ * </p>
+ */
+@Component
+public class ServidorMedios {
+
+	// Atributos de petición con los que Tomcat envía un fichero con sendfile
+	private static final String SENDFILE_SOPORTADO = "org.apache.tomcat.sendfile.support";
+	private static final String SENDFILE_FICHERO = "org.apache.tomcat.sendfile.filename";
+	private static final String SENDFILE_INICIO = "org.apache.tomcat.sendfile.start";
+	private static final String SENDFILE_FIN = "org.apache.tomcat.sendfile.end";
+
+	private static final String REVALIDAR = "no-cache";
+	private static final String NO_GUARDAR = "no-store";
+
+	private final AlmacenMedios almacenMedios;
+
+	public ServidorMedios(AlmacenMedios almacenMedios) {
+		this.almacenMedios = almacenMedios;
+	}
+
+	/**
+	 * Sirve el contenido con la clave indicada.
+	 *
+	 * @param clave    clave del contenido en el almacén
+	 * @param request  petición HTTP
+	 * @param response respuesta HTTP
+	 * @throws IOException si no se puede leer el contenido o escribir la respuesta
+	 */
+	public void servir(String clave, HttpServletRequest request, HttpServletResponse response) throws IOException {
+		servir(clave, false, request, response);
+	}
+
+	/**
+	 * Sirve el contenido con la clave indicada.
+	 *
+	 * @param clave       clave del contenido en el almacén
+	 * @param provisional true si la URL servirá pronto otro contenido (el original mientras
+	 *                    se genera la miniatura pedida): se envía con {@code no-store}
+	 * @param request     petición HTTP
+	 * @param response    respuesta HTTP
+	 * @throws IOException si no se puede leer el contenido o escribir la respuesta
+	 */
+	public void servir(String clave, boolean provisional, HttpServletRequest request, HttpServletResponse response)
+			throws IOException {
+		String etag = "\"" + clave.substring(0, clave.lastIndexOf('.')) + "\"";
+		response.setHeader(HttpHeaders.ETAG, etag);
+		response.setHeader(HttpHeaders.CACHE_CONTROL, provisional ? NO_GUARDAR : REVALIDAR);
+
+		if (coincideEtag(request.getHeader(HttpHeaders.IF_NONE_MATCH), etag)) {
+			response.setStatus(HttpStatus.NOT_MODIFIED.value());
+			return; // El cliente ya tiene este contenido: no se abre el fichero
+		}
+
+		if (!almacenMedios.existe(clave)) {
+			response.sendError(HttpStatus.NOT_FOUND.value(), "Imagen no encontrada.");
+			return;
+		}
+
+		long tamano = almacenMedios.tamano(clave);
+		TipoImagen tipo = TipoImagen.desdeClave(clave);
+		response.setContentType(tipo != null ? tipo.getContentType() : "application/octet-stream");
+		response.setHeader(HttpHeaders.ACCEPT_RANGES, "bytes");
+
+		long inicio = 0;
+		long fin = tamano - 1;
+		String rango = request.getHeader(HttpHeaders.RANGE);
+		String ifRange = request.getHeader(HttpHeaders.IF_RANGE);
+		if (rango != null && (ifRange == null || ifRange.equals(etag))) {
+			long[] intervalo = parsearRango(rango, tamano);
+			if (intervalo == null) {
+				response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes */" + tamano);
+				response.setStatus(HttpStatus.REQUESTED_RANGE_NOT_SATISFIABLE.value());
+				return;
+			}
+			if (intervalo.length == 2) {
+				inicio = intervalo[0];
+				fin = intervalo[1];
+				response.setStatus(HttpStatus.PARTIAL_CONTENT.value());
+				response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes " + inicio + "-" + fin + "/" + tamano);
+			}
+		}
+
+		long longitud = fin - inicio + 1;
+		response.setContentLengthLong(longitud);
+		if ("HEAD".equals(request.getMethod()) || longitud == 0) {
+			return;
+		}
+
+		Optional<Path> ruta = almacenMedios.rutaLocal(clave);
+		if (ruta.isPresent()) {
+			enviarFichero(ruta.get(), inicio, longitud, request, response);
+		} else {
+			enviarFlujo(clave, inicio, longitud, response);
+		}
+	}
+
+	/**
+	 * Envía un fichero local sin pasar sus bytes por el heap.
+	 */
+	private static void enviarFichero(Path ruta, long inicio, long longitud, HttpServletRequest request,
+			HttpServletResponse response) throws IOException {
+		if (Boolean.TRUE.equals(request.getAttribute(SENDFILE_SOPORTADO))) {
+			// Tomcat enviará el fichero con sendfile al terminar la petición
+			request.setAttribute(SENDFILE_FICHERO, ruta.toFile().getCanonicalPath());
+			request.setAttribute(SENDFILE_INICIO, inicio);
+			request.setAttribute(SENDFILE_FIN, inicio + longitud);
+			return;
+		}
+		try (FileChannel fichero = FileChannel.open(ruta, StandardOpenOption.READ)) {
+			WritableByteChannel salida = Channels.newChannel(response.getOutputStream());
+			long enviados = 0;
+			while (enviados < longitud) {
+				long n = fichero.transferTo(inicio + enviados, longitud - enviados, salida);
+				if (n <= 0) {
+					break;
+				}
+				enviados += n;
+			}
+		}
+	}
+
+	/**
+	 * Envía un contenido leyéndolo del almacén como flujo (almacenes no locales).
+	 */
+	private void enviarFlujo(String clave, long inicio, long longitud, HttpServletResponse response)
+			throws IOException {
+		try (InputStream entrada = almacenMedios.abrir(clave)) {
+			entrada.skipNBytes(inicio);
+			OutputStream salida = response.getOutputStream();
+			byte[] bloque = new byte[16 * 1024];
+			long restantes = longitud;
+			while (restantes > 0) {
+				int leidos = entrada.read(bloque, 0, (int) Math.min(bloque.length, restantes));
+				if (leidos < 0) {
+					break;
+				}
+				salida.write(bloque, 0, leidos);
+				restantes -= leidos;
+			}
+		}
+	}
+
+	/**
+	 * Comprueba si alguna de las etiquetas de {@code If-None-Match} coincide con el ETag.
+	 */
+	private static boolean coincideEtag(String ifNoneMatch, String etag) {
+		if (ifNoneMatch == null) {
+			return false;
+		}
+		for (String candidata : ifNoneMatch.split(",")) {
+			String valor = candidata.trim();
+			if (valor.startsWith("W/")) {
+				valor = valor.substring(2); // Comparación débil, como indica la RFC 9110 para If-None-Match
+			}
+			if (valor.equals("*") || valor.equals(etag)) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Interpreta una cabecera {@code Range} de un único intervalo.
+	 *
+	 * @return {@code {inicio, fin}} si el intervalo es válido; un array vacío si la
+	 *         cabecera no se puede usar (se envía el contenido completo); o null si
+	 *         el intervalo no se puede satisfacer
+	 */
+	private static long[] parsearRango(String rango, long tamano) {
+		if (!rango.startsWith("bytes=") || rango.indexOf(',') >= 0) {
+			return new long[0]; // Unidades desconocidas o varios intervalos: se ignora
+		}
+		String especificacion = rango.substring("bytes=".length()).trim();
+		int guion = especificacion.indexOf('-');
+		if (guion < 0) {
+			return new long[0];
+		}
+		try {
+			String desde = especificacion.substring(0, guion).trim();
+			String hasta = especificacion.substring(guion + 1).trim();
+			long inicio;
+			long fin;
+			if (desde.isEmpty()) { // Sufijo: los últimos N bytes
+				long sufijo = Long.parseLong(hasta);
+				if (sufijo <= 0) {
+					return null;
+				}
+				inicio = Math.max(0, tamano - sufijo);
+				fin = tamano - 1;
+			} else {
+				inicio = Long.parseLong(desde);
+				fin = hasta.isEmpty() ? tamano - 1 : Math.min(Long.parseLong(hasta), tamano - 1);
+			}
+			if (inicio >= tamano || inicio > fin) {
+				return null;
+			}
+			return new long[] { inicio, fin };
+		} catch (NumberFormatException e) {
+			return new long[0];
+		}
+	}
+}
@@ -0,0 +1,78 @@
+package edu.proyectoCompleto.medios;
+
+/**
+ * Formatos de imagen admitidos, reconocidos por sus primeros bytes ("magic numbers")
+ * y no por el nombre o el Content-Type que envía el cliente.
+ */
+public enum TipoImagen {
+
+	JPEG("jpg", "image/jpeg"),
+	PNG("png", "image/png"),
+	GIF("gif", "image/gif"),
+	WEBP("webp", "image/webp");
+
+	/** Número de bytes necesarios para reconocer cualquiera de los formatos. */
+	public static final int BYTES_CABECERA = 12;
+
+	private final String extension;
+	private final String contentType;
+
+	TipoImagen(String extension, String contentType) {
+		this.extension = extension;
+		this.contentType = contentType;
+	}
+
+	public String getExtension() {
+		return extension;
+	}
+
+	public String getContentType() {
+		return contentType;
+	}
+
+	/**
+	 * Reconoce el formato a partir de los primeros bytes del fichero.
+	 *
+	 * @param cabecera primeros bytes del fichero
+	 * @param longitud número de bytes válidos en {@code cabecera}
+	 * @return el formato reconocido, o null si no es una imagen admitida
+	 */
+	public static TipoImagen detectar(byte[] cabecera, int longitud) {
+		if (longitud >= 3 && (cabecera[0] & 0xff) == 0xFF && (cabecera[1] & 0xff) == 0xD8 && (cabecera[2] & 0xff) == 0xFF) {
+			return JPEG;
+		}
+		if (longitud >= 8 && (cabecera[0] & 0xff) == 0x89 && cabecera[1] == 'P' && cabecera[2] == 'N' && cabecera[3] == 'G'
+				&& cabecera[4] == 0x0D && cabecera[5] == 0x0A && cabecera[6] == 0x1A && cabecera[7] == 0x0A) {
+			return PNG;
+		}
+		if (longitud >= 6 && cabecera[0] == 'G' && cabecera[1] == 'I' && cabecera[2] == 'F' && cabecera[3] == '8'
+				&& (cabecera[4] == '7' || cabecera[4] == '9') && cabecera[5] == 'a') {
+			return GIF;
+		}
+		if (longitud >= 12 && cabecera[0] == 'R' && cabecera[1] == 'I' && cabecera[2] == 'F' && cabecera[3] == 'F'
+				&& cabecera[8] == 'W' && cabecera[9] == 'E' && cabecera[10] == 'B' && cabecera[11] == 'P') {
+			return WEBP;
+		}
+		return null;
+	}
+
+	/**
+	 * Obtiene el formato a partir de la extensión de una clave del almacén.
+	 *
+	 * @param clave clave con la forma {@code <sha256>.<extensión>}
+	 * @return el formato correspondiente, o null si la extensión no es de imagen
+	 */
+	public static TipoImagen desdeClave(String clave) {
+		int punto = clave.lastIndexOf('.');
+		if (punto < 0) {
+			return null;
+		}
+		String extension = clave.substring(punto + 1);
+		for (TipoImagen tipo : values()) {
+			if (tipo.extension.equals(extension)) {
+				return tipo;
+			}
+		}
+		return null;
+	}
+}
@@ -1,24 +1,44 @@
 package edu.proyectoCompleto.repositorios;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
+
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import jakarta.persistence.QueryHint;
+
 import edu.proyectoCompleto.daos.Club;
+import edu.proyectoCompleto.dtos.CredencialesClub;
+import edu.proyectoCompleto.dtos.FichaClub;
+import edu.proyectoCompleto.dtos.PerfilClub;
+import edu.proyectoCompleto.dtos.ResumenClub;
+import edu.proyectoCompleto.dtos.UbicacionClub;
 
 /**
  * Repositorio para la entidad Club que proporciona métodos para interactuar con
  * la base de datos.
  */
 @Repository
-public interface ClubRepositorios extends JpaRepository<Club, Long> {
+public interface ClubRepositorios extends JpaRepository<Club, Long>, ClubRepositoriosActualizaciones,
+		ClubRepositoriosClaveNatural {
 
 	/**
-	 * Elimina un club por su nombre.
+	 * Elimina los clubs con los IDs indicados en una única sentencia, sin cargarlos antes.
 	 *
-	 * @param nombreClub El nombre del club a eliminar.
+	 * @param idsClub Los IDs de los clubs a eliminar.
+	 * @return El número de clubs eliminados.
 	 */
-	void deleteByNombreClub(String nombreClub);
+	@Modifying
+	@Query("delete from Club c where c.idClub in :idsClub")
+	int eliminarPorIds(@Param("idsClub") Collection<Long> idsClub);
 
 	/**
 	 * Encuentra un club por su email y contraseña.
@@ -29,6 +49,137 @@ public interface ClubRepositorios extends JpaRepository<Club, Long> {
 	 */
 	Optional<Club> findByEmailClubAndPasswdClub(String emailClub, String passwdClub);
 
+	/**
+	 * Obtiene solo los datos necesarios para autenticar a un club, sin cargar la entidad.
+	 *
+	 * @param email El email del club.
+	 * @return Un Optional con las credenciales del club, si existe.
+	 */
+	@Query("select new edu.proyectoCompleto.dtos.CredencialesClub(c.nombreClub, c.emailClub, c.sedeClub, c.passwdClub) "
+			+ "from Club c where c.emailClub = :email")
+	Optional<CredencialesClub> findCredencialesByEmailClub(@Param("email") String email);
+
 	Optional<Club> findByIdClub(Long idClub); // Encuentra un club por su ID
 
-}
\ No newline at end of file
+	/**
+	 * Encuentra los datos básicos y la ubicación de un club por su ID, sin cargar la entidad.
+	 *
+	 * @param idClub El ID del club.
+	 * @return Un Optional con los datos del club, si existe.
+	 */
+	Optional<UbicacionClub> findUbicacionByIdClub(Long idClub);
+
+	/**
+	 * Obtiene los datos públicos de un club, su ubicación y su versión, sin cargar la entidad.
+	 *
+	 * @param idClub El ID del club.
+	 * @return Un Optional con el perfil del club, si existe.
+	 */
+	Optional<PerfilClub> findPerfilByIdClub(long idClub);
+
+	/**
+	 * Obtiene la versión actual de un club.
+	 *
+	 * @param idClub El ID del club.
+	 * @return Un Optional con la versión, vacío si el club no existe.
+	 */
+	@Query("select c.versionClub from Club c where c.idClub = :idClub")
+	Optional<Long> findVersionClub(@Param("idClub") long idClub);
+
+	/**
+	 * Busca clubs por parecido de su nombre y su sede con el texto, usando {@code pg_trgm}.
+	 * <p>
+	 * Devuelve los clubs que contienen una parte del texto parecida a la consulta
+	 * (operador {@code <%}, umbral {@code pg_trgm.word_similarity_threshold}), del más
+	 * al menos parecido. La expresión es la del índice GIN
+	 * {@code clubs_busqueda_trgm_idx}, que solo existe si la extensión está instalada.
+	 * </p>
+	 *
+	 * @param texto  El texto buscado.
+	 * @param limite Número máximo de clubs.
+	 * @return Los resúmenes de los clubs encontrados, sin imagen ni contraseña.
+	 */
+	@Query(value = "select id_club as \"idClub\", nombre_club as \"nombreClub\", "
+			+ "sede_club as \"sedeClub\" from proyecto.clubs "
+			+ "where :texto <% (nombre_club || ' ' || coalesce(sede_club, '')) "
+			+ "order by word_similarity(:texto, nombre_club || ' ' || coalesce(sede_club, '')) desc, id_club "
+			+ "limit :limite", nativeQuery = true)
+	List<ResumenClub> buscarPorTrigramas(@Param("texto") String texto, @Param("limite") int limite);
+
+	/**
+	 * Obtiene cuáles de los emails indicados ya pertenecen a algún club.
+	 *
+	 * @param emails Los emails a comprobar.
+	 * @return Los emails que ya están en uso.
+	 */
+	@Query("select c.emailClub from Club c where c.emailClub in :emails")
+	List<String> findEmailsExistentes(@Param("emails") Collection<String> emails);
+
+	/**
+	 * Obtiene cuáles de los IDs indicados pertenecen a algún club.
+	 *
+	 * @param idsClub Los IDs a comprobar.
+	 * @return Los IDs de los clubs que existen.
+	 */
+	@Query("select c.idClub from Club c where c.idClub in :idsClub")
+	List<Long> findIdsExistentes(@Param("idsClub") Collection<Long> idsClub);
+
+	/**
+	 * Obtiene los clubs con id mayor que el indicado, ordenados por id (paginación por clave).
+	 * <p>
+	 * Usa {@code limit} sin {@code offset}: el índice de la clave primaria lleva directamente
+	 * al primer club de la página.
+	 * </p>
+	 *
+	 * @param despuesDe El id a partir del cual se lista (excluido).
+	 * @param limite    Número máximo de clubs.
+	 * @return Los resúmenes de los clubs, sin imagen ni contraseña.
+	 */
+	@Query("select c.idClub as idClub, c.nombreClub as nombreClub, c.sedeClub as sedeClub "
+			+ "from Club c where c.idClub > :despuesDe order by c.idClub limit :limite")
+	List<ResumenClub> findPagina(@Param("despuesDe") long despuesDe, @Param("limite") int limite);
+
+	/**
+	 * Como {@link #findPagina}, pero solo con los clubs de la sede indicada.
+	 *
+	 * @param sedeClub  La sede de los clubs.
+	 * @param despuesDe El id a partir del cual se lista (excluido).
+	 * @param limite    Número máximo de clubs.
+	 * @return Los resúmenes de los clubs, sin imagen ni contraseña.
+	 */
+	@Query("select c.idClub as idClub, c.nombreClub as nombreClub, c.sedeClub as sedeClub "
+			+ "from Club c where c.sedeClub = :sedeClub and c.idClub > :despuesDe order by c.idClub limit :limite")
+	List<ResumenClub> findPaginaPorSede(@Param("sedeClub") String sedeClub, @Param("despuesDe") long despuesDe,
+			@Param("limite") int limite);
+
+	/**
+	 * Recorre todos los clubs ordenados por id, para exportarlos.
+	 * <p>
+	 * Las filas se leen del cursor en bloques de 1000 y no se guardan en el contexto
+	 * de persistencia. El Stream debe cerrarse y consumirse dentro de una transacción.
+	 * </p>
+	 *
+	 * @return Las fichas de todos los clubs, con el email pero sin imagen ni contraseña.
+	 */
+	@QueryHints({ @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"),
+			@QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true") })
+	@Query("select c.idClub as idClub, c.nombreClub as nombreClub, c.emailClub as emailClub, c.sedeClub as sedeClub "
+			+ "from Club c order by c.idClub")
+	Stream<FichaClub> streamFichas();
+
+	/**
+	 * Recorre todos los clubs con su ubicación, para construir los índices de búsqueda.
+	 * <p>
+	 * Como {@link #streamFichas()}: el Stream debe cerrarse y consumirse dentro de
+	 * una transacción.
+	 * </p>
+	 *
+	 * @return Los datos básicos y la ubicación de todos los clubs.
+	 */
+	@QueryHints({ @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"),
+			@QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true") })
+	@Query("select c.idClub as idClub, c.nombreClub as nombreClub, c.sedeClub as sedeClub, "
+			+ "c.latitudClub as latitudClub, c.longitudClub as longitudClub from Club c order by c.idClub")
+	Stream<UbicacionClub> streamUbicaciones();
+
+}
@@ -0,0 +1,39 @@
+package edu.proyectoCompleto.repositorios;
+
+import java.util.List;
+
+/**
+ * Actualizaciones parciales de clubs, implementadas a mano en
+ * {@link ClubRepositoriosActualizacionesImpl} y añadidas a {@link ClubRepositorios}.
+ */
+public interface ClubRepositoriosActualizaciones {
+
+	/**
+	 * Actualiza con una sola sentencia UPDATE solo los campos que no son null, sin
+	 * cargar antes el club, y aumenta su versión.
+	 * <p>
+	 * Con {@code versionEsperada} la sentencia solo actualiza la fila si sigue en esa
+	 * versión (bloqueo optimista sin bloquear la fila antes).
+	 * </p>
+	 *
+	 * @param idClub        El ID del club.
+	 * @param versionEsperada La versión que debe tener el club, o null para no comprobarla.
+	 * @param nombreClub    El nuevo nombre, o null para no cambiarlo.
+	 * @param sedeClub      La nueva sede, o null para no cambiarla.
+	 * @param refImagenClub La clave de la nueva imagen, o null para no cambiarla.
+	 * @param latitudClub   La nueva latitud, o null para no cambiar la ubicación.
+	 * @param longitudClub  La nueva longitud, o null para no cambiar la ubicación.
+	 * @return El número de filas actualizadas: 0 si el club no existe o no está en la versión esperada.
+	 */
+	int actualizarParcial(long idClub, Long versionEsperada, String nombreClub, String sedeClub, String refImagenClub, Double latitudClub,
+			Double longitudClub);
+
+	/**
+	 * Elimina los clubs con el nombre indicado en una única sentencia, sin cargarlos antes,
+	 * y los quita de la caché de segundo nivel.
+	 *
+	 * @param nombreClub El nombre de los clubs a eliminar.
+	 * @return Los IDs de los clubs eliminados.
+	 */
+	List<Long> eliminarPorNombre(String nombreClub);
+}
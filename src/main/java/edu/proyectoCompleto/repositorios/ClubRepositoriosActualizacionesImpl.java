@@ -0,0 +1,113 @@
+package edu.proyectoCompleto.repositorios;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.query.NativeQuery;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import edu.proyectoCompleto.daos.Club;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.TypedQuery;
+
+/**
+ * Implementación de {@link ClubRepositoriosActualizaciones} con SQL nativo.
+ * <p>
+ * La sentencia se construye con solo las columnas que cambian, así que modificar la
+ * sede no reescribe el nombre ni la imagen. Como en
+ * {@link UsuarioRepositoriosActualizacionesImpl}, no es un UPDATE de JPQL para que
+ * Hibernate no vacíe la región de caché de todos los clubs: solo sale el modificado.
+ * </p>
+ */
+class ClubRepositoriosActualizacionesImpl implements ClubRepositoriosActualizaciones {
+
+	@PersistenceContext
+	private EntityManager entityManager;
+
+	@Override
+	public int actualizarParcial(long idClub, Long versionEsperada, String nombreClub, String sedeClub,
+			String refImagenClub, Double latitudClub, Double longitudClub) {
+		Map<String, Object> cambios = new LinkedHashMap<>(); // Columna -> nuevo valor
+		if (nombreClub != null) {
+			cambios.put("nombre_club", nombreClub);
+		}
+		if (sedeClub != null) {
+			cambios.put("sede_club", sedeClub);
+		}
+		if (refImagenClub != null) {
+			cambios.put("ref_logo_club", refImagenClub);
+		}
+		if (latitudClub != null && longitudClub != null) { // La ubicación cambia entera o no cambia
+			cambios.put("latitud_club", latitudClub);
+			cambios.put("longitud_club", longitudClub);
+		}
+		if (cambios.isEmpty()) {
+			// Nada que cambiar: basta con saber si el club existe (en la versión esperada)
+			TypedQuery<Long> existe = entityManager.createQuery("select count(c) from Club c where c.idClub = :id"
+					+ (versionEsperada == null ? "" : " and c.versionClub = :version"), Long.class)
+					.setParameter("id", idClub);
+			if (versionEsperada != null) {
+				existe.setParameter("version", versionEsperada);
+			}
+			return existe.getSingleResult().intValue();
+		}
+		StringBuilder sql = new StringBuilder("update proyecto.clubs set ");
+		cambios.keySet().forEach(columna -> sql.append(columna).append(" = :").append(columna).append(", "));
+		// El UPDATE no aumenta la versión por sí solo, como haría Hibernate al guardar la entidad
+		sql.append("version_club = version_club + 1 where id_club = :id");
+		if (versionEsperada != null) {
+			sql.append(" and version_club = :version");
+		}
+		entityManager.flush(); // Como antes de un UPDATE de JPQL: los cambios pendientes van primero
+		NativeQuery<?> update = entityManager.createNativeQuery(sql.toString()).unwrap(NativeQuery.class);
+		// Sin espacios sincronizados Hibernate vaciaría todas las regiones de la caché tras el UPDATE
+		update.addSynchronizedQuerySpace("");
+		cambios.forEach(update::setParameter);
+		update.setParameter("id", idClub);
+		if (versionEsperada != null) {
+			update.setParameter("version", versionEsperada);
+		}
+		int actualizados = update.executeUpdate();
+		if (actualizados > 0) {
+			sacarDeLaCache(idClub); // El email no cambia: su resolución en caché sigue valiendo
+		}
+		return actualizados;
+	}
+
+	@Override
+	public List<Long> eliminarPorNombre(String nombreClub) {
+		List<?> filas = entityManager.createNativeQuery("with eliminados as (delete from proyecto.clubs "
+				+ "where nombre_club = :nombreClub returning id_club) select id_club from eliminados")
+				.setParameter("nombreClub", nombreClub)
+				.getResultList();
+		List<Long> eliminados = filas.stream().map(id -> ((Number) id).longValue()).toList();
+		eliminados.forEach(this::sacarDeLaCache);
+		if (!eliminados.isEmpty()) {
+			// La caché email -> id no se puede vaciar por entrada: se vacía la de los clubs
+			entityManager.getEntityManagerFactory().unwrap(SessionFactory.class).getCache()
+					.evictNaturalIdData(Club.class);
+		}
+		return eliminados;
+	}
+
+	/**
+	 * Saca un club de la caché de segundo nivel ahora y otra vez al terminar la
+	 * transacción, por si otra lo vuelve a guardar con la fila anterior mientras tanto.
+	 */
+	private void sacarDeLaCache(long idClub) {
+		jakarta.persistence.Cache cache = entityManager.getEntityManagerFactory().getCache();
+		cache.evict(Club.class, idClub);
+		if (TransactionSynchronizationManager.isSynchronizationActive()) {
+			TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+				@Override
+				public void afterCompletion(int estado) {
+					cache.evict(Club.class, idClub);
+				}
+			});
+		}
+	}
+}
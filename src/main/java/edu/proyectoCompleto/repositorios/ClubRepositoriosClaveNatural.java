@@ -0,0 +1,21 @@
+package edu.proyectoCompleto.repositorios;
+
+import java.util.Optional;
+
+import edu.proyectoCompleto.daos.Club;
+
+/**
+ * Búsquedas de clubs por su clave natural (el email), implementadas en
+ * {@link ClubRepositoriosClaveNaturalImpl} y añadidas a {@link ClubRepositorios}.
+ */
+public interface ClubRepositoriosClaveNatural {
+
+	/**
+	 * Busca un club por su email usando las cachés de segundo nivel: la resolución
+	 * email -> id y la entidad se leen de la caché si están, sin ninguna consulta SQL.
+	 *
+	 * @param emailClub El email del club.
+	 * @return Un Optional con el club, si existe.
+	 */
+	Optional<Club> buscarPorEmail(String emailClub);
+}
@@ -0,0 +1,30 @@
+package edu.proyectoCompleto.repositorios;
+
+import java.util.Optional;
+
+import org.hibernate.Session;
+import org.springframework.transaction.annotation.Transactional;
+
+import edu.proyectoCompleto.daos.Club;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+
+/**
+ * Implementación de {@link ClubRepositoriosClaveNatural} con la API de claves
+ * naturales de Hibernate, que es la que consulta la caché de resolución de {@code @NaturalId}.
+ * <p>
+ * Las búsquedas van a la base de datos principal aunque solo lean: lo que se carga
+ * queda en la caché de segundo nivel, y de la réplica podría quedar una versión atrasada.
+ * </p>
+ */
+class ClubRepositoriosClaveNaturalImpl implements ClubRepositoriosClaveNatural {
+
+	@PersistenceContext
+	private EntityManager entityManager;
+
+	@Override
+	@Transactional
+	public Optional<Club> buscarPorEmail(String emailClub) {
+		return entityManager.unwrap(Session.class).bySimpleNaturalId(Club.class).loadOptional(emailClub);
+	}
+}
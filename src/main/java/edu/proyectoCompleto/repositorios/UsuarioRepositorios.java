@@ -1,23 +1,32 @@
 package edu.proyectoCompleto.repositorios;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
+
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+
+import jakarta.persistence.QueryHint;
 import edu.proyectoCompleto.daos.Usuario;
+import edu.proyectoCompleto.dtos.ClavesUsuario;
+import edu.proyectoCompleto.dtos.CredencialesUsuario;
+import edu.proyectoCompleto.dtos.FichaUsuario;
+import edu.proyectoCompleto.dtos.IdentidadUsuario;
+import edu.proyectoCompleto.dtos.PerfilUsuario;
 
 /**
  * Repositorio para la entidad Usuario que proporciona métodos para interactuar
  * con la base de datos.
  */
 @Repository
-public interface UsuarioRepositorios extends JpaRepository<Usuario, Long> {
-
-	/**
-	 * Elimina un usuario por su nickname.
-	 *
-	 * @param nicknameUsuario El nickname del usuario a eliminar.
-	 */
-	void deleteByNicknameUsuario(String nicknameUsuario);
+public interface UsuarioRepositorios extends JpaRepository<Usuario, Long>, UsuarioRepositoriosActualizaciones,
+		UsuarioRepositoriosClaveNatural {
 
 	/**
 	 * Encuentra un usuario por su email y contraseña.
@@ -28,8 +37,43 @@ public interface UsuarioRepositorios extends JpaRepository<Usuario, Long> {
 	 */
 	Optional<Usuario> findByEmailUsuario(String email);
 
+	/**
+	 * Obtiene solo los datos necesarios para autenticar a un usuario, sin cargar su foto.
+	 *
+	 * @param email El email del usuario.
+	 * @return Un Optional con las credenciales del usuario, si existe.
+	 */
+	@Query("select new edu.proyectoCompleto.dtos.CredencialesUsuario(u.idUsuario, u.nicknameUsuario, u.emailUsuario, u.passwdUsuario, u.rol) "
+			+ "from Usuario u where u.emailUsuario = :email")
+	Optional<CredencialesUsuario> findCredencialesByEmailUsuario(@Param("email") String email);
+
 	Optional<Usuario> findByNicknameUsuario(String nickname);
 
+	/**
+	 * Obtiene el identificador y el email de un usuario por su nickname, sin cargar la entidad.
+	 *
+	 * @param nickname El nickname del usuario.
+	 * @return Un Optional con la identidad del usuario, si existe.
+	 */
+	Optional<IdentidadUsuario> findIdentidadByNicknameUsuario(String nickname);
+
+	/**
+	 * Obtiene la ficha de un usuario con su versión, sin cargar la entidad.
+	 *
+	 * @param idUsuario El ID del usuario.
+	 * @return Un Optional con el perfil del usuario, si existe.
+	 */
+	Optional<PerfilUsuario> findPerfilByIdUsuario(long idUsuario);
+
+	/**
+	 * Obtiene la versión actual de un usuario.
+	 *
+	 * @param idUsuario El ID del usuario.
+	 * @return Un Optional con la versión, vacío si el usuario no existe.
+	 */
+	@Query("select u.versionUsuario from Usuario u where u.idUsuario = :idUsuario")
+	Optional<Long> findVersionUsuario(@Param("idUsuario") long idUsuario);
+
 	Optional<Usuario> findByEmailUsuarioAndPasswdUsuario(String email, String password);
 
 	/**
@@ -39,4 +83,83 @@ public interface UsuarioRepositorios extends JpaRepository<Usuario, Long> {
 	 * @return Un Optional que contiene el usuario encontrado, si existe.
 	 */
 	Optional<Usuario> findById(Long idUsuario);
-}
\ No newline at end of file
+
+	/**
+	 * Obtiene los usuarios que ya usan alguno de los nicknames, emails o DNIs indicados.
+	 *
+	 * @param nicknames Los nicknames a comprobar.
+	 * @param emails    Los emails a comprobar.
+	 * @param dnis      Los DNIs a comprobar.
+	 * @return Los campos únicos de los usuarios que coinciden en alguno de ellos.
+	 */
+	@Query("select u.nicknameUsuario as nicknameUsuario, u.emailUsuario as emailUsuario, u.dniUsuario as dniUsuario "
+			+ "from Usuario u where u.nicknameUsuario in :nicknames or u.emailUsuario in :emails or u.dniUsuario in :dnis")
+	List<ClavesUsuario> findClavesExistentes(@Param("nicknames") Collection<String> nicknames,
+			@Param("emails") Collection<String> emails, @Param("dnis") Collection<String> dnis);
+
+	/**
+	 * Obtiene los usuarios con id mayor que el indicado, ordenados por id (paginación por clave).
+	 * <p>
+	 * Usa {@code limit} sin {@code offset}: el índice de la clave primaria lleva directamente
+	 * al primer usuario de la página.
+	 * </p>
+	 *
+	 * @param despuesDe El id a partir del cual se lista (excluido).
+	 * @param limite    Número máximo de usuarios.
+	 * @return Las fichas de los usuarios, sin foto ni contraseña.
+	 */
+	@Query("select u.idUsuario as idUsuario, u.nicknameUsuario as nicknameUsuario, u.nombreUsuario as nombreUsuario, "
+			+ "u.emailUsuario as emailUsuario, u.telefonoUsuario as telefonoUsuario, u.rol as rol "
+			+ "from Usuario u where u.idUsuario > :despuesDe order by u.idUsuario limit :limite")
+	List<FichaUsuario> findPagina(@Param("despuesDe") long despuesDe, @Param("limite") int limite);
+
+	/**
+	 * Como {@link #findPagina}, pero solo con los usuarios del rol indicado.
+	 *
+	 * @param rol       El rol de los usuarios.
+	 * @param despuesDe El id a partir del cual se lista (excluido).
+	 * @param limite    Número máximo de usuarios.
+	 * @return Las fichas de los usuarios, sin foto ni contraseña.
+	 */
+	@Query("select u.idUsuario as idUsuario, u.nicknameUsuario as nicknameUsuario, u.nombreUsuario as nombreUsuario, "
+			+ "u.emailUsuario as emailUsuario, u.telefonoUsuario as telefonoUsuario, u.rol as rol "
+			+ "from Usuario u where u.rol = :rol and u.idUsuario > :despuesDe order by u.idUsuario limit :limite")
+	List<FichaUsuario> findPaginaPorRol(@Param("rol") String rol, @Param("despuesDe") long despuesDe,
+			@Param("limite") int limite);
+
+	/**
+	 * Recorre todos los usuarios ordenados por id, para exportarlos.
+	 * <p>
+	 * Las filas se leen del cursor de la base de datos en bloques de 1000 y no se
+	 * guardan en el contexto de persistencia, así que la memoria usada no depende del
+	 * número de usuarios. El Stream debe cerrarse y consumirse dentro de una transacción.
+	 * </p>
+	 *
+	 * @return Las fichas de todos los usuarios, sin foto ni contraseña.
+	 */
+	@QueryHints({ @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"),
+			@QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true") })
+	@Query("select u.idUsuario as idUsuario, u.nicknameUsuario as nicknameUsuario, u.nombreUsuario as nombreUsuario, "
+			+ "u.emailUsuario as emailUsuario, u.telefonoUsuario as telefonoUsuario, u.rol as rol "
+			+ "from Usuario u order by u.idUsuario")
+	Stream<FichaUsuario> streamFichas();
+
+	/**
+	 * Recorre el nickname, el email y el DNI de todos los usuarios, para construir los
+	 * filtros de disponibilidad. Como {@link #streamFichas()}, se lee por bloques del
+	 * cursor y debe consumirse dentro de una transacción.
+	 *
+	 * @return Los campos únicos de todos los usuarios.
+	 */
+	@QueryHints({ @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"),
+			@QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true") })
+	@Query("select u.nicknameUsuario as nicknameUsuario, u.emailUsuario as emailUsuario, u.dniUsuario as dniUsuario "
+			+ "from Usuario u")
+	Stream<ClavesUsuario> streamClaves();
+
+	boolean existsByNicknameUsuario(String nicknameUsuario);
+
+	boolean existsByEmailUsuario(String emailUsuario);
+
+	boolean existsByDniUsuario(String dniUsuario);
+}
@@ -0,0 +1,40 @@
+package edu.proyectoCompleto.repositorios;
+
+import java.util.Collection;
+import java.util.List;
+
+import edu.proyectoCompleto.dtos.IdentidadUsuario;
+
+/**
+ * Actualizaciones parciales y borrados de usuarios, implementados a mano en
+ * {@link UsuarioRepositoriosActualizacionesImpl} y añadidas a {@link UsuarioRepositorios}.
+ */
+public interface UsuarioRepositoriosActualizaciones {
+
+	/**
+	 * Actualiza con una sola sentencia UPDATE solo los campos que no son null, sin
+	 * cargar antes el usuario, y aumenta su versión.
+	 * <p>
+	 * Con {@code versionEsperada} la sentencia solo actualiza la fila si sigue en esa
+	 * versión (bloqueo optimista sin bloquear la fila antes).
+	 * </p>
+	 *
+	 * @param idUsuario      El ID del usuario.
+	 * @param versionEsperada La versión que debe tener el usuario, o null para no comprobarla.
+	 * @param nombreUsuario  El nuevo nombre, o null para no cambiarlo.
+	 * @param telefonoUsuario El nuevo teléfono, o null para no cambiarlo.
+	 * @param refFotoUsuario La clave de la nueva foto, o null para no cambiarla.
+	 * @return El número de filas actualizadas: 0 si el usuario no existe o no está en la versión esperada.
+	 */
+	int actualizarParcial(long idUsuario, Long versionEsperada, String nombreUsuario, String telefonoUsuario,
+			String refFotoUsuario);
+
+	/**
+	 * Elimina los usuarios con los nicknames indicados en una única sentencia, sin cargarlos
+	 * antes, y los quita de la caché de segundo nivel.
+	 *
+	 * @param nicknames Los nicknames de los usuarios a eliminar.
+	 * @return La identidad de los usuarios eliminados (los nicknames que no existen no aparecen).
+	 */
+	List<IdentidadUsuario> eliminarPorNicknames(Collection<String> nicknames);
+}
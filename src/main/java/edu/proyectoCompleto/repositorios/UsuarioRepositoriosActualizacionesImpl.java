@@ -0,0 +1,144 @@
+package edu.proyectoCompleto.repositorios;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.query.NativeQuery;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import edu.proyectoCompleto.daos.Usuario;
+import edu.proyectoCompleto.dtos.IdentidadUsuario;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.TypedQuery;
+
+/**
+ * Implementación de {@link UsuarioRepositoriosActualizaciones} con SQL nativo.
+ * <p>
+ * La sentencia se construye con solo las columnas que cambian, así que modificar el
+ * teléfono no reescribe el nombre ni la foto. No se usa un UPDATE de JPQL porque
+ * Hibernate vaciaría tras cada uno la región de caché de todos los usuarios: aquí
+ * solo se saca de la caché el usuario modificado.
+ * </p>
+ */
+class UsuarioRepositoriosActualizacionesImpl implements UsuarioRepositoriosActualizaciones {
+
+	@PersistenceContext
+	private EntityManager entityManager;
+
+	@Override
+	public int actualizarParcial(long idUsuario, Long versionEsperada, String nombreUsuario, String telefonoUsuario,
+			String refFotoUsuario) {
+		Map<String, Object> cambios = new LinkedHashMap<>(); // Columna -> nuevo valor
+		if (nombreUsuario != null) {
+			cambios.put("nombre_usuario", nombreUsuario);
+		}
+		if (telefonoUsuario != null) {
+			cambios.put("telefono_usuario", telefonoUsuario);
+		}
+		if (refFotoUsuario != null) {
+			cambios.put("ref_foto_usuario", refFotoUsuario);
+		}
+		if (cambios.isEmpty()) {
+			// Nada que cambiar: basta con saber si el usuario existe (en la versión esperada)
+			TypedQuery<Long> existe = entityManager.createQuery("select count(u) from Usuario u where u.idUsuario = :id"
+					+ (versionEsperada == null ? "" : " and u.versionUsuario = :version"), Long.class)
+					.setParameter("id", idUsuario);
+			if (versionEsperada != null) {
+				existe.setParameter("version", versionEsperada);
+			}
+			return existe.getSingleResult().intValue();
+		}
+		StringBuilder sql = new StringBuilder("update proyecto.usuarios set ");
+		cambios.keySet().forEach(columna -> sql.append(columna).append(" = :").append(columna).append(", "));
+		// El UPDATE no aumenta la versión por sí solo, como haría Hibernate al guardar la entidad
+		sql.append("version_usuario = version_usuario + 1 where id_usuario = :id");
+		if (versionEsperada != null) {
+			sql.append(" and version_usuario = :version");
+		}
+		entityManager.flush(); // Como antes de un UPDATE de JPQL: los cambios pendientes van primero
+		NativeQuery<?> update = entityManager.createNativeQuery(sql.toString()).unwrap(NativeQuery.class);
+		// Sin espacios sincronizados Hibernate vaciaría todas las regiones de la caché tras el UPDATE
+		update.addSynchronizedQuerySpace("");
+		cambios.forEach(update::setParameter);
+		update.setParameter("id", idUsuario);
+		if (versionEsperada != null) {
+			update.setParameter("version", versionEsperada);
+		}
+		int actualizados = update.executeUpdate();
+		if (actualizados > 0) {
+			sacarDeLaCache(idUsuario); // El email no cambia: su resolución en caché sigue valiendo
+		}
+		return actualizados;
+	}
+
+	/**
+	 * El {@code DELETE ... RETURNING} de PostgreSQL devuelve la identidad de cada usuario
+	 * borrado, que hace falta para revocar sus tokens. Va dentro de un {@code WITH} para
+	 * que Hibernate la ejecute como una consulta y lea las filas devueltas; por eso
+	 * Hibernate no sabe que ha borrado usuarios y hay que sacarlos de la caché a mano.
+	 */
+	@Override
+	public List<IdentidadUsuario> eliminarPorNicknames(Collection<String> nicknames) {
+		List<?> filas = entityManager.createNativeQuery("with eliminados as (delete from proyecto.usuarios "
+				+ "where nickname_usuario in (:nicknames) returning id_usuario, nickname_usuario, email_usuario) "
+				+ "select id_usuario, nickname_usuario, email_usuario from eliminados")
+				.setParameter("nicknames", nicknames)
+				.getResultList();
+		List<IdentidadUsuario> eliminados = new ArrayList<>(filas.size());
+		for (Object fila : filas) {
+			Object[] columnas = (Object[]) fila;
+			Identidad identidad = new Identidad(((Number) columnas[0]).longValue(), (String) columnas[1], (String) columnas[2]);
+			sacarDeLaCache(identidad.getIdUsuario());
+			eliminados.add(identidad);
+		}
+		if (!eliminados.isEmpty()) {
+			// La caché email -> id no se puede vaciar por entrada: se vacía la de los usuarios
+			entityManager.getEntityManagerFactory().unwrap(SessionFactory.class).getCache()
+					.evictNaturalIdData(Usuario.class);
+		}
+		return eliminados;
+	}
+
+	/**
+	 * Saca un usuario de la caché de segundo nivel ahora y otra vez al terminar la
+	 * transacción: mientras no se confirma, otra transacción puede leer la fila anterior
+	 * y volver a guardarla en la caché.
+	 */
+	private void sacarDeLaCache(long idUsuario) {
+		jakarta.persistence.Cache cache = entityManager.getEntityManagerFactory().getCache();
+		cache.evict(Usuario.class, idUsuario);
+		if (TransactionSynchronizationManager.isSynchronizationActive()) {
+			TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+				@Override
+				public void afterCompletion(int estado) {
+					cache.evict(Usuario.class, idUsuario);
+				}
+			});
+		}
+	}
+
+	/** Identidad de un usuario eliminado, leída de las filas devueltas por el DELETE. */
+	private record Identidad(long idUsuario, String nicknameUsuario, String emailUsuario) implements IdentidadUsuario {
+
+		@Override
+		public long getIdUsuario() {
+			return idUsuario;
+		}
+
+		@Override
+		public String getNicknameUsuario() {
+			return nicknameUsuario;
+		}
+
+		@Override
+		public String getEmailUsuario() {
+			return emailUsuario;
+		}
+	}
+}
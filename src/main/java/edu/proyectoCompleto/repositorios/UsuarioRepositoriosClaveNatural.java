@@ -0,0 +1,21 @@
+package edu.proyectoCompleto.repositorios;
+
+import java.util.Optional;
+
+import edu.proyectoCompleto.daos.Usuario;
+
+/**
+ * Búsquedas de usuarios por su clave natural (el email), implementadas en
+ * {@link UsuarioRepositoriosClaveNaturalImpl} y añadidas a {@link UsuarioRepositorios}.
+ */
+public interface UsuarioRepositoriosClaveNatural {
+
+	/**
+	 * Busca un usuario por su email usando las cachés de segundo nivel: la resolución
+	 * email -> id y la entidad se leen de la caché si están, sin ninguna consulta SQL.
+	 *
+	 * @param emailUsuario El email del usuario.
+	 * @return Un Optional con el usuario, si existe.
+	 */
+	Optional<Usuario> buscarPorEmail(String emailUsuario);
+}
@@ -2,22 +2,28 @@ package edu.proyectoCompleto.seguridad;
 
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.http.HttpMethod;
 import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.config.annotation.authentication.builders.AuthenticationManagerBuilder;
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
+import org.springframework.security.config.http.SessionCreationPolicy;
 import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.security.web.SecurityFilterChain;
+import org.springframework.security.web.authentication.UsernamePasswordAuthenticationFilter;
 
 import edu.proyectoCompleto.servicios.UsuarioServicio;
+import edu.proyectoCompleto.utils.JwtUtil;
 
 @Configuration
 public class ConfiguracionSeguridad {
     private final UsuarioServicio usuarioServicio;
+    private final JwtUtil jwtUtil;
 
-    // Constructor para inyectar el servicio de usuario
-    public ConfiguracionSeguridad(UsuarioServicio usuarioServicio) {
+    // Constructor para inyectar el servicio de usuario y la utilidad de tokens
+    public ConfiguracionSeguridad(UsuarioServicio usuarioServicio, JwtUtil jwtUtil) {
         this.usuarioServicio = usuarioServicio;
+        this.jwtUtil = jwtUtil;
     }
 
     @Bean
@@ -25,10 +31,20 @@ public class ConfiguracionSeguridad {
         // Desactivar CSRF si es necesario (por ejemplo, para APIs REST o si trabajas con formularios)
         http.csrf().disable()
             .authorizeRequests()
-                .anyRequest().permitAll() // Permitir acceso sin autenticación a todas las rutas
+                .requestMatchers("/api/admin/**", "/api/export/**").hasRole("ADMIN") // Administración y exportaciones: solo con token de rol ADMIN
+                .requestMatchers(HttpMethod.GET, "/api/usuarios").hasRole("ADMIN") // El listado incluye emails y teléfonos
+                .requestMatchers(HttpMethod.GET, "/api/usuarios/{idUsuario:\\d+}").authenticated() // La ficha también: solo la propia o con ADMIN (lo comprueba el controlador)
+                .requestMatchers("/api/usuarios/eventos").hasRole("ADMIN") // Cambios en los usuarios
+                .requestMatchers("/api/usuarios/batch", "/api/clubs/batch").hasRole("ADMIN") // Altas masivas
+                .requestMatchers("/api/usuarios/batch/delete", "/api/clubs/batch/delete").hasRole("ADMIN") // Borrados masivos
+                .anyRequest().permitAll() // Permitir acceso sin autenticación al resto de rutas
+            .and()
+            .sessionManagement().sessionCreationPolicy(SessionCreationPolicy.STATELESS) // Sin sesión: cada petición trae su token
             .and()
             .formLogin().disable()  // Desactivar el formulario de inicio de sesión
-            .httpBasic().disable(); // Desactivar la autenticación básica
+            .httpBasic().disable() // Desactivar la autenticación básica
+            // Autenticar a partir del token JWT sin consultar la base de datos
+            .addFilterBefore(new JwtFiltroAutenticacion(jwtUtil), UsernamePasswordAuthenticationFilter.class);
 
         return http.build();
     }
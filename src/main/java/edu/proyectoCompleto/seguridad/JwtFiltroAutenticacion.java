@@ -0,0 +1,74 @@
+package edu.proyectoCompleto.seguridad;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Optional;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.context.SecurityContext;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import edu.proyectoCompleto.utils.JwtUtil;
+import edu.proyectoCompleto.utils.JwtUtil.TokenVerificado;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+/**
+ * Filtro que autentica cada petición a partir de la cabecera {@code Authorization: Bearer <token>}.
+ * <p>
+ * La autenticación se construye únicamente con los claims firmados del token (email,
+ * id y rol), por lo que no se consulta la base de datos en ninguna petición. Los
+ * cambios de rol se aplican cuando el token caduca o cuando se revoca con
+ * {@link JwtUtil#revocarTokensDe(String)}.
+ * </p>
+ * <p>
+ * Si el token no existe o no es válido la petición continúa sin autenticar y son
+ * las reglas de {@link ConfiguracionSeguridad} las que deciden si se permite.
+ * </p>
+ */
+public class JwtFiltroAutenticacion extends OncePerRequestFilter {
+
+	private static final String PREFIJO_BEARER = "Bearer ";
+
+	private final JwtUtil jwtUtil;
+
+	public JwtFiltroAutenticacion(JwtUtil jwtUtil) {
+		this.jwtUtil = jwtUtil;
+	}
+
+	@Override
+	protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+			throws ServletException, IOException {
+		String cabecera = request.getHeader(HttpHeaders.AUTHORIZATION);
+
+		if (cabecera != null && cabecera.startsWith(PREFIJO_BEARER)) {
+			jwtUtil.verificarToken(cabecera.substring(PREFIJO_BEARER.length()).trim())
+					.flatMap(JwtFiltroAutenticacion::aUsuarioToken)
+					.ifPresent(usuario -> {
+						UsernamePasswordAuthenticationToken autenticacion = new UsernamePasswordAuthenticationToken(
+								usuario, null, List.of(new SimpleGrantedAuthority("ROLE_" + usuario.rol())));
+						SecurityContext contexto = SecurityContextHolder.createEmptyContext();
+						contexto.setAuthentication(autenticacion);
+						SecurityContextHolder.setContext(contexto);
+					});
+		}
+
+		filterChain.doFilter(request, response);
+	}
+
+	/**
+	 * Convierte el token verificado en la identidad del usuario; los tokens sin id o sin
+	 * rol (emitidos antes de incluir estos claims) no se aceptan.
+	 */
+	private static Optional<UsuarioToken> aUsuarioToken(TokenVerificado token) {
+		if (token.idUsuario() == null || token.rol() == null || token.usuario() == null) {
+			return Optional.empty();
+		}
+		return Optional.of(new UsuarioToken(token.idUsuario(), token.usuario(), token.rol()));
+	}
+}
@@ -0,0 +1,74 @@
+package edu.proyectoCompleto.seguridad;
+
+import java.util.Locale;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import edu.proyectoCompleto.utils.LimitadorIntentos;
+
+/**
+ * Limita los intentos de login por email y por IP del cliente.
+ * <p>
+ * Se consulta antes de cualquier acceso al repositorio o al codificador de
+ * contraseñas, de modo que una ráfaga de intentos se rechaza sin gastar CPU en
+ * BCrypt ni consultas a la base de datos.
+ * </p>
+ */
+@Component
+public class LimitadorLogin {
+
+	private final LimitadorIntentos porEmail;
+	private final LimitadorIntentos porIp;
+
+	private final LongAdder permitidos = new LongAdder();
+	private final LongAdder rechazados = new LongAdder();
+
+	public LimitadorLogin(@Value("${login.limite.email.capacidad:5}") int capacidadEmail,
+			@Value("${login.limite.email.por-minuto:5}") int porMinutoEmail,
+			@Value("${login.limite.ip.capacidad:20}") int capacidadIp,
+			@Value("${login.limite.ip.por-minuto:20}") int porMinutoIp,
+			@Value("${login.limite.maximo-claves:100000}") int maximoClaves) {
+		this.porEmail = new LimitadorIntentos(capacidadEmail, porMinutoEmail, maximoClaves);
+		this.porIp = new LimitadorIntentos(capacidadIp, porMinutoIp, maximoClaves);
+	}
+
+	/**
+	 * Comprueba si se permite un intento de login.
+	 *
+	 * @param email email con el que se intenta iniciar sesión
+	 * @param ip    dirección IP del cliente
+	 * @return true si el intento se permite; false si se ha superado algún límite
+	 */
+	public boolean permitir(String email, String ip) {
+		boolean permitido = porIp.intentar(ip)
+				&& (email == null || porEmail.intentar(email.trim().toLowerCase(Locale.ROOT)));
+		if (permitido) {
+			permitidos.increment();
+		} else {
+			rechazados.increment();
+		}
+		return permitido;
+	}
+
+	/** @return número de intentos de login permitidos desde el arranque */
+	public long getPermitidos() {
+		return permitidos.sum();
+	}
+
+	/** @return número de intentos de login rechazados desde el arranque */
+	public long getRechazados() {
+		return rechazados.sum();
+	}
+
+	/** @return número de emails e IPs con intentos recientes olvidados para dejar sitio a otros */
+	public long getDesplazadas() {
+		return porEmail.getDesplazadas() + porIp.getDesplazadas();
+	}
+
+	/** @return número de emails e IPs cuyos intentos se están recordando */
+	public int getClaves() {
+		return porEmail.getClaves() + porIp.getClaves();
+	}
+}
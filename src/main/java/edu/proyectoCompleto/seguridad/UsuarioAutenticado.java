@@ -0,0 +1,31 @@
+package edu.proyectoCompleto.seguridad;
+
+import java.util.Collection;
+
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.userdetails.User;
+
+/**
+ * Usuario de Spring Security que además conserva el identificador del usuario.
+ * <p>
+ * Se devuelve desde {@link edu.proyectoCompleto.servicios.UsuarioServicio} para que,
+ * tras el login, el token JWT pueda incluir el id y el rol sin otra consulta.
+ * </p>
+ */
+public class UsuarioAutenticado extends User {
+
+	private static final long serialVersionUID = 1L;
+
+	/** Identificador del usuario en la base de datos. */
+	private final long idUsuario;
+
+	public UsuarioAutenticado(long idUsuario, String username, String password,
+			Collection<? extends GrantedAuthority> authorities) {
+		super(username, password, authorities);
+		this.idUsuario = idUsuario;
+	}
+
+	public long getIdUsuario() {
+		return idUsuario;
+	}
+}
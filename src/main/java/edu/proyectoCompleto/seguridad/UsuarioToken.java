@@ -0,0 +1,18 @@
+package edu.proyectoCompleto.seguridad;
+
+import java.security.Principal;
+
+/**
+ * Identidad del usuario reconstruida a partir de los claims firmados de su token JWT.
+ *
+ * @param idUsuario identificador del usuario
+ * @param email     email del usuario (subject del token)
+ * @param rol       rol del usuario, sin el prefijo "ROLE_"
+ */
+public record UsuarioToken(long idUsuario, String email, String rol) implements Principal {
+
+	@Override
+	public String getName() {
+		return email;
+	}
+}
@@ -0,0 +1,282 @@
+package edu.proyectoCompleto.servicios;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import edu.proyectoCompleto.daos.Club;
+import edu.proyectoCompleto.dtos.ClubCercano;
+import edu.proyectoCompleto.dtos.ResumenClub;
+import edu.proyectoCompleto.dtos.UbicacionClub;
+import edu.proyectoCompleto.repositorios.ClubRepositorios;
+import edu.proyectoCompleto.utils.IndiceEspacial;
+import edu.proyectoCompleto.utils.IndiceTrigramas;
+
+/**
+ * Servicio de búsqueda de clubs por nombre y sede, y por cercanía a una posición.
+ * <p>
+ * Mantiene en memoria un {@link IndiceTrigramas} y un {@link IndiceEspacial} con todos
+ * los clubs, construidos al arrancar y reconstruidos cada
+ * {@code busqueda.clubs.reconstruccion-minutos}. Las altas, modificaciones y bajas de
+ * esta instancia se aplican a los índices al confirmarse su transacción; las de otras
+ * instancias solo se ven tras la siguiente reconstrucción. La reconstrucción lee de la
+ * base de datos principal: con una réplica retrasada, los clubs recién dados de alta
+ * aquí desaparecerían de los índices hasta la reconstrucción siguiente.
+ * </p>
+ * <p>
+ * Con {@code busqueda.clubs.modo=pg_trgm} la búsqueda por texto es una consulta a
+ * PostgreSQL con la extensión {@code pg_trgm} y su índice GIN: siempre al día en todas
+ * las instancias, a cambio de una consulta por búsqueda. La de cercanía sigue en memoria.
+ * </p>
+ */
+@Service
+public class BusquedaClubsServicio {
+
+	private static final Logger log = LoggerFactory.getLogger(BusquedaClubsServicio.class);
+
+	/** Dónde se resuelven las búsquedas por texto. */
+	public enum Modo {
+		MEMORIA, PG_TRGM
+	}
+
+	/** Club guardado en los índices, sin la proyección de Spring Data detrás. */
+	private record Indexado(long idClub, String nombreClub, String sedeClub) implements ResumenClub {
+
+		@Override
+		public long getIdClub() {
+			return idClub;
+		}
+
+		@Override
+		public String getNombreClub() {
+			return nombreClub;
+		}
+
+		@Override
+		public String getSedeClub() {
+			return sedeClub;
+		}
+	}
+
+	/** Los dos índices, que se construyen y se sustituyen juntos. El de texto es null en modo pg_trgm. */
+	private record Indices(IndiceTrigramas<ResumenClub> texto, IndiceEspacial<Indexado> espacio) {
+
+		void poner(long idClub, String nombreClub, String sedeClub, Double latitud, Double longitud) {
+			Indexado club = new Indexado(idClub, nombreClub, sedeClub);
+			if (texto != null) {
+				texto.poner(idClub, club, nombreClub, sedeClub);
+			}
+			if (latitud != null && longitud != null) {
+				espacio.poner(idClub, latitud, longitud, club);
+			} else {
+				espacio.quitar(idClub);
+			}
+		}
+
+		void quitar(long idClub) {
+			if (texto != null) {
+				texto.quitar(idClub);
+			}
+			espacio.quitar(idClub);
+		}
+	}
+
+	private final ClubRepositorios clubRepositorios;
+	private final TransactionTemplate lectura; // En la principal: sin readOnly, para no ir a la réplica
+	private final Modo modo;
+	private final double similitudMinima;
+	private final double ladoCeldaGrados;
+	private final long periodoMillis;
+
+	private volatile Indices indices; // Null hasta la primera construcción
+	private List<Consumer<Indices>> pendientes; // Cambios durante una reconstrucción
+	private final Object construccion = new Object(); // Una sola reconstrucción a la vez
+	private volatile long construidosEn;
+
+	public BusquedaClubsServicio(ClubRepositorios clubRepositorios, PlatformTransactionManager transactionManager,
+			@Value("${busqueda.clubs.modo:memoria}") String modo,
+			@Value("${busqueda.clubs.similitud-minima:0.3}") double similitudMinima,
+			@Value("${busqueda.clubs.celda-grados:0.1}") double ladoCeldaGrados,
+			@Value("${busqueda.clubs.reconstruccion-minutos:60}") long periodoMinutos) {
+		this.clubRepositorios = clubRepositorios;
+		this.lectura = new TransactionTemplate(transactionManager);
+		this.modo = Modo.valueOf(modo.toUpperCase());
+		this.similitudMinima = similitudMinima;
+		this.ladoCeldaGrados = ladoCeldaGrados;
+		this.periodoMillis = periodoMinutos * 60_000;
+	}
+
+	/**
+	 * Busca los clubs cuyo nombre o sede se parecen al texto.
+	 *
+	 * @param texto  texto buscado, completo o en parte y con posibles erratas
+	 * @param limite número máximo de clubs
+	 * @return los clubs encontrados, del más al menos parecido
+	 */
+	public List<ResumenClub> buscar(String texto, int limite) {
+		if (modo == Modo.PG_TRGM) {
+			return clubRepositorios.buscarPorTrigramas(texto, limite);
+		}
+		Indices actuales = actuales();
+		return actuales == null ? List.of() : actuales.texto().buscar(texto, limite, similitudMinima);
+	}
+
+	/**
+	 * Busca los clubs con ubicación más cercanos a una posición.
+	 *
+	 * @param latitud  latitud de la posición en grados
+	 * @param longitud longitud de la posición en grados
+	 * @param radioKm  distancia máxima en kilómetros
+	 * @param limite   número máximo de clubs
+	 * @return los clubs encontrados, del más al menos cercano
+	 */
+	public List<ClubCercano> cercanos(double latitud, double longitud, double radioKm, int limite) {
+		Indices actuales = actuales();
+		if (actuales == null) {
+			return List.of();
+		}
+		return actuales.espacio().cercanos(latitud, longitud, radioKm, limite).stream()
+				.map(r -> new ClubCercano(r.id(), r.valor().getNombreClub(), r.valor().getSedeClub(), r.latitud(),
+						r.longitud(), r.distanciaKm()))
+				.toList();
+	}
+
+	private Indices actuales() {
+		Indices actuales = indices;
+		if (actuales == null) {
+			// Primera búsqueda antes de la construcción programada: se construyen (o se espera a que terminen)
+			synchronized (construccion) {
+				if (indices == null) {
+					construir();
+				}
+			}
+			actuales = indices;
+		}
+		return actuales;
+	}
+
+	/**
+	 * Añade o actualiza un club recién guardado en los índices al confirmarse la transacción.
+	 *
+	 * @param club club tal como queda en la base de datos
+	 */
+	public void registrarClub(Club club) {
+		long idClub = club.getIdClub();
+		String nombreClub = club.getNombreClub();
+		String sedeClub = club.getSedeClub();
+		Double latitud = club.getLatitudClub();
+		Double longitud = club.getLongitudClub();
+		trasConfirmar(i -> i.poner(idClub, nombreClub, sedeClub, latitud, longitud));
+	}
+
+	/**
+	 * Añade o actualiza un club en los índices al confirmarse la transacción.
+	 *
+	 * @param club datos del club tal como quedan en la base de datos
+	 */
+	public void registrarClub(UbicacionClub club) {
+		long idClub = club.getIdClub();
+		String nombreClub = club.getNombreClub();
+		String sedeClub = club.getSedeClub();
+		Double latitud = club.getLatitudClub();
+		Double longitud = club.getLongitudClub();
+		trasConfirmar(i -> i.poner(idClub, nombreClub, sedeClub, latitud, longitud));
+	}
+
+	/**
+	 * Quita clubs de los índices al confirmarse la transacción.
+	 *
+	 * @param idsClub identificadores de los clubs eliminados
+	 */
+	public void registrarBajas(Collection<Long> idsClub) {
+		List<Long> ids = List.copyOf(idsClub);
+		trasConfirmar(i -> ids.forEach(i::quitar));
+	}
+
+	private void trasConfirmar(Consumer<Indices> cambio) {
+		if (TransactionSynchronizationManager.isSynchronizationActive()) {
+			TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+				@Override
+				public void afterCommit() {
+					aplicar(cambio);
+				}
+			});
+		} else {
+			aplicar(cambio);
+		}
+	}
+
+	private void aplicar(Consumer<Indices> cambio) {
+		synchronized (this) {
+			Indices actuales = indices;
+			if (actuales != null) {
+				cambio.accept(actuales);
+			}
+			if (pendientes != null) {
+				pendientes.add(cambio); // Se repite en los índices nuevos, que pueden haber leído el club antes del cambio
+			}
+		}
+	}
+
+	/**
+	 * Construye los índices al arrancar y los reconstruye cuando toca.
+	 */
+	@Scheduled(fixedDelayString = "${busqueda.clubs.comprobacion-ms:30000}")
+	public void mantener() {
+		if (indices == null || System.currentTimeMillis() - construidosEn > periodoMillis) {
+			reconstruir();
+		}
+	}
+
+	/**
+	 * Construye índices nuevos con todos los clubs y sustituye a los actuales.
+	 */
+	public void reconstruir() {
+		synchronized (construccion) {
+			construir();
+		}
+	}
+
+	private void construir() {
+		synchronized (this) {
+			pendientes = new ArrayList<>();
+		}
+		long inicio = System.currentTimeMillis();
+		Indices nuevos = new Indices(modo == Modo.MEMORIA ? new IndiceTrigramas<>() : null,
+				new IndiceEspacial<>(ladoCeldaGrados));
+		try {
+			lectura.executeWithoutResult(estado -> {
+				try (Stream<UbicacionClub> clubs = clubRepositorios.streamUbicaciones()) {
+					clubs.forEach(c -> nuevos.poner(c.getIdClub(), c.getNombreClub(), c.getSedeClub(),
+							c.getLatitudClub(), c.getLongitudClub()));
+				}
+			});
+			synchronized (this) {
+				pendientes.forEach(cambio -> cambio.accept(nuevos));
+				indices = nuevos;
+				construidosEn = System.currentTimeMillis();
+			}
+			log.info("Índices de búsqueda de clubs construidos en {} ms ({} clubs con ubicación).",
+					System.currentTimeMillis() - inicio, nuevos.espacio().tamano());
+		} catch (DataAccessException e) {
+			log.warn("No se pudieron construir los índices de búsqueda de clubs: {}", e.getMessage());
+		} finally {
+			synchronized (this) {
+				pendientes = null;
+			}
+		}
+	}
+}
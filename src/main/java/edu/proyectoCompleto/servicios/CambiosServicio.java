@@ -0,0 +1,185 @@
+package edu.proyectoCompleto.servicios;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+import java.util.Optional;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import edu.proyectoCompleto.dtos.CambioClub;
+import edu.proyectoCompleto.dtos.PaginaCambios;
+import edu.proyectoCompleto.utils.CursorCambios;
+
+/**
+ * Servicio de sincronización incremental: devuelve los clubs que han cambiado desde el
+ * cursor de un cliente, para que no tenga que volver a descargar el listado completo.
+ * <p>
+ * Cada fila lleva el instante de su último cambio ({@code actualizado_en}) y cada
+ * baja deja su id en una tabla de bajas; los mantienen disparadores de la base de
+ * datos. Las dos se recorren por clave ({@code (instante, id)}) con sus índices, así
+ * que una sincronización cuesta según lo que ha cambiado, no según el número de clubs.
+ * </p>
+ * <p>
+ * Los instantes son los del reloj de PostgreSQL al escribir cada fila, pero la fila
+ * solo se ve al confirmarse su transacción. Para que un cursor no adelante a una
+ * transacción todavía abierta, solo se entregan los cambios anteriores al inicio de la
+ * transacción abierta más antigua de la base de datos ({@code pg_stat_activity}): sus
+ * filas, y las de cualquier transacción posterior, tendrán un instante igual o mayor.
+ * Además se deja un margen de {@code cambios.margen-ms} para las transacciones que
+ * empiezan justo mientras se consulta. Una transacción que se queda abierta retrasa la
+ * sincronización de todos los clientes, pero no hace que se pierda ningún cambio.
+ * pg_stat_activity solo muestra el inicio de las transacciones del mismo usuario de
+ * base de datos, así que todas las escrituras deben hacerse con el de la aplicación.
+ * Las transacciones largas que no tocan los clubs (la exportación y la importación de
+ * usuarios) se marcan con {@link #MARCAR_TRANSACCION_LARGA} y no cuentan: si no,
+ * detendrían la sincronización mientras duran.
+ * Las consultas van siempre a la principal: en la réplica los cambios aparecen con
+ * retraso y con su instante original.
+ * </p>
+ * <p>
+ * Las bajas se guardan {@code cambios.retencion-bajas-dias}. Un cliente que lleva más
+ * tiempo sin sincronizar puede haber perdido alguna, así que su cursor ha caducado y
+ * debe volver a cargar el listado completo. Lo que cuenta es su última sincronización,
+ * no su último cambio: cuando una página agota los cambios, el cursor avanza hasta el
+ * límite consultado aunque no haya cambios.
+ * </p>
+ */
+@Service
+public class CambiosServicio {
+
+	private static final Logger log = LoggerFactory.getLogger(CambiosServicio.class);
+
+	/** Nombre de aplicación con el que se marcan las transacciones largas que no escriben en los clubs. */
+	public static final String TRANSACCION_LARGA = "proyecto-transaccion-larga";
+
+	/**
+	 * Marca la transacción en curso con {@link #TRANSACCION_LARGA} para que no retenga la
+	 * sincronización. PostgreSQL restaura el nombre anterior al terminar la transacción.
+	 * Solo para transacciones que no modifican {@code proyecto.clubs}: sus cambios podrían
+	 * quedar por detrás de un cursor y no entregarse nunca.
+	 */
+	public static final String MARCAR_TRANSACCION_LARGA = "select set_config('application_name', '"
+			+ TRANSACCION_LARGA + "', true)";
+
+	/** Instante hasta el que no puede aparecer ningún cambio nuevo: lo anterior ya está confirmado. */
+	private static final String CONSULTA_LIMITE = "select least("
+			+ "statement_timestamp() - cast(? as double precision) * interval '1 millisecond', "
+			+ "coalesce((select min(a.xact_start) from pg_stat_activity a where a.datname = current_database() "
+			+ "and a.backend_type = 'client backend' and a.pid <> pg_backend_pid() "
+			+ "and a.application_name <> '" + TRANSACCION_LARGA + "'), 'infinity'))";
+
+	/** Cada rama se limita por separado para que use su índice y no lea más de lo necesario. */
+	private static final String CONSULTA_CAMBIOS_CLUBS = "(select c.id_club, c.nombre_club, c.sede_club, "
+			+ "c.latitud_club, c.longitud_club, c.version_club, false as baja, c.actualizado_en as instante "
+			+ "from proyecto.clubs c "
+			+ "where (c.actualizado_en, c.id_club) > (cast(? as timestamptz), ?) "
+			+ "and c.actualizado_en < cast(? as timestamptz) "
+			+ "order by c.actualizado_en, c.id_club limit ?) "
+			+ "union all "
+			+ "(select b.id_club, null, null, null, null, null, true, b.eliminado_en "
+			+ "from proyecto.clubs_bajas b "
+			+ "where (b.eliminado_en, b.id_club) > (cast(? as timestamptz), ?) "
+			+ "and b.eliminado_en < cast(? as timestamptz) "
+			+ "order by b.eliminado_en, b.id_club limit ?) "
+			+ "order by instante, id_club limit ?";
+
+	private static final String PURGA_BAJAS = "delete from proyecto.%s "
+			+ "where eliminado_en < clock_timestamp() - cast(? as double precision) * interval '1 day'";
+
+	/** Cambio leído, con la posición que ocupa para construir el cursor. */
+	private record Leido(CambioClub cambio, Instant instante) {
+	}
+
+	private final JdbcTemplate jdbcTemplate;
+	private final long margenMs;
+	private final int retencionBajasDias;
+
+	public CambiosServicio(JdbcTemplate jdbcTemplate,
+			@Value("${cambios.margen-ms:1000}") long margenMs,
+			@Value("${cambios.retencion-bajas-dias:30}") int retencionBajasDias) {
+		this.jdbcTemplate = jdbcTemplate;
+		this.margenMs = margenMs;
+		this.retencionBajasDias = retencionBajasDias;
+	}
+
+	/**
+	 * Obtiene los cambios en los clubs posteriores a un cursor, en el orden en que se
+	 * hicieron. Un club que ha cambiado varias veces aparece una sola vez, con sus datos
+	 * actuales.
+	 *
+	 * @param desde  cursor devuelto por la sincronización anterior, o
+	 *               {@link CursorCambios#INICIO} para empezar de cero
+	 * @param tamano número máximo de cambios
+	 * @return la página de cambios, vacío si el cursor ha caducado porque puede faltar alguna baja
+	 */
+	public Optional<PaginaCambios<CambioClub>> cambiosClubs(CursorCambios desde, int tamano) {
+		boolean inicio = desde.equals(CursorCambios.INICIO);
+		if (!inicio && desde.bajasDesde().isBefore(Instant.now().minus(retencionBajasDias, ChronoUnit.DAYS))) {
+			return Optional.empty();
+		}
+		OffsetDateTime hasta = jdbcTemplate.queryForObject(CONSULTA_LIMITE, OffsetDateTime.class, margenMs);
+		OffsetDateTime instante = desde.instante().atOffset(ZoneOffset.UTC);
+		List<Leido> leidos = jdbcTemplate.query(CONSULTA_CAMBIOS_CLUBS, (rs, fila) -> leer(rs),
+				instante, desde.id(), hasta, tamano,
+				instante, desde.id(), hasta, tamano, tamano);
+
+		boolean completa = leidos.size() < tamano;
+		// Un cliente sin datos no necesita las bajas anteriores a su primera consulta
+		Instant bajasDesde = inicio ? hasta.toInstant() : desde.bajasDesde();
+		CursorCambios siguiente;
+		if (completa && desde.instante().isBefore(hasta.toInstant())) {
+			// Todo lo anterior al límite está entregado: el cursor salta hasta él (id 0, antes de cualquier club)
+			siguiente = new CursorCambios(hasta.toInstant(), 0, max(bajasDesde, hasta.toInstant()));
+		} else if (!leidos.isEmpty()) {
+			Leido ultimo = leidos.get(leidos.size() - 1);
+			siguiente = new CursorCambios(ultimo.instante(), ultimo.cambio().getIdClub(),
+					max(bajasDesde, ultimo.instante()));
+		} else {
+			siguiente = new CursorCambios(desde.instante(), desde.id(), bajasDesde);
+		}
+		return Optional.of(new PaginaCambios<>(leidos.stream().map(Leido::cambio).toList(), siguiente.codificar(),
+				completa));
+	}
+
+	private static Instant max(Instant a, Instant b) {
+		return a.isAfter(b) ? a : b;
+	}
+
+	private static Leido leer(ResultSet rs) throws SQLException {
+		long idClub = rs.getLong("id_club");
+		Instant instante = rs.getObject("instante", OffsetDateTime.class).toInstant();
+		if (rs.getBoolean("baja")) {
+			return new Leido(CambioClub.baja(idClub), instante);
+		}
+		return new Leido(new CambioClub(idClub, rs.getString("nombre_club"), rs.getString("sede_club"),
+				rs.getObject("latitud_club", Double.class), rs.getObject("longitud_club", Double.class),
+				rs.getLong("version_club")), instante);
+	}
+
+	/**
+	 * Elimina las bajas de clubs y usuarios más antiguas que {@code cambios.retencion-bajas-dias}.
+	 */
+	@Scheduled(fixedDelayString = "${cambios.purga-ms:3600000}")
+	public void purgarBajas() {
+		try {
+			int clubs = jdbcTemplate.update(PURGA_BAJAS.formatted("clubs_bajas"), retencionBajasDias);
+			int usuarios = jdbcTemplate.update(PURGA_BAJAS.formatted("usuarios_bajas"), retencionBajasDias);
+			if (clubs + usuarios > 0) {
+				log.info("Purgadas {} bajas de clubs y {} de usuarios.", clubs, usuarios);
+			}
+		} catch (DataAccessException e) {
+			log.warn("No se pudieron purgar las bajas antiguas: {}", e.getMessage());
+		}
+	}
+}
@@ -0,0 +1,257 @@
+package edu.proyectoCompleto.servicios;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import edu.proyectoCompleto.dtos.ClavesUsuario;
+import edu.proyectoCompleto.repositorios.UsuarioRepositorios;
+import edu.proyectoCompleto.utils.FiltroBloom;
+
+/**
+ * Servicio que indica si un nickname, un email o un DNI están libres para registrarse.
+ * <p>
+ * Cada campo único tiene un {@link FiltroBloom} en memoria con los valores de todos los
+ * usuarios. Si el filtro dice que un valor no está, la respuesta "libre" es segura y no
+ * se consulta la base de datos; si dice que puede estar, se confirma con una consulta.
+ * </p>
+ * <p>
+ * Los filtros se construyen al arrancar leyendo los usuarios por bloques y se
+ * reconstruyen cada {@code disponibilidad.reconstruccion-minutos}, cuando hay muchas
+ * bajas (que un filtro de Bloom no puede olvidar), cuando se llenan y tras una
+ * importación masiva. Las altas se añaden al confirmarse su transacción, también al
+ * filtro que se esté construyendo, para no perder ninguna. Mientras no hay filtros
+ * todas las comprobaciones van a la base de datos. Las altas hechas por otras
+ * instancias solo se ven tras la siguiente reconstrucción: hasta entonces esta puede
+ * responder "libre" y la restricción única de la tabla sigue siendo la última palabra.
+ * </p>
+ * <p>
+ * La reconstrucción lee de la base de datos principal, no de la réplica: un usuario
+ * que la réplica todavía no tiene y cuya alta se anotó en los filtros anteriores
+ * desaparecería de los nuevos, y su nickname, email y DNI se darían por libres.
+ * </p>
+ */
+@Service
+public class DisponibilidadServicio {
+
+	private static final Logger log = LoggerFactory.getLogger(DisponibilidadServicio.class);
+
+	/** Campos únicos de un usuario, con el nombre que se usa en las respuestas de alta. */
+	public enum Campo {
+		NICKNAME("nicknameUsuario"), EMAIL("emailUsuario"), DNI("dniUsuario");
+
+		private final String nombre;
+
+		Campo(String nombre) {
+			this.nombre = nombre;
+		}
+
+		public String getNombre() {
+			return nombre;
+		}
+	}
+
+	/** Un filtro por campo único. */
+	private record Filtros(FiltroBloom nicknames, FiltroBloom emails, FiltroBloom dnis) {
+
+		Filtros(long elementosEsperados, double probabilidadFalsoPositivo) {
+			this(new FiltroBloom(elementosEsperados, probabilidadFalsoPositivo),
+					new FiltroBloom(elementosEsperados, probabilidadFalsoPositivo),
+					new FiltroBloom(elementosEsperados, probabilidadFalsoPositivo));
+		}
+
+		FiltroBloom de(Campo campo) {
+			return switch (campo) {
+				case NICKNAME -> nicknames;
+				case EMAIL -> emails;
+				case DNI -> dnis;
+			};
+		}
+
+		void anadir(String nickname, String email, String dni) {
+			nicknames.anadir(nickname);
+			emails.anadir(email);
+			dnis.anadir(dni);
+		}
+	}
+
+	private final UsuarioRepositorios usuarioRepositorios;
+	private final TransactionTemplate lectura; // En la principal: sin readOnly, para no ir a la réplica
+	private final long minimoElementos;
+	private final double probabilidadFalsoPositivo;
+	private final long periodoMillis;
+	private final double proporcionBajas;
+
+	private volatile Filtros filtros; // Null hasta la primera construcción
+	private volatile Filtros enConstruccion; // Filtros que se están construyendo, que también reciben las altas
+	private volatile long construidosEn;
+	private volatile long usuariosAlConstruir;
+	private volatile boolean reconstruirPronto;
+	private final AtomicLong bajas = new AtomicLong(); // Bajas desde la última construcción
+
+	public DisponibilidadServicio(UsuarioRepositorios usuarioRepositorios, PlatformTransactionManager transactionManager,
+			@Value("${disponibilidad.elementos-minimos:100000}") long minimoElementos,
+			@Value("${disponibilidad.falsos-positivos:0.01}") double probabilidadFalsoPositivo,
+			@Value("${disponibilidad.reconstruccion-minutos:60}") long periodoMinutos,
+			@Value("${disponibilidad.proporcion-bajas:0.1}") double proporcionBajas) {
+		this.usuarioRepositorios = usuarioRepositorios;
+		this.lectura = new TransactionTemplate(transactionManager);
+		this.minimoElementos = minimoElementos;
+		this.probabilidadFalsoPositivo = probabilidadFalsoPositivo;
+		this.periodoMillis = periodoMinutos * 60_000;
+		this.proporcionBajas = proporcionBajas;
+	}
+
+	/**
+	 * Indica si un valor está libre para el campo indicado.
+	 *
+	 * @param campo campo único que se comprueba
+	 * @param valor valor que se quiere registrar
+	 * @return true si ningún usuario lo usa
+	 */
+	public boolean disponible(Campo campo, String valor) {
+		Filtros actuales = filtros;
+		if (actuales != null && !actuales.de(campo).puedeContener(valor)) {
+			return true; // El filtro no tiene falsos negativos: no hace falta consultar
+		}
+		return !existe(campo, valor);
+	}
+
+	/**
+	 * Obtiene cuáles de los campos de un alta ya están en uso.
+	 *
+	 * @param nickname nickname del usuario
+	 * @param email    email del usuario
+	 * @param dni      DNI del usuario
+	 * @return los nombres de los campos en uso (vacío si todos están libres)
+	 */
+	public List<String> ocupados(String nickname, String email, String dni) {
+		List<String> ocupados = new ArrayList<>(3);
+		if (nickname != null && !disponible(Campo.NICKNAME, nickname)) {
+			ocupados.add(Campo.NICKNAME.getNombre());
+		}
+		if (email != null && !disponible(Campo.EMAIL, email)) {
+			ocupados.add(Campo.EMAIL.getNombre());
+		}
+		if (dni != null && !disponible(Campo.DNI, dni)) {
+			ocupados.add(Campo.DNI.getNombre());
+		}
+		return ocupados;
+	}
+
+	private boolean existe(Campo campo, String valor) {
+		return switch (campo) {
+			case NICKNAME -> usuarioRepositorios.existsByNicknameUsuario(valor);
+			case EMAIL -> usuarioRepositorios.existsByEmailUsuario(valor);
+			case DNI -> usuarioRepositorios.existsByDniUsuario(valor);
+		};
+	}
+
+	/**
+	 * Añade a los filtros un usuario dado de alta. Si hay una transacción en curso se
+	 * añade al confirmarse, de modo que las altas deshechas no ocupan sitio en los filtros.
+	 *
+	 * @param nickname nickname del usuario
+	 * @param email    email del usuario
+	 * @param dni      DNI del usuario
+	 */
+	public void registrarAlta(String nickname, String email, String dni) {
+		if (TransactionSynchronizationManager.isSynchronizationActive()) {
+			TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+				@Override
+				public void afterCommit() {
+					anadir(nickname, email, dni);
+				}
+			});
+		} else {
+			anadir(nickname, email, dni);
+		}
+	}
+
+	private void anadir(String nickname, String email, String dni) {
+		// Primero los que se construyen: si ya no hay, los filtros actuales son los nuevos
+		Filtros nuevos = enConstruccion;
+		if (nuevos != null) {
+			nuevos.anadir(nickname, email, dni);
+		}
+		Filtros actuales = filtros;
+		if (actuales != null) {
+			actuales.anadir(nickname, email, dni);
+			if (actuales.nicknames().saturado()) {
+				reconstruirPronto = true;
+			}
+		}
+	}
+
+	/**
+	 * Anota usuarios eliminados. Siguen en los filtros, así que sus valores se confirman
+	 * contra la base de datos; si son muchos, los filtros se reconstruyen.
+	 *
+	 * @param numero número de usuarios eliminados
+	 */
+	public void registrarBajas(int numero) {
+		if (bajas.addAndGet(numero) > Math.max(1000, usuariosAlConstruir * proporcionBajas)) {
+			reconstruirPronto = true;
+		}
+	}
+
+	/**
+	 * Pide reconstruir los filtros en la siguiente comprobación, por ejemplo tras
+	 * insertar usuarios sin pasar por este servicio.
+	 */
+	public void solicitarReconstruccion() {
+		reconstruirPronto = true;
+	}
+
+	/**
+	 * Construye los filtros al arrancar y los reconstruye cuando toca.
+	 */
+	@Scheduled(fixedDelayString = "${disponibilidad.comprobacion-ms:30000}")
+	public void mantener() {
+		if (filtros == null || reconstruirPronto || System.currentTimeMillis() - construidosEn > periodoMillis) {
+			reconstruir();
+		}
+	}
+
+	/**
+	 * Construye filtros nuevos con todos los usuarios y sustituye a los actuales.
+	 */
+	public synchronized void reconstruir() {
+		reconstruirPronto = false;
+		long inicio = System.currentTimeMillis();
+		try {
+			long usuarios = usuarioRepositorios.count();
+			// El doble de los usuarios actuales, para que quepan las altas hasta la siguiente reconstrucción
+			Filtros nuevos = new Filtros(Math.max(minimoElementos, usuarios * 2), probabilidadFalsoPositivo);
+			enConstruccion = nuevos;
+			bajas.set(0);
+			lectura.executeWithoutResult(estado -> {
+				try (Stream<ClavesUsuario> claves = usuarioRepositorios.streamClaves()) {
+					claves.forEach(c -> nuevos.anadir(c.getNicknameUsuario(), c.getEmailUsuario(), c.getDniUsuario()));
+				}
+			});
+			filtros = nuevos;
+			usuariosAlConstruir = usuarios;
+			construidosEn = System.currentTimeMillis();
+			log.info("Filtros de disponibilidad construidos con {} usuarios en {} ms.", usuarios,
+					construidosEn - inicio);
+		} catch (DataAccessException e) {
+			reconstruirPronto = true;
+			log.warn("No se pudieron construir los filtros de disponibilidad: {}", e.getMessage());
+		} finally {
+			enConstruccion = null;
+		}
+	}
+}
@@ -0,0 +1,48 @@
+package edu.proyectoCompleto.servicios;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.CacheRegionStatistics;
+import org.hibernate.stat.Statistics;
+import org.springframework.stereotype.Service;
+
+import edu.proyectoCompleto.configuracion.ConfiguracionCacheEntidades;
+import jakarta.persistence.EntityManagerFactory;
+
+/**
+ * Servicio que resume el uso de la caché de segundo nivel de Hibernate.
+ * <p>
+ * Los contadores son acumulados desde el arranque y solo avanzan si las estadísticas
+ * de Hibernate están activas ({@code cache.entidades.estadisticas}).
+ * </p>
+ */
+@Service
+public class EstadisticasCacheServicio {
+
+	private final Statistics estadisticas;
+
+	public EstadisticasCacheServicio(EntityManagerFactory entityManagerFactory) {
+		this.estadisticas = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+	}
+
+	/**
+	 * Obtiene los aciertos, fallos, escrituras y elementos en memoria de cada región.
+	 *
+	 * @return las estadísticas de cada región, por nombre de región
+	 */
+	public Map<String, Map<String, Object>> porRegion() {
+		Map<String, Map<String, Object>> regiones = new LinkedHashMap<>();
+		for (String nombre : ConfiguracionCacheEntidades.REGIONES) {
+			CacheRegionStatistics region = estadisticas.getDomainDataRegionStatistics(nombre);
+			Map<String, Object> datos = new LinkedHashMap<>();
+			datos.put("aciertos", region.getHitCount());
+			datos.put("fallos", region.getMissCount());
+			datos.put("escrituras", region.getPutCount());
+			datos.put("elementos", region.getElementCountInMemory());
+			regiones.put(nombre, datos);
+		}
+		return regiones;
+	}
+}
@@ -0,0 +1,369 @@
+package edu.proyectoCompleto.servicios;
+
+import java.io.IOException;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import edu.proyectoCompleto.dtos.EventoCambio;
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Bus de eventos en memoria que envía por Server-Sent Events los cambios confirmados
+ * en clubs y usuarios.
+ * <p>
+ * Los servicios publican cada alta, modificación o baja, y el evento se reparte al
+ * confirmarse la transacción, así que nunca se anuncia un cambio que luego se deshace.
+ * Solo se ven los cambios de esta instancia.
+ * </p>
+ * <p>
+ * Cada suscriptor tiene su propia cola acotada ({@code eventos.buffer}) y un hilo del
+ * ejecutor la vacía escribiendo en la conexión; quien publica solo encola. Si un
+ * suscriptor no lee al ritmo de los eventos y su cola se llena, se descarta lo
+ * pendiente, se le envía un evento {@code desbordado} y se cierra la conexión: al
+ * reconectar debe volver a cargar los datos, porque no hay forma de reenviarle lo que
+ * se ha perdido.
+ * </p>
+ * <p>
+ * La escritura en la conexión bloquea mientras el cliente no lee, así que el ejecutor
+ * crece con los suscriptores que están escribiendo (hasta {@code eventos.hilos-maximos})
+ * y un cliente lento solo retiene su propio hilo. Una escritura que lleva más de
+ * {@code eventos.envio-maximo-ms} bloqueada cuenta como desbordamiento: se quita la
+ * suscripción y la conexión se cierra en cuanto la escritura termine o falle (el
+ * contenedor la corta a los {@code server.tomcat.connection-timeout}). Si no queda
+ * ningún hilo libre, el suscriptor que lo necesitaba también se trata como desbordado.
+ * </p>
+ */
+@Service
+public class EventosServicio {
+
+	/** Mensaje pendiente de enviar: un evento o, sin evento, un comentario. */
+	private record Mensaje(long secuencia, EventoCambio evento, String comentario) {
+
+		SseEmitter.SseEventBuilder construir() {
+			if (evento == null) {
+				return SseEmitter.event().comment(comentario);
+			}
+			return SseEmitter.event().id(Long.toString(secuencia)).name(evento.getTipo().name().toLowerCase())
+					.data(evento, MediaType.APPLICATION_JSON);
+		}
+	}
+
+	private static final Mensaje CONECTADO = new Mensaje(0, null, "conectado");
+	private static final Mensaje LATIDO = new Mensaje(0, null, "latido");
+	private static final Mensaje DESBORDADO = new Mensaje(0, null, "desbordado"); // Se distingue por identidad
+
+	private final Map<EventoCambio.Entidad, Set<Suscriptor>> suscriptores = new EnumMap<>(EventoCambio.Entidad.class);
+	private final Map<EventoCambio.Entidad, AtomicInteger> numeroSuscriptores = new EnumMap<>(EventoCambio.Entidad.class);
+	private final Map<String, Integer> suscripcionesPorCliente = new ConcurrentHashMap<>(); // Sin entrada: ninguna
+	private final AtomicLong secuencia = new AtomicLong();
+	private final LongAdder desbordados = new LongAdder();
+	private final ThreadPoolExecutor ejecutor; // Vacía las colas: como mucho una tarea por suscriptor
+	private final int capacidad;
+	private final int maximoSuscriptores;
+	private final int maximoPorCliente;
+	private final long duracionMaximaMs;
+	private final long envioMaximoMs;
+
+	public EventosServicio(@Value("${eventos.hilos:2}") int hilos,
+			@Value("${eventos.hilos-maximos:200}") int hilosMaximos,
+			@Value("${eventos.buffer:256}") int capacidad,
+			@Value("${eventos.maximo-suscriptores:1000}") int maximoSuscriptores,
+			@Value("${eventos.maximo-por-cliente:5}") int maximoPorCliente,
+			@Value("${eventos.duracion-maxima-ms:1800000}") long duracionMaximaMs,
+			@Value("${eventos.envio-maximo-ms:10000}") long envioMaximoMs) {
+		for (EventoCambio.Entidad entidad : EventoCambio.Entidad.values()) {
+			suscriptores.put(entidad, ConcurrentHashMap.newKeySet());
+			numeroSuscriptores.put(entidad, new AtomicInteger());
+		}
+		AtomicInteger contador = new AtomicInteger();
+		// Sin cola: cada vaciado toma un hilo libre o crea otro, para no esperar detrás de un cliente lento
+		this.ejecutor = new ThreadPoolExecutor(hilos, Math.max(hilos, hilosMaximos), 60, TimeUnit.SECONDS,
+				new SynchronousQueue<>(), r -> {
+			Thread hilo = new Thread(r, "eventos-" + contador.incrementAndGet());
+			hilo.setDaemon(true);
+			return hilo;
+		});
+		this.ejecutor.allowCoreThreadTimeOut(true);
+		this.capacidad = capacidad;
+		this.maximoSuscriptores = maximoSuscriptores;
+		this.maximoPorCliente = maximoPorCliente;
+		this.duracionMaximaMs = duracionMaximaMs;
+		this.envioMaximoMs = envioMaximoMs;
+	}
+
+	/**
+	 * Abre una suscripción a los cambios de un tipo de elemento.
+	 * <p>
+	 * La conexión se cierra a los {@code eventos.duracion-maxima-ms}; el cliente
+	 * ({@code EventSource}) vuelve a conectar solo. Cada tipo de elemento tiene su propio
+	 * límite de suscripciones, para que las del listado público de clubs no dejen sin
+	 * sitio a las de usuarios, y cada cliente puede tener como mucho
+	 * {@code eventos.maximo-por-cliente} abiertas.
+	 * </p>
+	 *
+	 * @param entidad tipo de elemento
+	 * @param ids     identificadores de los elementos que interesan, o vacío para todos
+	 * @param cliente dirección del cliente que se suscribe
+	 * @return el emisor de la suscripción, vacío si ya hay {@code eventos.maximo-suscriptores}
+	 *         de ese tipo de elemento o el cliente ya tiene {@code eventos.maximo-por-cliente}
+	 */
+	public Optional<SseEmitter> suscribir(EventoCambio.Entidad entidad, Set<Long> ids, String cliente) {
+		AtomicInteger numero = numeroSuscriptores.get(entidad);
+		if (numero.incrementAndGet() > maximoSuscriptores) {
+			numero.decrementAndGet();
+			return Optional.empty();
+		}
+		if (!reservar(cliente)) {
+			numero.decrementAndGet();
+			return Optional.empty();
+		}
+		SseEmitter emisor = crearEmisor(duracionMaximaMs);
+		Suscriptor suscriptor = new Suscriptor(entidad, Set.copyOf(ids), cliente, emisor);
+		emisor.onCompletion(() -> quitar(suscriptor));
+		emisor.onTimeout(() -> {
+			quitar(suscriptor);
+			emisor.complete();
+		});
+		emisor.onError(error -> quitar(suscriptor));
+		suscriptores.get(entidad).add(suscriptor);
+		suscriptor.ofrecer(CONECTADO); // Para que el cliente sepa que la suscripción está abierta
+		return Optional.of(emisor);
+	}
+
+	/** Crea el emisor de una suscripción; las pruebas lo sustituyen para ver lo que se envía. */
+	SseEmitter crearEmisor(long duracionMs) {
+		return new SseEmitter(duracionMs);
+	}
+
+	/**
+	 * Publica un cambio, que se reparte al confirmarse la transacción en curso (o al
+	 * momento si no hay ninguna).
+	 *
+	 * @param entidad tipo de elemento
+	 * @param tipo    alta, modificación o baja
+	 * @param id      identificador del elemento
+	 * @param version versión del elemento tras el cambio, o null en las bajas
+	 */
+	public void publicar(EventoCambio.Entidad entidad, EventoCambio.Tipo tipo, long id, Long version) {
+		if (TransactionSynchronizationManager.isSynchronizationActive()) {
+			TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+				@Override
+				public void afterCommit() {
+					repartir(new EventoCambio(entidad, tipo, id, version, System.currentTimeMillis()));
+				}
+			});
+		} else {
+			repartir(new EventoCambio(entidad, tipo, id, version, System.currentTimeMillis()));
+		}
+	}
+
+	private void repartir(EventoCambio evento) {
+		Set<Suscriptor> interesados = suscriptores.get(evento.getEntidad());
+		if (interesados.isEmpty()) {
+			return;
+		}
+		Mensaje mensaje = new Mensaje(secuencia.incrementAndGet(), evento, null);
+		for (Suscriptor suscriptor : interesados) {
+			if (suscriptor.ids.isEmpty() || suscriptor.ids.contains(evento.getId())) {
+				suscriptor.ofrecer(mensaje);
+			}
+		}
+	}
+
+	/**
+	 * Envía un comentario a cada suscriptor para que los proxies no corten las
+	 * conexiones inactivas y para detectar los clientes que se han ido. Quita los
+	 * suscriptores con una escritura bloqueada más de {@code eventos.envio-maximo-ms}.
+	 */
+	@Scheduled(fixedDelayString = "${eventos.latido-ms:15000}")
+	public void latir() {
+		long ahora = System.currentTimeMillis();
+		suscriptores.values().forEach(conjunto -> conjunto.forEach(s -> {
+			long desde = s.enviandoDesde;
+			if (desde != 0 && ahora - desde > envioMaximoMs) {
+				s.cortar(); // No se toca el emisor: está bloqueado en la escritura
+			} else {
+				s.ofrecer(LATIDO);
+			}
+		}));
+	}
+
+	/** Cuenta una suscripción más del cliente si no ha llegado a su límite. */
+	private boolean reservar(String cliente) {
+		boolean[] reservada = new boolean[1];
+		suscripcionesPorCliente.compute(cliente, (clave, abiertas) -> {
+			int actuales = abiertas == null ? 0 : abiertas;
+			if (actuales >= maximoPorCliente) {
+				return abiertas;
+			}
+			reservada[0] = true;
+			return actuales + 1;
+		});
+		return reservada[0];
+	}
+
+	private void quitar(Suscriptor suscriptor) {
+		suscriptor.activo = false;
+		if (suscriptores.get(suscriptor.entidad).remove(suscriptor)) {
+			numeroSuscriptores.get(suscriptor.entidad).decrementAndGet();
+			suscripcionesPorCliente.computeIfPresent(suscriptor.cliente,
+					(clave, abiertas) -> abiertas > 1 ? abiertas - 1 : null);
+		}
+	}
+
+	/** @return número de suscripciones abiertas, de todos los tipos de elemento */
+	public int getSuscriptores() {
+		return numeroSuscriptores.values().stream().mapToInt(AtomicInteger::get).sum();
+	}
+
+	/** @return número de suscripciones cerradas desde el arranque por no leer al ritmo de los eventos */
+	public long getDesbordados() {
+		return desbordados.sum();
+	}
+
+	@PreDestroy
+	public void cerrar() {
+		// Las que están bloqueadas escribiendo las cierra el contenedor al pararse
+		suscriptores.values().forEach(conjunto -> conjunto.forEach(s -> {
+			if (s.enviandoDesde == 0) {
+				s.completar();
+			}
+		}));
+		ejecutor.shutdown();
+	}
+
+	/** Suscripción abierta, con su cola de mensajes pendientes. */
+	private final class Suscriptor {
+
+		private final EventoCambio.Entidad entidad;
+		private final Set<Long> ids; // Vacío: todos los elementos
+		private final String cliente;
+		private final SseEmitter emisor;
+		private final ArrayBlockingQueue<Mensaje> pendientes = new ArrayBlockingQueue<>(capacidad + 1);
+		private final AtomicBoolean programado = new AtomicBoolean(); // Hay una tarea vaciando la cola
+		private volatile boolean activo = true;
+		private volatile boolean desbordado;
+		private volatile boolean cortado; // Quitado sin avisar: hay que cerrar la conexión al volver de la escritura
+		private volatile long enviandoDesde; // Inicio de la escritura en curso, 0 si no hay ninguna
+
+		Suscriptor(EventoCambio.Entidad entidad, Set<Long> ids, String cliente, SseEmitter emisor) {
+			this.entidad = entidad;
+			this.ids = ids;
+			this.cliente = cliente;
+			this.emisor = emisor;
+		}
+
+		void ofrecer(Mensaje mensaje) {
+			if (!activo || desbordado) {
+				return;
+			}
+			if (pendientes.size() >= capacidad || !pendientes.offer(mensaje)) {
+				synchronized (this) {
+					if (desbordado) {
+						return;
+					}
+					desbordado = true;
+					// Lo pendiente ya no sirve: el cliente tiene que volver a cargar los datos
+					pendientes.clear();
+					pendientes.offer(DESBORDADO); // La cola tiene un hueco de más para este aviso
+				}
+				desbordados.increment();
+			}
+			programar();
+		}
+
+		private void programar() {
+			if (activo && programado.compareAndSet(false, true)) {
+				try {
+					ejecutor.execute(this::vaciar);
+				} catch (RejectedExecutionException e) {
+					// Todos los hilos escribiendo: nadie lo va a vaciar a tiempo
+					cortar();
+					programado.set(false);
+					completar(); // No hay ninguna escritura suya en curso
+				}
+			}
+		}
+
+		/** Quita la suscripción como desbordada sin escribir en la conexión. */
+		void cortar() {
+			boolean primera;
+			synchronized (this) {
+				if (!activo || cortado) {
+					return;
+				}
+				cortado = true;
+				primera = !desbordado; // Puede haberse desbordado con el aviso detrás de la escritura bloqueada
+				desbordado = true;
+				pendientes.clear();
+			}
+			if (primera) {
+				desbordados.increment();
+			}
+			quitar(this);
+		}
+
+		private void vaciar() {
+			try {
+				Mensaje mensaje;
+				while (activo && (mensaje = pendientes.poll()) != null) {
+					if (mensaje == DESBORDADO) {
+						enviar(SseEmitter.event().name("desbordado")
+								.data("Demasiados eventos pendientes: vuelve a cargar los datos."));
+						quitar(this);
+						emisor.complete();
+						return;
+					}
+					enviar(mensaje.construir());
+				}
+			} catch (IOException | IllegalStateException e) {
+				quitar(this); // El cliente se ha ido o la conexión ya está cerrada
+				return;
+			} finally {
+				programado.set(false);
+			}
+			if (cortado) {
+				completar(); // Se cortó mientras la escritura estaba bloqueada
+			} else if (!pendientes.isEmpty()) {
+				programar(); // Mensajes que llegaron mientras se vaciaba
+			}
+		}
+
+		private void enviar(SseEmitter.SseEventBuilder evento) throws IOException {
+			enviandoDesde = System.currentTimeMillis();
+			try {
+				emisor.send(evento);
+			} finally {
+				enviandoDesde = 0;
+			}
+		}
+
+		private void completar() {
+			try {
+				emisor.complete();
+			} catch (IllegalStateException e) {
+				// Ya estaba cerrada
+			}
+		}
+	}
+}
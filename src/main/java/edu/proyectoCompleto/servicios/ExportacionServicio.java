@@ -0,0 +1,96 @@
+package edu.proyectoCompleto.servicios;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Iterator;
+import java.util.stream.Stream;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+
+import edu.proyectoCompleto.dtos.FichaUsuario;
+import edu.proyectoCompleto.dtos.FichaClub;
+import edu.proyectoCompleto.repositorios.ClubRepositorios;
+import edu.proyectoCompleto.repositorios.UsuarioRepositorios;
+
+/**
+ * Servicio que exporta todos los usuarios y clubs en NDJSON (un objeto JSON por línea).
+ * <p>
+ * Las filas se leen con un cursor de la base de datos y se escriben en la salida
+ * según llegan, sin acumularlas en una lista ni en el contexto de persistencia, de
+ * modo que la memoria usada es la misma para mil filas que para millones. La
+ * transacción dura lo que la descarga, así que se marca como larga para no retener la
+ * sincronización de cambios ({@link CambiosServicio}).
+ * </p>
+ */
+@Service
+public class ExportacionServicio {
+
+	private final UsuarioRepositorios usuarioRepositorios;
+	private final ClubRepositorios clubRepositorios;
+	private final JdbcTemplate jdbcTemplate;
+
+	/**
+	 * Escritor sin separador entre objetos (cada línea acaba en salto de línea) y que no
+	 * vacía la salida tras cada objeto, sino al llenarse el buffer.
+	 */
+	private final ObjectWriter escritor;
+
+	public ExportacionServicio(UsuarioRepositorios usuarioRepositorios, ClubRepositorios clubRepositorios,
+			ObjectMapper objectMapper, JdbcTemplate jdbcTemplate) {
+		this.usuarioRepositorios = usuarioRepositorios;
+		this.clubRepositorios = clubRepositorios;
+		this.jdbcTemplate = jdbcTemplate;
+		this.escritor = objectMapper.writer()
+				.without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE)
+				.withRootValueSeparator((String) null);
+	}
+
+	/**
+	 * Escribe todos los usuarios en la salida, ordenados por id.
+	 *
+	 * @param salida flujo en el que se escribe el NDJSON (no se cierra)
+	 * @return número de usuarios exportados
+	 */
+	@Transactional(readOnly = true)
+	public long exportarUsuarios(OutputStream salida) throws IOException {
+		jdbcTemplate.queryForObject(CambiosServicio.MARCAR_TRANSACCION_LARGA, String.class);
+		try (Stream<FichaUsuario> usuarios = usuarioRepositorios.streamFichas()) {
+			return escribir(usuarios, salida);
+		}
+	}
+
+	/**
+	 * Escribe todos los clubs en la salida, ordenados por id.
+	 *
+	 * @param salida flujo en el que se escribe el NDJSON (no se cierra)
+	 * @return número de clubs exportados
+	 */
+	@Transactional(readOnly = true)
+	public long exportarClubs(OutputStream salida) throws IOException {
+		jdbcTemplate.queryForObject(CambiosServicio.MARCAR_TRANSACCION_LARGA, String.class);
+		try (Stream<FichaClub> clubs = clubRepositorios.streamFichas()) {
+			return escribir(clubs, salida);
+		}
+	}
+
+	private long escribir(Stream<?> filas, OutputStream salida) throws IOException {
+		long escritas = 0;
+		try (JsonGenerator generador = escritor.getFactory().createGenerator(salida)) {
+			generador.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+			Iterator<?> it = filas.iterator();
+			while (it.hasNext()) {
+				escritor.writeValue(generador, it.next());
+				generador.writeRaw('\n');
+				escritas++;
+			}
+		}
+		return escritas;
+	}
+}
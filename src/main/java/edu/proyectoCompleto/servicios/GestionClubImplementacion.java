@@ -1,14 +1,38 @@
 package edu.proyectoCompleto.servicios;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import edu.proyectoCompleto.daos.Club;
 import edu.proyectoCompleto.dtos.ClubDto;
+import edu.proyectoCompleto.dtos.CredencialesClub;
+import edu.proyectoCompleto.dtos.EventoCambio;
+import edu.proyectoCompleto.dtos.Pagina;
+import edu.proyectoCompleto.dtos.PerfilClub;
+import edu.proyectoCompleto.dtos.ResultadoAlta;
+import edu.proyectoCompleto.dtos.ResumenClub;
+import edu.proyectoCompleto.medios.AlmacenMedios;
+import edu.proyectoCompleto.medios.GeneradorVariantes;
 import edu.proyectoCompleto.repositorios.ClubRepositorios;
+import edu.proyectoCompleto.utils.IndiceEspacial;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 
 /**
  * Implementación del servicio de club que maneja las operaciones relacionadas
@@ -24,22 +48,46 @@ public class GestionClubImplementacion implements GestionClubInterfaz {
 	/** Repositorio de Club que permite realizar operaciones de base de datos. */
 	private final ClubRepositorios clubRepositorio;
 
+	/** Almacén donde se guardan los bytes de las imágenes de los clubs. */
+	private final AlmacenMedios almacenMedios;
+
+	/** Transacciones programáticas para las altas por lotes. */
+	private final TransactionTemplate transaccion;
+
+	/** Genera las miniaturas de las imágenes en segundo plano. */
+	@Autowired
+	private GeneradorVariantes generadorVariantes;
+
+	/** Índice de búsqueda por nombre y sede, que se actualiza con cada alta, modificación y baja. */
+	@Autowired
+	private BusquedaClubsServicio busquedaClubs;
+
+	/** Bus por el que se anuncian las altas, modificaciones y bajas a los suscriptores. */
+	@Autowired
+	private EventosServicio eventos;
+
 	/**
-	 * Constructor que inyecta el repositorio de Club.
+	 * Constructor que inyecta el repositorio de Club y el almacén de medios.
 	 *
 	 * @param clubRepositorio repositorio de Club que se utiliza para acceder a la
 	 *                        base de datos
+	 * @param almacenMedios   almacén donde se guardan las imágenes
+	 * @param transactionManager gestor de transacciones, para las altas por lotes
 	 */
 	@Autowired
-	public GestionClubImplementacion(ClubRepositorios clubRepositorio) {
+	public GestionClubImplementacion(ClubRepositorios clubRepositorio, AlmacenMedios almacenMedios,
+			PlatformTransactionManager transactionManager) {
 		this.clubRepositorio = clubRepositorio;
+		this.almacenMedios = almacenMedios;
+		this.transaccion = new TransactionTemplate(transactionManager);
 	}
 
 	/**
 	 * Da de alta un nuevo club en la base de datos.
 	 * <p>
 	 * Convierte un objeto {@link ClubDto} a {@link Club} y lo guarda en la base de
-	 * datos.
+	 * datos. La imagen, si se envía, se guarda en el almacén de medios y el club
+	 * solo guarda su clave.
 	 * </p>
 	 *
 	 * @param clubDto datos del club que se desea dar de alta
@@ -53,28 +101,159 @@ public class GestionClubImplementacion implements GestionClubInterfaz {
 		club.setEmailClub(clubDto.getEmailClub());
 		club.setPasswdClub(clubDto.getPasswdClub());
 		club.setSedeClub(clubDto.getSedeClub());
-		club.setImagenClub(clubDto.getImagenClub());
+		club.setRefImagenClub(guardarImagen(clubDto.getImagenClub()));
+		club.setLatitudClub(clubDto.getLatitudClub());
+		club.setLongitudClub(clubDto.getLongitudClub());
 
 		// Guardar el club en la base de datos
 		clubRepositorio.save(club);
+		busquedaClubs.registrarClub(club);
+		eventos.publicar(EventoCambio.Entidad.CLUB, EventoCambio.Tipo.ALTA, club.getIdClub(), club.getVersionClub());
+	}
+
+	/**
+	 * Da de alta un lote de clubs.
+	 * <p>
+	 * Descarta los elementos incompletos y los que repiten email, dentro del lote o
+	 * con clubs existentes (una sola consulta para todo el lote), e inserta el resto
+	 * en una única transacción agrupando los INSERT en lotes JDBC. Si falla una
+	 * restricción por un alta concurrente, se reintenta cada club en su propia
+	 * transacción para que el error solo afecte a ese elemento.
+	 * </p>
+	 *
+	 * @param clubsDto clubs que se desean dar de alta
+	 * @return el resultado de cada elemento, en el mismo orden que el lote
+	 */
+	@Override
+	public List<ResultadoAlta> altaClubs(List<ClubDto> clubsDto) {
+		ResultadoAlta[] resultados = new ResultadoAlta[clubsDto.size()];
+
+		Map<Integer, ClubDto> candidatos = new LinkedHashMap<>();
+		for (int i = 0; i < clubsDto.size(); i++) {
+			ClubDto dto = clubsDto.get(i);
+			if (dto == null || vacio(dto.getNombreClub()) || vacio(dto.getEmailClub()) || vacio(dto.getPasswdClub())) {
+				resultados[i] = ResultadoAlta.error(i, "Faltan campos obligatorios.");
+			} else if (!IndiceEspacial.coordenadasValidas(dto.getLatitudClub(), dto.getLongitudClub())) {
+				resultados[i] = ResultadoAlta.error(i, "La latitud y la longitud van juntas y deben estar en rango.");
+			} else {
+				candidatos.put(i, dto);
+			}
+		}
+
+		Set<String> emails = new HashSet<>();
+		if (!candidatos.isEmpty()) {
+			emails.addAll(clubRepositorio.findEmailsExistentes(
+					candidatos.values().stream().map(ClubDto::getEmailClub).toList()));
+		}
+
+		Map<Integer, Club> nuevos = new LinkedHashMap<>();
+		for (Map.Entry<Integer, ClubDto> candidato : candidatos.entrySet()) {
+			ClubDto dto = candidato.getValue();
+			if (!emails.add(dto.getEmailClub())) { // Ya existía o se repite dentro del lote
+				resultados[candidato.getKey()] = ResultadoAlta.duplicado(candidato.getKey(), List.of("emailClub"));
+				continue;
+			}
+			Club club = new Club(dto.getNombreClub(), dto.getEmailClub(), dto.getPasswdClub(), dto.getSedeClub(),
+					guardarImagen(dto.getImagenClub()));
+			club.setLatitudClub(dto.getLatitudClub());
+			club.setLongitudClub(dto.getLongitudClub());
+			nuevos.put(candidato.getKey(), club);
+		}
+
+		if (!nuevos.isEmpty()) {
+			try {
+				transaccion.executeWithoutResult(estado -> {
+					clubRepositorio.saveAll(nuevos.values());
+					clubRepositorio.flush();
+				});
+				nuevos.forEach((i, club) -> {
+					resultados[i] = ResultadoAlta.creado(i, club.getIdClub());
+					busquedaClubs.registrarClub(club);
+					eventos.publicar(EventoCambio.Entidad.CLUB, EventoCambio.Tipo.ALTA, club.getIdClub(),
+							club.getVersionClub());
+				});
+			} catch (DataIntegrityViolationException e) {
+				nuevos.forEach((i, club) -> resultados[i] = altaIndividual(i, club));
+			}
+		}
+		return Arrays.asList(resultados);
+	}
+
+	/**
+	 * Inserta un club del lote en su propia transacción, tras fallar el alta conjunta.
+	 */
+	private ResultadoAlta altaIndividual(int indice, Club club) {
+		// Copia sin id: el id asignado en el intento conjunto se descartó con su transacción
+		Club copia = new Club(club.getNombreClub(), club.getEmailClub(), club.getPasswdClub(), club.getSedeClub(),
+				club.getRefImagenClub());
+		copia.setLatitudClub(club.getLatitudClub());
+		copia.setLongitudClub(club.getLongitudClub());
+		try {
+			transaccion.executeWithoutResult(estado -> clubRepositorio.saveAndFlush(copia));
+			busquedaClubs.registrarClub(copia);
+			eventos.publicar(EventoCambio.Entidad.CLUB, EventoCambio.Tipo.ALTA, copia.getIdClub(), copia.getVersionClub());
+			return ResultadoAlta.creado(indice, copia.getIdClub());
+		} catch (DataIntegrityViolationException e) {
+			return ResultadoAlta.error(indice, "El email ya está en uso.");
+		}
+	}
+
+	private static boolean vacio(String valor) {
+		return valor == null || valor.isBlank();
 	}
 
 	/**
 	 * Elimina un club existente de la base de datos usando el nombre del club.
 	 *
 	 * @param nombreClub nombre del club que se desea eliminar
+	 * @return el número de clubs eliminados (0 si no existía)
 	 */
 	@Override
 	@Transactional
-	public void eliminarClub(String nombreClub) {
-		clubRepositorio.deleteByNombreClub(nombreClub);
+	public int eliminarClub(String nombreClub) {
+		// Un solo DELETE ... RETURNING: devuelve los ids borrados para anunciarlos como bajas
+		List<Long> eliminados = clubRepositorio.eliminarPorNombre(nombreClub);
+		anunciarBajas(eliminados);
+		return eliminados.size();
+	}
+
+	/**
+	 * Elimina un lote de clubs por sus identificadores con una única sentencia DELETE.
+	 *
+	 * @param idsClub identificadores de los clubs que se desean eliminar
+	 * @return el número de clubs eliminados
+	 */
+	@Override
+	@Transactional
+	public int eliminarClubs(List<Long> idsClub) {
+		if (idsClub.isEmpty()) {
+			return 0;
+		}
+		// Los ids que no existen no se anuncian como bajas
+		return eliminarExistentes(clubRepositorio.findIdsExistentes(new LinkedHashSet<>(idsClub)));
+	}
+
+	private int eliminarExistentes(List<Long> idsClub) {
+		if (idsClub.isEmpty()) {
+			return 0;
+		}
+		// Una sola sentencia DELETE: no se cargan los clubs (ni sus imágenes) para borrarlos
+		int eliminados = clubRepositorio.eliminarPorIds(idsClub);
+		anunciarBajas(idsClub);
+		return eliminados;
+	}
+
+	private void anunciarBajas(List<Long> idsClub) {
+		busquedaClubs.registrarBajas(idsClub);
+		idsClub.forEach(id -> eventos.publicar(EventoCambio.Entidad.CLUB, EventoCambio.Tipo.BAJA, id, null));
 	}
 
 	/**
 	 * Autentica un club utilizando su email y contraseña.
 	 * <p>
-	 * Busca el club en la base de datos y, si se encuentra, convierte el
-	 * {@link Club} a un {@link ClubDto} para transferir los datos.
+	 * Lee solo las credenciales del club, en la base de datos principal y sin pasar por
+	 * la caché de segundo nivel, y compara la contraseña en tiempo constante. Si
+	 * coincide, devuelve los datos del club en un {@link ClubDto}.
 	 * </p>
 	 *
 	 * @param email    email del club
@@ -83,50 +262,142 @@ public class GestionClubImplementacion implements GestionClubInterfaz {
 	 *         encontrado; de lo contrario, un Optional vacío
 	 */
 	@Override
+	@Transactional
 	public Optional<ClubDto> loginClub(String email, String password) {
-		Optional<Club> clubOpt = clubRepositorio.findByEmailClubAndPasswdClub(email, password);
+		Optional<CredencialesClub> clubOpt = clubRepositorio.findCredencialesByEmailClub(email)
+				.filter(club -> password != null && MessageDigest.isEqual(
+						club.getPasswdClub().getBytes(StandardCharsets.UTF_8), password.getBytes(StandardCharsets.UTF_8)));
 
 		if (clubOpt.isPresent()) {
-			Club club = clubOpt.get();
-			// Convertir Club a ClubDto
+			CredencialesClub club = clubOpt.get();
+			// Convertir el resumen a ClubDto
 			ClubDto clubDto = new ClubDto();
 			clubDto.setNombreClub(club.getNombreClub());
 			clubDto.setEmailClub(club.getEmailClub());
-			clubDto.setPasswdClub(club.getPasswdClub());
 			clubDto.setSedeClub(club.getSedeClub());
-			club.setImagenClub(clubDto.getImagenClub());
 			return Optional.of(clubDto);
 		}
 		return Optional.empty();
 	}
 
 	/**
-	 * Modifica los campos nombre, sede e imagen de un club existente en la base de
-	 * datos.
+	 * Obtiene los datos públicos de un club con la versión de su fila.
+	 * <p>
+	 * Se lee en la base de datos principal: con la versión de la réplica, que puede ir
+	 * retrasada, la modificación siguiente fallaría sin que nadie hubiera cambiado nada.
+	 * </p>
 	 *
-	 * @param idClub  identificador del club a modificar
-	 * @param clubDto objeto DTO que contiene los nuevos datos del club
-	 * @return un {@link Optional<ClubDto>} con los datos actualizados si la
-	 *         modificación fue exitosa; de lo contrario, un Optional vacío
+	 * @param idClub identificador del club
+	 * @return un Optional con el perfil del club, vacío si no existe
 	 */
+	@Override
 	@Transactional
-	public boolean modificarClub(long idClub, String nuevoNombre, String nuevaSede, byte[] nuevaImagen) {
-		Optional<Club> clubOpt = clubRepositorio.findById(idClub);
+	public Optional<PerfilClub> obtenerClub(long idClub) {
+		return clubRepositorio.findPerfilByIdClub(idClub);
+	}
 
-		if (clubOpt.isPresent()) {
-			Club club = clubOpt.get();
-			// Modificar los campos
-			if (nuevoNombre != null)
-				club.setNombreClub(nuevoNombre);
-			if (nuevaSede != null)
-				club.setSedeClub(nuevaSede);
-			if (nuevaImagen != null)
-				club.setImagenClub(nuevaImagen);
-
-			clubRepositorio.save(club); // Guardar los cambios
-			return true;
+	/**
+	 * Modifica los campos nombre, sede, imagen y ubicación de un club existente en la
+	 * base de datos.
+	 * <p>
+	 * Con {@code versionEsperada} solo se modifica si el club sigue en esa versión, en
+	 * la misma sentencia UPDATE y sin bloquear la fila antes (bloqueo optimista).
+	 * </p>
+	 *
+	 * @param idClub          identificador del club a modificar
+	 * @param versionEsperada versión que debe tener el club (opcional)
+	 * @param nuevoNombre     nuevo nombre del club (opcional)
+	 * @param nuevaSede       nueva sede del club (opcional)
+	 * @param refNuevaImagen  clave en el almacén de medios de la nueva imagen (opcional)
+	 * @param nuevaLatitud    nueva latitud de la sede (opcional, junto con la longitud)
+	 * @param nuevaLongitud   nueva longitud de la sede (opcional, junto con la latitud)
+	 * @return un Optional con la nueva versión del club, vacío si no existe
+	 * @throws ObjectOptimisticLockingFailureException si el club ya no está en la versión esperada
+	 */
+	@Override
+	@Transactional
+	public Optional<Long> modificarClub(long idClub, Long versionEsperada, String nuevoNombre, String nuevaSede,
+			String refNuevaImagen, Double nuevaLatitud, Double nuevaLongitud) {
+		// Una sola sentencia UPDATE con solo los campos proporcionados
+		int actualizados = clubRepositorio.actualizarParcial(idClub, versionEsperada, nuevoNombre, nuevaSede,
+				refNuevaImagen, nuevaLatitud, nuevaLongitud);
+		// Tras el UPDATE la fila queda bloqueada hasta el commit: la versión leída es la que deja esta transacción
+		Optional<Long> version = clubRepositorio.findVersionClub(idClub);
+		if (actualizados == 0) {
+			if (version.isPresent()) {
+				throw new ObjectOptimisticLockingFailureException(Club.class, idClub); // Otro lo ha modificado antes
+			}
+			return Optional.empty(); // Si el club no existe
+		}
+		if (refNuevaImagen != null) {
+			generadorVariantes.encolar(refNuevaImagen);
 		}
+		if (nuevoNombre != null || nuevaSede != null || nuevaLatitud != null) {
+			// El UPDATE solo lleva los campos enviados: los índices necesitan el nombre, la sede y la ubicación completos
+			clubRepositorio.findUbicacionByIdClub(idClub).ifPresent(busquedaClubs::registrarClub);
+		}
+		if (nuevoNombre != null || nuevaSede != null || refNuevaImagen != null || nuevaLatitud != null) {
+			eventos.publicar(EventoCambio.Entidad.CLUB, EventoCambio.Tipo.MODIFICACION, idClub, version.orElse(null));
+		}
+		return version;
+	}
 
-		return false; // Si el club no existe
+	/**
+	 * Obtiene la clave de la imagen de un club, desde la caché de segundo nivel si está.
+	 * <p>
+	 * Si no está, la entidad se carga en la base de datos principal: lo que se lee queda
+	 * en la caché, y de la réplica podría quedar una versión atrasada.
+	 * </p>
+	 *
+	 * @param idClub identificador del club
+	 * @return un Optional con la clave de la imagen, vacío si el club no existe o
+	 *         no tiene imagen
+	 */
+	@Override
+	@Transactional
+	public Optional<String> obtenerRefImagen(long idClub) {
+		// Por id, para que las peticiones repetidas de la imagen se resuelvan desde la caché de segundo nivel
+		return clubRepositorio.findById(idClub).map(Club::getRefImagenClub);
+	}
+
+	/**
+	 * Lista los clubs por páginas, ordenados por id.
+	 * <p>
+	 * Se piden los clubs con id mayor que el último de la página anterior, de modo
+	 * que el coste de cada página no depende de lo profunda que sea.
+	 * </p>
+	 *
+	 * @param despuesDe id del último club de la página anterior (0 para la primera)
+	 * @param sede      sede por la que filtrar (opcional)
+	 * @param tamano    número máximo de clubs de la página
+	 * @return la página de clubs, sin imágenes ni contraseñas
+	 */
+	@Override
+	@Transactional(readOnly = true)
+	public Pagina<ResumenClub> listarClubs(long despuesDe, String sede, int tamano) {
+		// Se pide uno más para saber si hay página siguiente sin contar filas
+		List<ResumenClub> clubs = sede == null || sede.isBlank()
+				? clubRepositorio.findPagina(despuesDe, tamano + 1)
+				: clubRepositorio.findPaginaPorSede(sede, despuesDe, tamano + 1);
+		return Pagina.desde(clubs, tamano, ResumenClub::getIdClub);
+	}
+
+	/**
+	 * Guarda la imagen en el almacén de medios.
+	 *
+	 * @param imagen bytes de la imagen (puede ser null)
+	 * @return la clave de la imagen, o null si no se envió imagen
+	 */
+	private String guardarImagen(byte[] imagen) {
+		if (imagen == null || imagen.length == 0) {
+			return null;
+		}
+		try {
+			String clave = almacenMedios.guardar(imagen);
+			generadorVariantes.encolar(clave);
+			return clave;
+		} catch (IOException e) {
+			throw new UncheckedIOException("No se pudo guardar la imagen.", e);
+		}
 	}
 }
@@ -1,8 +1,13 @@
 package edu.proyectoCompleto.servicios;
 
+import java.util.List;
 import java.util.Optional;
 
 import edu.proyectoCompleto.dtos.ClubDto;
+import edu.proyectoCompleto.dtos.Pagina;
+import edu.proyectoCompleto.dtos.PerfilClub;
+import edu.proyectoCompleto.dtos.ResultadoAlta;
+import edu.proyectoCompleto.dtos.ResumenClub;
 
 public interface GestionClubInterfaz {
 	/**
@@ -14,13 +19,29 @@ public interface GestionClubInterfaz {
 	 */
 	void altaClub(ClubDto clubDto);
 
+	/**
+	 * Registra un lote de clubs; cada elemento se resuelve por separado.
+	 *
+	 * @param clubsDto Los clubs a registrar.
+	 * @return El resultado de cada club, en el mismo orden que el lote.
+	 */
+	List<ResultadoAlta> altaClubs(List<ClubDto> clubsDto);
+
 	/**
 	 * Elimina un club existente del sistema por su nombre.
 	 * 
 	 * @param nombreClub El nombre del club a eliminar.
-	 * @throws IOException Si ocurre un error durante la operación de eliminación.
+	 * @return El número de clubs eliminados (0 si no existía).
+	 */
+	int eliminarClub(String nombreClub);
+
+	/**
+	 * Elimina un lote de clubs por sus identificadores con una única sentencia.
+	 *
+	 * @param idsClub Los identificadores de los clubs a eliminar.
+	 * @return El número de clubs eliminados.
 	 */
-	void eliminarClub(String nombreClub);
+	int eliminarClubs(List<Long> idsClub);
 
 	/**
 	 * Inicia sesión en el club utilizando las credenciales proporcionadas.
@@ -33,14 +54,46 @@ public interface GestionClubInterfaz {
 	Optional<ClubDto> loginClub(String email, String password);
 
 	/**
-	 * Modificar un campo específico del club.
+	 * Obtiene los datos públicos de un club con la versión de su fila.
 	 *
-	 * @param nombreClub nombre del club a modificar
-	 * @param campo      campo a modificar (nombreclub, sedeclub, imagenclub, etc.)
-	 * @param nuevoValor el nuevo valor del campo
-	 * @return un Optional con el ClubDto actualizado
+	 * @param idClub identificador del club
+	 * @return un Optional con el perfil del club, vacío si no existe
 	 */
+	Optional<PerfilClub> obtenerClub(long idClub);
 
-	public boolean modificarClub(long idClub, String nuevoNombre, String nuevaSede, byte[] nuevaImagen);
+	/**
+	 * Modifica los campos indicados del club; los null no cambian.
+	 *
+	 * @param idClub          identificador del club a modificar
+	 * @param versionEsperada versión que debe tener el club, o null para no comprobarla
+	 * @param nuevoNombre     nuevo nombre del club
+	 * @param nuevaSede       nueva sede del club
+	 * @param refNuevaImagen  clave de la nueva imagen en el almacén de medios
+	 * @param nuevaLatitud    nueva latitud de la sede (junto con la longitud)
+	 * @param nuevaLongitud   nueva longitud de la sede (junto con la latitud)
+	 * @return un Optional con la nueva versión del club, vacío si no existe
+	 * @throws org.springframework.dao.OptimisticLockingFailureException si el club ya
+	 *         no está en la versión esperada
+	 */
+	public Optional<Long> modificarClub(long idClub, Long versionEsperada, String nuevoNombre, String nuevaSede,
+			String refNuevaImagen, Double nuevaLatitud, Double nuevaLongitud);
+
+	/**
+	 * Obtiene la clave en el almacén de medios de la imagen de un club.
+	 *
+	 * @param idClub identificador del club
+	 * @return un Optional con la clave, vacío si el club no existe o no tiene imagen
+	 */
+	Optional<String> obtenerRefImagen(long idClub);
+
+	/**
+	 * Lista los clubs por páginas, ordenados por id (paginación por clave).
+	 *
+	 * @param despuesDe id del último club de la página anterior (0 para la primera)
+	 * @param sede      sede por la que filtrar (opcional)
+	 * @param tamano    número máximo de clubs de la página
+	 * @return la página de clubs, sin imágenes ni contraseñas
+	 */
+	Pagina<ResumenClub> listarClubs(long despuesDe, String sede, int tamano);
 
 }
@@ -1,17 +1,42 @@
 package edu.proyectoCompleto.servicios;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import edu.proyectoCompleto.daos.Usuario;
+import edu.proyectoCompleto.dtos.ClavesUsuario;
+import edu.proyectoCompleto.dtos.EventoCambio;
+import edu.proyectoCompleto.dtos.FichaUsuario;
+import edu.proyectoCompleto.dtos.IdentidadUsuario;
+import edu.proyectoCompleto.dtos.Pagina;
+import edu.proyectoCompleto.dtos.PerfilUsuario;
+import edu.proyectoCompleto.dtos.ResultadoAlta;
 import edu.proyectoCompleto.dtos.UsuarioDto;
+import edu.proyectoCompleto.medios.AlmacenMedios;
+import edu.proyectoCompleto.medios.GeneradorVariantes;
 import edu.proyectoCompleto.repositorios.UsuarioRepositorios;
 import edu.proyectoCompleto.utils.JwtUtil;
 
 import org.springframework.security.crypto.password.PasswordEncoder;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 
 /**
  * Implementación del servicio de usuario que maneja las operaciones CRUD relacionadas con los usuarios.
@@ -22,19 +47,37 @@ public class GestionUsuarioImplementacion implements GestionUsuarioInterfaz {
     /** Repositorio de Usuario que permite realizar operaciones de base de datos. */
     private final UsuarioRepositorios usuarioRepositorios;
     private final PasswordEncoder passwordEncoder; // Inyección de PasswordEncoder
+    private final UsuarioServicio usuarioServicio; // Para invalidar las credenciales cacheadas
+    private final AlmacenMedios almacenMedios; // Donde se guardan los bytes de las fotos
+    private final TransactionTemplate transaccion; // Transacciones programáticas para las altas por lotes
     @Autowired
     private JwtUtil jwtUtil;  // Inyectamos el JwtUtil para generar el token
+    @Autowired
+    private GeneradorVariantes generadorVariantes; // Genera las miniaturas de las fotos en segundo plano
+    @Autowired
+    private DisponibilidadServicio disponibilidad; // Filtros de nicknames, emails y DNIs en uso
+    @Autowired
+    private EventosServicio eventos; // Anuncia las altas, modificaciones y bajas a los suscriptores
 
 
     /**
      * Constructor que inyecta el repositorio de Usuario.
      *
      * @param usuarioRepositorio repositorio de Usuario que se utiliza para acceder a la base de datos
+     * @param passwordEncoder codificador de contraseñas
+     * @param usuarioServicio servicio de autenticación, cuya caché de credenciales se invalida al escribir
+     * @param almacenMedios almacén donde se guardan las fotos
+     * @param transactionManager gestor de transacciones, para las altas por lotes
      */
     @Autowired
-    public GestionUsuarioImplementacion(UsuarioRepositorios usuarioRepositorio, PasswordEncoder passwordEncoder) {
+    public GestionUsuarioImplementacion(UsuarioRepositorios usuarioRepositorio, PasswordEncoder passwordEncoder,
+                                        UsuarioServicio usuarioServicio, AlmacenMedios almacenMedios,
+                                        PlatformTransactionManager transactionManager) {
         this.usuarioRepositorios = usuarioRepositorio;
         this.passwordEncoder = passwordEncoder;
+        this.usuarioServicio = usuarioServicio;
+        this.almacenMedios = almacenMedios;
+        this.transaccion = new TransactionTemplate(transactionManager);
     }
 
 
@@ -42,83 +85,331 @@ public class GestionUsuarioImplementacion implements GestionUsuarioInterfaz {
      * Da de alta un nuevo usuario en la base de datos.
      * <p>
      * Convierte un objeto {@link UsuarioDto} a {@link Usuario} y lo guarda en la base de datos.
+     * La foto, si se envía, se guarda en el almacén de medios y el usuario solo guarda su clave.
+     * Antes de cifrar la contraseña se comprueba que nickname, email y DNI estén libres,
+     * para no gastar un hash BCrypt en un alta que va a fallar.
      * </p>
      *
      * @param usuarioDto datos del usuario que se desea dar de alta
+     * @throws DataIntegrityViolationException si el nickname, el email o el DNI ya están en uso
      */
     @Override
     @Transactional
     public void altaUsuario(UsuarioDto usuarioDto) {
+        List<String> ocupados = disponibilidad.ocupados(usuarioDto.getNicknameUsuario(),
+                usuarioDto.getEmailUsuario(), usuarioDto.getDniUsuario());
+        if (!ocupados.isEmpty()) {
+            throw new DataIntegrityViolationException("Ya están en uso: " + String.join(", ", ocupados) + ".");
+        }
+
         // Convertir UsuarioDto a Usuario sin establecer idUsuario
         Usuario usuario = new Usuario();
         usuario.setNicknameUsuario(usuarioDto.getNicknameUsuario());
         usuario.setNombreUsuario(usuarioDto.getNombreUsuario());
         usuario.setDniUsuario(usuarioDto.getDniUsuario());
         usuario.setTelefonoUsuario(usuarioDto.getTelefonoUsuario());
-        usuario.setFotoUsuario(usuarioDto.getFotoUsuario());
+        usuario.setRefFotoUsuario(guardarFoto(usuarioDto.getFotoUsuario()));
         usuario.setEmailUsuario(usuarioDto.getEmailUsuario());
         usuario.setPasswdUsuario(passwordEncoder.encode(usuarioDto.getPasswdUsuario()));  // Cifrar la contraseña
         usuario.setRol(usuarioDto.getRol());
 
         // Guardar el usuario en la base de datos
         usuarioRepositorios.save(usuario);
+        disponibilidad.registrarAlta(usuario.getNicknameUsuario(), usuario.getEmailUsuario(), usuario.getDniUsuario());
+        publicarAlta(usuario);
+    }
+
+    /**
+     * Da de alta un lote de usuarios.
+     * <p>
+     * Primero descarta los elementos incompletos y los que repiten nickname, email o DNI,
+     * ya sea dentro del propio lote o con usuarios existentes (una sola consulta para todo
+     * el lote). El resto se inserta en una única transacción, agrupando los INSERT en lotes
+     * JDBC. Si aun así falla una restricción (por un alta concurrente), se reintenta cada
+     * usuario en su propia transacción para que el error solo afecte a ese elemento.
+     * </p>
+     *
+     * @param usuariosDto usuarios que se desean dar de alta
+     * @return el resultado de cada elemento, en el mismo orden que el lote
+     */
+    @Override
+    public List<ResultadoAlta> altaUsuarios(List<UsuarioDto> usuariosDto) {
+        ResultadoAlta[] resultados = new ResultadoAlta[usuariosDto.size()];
+
+        // Elementos completos, pendientes de comprobar duplicados
+        Map<Integer, UsuarioDto> candidatos = new LinkedHashMap<>();
+        for (int i = 0; i < usuariosDto.size(); i++) {
+            UsuarioDto dto = usuariosDto.get(i);
+            if (dto == null || vacio(dto.getNicknameUsuario()) || vacio(dto.getNombreUsuario())
+                    || vacio(dto.getDniUsuario()) || vacio(dto.getEmailUsuario())
+                    || vacio(dto.getPasswdUsuario()) || vacio(dto.getRol())) {
+                resultados[i] = ResultadoAlta.error(i, "Faltan campos obligatorios.");
+            } else {
+                candidatos.put(i, dto);
+            }
+        }
+
+        Set<String> nicknames = new HashSet<>();
+        Set<String> emails = new HashSet<>();
+        Set<String> dnis = new HashSet<>();
+        if (!candidatos.isEmpty()) {
+            for (ClavesUsuario existente : usuarioRepositorios.findClavesExistentes(
+                    candidatos.values().stream().map(UsuarioDto::getNicknameUsuario).toList(),
+                    candidatos.values().stream().map(UsuarioDto::getEmailUsuario).toList(),
+                    candidatos.values().stream().map(UsuarioDto::getDniUsuario).toList())) {
+                nicknames.add(existente.getNicknameUsuario());
+                emails.add(existente.getEmailUsuario());
+                dnis.add(existente.getDniUsuario());
+            }
+        }
+
+        Map<Integer, Usuario> nuevos = new LinkedHashMap<>();
+        for (Map.Entry<Integer, UsuarioDto> candidato : candidatos.entrySet()) {
+            UsuarioDto dto = candidato.getValue();
+            // Se reservan los valores según se recorren, para detectar también los repetidos dentro del lote
+            List<String> duplicados = new ArrayList<>();
+            if (!nicknames.add(dto.getNicknameUsuario())) {
+                duplicados.add("nicknameUsuario");
+            }
+            if (!emails.add(dto.getEmailUsuario())) {
+                duplicados.add("emailUsuario");
+            }
+            if (!dnis.add(dto.getDniUsuario())) {
+                duplicados.add("dniUsuario");
+            }
+            if (!duplicados.isEmpty()) {
+                resultados[candidato.getKey()] = ResultadoAlta.duplicado(candidato.getKey(), duplicados);
+                continue;
+            }
+            nuevos.put(candidato.getKey(), new Usuario(dto.getNicknameUsuario(), dto.getNombreUsuario(),
+                    dto.getDniUsuario(), dto.getTelefonoUsuario(), guardarFoto(dto.getFotoUsuario()),
+                    dto.getEmailUsuario(), passwordEncoder.encode(dto.getPasswdUsuario()), dto.getRol()));
+        }
+
+        if (!nuevos.isEmpty()) {
+            try {
+                transaccion.executeWithoutResult(estado -> {
+                    usuarioRepositorios.saveAll(nuevos.values());
+                    usuarioRepositorios.flush();
+                });
+                nuevos.forEach((i, usuario) -> {
+                    resultados[i] = ResultadoAlta.creado(i, usuario.getIdUsuario());
+                    disponibilidad.registrarAlta(usuario.getNicknameUsuario(), usuario.getEmailUsuario(),
+                            usuario.getDniUsuario());
+                    publicarAlta(usuario);
+                });
+            } catch (DataIntegrityViolationException e) {
+                nuevos.forEach((i, usuario) -> resultados[i] = altaIndividual(i, usuario));
+            }
+        }
+        return Arrays.asList(resultados);
+    }
+
+    /**
+     * Inserta un usuario del lote en su propia transacción, tras fallar el alta conjunta.
+     */
+    private ResultadoAlta altaIndividual(int indice, Usuario usuario) {
+        // Copia sin id: el id asignado en el intento conjunto se descartó con su transacción
+        Usuario copia = new Usuario(usuario.getNicknameUsuario(), usuario.getNombreUsuario(), usuario.getDniUsuario(),
+                usuario.getTelefonoUsuario(), usuario.getRefFotoUsuario(), usuario.getEmailUsuario(),
+                usuario.getPasswdUsuario(), usuario.getRol());
+        try {
+            transaccion.executeWithoutResult(estado -> usuarioRepositorios.saveAndFlush(copia));
+            disponibilidad.registrarAlta(copia.getNicknameUsuario(), copia.getEmailUsuario(), copia.getDniUsuario());
+            publicarAlta(copia);
+            return ResultadoAlta.creado(indice, copia.getIdUsuario());
+        } catch (DataIntegrityViolationException e) {
+            return ResultadoAlta.error(indice, "El nickname, el email o el DNI ya están en uso.");
+        }
+    }
+
+    private void publicarAlta(Usuario usuario) {
+        eventos.publicar(EventoCambio.Entidad.USUARIO, EventoCambio.Tipo.ALTA, usuario.getIdUsuario(),
+                usuario.getVersionUsuario());
+    }
+
+    private static boolean vacio(String valor) {
+        return valor == null || valor.isBlank();
     }
 
     /**
      * Elimina un usuario existente de la base de datos usando el nickname del usuario.
      *
      * @param nicknameUsuario nickname del usuario que se desea eliminar
+     * @return true si el usuario existía y se eliminó; de lo contrario, false
      */
     @Override
     @Transactional
     public boolean eliminarUsuario(String nicknameUsuario) {
-        Optional<Usuario> usuarioOpt = usuarioRepositorios.findByNicknameUsuario(nicknameUsuario);
+        return !eliminarUsuarios(List.of(nicknameUsuario)).isEmpty();
+    }
 
-        if (usuarioOpt.isPresent()) {
-            usuarioRepositorios.delete(usuarioOpt.get());
-            return true;  // Retorna true si el usuario fue eliminado exitosamente
+    /**
+     * Elimina un lote de usuarios por sus nicknames con una única sentencia DELETE,
+     * sin leerlos antes, y revoca los tokens de los que se han eliminado.
+     *
+     * @param nicknamesUsuario nicknames de los usuarios que se desean eliminar
+     * @return los nicknames de los usuarios eliminados (los que no existían no aparecen)
+     */
+    @Override
+    @Transactional
+    public List<String> eliminarUsuarios(List<String> nicknamesUsuario) {
+        if (nicknamesUsuario.isEmpty()) {
+            return List.of();
         }
-
-        // Si el usuario no existe, retornar false
-        return false;
+        List<IdentidadUsuario> eliminados = usuarioRepositorios.eliminarPorNicknames(new LinkedHashSet<>(nicknamesUsuario));
+        List<String> nicknames = new ArrayList<>(eliminados.size());
+        for (IdentidadUsuario eliminado : eliminados) {
+            jwtUtil.revocarTokensDe(eliminado.getEmailUsuario()); // Sus tokens dejan de ser válidos
+            invalidarCredenciales(eliminado.getEmailUsuario());
+            eventos.publicar(EventoCambio.Entidad.USUARIO, EventoCambio.Tipo.BAJA, eliminado.getIdUsuario(), null);
+            nicknames.add(eliminado.getNicknameUsuario());
+        }
+        disponibilidad.registrarBajas(eliminados.size()); // Siguen en los filtros hasta la siguiente reconstrucción
+        return nicknames;
     }
 
 
+    /**
+     * Obtiene la ficha de un usuario con la versión de su fila, que el cliente envía
+     * después en {@code If-Match} al modificarlo.
+     * <p>
+     * Se lee en la base de datos principal: con la versión de la réplica, que puede ir
+     * retrasada, la modificación siguiente fallaría sin que nadie hubiera cambiado nada.
+     * </p>
+     *
+     * @param idUsuario identificador del usuario
+     * @return un Optional con el perfil del usuario, vacío si no existe
+     */
+    @Override
+    @Transactional
+    public Optional<PerfilUsuario> obtenerUsuario(long idUsuario) {
+        return usuarioRepositorios.findPerfilByIdUsuario(idUsuario);
+    }
+
     /**
      * Modifica los campos nombre, teléfono e imagen de un usuario existente en la base de datos.
+     * <p>
+     * Con {@code versionEsperada} solo se modifica si el usuario sigue en esa versión,
+     * en la misma sentencia UPDATE y sin bloquear la fila antes (bloqueo optimista).
+     * </p>
      *
      * @param idUsuario identificador del usuario a modificar
+     * @param versionEsperada versión que debe tener el usuario (opcional)
      * @param nuevoNombre nuevo nombre del usuario (opcional)
      * @param nuevoTelefono nuevo teléfono del usuario (opcional)
-     * @param nuevaFoto nueva foto del usuario (opcional)
-     * @return true si la modificación fue exitosa; de lo contrario, false
+     * @param refNuevaFoto clave en el almacén de medios de la nueva foto del usuario (opcional)
+     * @return un Optional con la nueva versión del usuario, vacío si no existe
+     * @throws ObjectOptimisticLockingFailureException si el usuario ya no está en la versión esperada
      */
     @Override
     @Transactional
-    public boolean modificarUsuario(long idUsuario, String nuevoNombre, String nuevoTelefono, byte[] nuevaFoto) {
-        Optional<Usuario> usuarioOpt = usuarioRepositorios.findById(idUsuario);
+    public Optional<Long> modificarUsuario(long idUsuario, Long versionEsperada, String nuevoNombre,
+            String nuevoTelefono, String refNuevaFoto) {
+        // Una sola sentencia UPDATE con solo los campos proporcionados (las cadenas vacías no cambian nada)
+        String nombre = vacioANull(nuevoNombre);
+        String telefono = vacioANull(nuevoTelefono);
+        String refFoto = vacioANull(refNuevaFoto);
+        int actualizados = usuarioRepositorios.actualizarParcial(idUsuario, versionEsperada, nombre, telefono, refFoto);
+        // Tras el UPDATE la fila queda bloqueada hasta el commit: la versión leída es la que deja esta transacción
+        Optional<Long> version = usuarioRepositorios.findVersionUsuario(idUsuario);
+        if (actualizados == 0) {
+            if (version.isPresent()) {
+                throw new ObjectOptimisticLockingFailureException(Usuario.class, idUsuario); // Otro lo ha modificado antes
+            }
+            return Optional.empty();  // Si no se encuentra el usuario
+        }
+        if (refFoto != null) {
+            generadorVariantes.encolar(refFoto);
+        }
+        if (nombre != null || telefono != null || refFoto != null) {
+            eventos.publicar(EventoCambio.Entidad.USUARIO, EventoCambio.Tipo.MODIFICACION, idUsuario,
+                    version.orElse(null));
+        }
+        // Nombre, teléfono y foto no forman parte de las credenciales cacheadas: no hay nada que invalidar
+        return version;
+    }
 
-        if (usuarioOpt.isPresent()) {
-            Usuario usuario = usuarioOpt.get();
+    private static String vacioANull(String valor) {
+        return valor == null || valor.isEmpty() ? null : valor;
+    }
 
-            // Modificar los campos si se proporcionan valores no nulos
-            if (nuevoNombre != null && !nuevoNombre.isEmpty()) {
-                usuario.setNombreUsuario(nuevoNombre);
-            }
-            if (nuevoTelefono != null && !nuevoTelefono.isEmpty()) {
-                usuario.setTelefonoUsuario(nuevoTelefono);
-            }
-            if (nuevaFoto != null && nuevaFoto.length > 0) {
-                usuario.setFotoUsuario(nuevaFoto);
-            }
+    /**
+     * Obtiene la clave de la foto de un usuario, desde la caché de segundo nivel si está.
+     * <p>
+     * Si no está, la entidad se carga en la base de datos principal: lo que se lee queda
+     * en la caché, y de la réplica podría quedar una versión atrasada.
+     * </p>
+     *
+     * @param idUsuario identificador del usuario
+     * @return un Optional con la clave de la foto, vacío si el usuario no existe o no tiene foto
+     */
+    @Override
+    @Transactional
+    public Optional<String> obtenerRefFoto(long idUsuario) {
+        // Por id, para que las peticiones repetidas de la foto se resuelvan desde la caché de segundo nivel
+        return usuarioRepositorios.findById(idUsuario).map(Usuario::getRefFotoUsuario);
+    }
 
-            // Guardar los cambios
-            usuarioRepositorios.save(usuario);
-            return true;  // Retornar true si la modificación fue exitosa
+    /**
+     * Lista los usuarios por páginas, ordenados por id.
+     * <p>
+     * La paginación es por clave: se piden los usuarios con id mayor que el último de
+     * la página anterior, de modo que el índice de la clave primaria lleva directamente
+     * al principio de la página y su coste no depende de lo profunda que sea.
+     * </p>
+     *
+     * @param despuesDe id del último usuario de la página anterior (0 para la primera)
+     * @param rol rol por el que filtrar (opcional)
+     * @param tamano número máximo de usuarios de la página
+     * @return la página de usuarios, sin fotos ni contraseñas
+     */
+    @Override
+    @Transactional(readOnly = true)
+    public Pagina<FichaUsuario> listarUsuarios(long despuesDe, String rol, int tamano) {
+        // Se pide uno más para saber si hay página siguiente sin contar filas
+        List<FichaUsuario> usuarios = rol == null || rol.isBlank()
+                ? usuarioRepositorios.findPagina(despuesDe, tamano + 1)
+                : usuarioRepositorios.findPaginaPorRol(rol, despuesDe, tamano + 1);
+        return Pagina.desde(usuarios, tamano, FichaUsuario::getIdUsuario);
+    }
+
+    /**
+     * Guarda la foto en el almacén de medios.
+     *
+     * @param foto bytes de la foto (puede ser null)
+     * @return la clave de la foto, o null si no se envió foto
+     */
+    private String guardarFoto(byte[] foto) {
+        if (foto == null || foto.length == 0) {
+            return null;
+        }
+        try {
+            String clave = almacenMedios.guardar(foto);
+            generadorVariantes.encolar(clave);
+            return clave;
+        } catch (IOException e) {
+            throw new UncheckedIOException("No se pudo guardar la foto.", e);
         }
+    }
 
-        // Si no se encuentra el usuario, retornamos false
-        return false;
+    /**
+     * Invalida las credenciales cacheadas del usuario ahora y de nuevo al confirmar la
+     * transacción, para que una autenticación concurrente no vuelva a cachear los datos
+     * anteriores a la escritura.
+     *
+     * @param emailUsuario email del usuario modificado o eliminado
+     */
+    private void invalidarCredenciales(String emailUsuario) {
+        usuarioServicio.invalidarCredenciales(emailUsuario);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    usuarioServicio.invalidarCredenciales(emailUsuario);
+                }
+            });
+        }
     }
 
     /**
@@ -1,11 +1,24 @@
 package edu.proyectoCompleto.servicios;
 
+import java.util.List;
+import java.util.Optional;
+
+import edu.proyectoCompleto.dtos.FichaUsuario;
+import edu.proyectoCompleto.dtos.Pagina;
+import edu.proyectoCompleto.dtos.PerfilUsuario;
+import edu.proyectoCompleto.dtos.ResultadoAlta;
 import edu.proyectoCompleto.dtos.UsuarioDto;
 
 public interface GestionUsuarioInterfaz {
 	 public void altaUsuario(UsuarioDto usuarioDto);
+	 public List<ResultadoAlta> altaUsuarios(List<UsuarioDto> usuariosDto);
 	 public boolean eliminarUsuario(String nicknameUsuario);
+	 public List<String> eliminarUsuarios(List<String> nicknamesUsuario);
 	 /*public Optional<String> loginUsuario(String email, String password);*/
-	 public boolean modificarUsuario(long idUsuario, String nuevoNombre, String nuevoTelefono, byte[] nuevaFoto);
+	 public Optional<PerfilUsuario> obtenerUsuario(long idUsuario);
+	 public Optional<Long> modificarUsuario(long idUsuario, Long versionEsperada, String nuevoNombre, String nuevoTelefono,
+			 String refNuevaFoto);
+	 public Optional<String> obtenerRefFoto(long idUsuario);
+	 public Pagina<FichaUsuario> listarUsuarios(long despuesDe, String rol, int tamano);
 
 }
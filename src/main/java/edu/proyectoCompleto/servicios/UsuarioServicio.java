@@ -1,28 +1,59 @@
 package edu.proyectoCompleto.servicios;
 
-import org.springframework.security.core.userdetails.User;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
-import edu.proyectoCompleto.daos.Usuario;
+import edu.proyectoCompleto.dtos.CredencialesUsuario;
 import edu.proyectoCompleto.repositorios.UsuarioRepositorios;
+import edu.proyectoCompleto.seguridad.UsuarioAutenticado;
+import edu.proyectoCompleto.utils.CacheAcotada;
+
+import java.util.List;
 
 @Service
 public class UsuarioServicio implements UserDetailsService {
 
     private final UsuarioRepositorios usuarioRepository;
 
-    public UsuarioServicio(UsuarioRepositorios usuarioRepositorios) {
+    /**
+     * Credenciales ya consultadas, por email. Se guarda la proyección inmutable y no el
+     * {@link UserDetails}, porque Spring Security borra la contraseña del objeto devuelto
+     * tras autenticar.
+     */
+    private final CacheAcotada<String, CredencialesUsuario> credenciales;
+    private final long ttlMillis;
+
+    public UsuarioServicio(UsuarioRepositorios usuarioRepositorios,
+                           @Value("${usuarios.cache.maximo:10000}") int maximoEntradas,
+                           @Value("${usuarios.cache.ttl-segundos:300}") long ttlSegundos) {
         this.usuarioRepository = usuarioRepositorios;
+        this.credenciales = new CacheAcotada<>(maximoEntradas);
+        this.ttlMillis = ttlSegundos * 1000;
     }
 
+    /**
+     * Carga las credenciales de un usuario para autenticarlo.
+     * <p>
+     * La consulta es una transacción normal, no de solo lectura, para que vaya siempre a
+     * la principal: desde la réplica, un login justo después de eliminar o modificar al
+     * usuario podría leer sus credenciales antiguas y volver a guardarlas en la caché.
+     * </p>
+     */
     @Override
+    @Transactional
     public UserDetails loadUserByUsername(String username) throws UsernameNotFoundException {
-        // Buscar al usuario por correo electrónico
-        Usuario usuario = usuarioRepository.findByEmailUsuario(username)
-                .orElseThrow(() -> new UsernameNotFoundException("Usuario no encontrado con el correo: " + username));
+        // Buscar las credenciales en la caché y, si no están, solo las columnas necesarias en la base de datos
+        CredencialesUsuario usuario = credenciales.obtener(username).orElseGet(() -> {
+            CredencialesUsuario consultadas = usuarioRepository.findCredencialesByEmailUsuario(username)
+                    .orElseThrow(() -> new UsernameNotFoundException("Usuario no encontrado con el correo: " + username));
+            credenciales.guardar(username, consultadas, System.currentTimeMillis() + ttlMillis);
+            return consultadas;
+        });
 
         // Verificar que el usuario tiene un rol asignado
         String rol = usuario.getRol();
@@ -30,11 +61,20 @@ public class UsuarioServicio implements UserDetailsService {
             throw new UsernameNotFoundException("El usuario no tiene un rol asignado.");
         }
 
-        // Usar el rol con el prefijo 'ROLE_'
-        return User.builder()
-                .username(usuario.getEmailUsuario())  // Usamos el correo del usuario
-                .password(usuario.getPasswdUsuario())  // Contraseña cifrada
-                .authorities("ROLE_" + rol)  // Asignar roles
-                .build();
+        // Usar el rol con el prefijo 'ROLE_' y conservar el id para incluirlo en el token
+        return new UsuarioAutenticado(
+                usuario.getIdUsuario(),
+                usuario.getEmailUsuario(),  // Usamos el correo del usuario
+                usuario.getPasswdUsuario(),  // Contraseña cifrada
+                List.of(new SimpleGrantedAuthority("ROLE_" + rol)));  // Asignar roles
+    }
+
+    /**
+     * Elimina de la caché las credenciales del usuario con el email indicado.
+     *
+     * @param emailUsuario email del usuario modificado o eliminado
+     */
+    public void invalidarCredenciales(String emailUsuario) {
+        credenciales.invalidar(emailUsuario);
     }
 }
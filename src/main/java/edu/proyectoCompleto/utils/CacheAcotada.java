@@ -0,0 +1,148 @@
+package edu.proyectoCompleto.utils;
+
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Predicate;
+
+/**
+ * Caché en memoria con tamaño máximo y caducidad por entrada.
+ * <p>
+ * Cada entrada guarda el instante (en milisegundos) a partir del cual deja de
+ * ser válida. Las entradas caducadas se descartan al leerlas y se purgan en
+ * bloque cuando la caché alcanza su tamaño máximo, de modo que la memoria
+ * ocupada nunca supera el límite configurado.
+ * </p>
+ *
+ * @param <K> tipo de la clave
+ * @param <V> tipo del valor
+ */
+public class CacheAcotada<K, V> {
+
+	/** Entrada inmutable con el valor y su instante de caducidad. */
+	private record Entrada<V>(V valor, long caducaEn) {
+		boolean caducada(long ahora) {
+			return ahora >= caducaEn;
+		}
+	}
+
+	private final ConcurrentHashMap<K, Entrada<V>> entradas = new ConcurrentHashMap<>();
+	private final int maximoEntradas;
+
+	/**
+	 * Crea una caché con el número máximo de entradas indicado.
+	 *
+	 * @param maximoEntradas número máximo de entradas que se mantienen a la vez
+	 */
+	public CacheAcotada(int maximoEntradas) {
+		if (maximoEntradas <= 0) {
+			throw new IllegalArgumentException("El tamaño máximo de la caché debe ser positivo.");
+		}
+		this.maximoEntradas = maximoEntradas;
+	}
+
+	/**
+	 * Obtiene el valor asociado a la clave si existe y no ha caducado.
+	 *
+	 * @param clave clave a buscar
+	 * @return un Optional con el valor, o vacío si no está o ha caducado
+	 */
+	public Optional<V> obtener(K clave) {
+		Entrada<V> entrada = entradas.get(clave);
+		if (entrada == null) {
+			return Optional.empty();
+		}
+		if (entrada.caducada(System.currentTimeMillis())) {
+			entradas.remove(clave, entrada);
+			return Optional.empty();
+		}
+		return Optional.of(entrada.valor());
+	}
+
+	/**
+	 * Guarda un valor hasta el instante indicado.
+	 *
+	 * @param clave    clave de la entrada
+	 * @param valor    valor a guardar
+	 * @param caducaEn instante (epoch en milisegundos) en el que caduca la entrada
+	 */
+	public void guardar(K clave, V valor, long caducaEn) {
+		long ahora = System.currentTimeMillis();
+		if (caducaEn <= ahora) {
+			return; // No tiene sentido guardar algo que ya ha caducado
+		}
+		if (entradas.size() >= maximoEntradas && !entradas.containsKey(clave)) {
+			hacerSitio(ahora);
+		}
+		entradas.put(clave, new Entrada<>(valor, caducaEn));
+	}
+
+	/**
+	 * Elimina la entrada asociada a la clave, si existe.
+	 *
+	 * @param clave clave a invalidar
+	 */
+	public void invalidar(K clave) {
+		entradas.remove(clave);
+	}
+
+	/**
+	 * Elimina todas las entradas cuyo valor cumple la condición.
+	 *
+	 * @param condicion condición que deben cumplir los valores a eliminar
+	 */
+	public void invalidarSi(Predicate<? super V> condicion) {
+		entradas.values().removeIf(entrada -> condicion.test(entrada.valor()));
+	}
+
+	/** Vacía la caché por completo. */
+	public void limpiar() {
+		entradas.clear();
+	}
+
+	/**
+	 * @return número de entradas almacenadas (incluidas las caducadas aún no purgadas)
+	 */
+	public int tamano() {
+		return entradas.size();
+	}
+
+	/**
+	 * Libera espacio cuando la caché está llena: primero descarta las entradas
+	 * caducadas y, si no basta, la décima parte de las restantes, priorizando
+	 * las que caducan antes de la media.
+	 */
+	private void hacerSitio(long ahora) {
+		entradas.entrySet().removeIf(e -> e.getValue().caducada(ahora));
+		if (entradas.size() < maximoEntradas) {
+			return;
+		}
+		int aDescartar = Math.max(1, maximoEntradas / 10);
+		long umbral = Long.MAX_VALUE;
+		// Buscamos un umbral aproximado de caducidad para descartar primero las más próximas a caducar
+		long suma = 0;
+		int contadas = 0;
+		for (Entrada<V> entrada : entradas.values()) {
+			suma += entrada.caducaEn() / 1000;
+			contadas++;
+		}
+		if (contadas > 0) {
+			umbral = (suma / contadas) * 1000;
+		}
+		Iterator<Map.Entry<K, Entrada<V>>> it = entradas.entrySet().iterator();
+		while (it.hasNext() && aDescartar > 0) {
+			if (it.next().getValue().caducaEn() <= umbral) {
+				it.remove();
+				aDescartar--;
+			}
+		}
+		// Si el umbral no bastó (todas caducan a la vez), descartamos en orden de recorrido
+		it = entradas.entrySet().iterator();
+		while (it.hasNext() && aDescartar > 0) {
+			it.next();
+			it.remove();
+			aDescartar--;
+		}
+	}
+}
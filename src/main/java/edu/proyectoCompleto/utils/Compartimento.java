@@ -0,0 +1,91 @@
+package edu.proyectoCompleto.utils;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * Ejecutor acotado que aísla un tipo de trabajo costoso del resto de la aplicación
+ * (patrón bulkhead).
+ * <p>
+ * Tiene un número fijo de hilos y una cola de tamaño limitado. Cuando ambos están
+ * llenos, las nuevas tareas se rechazan al instante con
+ * {@link CompartimentoSaturadoException} en lugar de esperar, de modo que los hilos
+ * de Tomcat quedan libres para atender las peticiones baratas.
+ * </p>
+ */
+public class Compartimento {
+
+	private final String nombre;
+	private final ThreadPoolExecutor ejecutor;
+	private final LongAdder rechazadas = new LongAdder();
+
+	/**
+	 * Crea un compartimento.
+	 *
+	 * @param nombre      nombre del compartimento, usado también para nombrar sus hilos
+	 * @param hilos       número de tareas que se ejecutan a la vez
+	 * @param tamanoCola  número de tareas que pueden esperar turno
+	 */
+	public Compartimento(String nombre, int hilos, int tamanoCola) {
+		this.nombre = nombre;
+		this.ejecutor = new ThreadPoolExecutor(hilos, hilos, 60, TimeUnit.SECONDS,
+				new ArrayBlockingQueue<>(tamanoCola), fabricaHilos(nombre), new ThreadPoolExecutor.AbortPolicy());
+		this.ejecutor.allowCoreThreadTimeOut(true);
+	}
+
+	/**
+	 * Envía una tarea al compartimento.
+	 *
+	 * @param tarea tarea a ejecutar
+	 * @return un CompletableFuture que se completa con el resultado de la tarea
+	 * @throws CompartimentoSaturadoException si no hay hilos ni hueco en la cola
+	 */
+	public <T> CompletableFuture<T> enviar(Supplier<T> tarea) {
+		try {
+			return CompletableFuture.supplyAsync(tarea, ejecutor);
+		} catch (RejectedExecutionException e) {
+			rechazadas.increment();
+			throw new CompartimentoSaturadoException(nombre);
+		}
+	}
+
+	public String getNombre() {
+		return nombre;
+	}
+
+	/** @return número de tareas ejecutándose en este momento */
+	public int getActivas() {
+		return ejecutor.getActiveCount();
+	}
+
+	/** @return número de tareas esperando en la cola */
+	public int getEnCola() {
+		return ejecutor.getQueue().size();
+	}
+
+	/** @return número total de tareas rechazadas por saturación */
+	public long getRechazadas() {
+		return rechazadas.sum();
+	}
+
+	/** Detiene el compartimento dejando terminar las tareas ya aceptadas. */
+	public void shutdown() {
+		ejecutor.shutdown();
+	}
+
+	private static ThreadFactory fabricaHilos(String nombre) {
+		AtomicInteger contador = new AtomicInteger();
+		return tarea -> {
+			Thread hilo = new Thread(tarea, nombre + "-" + contador.incrementAndGet());
+			hilo.setDaemon(true);
+			return hilo;
+		};
+	}
+}
@@ -0,0 +1,14 @@
+package edu.proyectoCompleto.utils;
+
+/**
+ * Excepción lanzada cuando un {@link Compartimento} no admite más trabajo porque
+ * todos sus hilos están ocupados y su cola está llena.
+ */
+public class CompartimentoSaturadoException extends RuntimeException {
+
+	private static final long serialVersionUID = 1L;
+
+	public CompartimentoSaturadoException(String nombreCompartimento) {
+		super("El compartimento '" + nombreCompartimento + "' está saturado.");
+	}
+}
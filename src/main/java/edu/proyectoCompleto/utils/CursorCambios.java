@@ -0,0 +1,77 @@
+package edu.proyectoCompleto.utils;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.Base64;
+
+/**
+ * Cursor de la sincronización incremental: el instante y el id del último cambio
+ * entregado al cliente.
+ * <p>
+ * Se entrega codificado en Base64 (URL) para que el cliente lo guarde y lo devuelva
+ * sin interpretarlo. Los instantes van en microsegundos, la precisión de PostgreSQL,
+ * así que el cursor vuelve a la consulta exactamente igual que salió de ella.
+ * </p>
+ * <p>
+ * Además de la posición lleva desde cuándo necesita el cliente las bajas: las de
+ * antes son de clubs que nunca recibió o de los que ya recibió la baja. Es lo que
+ * decide si el cursor ha caducado, porque un cliente al día que no ve cambios durante
+ * semanas sigue en la misma posición, pero no necesita bajas más antiguas que su
+ * última sincronización.
+ * </p>
+ *
+ * @param instante   instante del último cambio entregado
+ * @param id         id del último cambio entregado, para desempatar los del mismo instante
+ * @param bajasDesde instante a partir del cual el cliente necesita las bajas
+ */
+public record CursorCambios(Instant instante, long id, Instant bajasDesde) {
+
+	/** Cursor de un cliente sin datos: todos los cambios son nuevos. */
+	public static final CursorCambios INICIO = new CursorCambios(Instant.EPOCH, 0, Instant.EPOCH);
+
+	/**
+	 * @return el cursor codificado
+	 */
+	public String codificar() {
+		return Base64.getUrlEncoder().withoutPadding().encodeToString(
+				(micros(instante) + ":" + id + ":" + micros(bajasDesde)).getBytes(StandardCharsets.US_ASCII));
+	}
+
+	/**
+	 * Lee un cursor recibido del cliente.
+	 *
+	 * @param codificado cursor tal como se entregó, o null si el cliente no tiene ninguno
+	 * @return el cursor, o {@link #INICIO} si no se indica
+	 * @throws IllegalArgumentException si el cursor no es uno de los que se entregan
+	 */
+	public static CursorCambios leer(String codificado) {
+		if (codificado == null || codificado.isBlank()) {
+			return INICIO;
+		}
+		try {
+			String[] partes = new String(Base64.getUrlDecoder().decode(codificado.trim()), StandardCharsets.US_ASCII)
+					.split(":", -1);
+			if (partes.length != 3) {
+				throw new IllegalArgumentException("Cursor de cambios no válido.");
+			}
+			long id = Long.parseLong(partes[1]);
+			if (id < 0) {
+				throw new IllegalArgumentException("Cursor de cambios no válido.");
+			}
+			return new CursorCambios(instante(Long.parseLong(partes[0])), id, instante(Long.parseLong(partes[2])));
+		} catch (IllegalArgumentException e) { // NumberFormatException es IllegalArgumentException
+			throw new IllegalArgumentException("Cursor de cambios no válido.", e);
+		}
+	}
+
+	private static long micros(Instant instante) {
+		return Math.addExact(Math.multiplyExact(instante.getEpochSecond(), 1_000_000L), instante.getNano() / 1_000);
+	}
+
+	private static Instant instante(long micros) {
+		if (micros < 0) {
+			throw new IllegalArgumentException("Cursor de cambios no válido.");
+		}
+		return Instant.ofEpochSecond(micros / 1_000_000, micros % 1_000_000 * 1_000);
+	}
+}
@@ -0,0 +1,53 @@
+package edu.proyectoCompleto.utils;
+
+/**
+ * Conversión entre la versión de una fila (bloqueo optimista) y su ETag.
+ * <p>
+ * El ETag es la versión entre comillas. Las modificaciones condicionales solo
+ * admiten un ETag en {@code If-Match}, comparado de forma fuerte como indica la
+ * RFC 9110: un ETag débil ({@code W/"..."}) o ajeno nunca coincide.
+ * </p>
+ */
+public final class EtagVersion {
+
+	/** Versión que no tiene ninguna fila: la modificación condicional siempre falla. */
+	public static final long NINGUNA = -1;
+
+	private EtagVersion() {
+	}
+
+	/**
+	 * @param version versión de la fila
+	 * @return el ETag de esa versión, con sus comillas
+	 */
+	public static String etag(long version) {
+		return "\"" + version + "\"";
+	}
+
+	/**
+	 * Lee la versión esperada de la cabecera {@code If-Match}.
+	 *
+	 * @param ifMatch valor de la cabecera, o null si no se envía
+	 * @return null si no hay condición (sin cabecera o {@code *}), {@link #NINGUNA} si
+	 *         el ETag no puede coincidir con ninguna versión, o la versión indicada
+	 * @throws IllegalArgumentException si la cabecera lleva varios ETags
+	 */
+	public static Long versionEsperada(String ifMatch) {
+		if (ifMatch == null || ifMatch.isBlank() || ifMatch.trim().equals("*")) {
+			return null;
+		}
+		String valor = ifMatch.trim();
+		if (valor.indexOf(',') >= 0) {
+			throw new IllegalArgumentException("If-Match solo admite un ETag.");
+		}
+		if (valor.length() < 3 || valor.charAt(0) != '"' || valor.charAt(valor.length() - 1) != '"') {
+			return NINGUNA; // Débil o mal formado
+		}
+		try {
+			long version = Long.parseLong(valor.substring(1, valor.length() - 1));
+			return version >= 0 ? version : NINGUNA;
+		} catch (NumberFormatException e) {
+			return NINGUNA;
+		}
+	}
+}
@@ -0,0 +1,116 @@
+package edu.proyectoCompleto.utils;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Filtro de Bloom de cadenas, seguro entre hilos y sin bloqueos.
+ * <p>
+ * Responde si una cadena <em>puede</em> estar en el conjunto: un "no" es seguro y un
+ * "sí" puede ser un falso positivo, con la probabilidad indicada al crearlo mientras no
+ * se supere el número de elementos esperado. Los elementos no se pueden quitar; para
+ * olvidar los eliminados hay que construir un filtro nuevo.
+ * </p>
+ * <p>
+ * Las {@code k} posiciones de cada cadena se obtienen de dos hashes de 64 bits
+ * combinados ({@code h1 + i·h2}), así que cada consulta recorre la cadena una sola vez.
+ * </p>
+ */
+public class FiltroBloom {
+
+	private final AtomicLongArray bits;
+	private final long numeroBits;
+	private final int numeroHashes;
+	private final long elementosEsperados;
+	private final LongAdder anadidos = new LongAdder();
+
+	/**
+	 * Crea un filtro dimensionado para el número de elementos y la tasa de falsos positivos.
+	 *
+	 * @param elementosEsperados         número de elementos que se espera añadir
+	 * @param probabilidadFalsoPositivo probabilidad de falso positivo con ese número de elementos (0 a 1)
+	 */
+	public FiltroBloom(long elementosEsperados, double probabilidadFalsoPositivo) {
+		if (elementosEsperados <= 0 || probabilidadFalsoPositivo <= 0 || probabilidadFalsoPositivo >= 1) {
+			throw new IllegalArgumentException("Tamaño o probabilidad de falso positivo no válidos.");
+		}
+		// m = -n·ln(p) / ln(2)^2 bits y k = m/n·ln(2) funciones hash
+		long m = (long) Math.ceil(-elementosEsperados * Math.log(probabilidadFalsoPositivo) / (Math.log(2) * Math.log(2)));
+		int palabras = (int) Math.min(Integer.MAX_VALUE - 8, (m + 63) / 64);
+		this.bits = new AtomicLongArray(palabras);
+		this.numeroBits = (long) palabras * 64;
+		this.numeroHashes = Math.max(1, (int) Math.round((double) numeroBits / elementosEsperados * Math.log(2)));
+		this.elementosEsperados = elementosEsperados;
+	}
+
+	/**
+	 * Añade una cadena al filtro. Las cadenas null se ignoran.
+	 *
+	 * @param valor cadena que se añade
+	 */
+	public void anadir(String valor) {
+		if (valor == null) {
+			return;
+		}
+		long h1 = hash(valor);
+		long h2 = mezclar(h1 ^ 0x9E3779B97F4A7C15L) | 1; // Impar, para recorrer todas las posiciones
+		for (int i = 0; i < numeroHashes; i++) {
+			long posicion = Long.remainderUnsigned(h1 + i * h2, numeroBits);
+			int palabra = (int) (posicion >>> 6);
+			long mascara = 1L << posicion;
+			long actual = bits.get(palabra);
+			while ((actual & mascara) == 0 && !bits.compareAndSet(palabra, actual, actual | mascara)) {
+				actual = bits.get(palabra);
+			}
+		}
+		anadidos.increment();
+	}
+
+	/**
+	 * Indica si la cadena puede estar en el filtro.
+	 *
+	 * @param valor cadena que se consulta
+	 * @return false si seguro que no se ha añadido; true si puede haberse añadido
+	 */
+	public boolean puedeContener(String valor) {
+		if (valor == null) {
+			return false;
+		}
+		long h1 = hash(valor);
+		long h2 = mezclar(h1 ^ 0x9E3779B97F4A7C15L) | 1;
+		for (int i = 0; i < numeroHashes; i++) {
+			long posicion = Long.remainderUnsigned(h1 + i * h2, numeroBits);
+			if ((bits.get((int) (posicion >>> 6)) & (1L << posicion)) == 0) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * @return true si se han añadido más elementos de los previstos y los falsos positivos ya son más frecuentes
+	 */
+	public boolean saturado() {
+		return anadidos.sum() > elementosEsperados;
+	}
+
+	/** Hash FNV-1a de 64 bits de los caracteres de la cadena, con una mezcla final. */
+	private static long hash(String valor) {
+		long h = 0xCBF29CE484222325L;
+		for (int i = 0; i < valor.length(); i++) {
+			h ^= valor.charAt(i);
+			h *= 0x100000001B3L;
+		}
+		return mezclar(h);
+	}
+
+	/** Mezcla final de MurmurHash3 (fmix64): reparte los bits de entrada por toda la salida. */
+	private static long mezclar(long h) {
+		h ^= h >>> 33;
+		h *= 0xFF51AFD7ED558CCDL;
+		h ^= h >>> 33;
+		h *= 0xC4CEB93FE1A85A2BL;
+		h ^= h >>> 33;
+		return h;
+	}
+}
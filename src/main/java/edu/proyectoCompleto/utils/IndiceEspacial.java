@@ -0,0 +1,277 @@
+package edu.proyectoCompleto.utils;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Predicate;
+
+/**
+ * Índice espacial en memoria para buscar los puntos más cercanos a una posición.
+ * <p>
+ * Divide la Tierra en celdas de latitud y longitud del mismo lado en grados (como los
+ * prefijos de un geohash) y guarda cada punto en la suya. Una búsqueda recorre las
+ * celdas por anillos alrededor de la de la posición y se detiene en cuanto el anillo
+ * siguiente ya no puede tener puntos dentro del radio ni más cerca que los que ya
+ * tiene, así que solo mide la distancia a los puntos de unas pocas celdas. Las
+ * distancias son de círculo máximo (fórmula del haversine).
+ * </p>
+ * <p>
+ * Es seguro entre hilos: las búsquedas se hacen en paralelo y las modificaciones
+ * las bloquean solo mientras mueven el punto de celda.
+ * </p>
+ *
+ * @param <T> tipo de los elementos indexados
+ */
+public class IndiceEspacial<T> {
+
+	/** Radio medio de la Tierra en kilómetros. */
+	public static final double RADIO_TIERRA_KM = 6371.0088;
+
+	private static final double KM_POR_GRADO = Math.PI * RADIO_TIERRA_KM / 180;
+
+	/** Punto indexado. */
+	private record Punto<T>(long id, double latitud, double longitud, T valor) {
+	}
+
+	/**
+	 * Punto encontrado por una búsqueda.
+	 *
+	 * @param id          identificador del elemento
+	 * @param valor       elemento indexado
+	 * @param latitud     latitud del elemento
+	 * @param longitud    longitud del elemento
+	 * @param distanciaKm distancia a la posición buscada, en kilómetros
+	 */
+	public record Resultado<T>(long id, T valor, double latitud, double longitud, double distanciaKm) {
+	}
+
+	private static final Comparator<Resultado<?>> MAS_CERCANO_PRIMERO = Comparator
+			.comparingDouble((Resultado<?> r) -> r.distanciaKm()).thenComparingLong(Resultado::id);
+
+	private final double lado; // Lado de una celda, en grados
+	private final int filas;
+	private final int columnas;
+	private final Map<Long, Punto<T>> puntos = new HashMap<>();
+	private final Map<Long, List<Punto<T>>> celdas = new HashMap<>(); // Celda -> puntos que contiene
+	private final ReadWriteLock cerrojo = new ReentrantReadWriteLock();
+
+	/**
+	 * Crea un índice vacío.
+	 *
+	 * @param ladoCeldaGrados lado de las celdas en grados; conviene que sea del orden de los radios que se buscan
+	 */
+	public IndiceEspacial(double ladoCeldaGrados) {
+		if (ladoCeldaGrados <= 0 || ladoCeldaGrados > 90) {
+			throw new IllegalArgumentException("El lado de las celdas debe estar entre 0 y 90 grados.");
+		}
+		this.lado = ladoCeldaGrados;
+		this.filas = (int) Math.ceil(180 / ladoCeldaGrados);
+		this.columnas = (int) Math.ceil(360 / ladoCeldaGrados);
+	}
+
+	/**
+	 * Indica si un par de coordenadas es válido: ambas null (sin ubicación) o ambas en rango.
+	 *
+	 * @param latitud  latitud en grados
+	 * @param longitud longitud en grados
+	 * @return true si son válidas
+	 */
+	public static boolean coordenadasValidas(Double latitud, Double longitud) {
+		if (latitud == null || longitud == null) {
+			return latitud == null && longitud == null;
+		}
+		return latitud >= -90 && latitud <= 90 && longitud >= -180 && longitud <= 180;
+	}
+
+	/**
+	 * Distancia de círculo máximo entre dos posiciones.
+	 *
+	 * @return la distancia en kilómetros
+	 */
+	public static double distanciaKm(double latitud1, double longitud1, double latitud2, double longitud2) {
+		double dLatitud = Math.toRadians(latitud2 - latitud1);
+		double dLongitud = Math.toRadians(longitud2 - longitud1);
+		double a = Math.pow(Math.sin(dLatitud / 2), 2) + Math.cos(Math.toRadians(latitud1))
+				* Math.cos(Math.toRadians(latitud2)) * Math.pow(Math.sin(dLongitud / 2), 2);
+		return 2 * RADIO_TIERRA_KM * Math.asin(Math.min(1, Math.sqrt(a)));
+	}
+
+	/**
+	 * Añade un punto o mueve el que tenía el mismo id.
+	 *
+	 * @param id       identificador del elemento
+	 * @param latitud  latitud en grados (-90 a 90)
+	 * @param longitud longitud en grados (-180 a 180)
+	 * @param valor    elemento que devuelven las búsquedas
+	 */
+	public void poner(long id, double latitud, double longitud, T valor) {
+		Punto<T> punto = new Punto<>(id, latitud, longitud, valor);
+		long celda = celda(fila(latitud), columna(longitud));
+		cerrojo.writeLock().lock();
+		try {
+			quitarDeCelda(puntos.put(id, punto));
+			celdas.computeIfAbsent(celda, c -> new ArrayList<>()).add(punto);
+		} finally {
+			cerrojo.writeLock().unlock();
+		}
+	}
+
+	/**
+	 * Quita un punto del índice.
+	 *
+	 * @param id identificador del elemento
+	 */
+	public void quitar(long id) {
+		cerrojo.writeLock().lock();
+		try {
+			quitarDeCelda(puntos.remove(id));
+		} finally {
+			cerrojo.writeLock().unlock();
+		}
+	}
+
+	/**
+	 * Quita los puntos cuyo elemento cumple la condición, recorriendo todo el índice.
+	 *
+	 * @param condicion condición de los elementos que se quitan
+	 */
+	public void quitarSi(Predicate<T> condicion) {
+		cerrojo.writeLock().lock();
+		try {
+			List<Punto<T>> quitados = puntos.values().stream().filter(p -> condicion.test(p.valor())).toList();
+			for (Punto<T> punto : quitados) {
+				quitarDeCelda(puntos.remove(punto.id()));
+			}
+		} finally {
+			cerrojo.writeLock().unlock();
+		}
+	}
+
+	private void quitarDeCelda(Punto<T> anterior) {
+		if (anterior == null) {
+			return;
+		}
+		long celda = celda(fila(anterior.latitud()), columna(anterior.longitud()));
+		List<Punto<T>> contenido = celdas.get(celda);
+		contenido.removeIf(p -> p.id() == anterior.id());
+		if (contenido.isEmpty()) {
+			celdas.remove(celda);
+		}
+	}
+
+	/**
+	 * @return el número de puntos indexados
+	 */
+	public int tamano() {
+		cerrojo.readLock().lock();
+		try {
+			return puntos.size();
+		} finally {
+			cerrojo.readLock().unlock();
+		}
+	}
+
+	/**
+	 * Busca los puntos más cercanos a una posición dentro de un radio.
+	 *
+	 * @param latitud  latitud de la posición en grados
+	 * @param longitud longitud de la posición en grados
+	 * @param radioKm  distancia máxima en kilómetros
+	 * @param limite   número máximo de puntos
+	 * @return los puntos encontrados, del más al menos cercano
+	 */
+	public List<Resultado<T>> cercanos(double latitud, double longitud, double radioKm, int limite) {
+		if (limite <= 0 || radioKm < 0) {
+			return List.of();
+		}
+		int fila = fila(latitud);
+		int columna = columna(longitud);
+		// Celdas que cubre el radio: en longitud, según el paralelo más alejado del ecuador que alcanza
+		double radioGrados = radioKm / KM_POR_GRADO;
+		double coseno = Math.cos(Math.toRadians(Math.min(90, Math.abs(latitud) + radioGrados)));
+		int anillosFilas = (int) Math.ceil(radioGrados / lado) + 1;
+		// Nunca más de media vuelta a cada lado: cerca de los polos el radio abarca todas las
+		// longitudes y basta con recorrerlas una vez, por pequeñas que sean las celdas
+		int anillosColumnas = coseno * columnas * lado > radioGrados * 2
+				? Math.min((int) Math.ceil(radioGrados / coseno / lado) + 1, columnas / 2)
+				: columnas / 2;
+		int anilloMaximo = Math.max(anillosFilas, anillosColumnas);
+
+		// Cola con los más lejanos arriba, para descartarlos al superar el límite
+		PriorityQueue<Resultado<T>> mejores = new PriorityQueue<>(limite + 1, MAS_CERCANO_PRIMERO.reversed());
+		Set<Long> visitadas = new HashSet<>();
+		cerrojo.readLock().lock();
+		try {
+			for (int anillo = 0; anillo <= anilloMaximo; anillo++) {
+				if (anillo > 1) {
+					// Todo punto del anillo está al menos (anillo - 1) celdas más allá en latitud o en longitud
+					double cota = (anillo - 1) * lado * KM_POR_GRADO * coseno * 0.99;
+					if (cota > radioKm || (mejores.size() == limite && cota > mejores.peek().distanciaKm())) {
+						break;
+					}
+				}
+				// Solo las filas y columnas del anillo que existen y que alcanza el radio
+				int dfMinimo = Math.max(-Math.min(anillo, anillosFilas), -fila);
+				int dfMaximo = Math.min(Math.min(anillo, anillosFilas), filas - 1 - fila);
+				int dcMaximo = Math.min(anillo, anillosColumnas);
+				for (int df = dfMinimo; df <= dfMaximo; df++) {
+					if (Math.abs(df) == anillo) {
+						for (int dc = -dcMaximo; dc <= dcMaximo; dc++) {
+							visitar(fila + df, columna + dc, latitud, longitud, radioKm, limite, visitadas, mejores);
+						}
+					} else if (anillo <= anillosColumnas) { // En las filas intermedias, solo los extremos
+						visitar(fila + df, columna - anillo, latitud, longitud, radioKm, limite, visitadas, mejores);
+						visitar(fila + df, columna + anillo, latitud, longitud, radioKm, limite, visitadas, mejores);
+					}
+				}
+			}
+		} finally {
+			cerrojo.readLock().unlock();
+		}
+
+		List<Resultado<T>> ordenados = new ArrayList<>(mejores);
+		ordenados.sort(MAS_CERCANO_PRIMERO);
+		return ordenados;
+	}
+
+	/**
+	 * Mide la distancia a los puntos de una celda, si no se había visitado ya, y guarda
+	 * los que están dentro del radio. La columna puede salirse del rango: da la vuelta.
+	 */
+	private void visitar(int fila, int columna, double latitud, double longitud, double radioKm, int limite,
+			Set<Long> visitadas, PriorityQueue<Resultado<T>> mejores) {
+		long celda = celda(fila, Math.floorMod(columna, columnas));
+		List<Punto<T>> contenido = celdas.get(celda);
+		if (contenido == null || !visitadas.add(celda)) {
+			return;
+		}
+		for (Punto<T> punto : contenido) {
+			double distancia = distanciaKm(latitud, longitud, punto.latitud(), punto.longitud());
+			if (distancia <= radioKm) {
+				mejores.add(new Resultado<>(punto.id(), punto.valor(), punto.latitud(), punto.longitud(), distancia));
+				if (mejores.size() > limite) {
+					mejores.poll();
+				}
+			}
+		}
+	}
+
+	private int fila(double latitud) {
+		return Math.min(filas - 1, Math.max(0, (int) Math.floor((latitud + 90) / lado)));
+	}
+
+	private int columna(double longitud) {
+		return Math.floorMod((int) Math.floor((longitud + 180) / lado), columnas);
+	}
+
+	private long celda(int fila, int columna) {
+		return (long) fila * columnas + columna;
+	}
+}
@@ -0,0 +1,226 @@
+package edu.proyectoCompleto.utils;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Predicate;
+import java.util.regex.Pattern;
+
+/**
+ * Índice invertido de trigramas en memoria para búsquedas aproximadas de texto.
+ * <p>
+ * Cada elemento se indexa por los trigramas de su texto, calculados como en
+ * {@code pg_trgm}: sin mayúsculas ni tildes y con cada palabra rodeada de espacios
+ * (dos delante y uno detrás), de modo que el principio de las palabras pesa más y un
+ * prefijo corto ya encuentra resultados. Una búsqueda puntúa cada candidato por la
+ * proporción de trigramas de la consulta que contiene, así que tolera erratas y
+ * palabras incompletas.
+ * </p>
+ * <p>
+ * Es seguro entre hilos: las búsquedas se hacen en paralelo y las modificaciones
+ * las bloquean solo mientras actualizan las listas del elemento.
+ * </p>
+ *
+ * @param <T> tipo de los elementos indexados
+ */
+public class IndiceTrigramas<T> {
+
+	private static final Pattern SIN_TILDES = Pattern.compile("\\p{M}+");
+	private static final Pattern SEPARADORES = Pattern.compile("[^\\p{L}\\p{N}]+");
+
+	/** Elemento indexado, con su texto normalizado y sus trigramas. */
+	private record Entrada<T>(long id, T valor, String texto, Set<String> trigramas) {
+	}
+
+	/** Candidato de una búsqueda con su puntuación. */
+	private record Candidato<T>(Entrada<T> entrada, double similitud, boolean prefijo, double parecido) {
+	}
+
+	/** Mejor candidato primero: más trigramas de la consulta, luego prefijo, luego texto más parecido. */
+	private static final Comparator<Candidato<?>> MEJOR_PRIMERO = Comparator
+			.comparingDouble((Candidato<?> c) -> c.similitud()).reversed()
+			.thenComparing(Candidato::prefijo, Comparator.reverseOrder())
+			.thenComparing(Comparator.comparingDouble((Candidato<?> c) -> c.parecido()).reversed())
+			.thenComparingLong(c -> c.entrada().id());
+
+	private final Map<Long, Entrada<T>> entradas = new HashMap<>();
+	private final Map<String, Set<Long>> listas = new HashMap<>(); // Trigrama -> ids que lo contienen
+	private final ReadWriteLock cerrojo = new ReentrantReadWriteLock();
+
+	/**
+	 * Añade un elemento o sustituye el que tenía el mismo id.
+	 *
+	 * @param id     identificador del elemento
+	 * @param valor  elemento que devuelven las búsquedas
+	 * @param campos textos por los que se busca el elemento (los null se ignoran)
+	 */
+	public void poner(long id, T valor, String... campos) {
+		StringBuilder texto = new StringBuilder();
+		for (String campo : campos) {
+			if (campo != null) {
+				texto.append(' ').append(campo);
+			}
+		}
+		String normalizado = normalizar(texto.toString());
+		Entrada<T> entrada = new Entrada<>(id, valor, normalizado, trigramas(normalizado));
+
+		cerrojo.writeLock().lock();
+		try {
+			quitarListas(entradas.put(id, entrada));
+			for (String trigrama : entrada.trigramas()) {
+				listas.computeIfAbsent(trigrama, t -> new HashSet<>()).add(id);
+			}
+		} finally {
+			cerrojo.writeLock().unlock();
+		}
+	}
+
+	/**
+	 * Quita un elemento del índice.
+	 *
+	 * @param id identificador del elemento
+	 */
+	public void quitar(long id) {
+		cerrojo.writeLock().lock();
+		try {
+			quitarListas(entradas.remove(id));
+		} finally {
+			cerrojo.writeLock().unlock();
+		}
+	}
+
+	/**
+	 * Quita los elementos que cumplen la condición, recorriendo todo el índice.
+	 *
+	 * @param condicion condición de los elementos que se quitan
+	 */
+	public void quitarSi(Predicate<T> condicion) {
+		cerrojo.writeLock().lock();
+		try {
+			List<Entrada<T>> quitadas = entradas.values().stream().filter(e -> condicion.test(e.valor())).toList();
+			for (Entrada<T> entrada : quitadas) {
+				quitarListas(entradas.remove(entrada.id()));
+			}
+		} finally {
+			cerrojo.writeLock().unlock();
+		}
+	}
+
+	private void quitarListas(Entrada<T> anterior) {
+		if (anterior == null) {
+			return;
+		}
+		for (String trigrama : anterior.trigramas()) {
+			Set<Long> ids = listas.get(trigrama);
+			ids.remove(anterior.id());
+			if (ids.isEmpty()) {
+				listas.remove(trigrama);
+			}
+		}
+	}
+
+	/**
+	 * @return el número de elementos indexados
+	 */
+	public int tamano() {
+		cerrojo.readLock().lock();
+		try {
+			return entradas.size();
+		} finally {
+			cerrojo.readLock().unlock();
+		}
+	}
+
+	/**
+	 * Busca los elementos más parecidos a la consulta.
+	 *
+	 * @param consulta        texto buscado, completo o en parte y con posibles erratas
+	 * @param limite          número máximo de resultados
+	 * @param similitudMinima proporción mínima de trigramas de la consulta que debe tener un resultado (0 a 1)
+	 * @return los elementos encontrados, del más al menos parecido
+	 */
+	public List<T> buscar(String consulta, int limite, double similitudMinima) {
+		String normalizada = normalizar(consulta);
+		Set<String> buscados = trigramas(normalizada);
+		if (buscados.isEmpty() || limite <= 0) {
+			return List.of();
+		}
+
+		// Cola con los peores arriba, para descartarlos al superar el límite
+		PriorityQueue<Candidato<T>> mejores = new PriorityQueue<>(limite + 1, MEJOR_PRIMERO.reversed());
+		cerrojo.readLock().lock();
+		try {
+			Map<Long, Integer> coincidencias = new HashMap<>();
+			for (String trigrama : buscados) {
+				Set<Long> ids = listas.get(trigrama);
+				if (ids != null) {
+					for (Long id : ids) {
+						coincidencias.merge(id, 1, Integer::sum);
+					}
+				}
+			}
+			for (Map.Entry<Long, Integer> coincidencia : coincidencias.entrySet()) {
+				int comunes = coincidencia.getValue();
+				double similitud = (double) comunes / buscados.size();
+				if (similitud < similitudMinima) {
+					continue;
+				}
+				Entrada<T> entrada = entradas.get(coincidencia.getKey());
+				boolean prefijo = (" " + entrada.texto()).contains(" " + normalizada);
+				double parecido = (double) comunes / (buscados.size() + entrada.trigramas().size() - comunes);
+				mejores.add(new Candidato<>(entrada, similitud, prefijo, parecido));
+				if (mejores.size() > limite) {
+					mejores.poll();
+				}
+			}
+		} finally {
+			cerrojo.readLock().unlock();
+		}
+
+		List<Candidato<T>> ordenados = new ArrayList<>(mejores);
+		ordenados.sort(MEJOR_PRIMERO);
+		return ordenados.stream().map(c -> c.entrada().valor()).toList();
+	}
+
+	/**
+	 * Pasa el texto a minúsculas sin tildes, con las palabras separadas por un espacio.
+	 *
+	 * @param texto texto original
+	 * @return el texto normalizado
+	 */
+	static String normalizar(String texto) {
+		if (texto == null) {
+			return "";
+		}
+		String sinTildes = SIN_TILDES.matcher(Normalizer.normalize(texto, Normalizer.Form.NFD)).replaceAll("");
+		return SEPARADORES.matcher(sinTildes.toLowerCase()).replaceAll(" ").trim();
+	}
+
+	/**
+	 * Obtiene los trigramas de un texto normalizado, con cada palabra rodeada de espacios.
+	 *
+	 * @param normalizado texto normalizado
+	 * @return los trigramas distintos del texto
+	 */
+	static Set<String> trigramas(String normalizado) {
+		Set<String> trigramas = new HashSet<>();
+		if (normalizado.isEmpty()) {
+			return trigramas;
+		}
+		for (String palabra : normalizado.split(" ")) {
+			String rodeada = "  " + palabra + " ";
+			for (int i = 0; i + 3 <= rodeada.length(); i++) {
+				trigramas.add(rodeada.substring(i, i + 3));
+			}
+		}
+		return trigramas;
+	}
+}
@@ -1,37 +1,207 @@
 package edu.proyectoCompleto.utils;
 
 import io.jsonwebtoken.*;
+import io.jsonwebtoken.io.Decoders;
+import io.jsonwebtoken.security.Keys;
+import io.jsonwebtoken.security.SecurityException;
+
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
+import java.nio.charset.StandardCharsets;
+import java.security.Key;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
 import java.util.Date;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
 
 @Component
 public class JwtUtil {
 
-    private String secretKey = "secret"; // Cambia esto por una clave más segura
+    /** Nombre del claim con el identificador del usuario. */
+    public static final String CLAIM_ID = "id";
+
+    /** Nombre del claim con el rol del usuario. */
+    public static final String CLAIM_ROL = "rol";
+
+    /**
+     * Datos de un token cuya firma ya se ha comprobado. Es inmutable, así que la misma
+     * instancia se comparte sin riesgo entre todas las peticiones que traen el token.
+     *
+     * @param usuario    email del usuario (subject del token)
+     * @param idUsuario  identificador del usuario, o null si el token no lo lleva
+     * @param rol        rol del usuario sin el prefijo "ROLE_", o null si el token no lo lleva
+     * @param emitidoEn  instante de emisión ("iat") en milisegundos, o null si no lo lleva
+     * @param expiraEn   instante de expiración ("exp") en milisegundos
+     */
+    public record TokenVerificado(String usuario, Long idUsuario, String rol, Long emitidoEn, long expiraEn) {
+    }
+
+    private final Key clave; // Clave HS256 derivada una sola vez del secreto configurado
+    private final JwtParser parser; // Parser inmutable y seguro entre hilos, se reutiliza en cada petición
+
+    /** Tokens cuya firma ya se ha verificado, indexados por el SHA-256 del token y válidos hasta su "exp". */
+    private final CacheAcotada<String, TokenVerificado> tokensVerificados;
+
+    /**
+     * Instante de revocación por usuario: los tokens emitidos antes dejan de ser válidos.
+     * No tiene tamaño máximo, porque descartar una revocación volvería a dar por buenos
+     * los tokens del usuario: cada una se purga cuando ya han caducado todos sus tokens.
+     */
+    private final ConcurrentHashMap<String, Long> revocaciones = new ConcurrentHashMap<>();
+    private volatile long proximaPurga; // Instante a partir del cual se purgan las revocaciones vencidas
+
+    private final long duracionTokenMillis; // Vida de los tokens; corta para que los cambios de rol se apliquen pronto
+
+    /**
+     * Constructor que prepara la clave, el parser y la caché de tokens verificados.
+     *
+     * @param secretKey              secreto en Base64 (al menos 256 bits para HS256); no tiene valor por
+     *                               defecto: se lee de la variable de entorno {@code JWT_SECRETO}
+     * @param maximoTokensVerificados número máximo de tokens verificados que se recuerdan
+     * @param minutosExpiracion       minutos de validez de cada token emitido
+     */
+    public JwtUtil(@Value("${jwt.secreto}") String secretKey,
+                   @Value("${jwt.cache.maximo-tokens:10000}") int maximoTokensVerificados,
+                   @Value("${jwt.expiracion-minutos:15}") long minutosExpiracion) {
+        if (secretKey == null || secretKey.isBlank()) {
+            throw new IllegalStateException("Falta el secreto de los tokens JWT (variable de entorno JWT_SECRETO).");
+        }
+        this.clave = Keys.hmacShaKeyFor(Decoders.BASE64.decode(secretKey));
+        this.parser = Jwts.parserBuilder().setSigningKey(clave).build();
+        this.tokensVerificados = new CacheAcotada<>(maximoTokensVerificados);
+        this.duracionTokenMillis = minutosExpiracion * 60 * 1000;
+    }
 
     // Método para generar el token
     public String generarToken(String username) {
+        return construirToken(username).compact();
+    }
+
+    /**
+     * Genera un token que incluye el identificador y el rol del usuario, de modo que
+     * el filtro de autenticación pueda construir la sesión sin consultar la base de datos.
+     *
+     * @param username  email del usuario (subject del token)
+     * @param idUsuario identificador del usuario
+     * @param rol       rol del usuario, sin el prefijo "ROLE_"
+     * @return el token JWT firmado
+     */
+    public String generarToken(String username, long idUsuario, String rol) {
+        return construirToken(username)
+                .claim(CLAIM_ID, idUsuario)
+                .claim(CLAIM_ROL, rol)
+                .compact();
+    }
+
+    private JwtBuilder construirToken(String username) {
+        long ahora = System.currentTimeMillis();
         return Jwts.builder()
                 .setSubject(username)
-                .setIssuedAt(new Date())
-                .setExpiration(new Date(System.currentTimeMillis() + 1000 * 60 * 60)) // 1 hora de expiración
-                .signWith(SignatureAlgorithm.HS256, secretKey)
-                .compact();
+                .setIssuedAt(new Date(ahora))
+                .setExpiration(new Date(ahora + duracionTokenMillis))
+                .signWith(clave, SignatureAlgorithm.HS256);
     }
 
-    // Método para validar el token
-    public boolean validarToken(String token) {
+    /**
+     * Invalida todos los tokens emitidos hasta ahora para el usuario indicado.
+     * <p>
+     * La revocación solo se recuerda durante la vida máxima de un token, que es
+     * el tiempo en el que un token anterior podría seguir presentándose. Las vencidas
+     * se purgan como mucho una vez por minuto, al registrar otra.
+     * </p>
+     *
+     * @param username email del usuario (subject de sus tokens)
+     */
+    public void revocarTokensDe(String username) {
+        long ahora = System.currentTimeMillis();
+        revocaciones.put(username, ahora);
+        if (ahora >= proximaPurga) {
+            proximaPurga = ahora + 60_000;
+            revocaciones.values().removeIf(revocadoEn -> vencida(revocadoEn, ahora));
+        }
+    }
+
+    /**
+     * Una revocación vence cuando ya han caducado todos los tokens emitidos antes de ella.
+     */
+    private boolean vencida(long revocadoEn, long ahora) {
+        return ahora > revocadoEn + duracionTokenMillis + 1000;
+    }
+
+    /**
+     * Verifica el token y devuelve sus datos.
+     * <p>
+     * Si el token ya se verificó antes y no ha expirado, los datos se obtienen de la
+     * caché sin volver a comprobar la firma; en caso contrario se verifica una única
+     * vez con el parser compartido y se guarda hasta su fecha de expiración.
+     * </p>
+     *
+     * @param token token JWT recibido
+     * @return un Optional con los datos del token si es válido; vacío en caso contrario
+     */
+    public Optional<TokenVerificado> verificarToken(String token) {
+        if (token == null || token.isBlank()) {
+            return Optional.empty();
+        }
+        String resumen = resumir(token);
+        Optional<TokenVerificado> enCache = tokensVerificados.obtener(resumen);
+        if (enCache.isPresent()) {
+            return enCache.filter(verificado -> !revocado(verificado));
+        }
         try {
-            Jwts.parser().setSigningKey(secretKey).parseClaimsJws(token);
-            return true;
-        } catch (SignatureException | MalformedJwtException | ExpiredJwtException | UnsupportedJwtException | IllegalArgumentException e) {
+            Claims claims = parser.parseClaimsJws(token).getBody();
+            Date expiracion = claims.getExpiration();
+            if (expiracion == null) {
+                return Optional.empty(); // Todos los tokens emitidos caducan
+            }
+            Number id = claims.get(CLAIM_ID, Number.class);
+            Date emitido = claims.getIssuedAt();
+            TokenVerificado verificado = new TokenVerificado(claims.getSubject(), id == null ? null : id.longValue(),
+                    claims.get(CLAIM_ROL, String.class), emitido == null ? null : emitido.getTime(),
+                    expiracion.getTime());
+            tokensVerificados.guardar(resumen, verificado, verificado.expiraEn());
+            return revocado(verificado) ? Optional.empty() : Optional.of(verificado);
+        } catch (SecurityException | MalformedJwtException | ExpiredJwtException | UnsupportedJwtException | IllegalArgumentException | RequiredTypeException e) {
+            return Optional.empty();
+        }
+    }
+
+    /**
+     * Comprueba si el token se emitió antes de la última revocación de su usuario.
+     */
+    private boolean revocado(TokenVerificado verificado) {
+        Long revocadoEn = revocaciones.get(verificado.usuario());
+        if (revocadoEn == null || vencida(revocadoEn, System.currentTimeMillis())) {
             return false;
         }
+        // "iat" tiene precisión de segundos, así que comparamos en segundos
+        return verificado.emitidoEn() == null || verificado.emitidoEn() / 1000 <= revocadoEn / 1000;
+    }
+
+    // Método para validar el token
+    public boolean validarToken(String token) {
+        return verificarToken(token).isPresent();
     }
 
     // Método para obtener el usuario del token
     public String obtenerUsuarioDelToken(String token) {
-        return Jwts.parser().setSigningKey(secretKey).parseClaimsJws(token).getBody().getSubject();
+        return verificarToken(token)
+                .map(TokenVerificado::usuario)
+                .orElseThrow(() -> new MalformedJwtException("Token JWT no válido."));
+    }
+
+    /**
+     * Calcula el SHA-256 del token para usarlo como clave de la caché sin guardar el token en claro.
+     */
+    private static String resumir(String token) {
+        try {
+            byte[] resumen = MessageDigest.getInstance("SHA-256").digest(token.getBytes(StandardCharsets.US_ASCII));
+            return Base64.getUrlEncoder().withoutPadding().encodeToString(resumen);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 no está disponible en esta JVM.", e);
+        }
     }
 }
@@ -0,0 +1,148 @@
+package edu.proyectoCompleto.utils;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Limitador de frecuencia basado en cubetas de fichas (token bucket), una por clave.
+ * <p>
+ * Las cubetas se reparten en varias franjas, cada una con su propio cerrojo, y dentro
+ * de cada franja se guardan en orden de uso. Cuando una franja está llena, una clave
+ * nueva desplaza a la cubeta que lleva más tiempo sin usarse, sin recorrer la franja.
+ * Si esa cubeta llevaba inactiva más tiempo del que tarda en rellenarse estaba llena y
+ * descartarla no cambia nada; si no, su clave vuelve a empezar con la cubeta llena.
+ * Una avalancha de claves nuevas puede así dar algún intento de más a las claves
+ * menos activas, pero nunca deja sin servicio a las claves legítimas.
+ * </p>
+ */
+public class LimitadorIntentos {
+
+	private static final int FRANJAS = 16;
+
+	/** Estado de una cubeta: fichas disponibles y último instante de recarga. */
+	private static final class Cubeta {
+
+		private double fichas;
+		private long ultimaRecarga;
+
+		Cubeta(double fichas, long ultimaRecarga) {
+			this.fichas = fichas;
+			this.ultimaRecarga = ultimaRecarga;
+		}
+	}
+
+	private final Franja[] franjas = new Franja[FRANJAS];
+	private final double capacidad;
+	private final double fichasPorMilli;
+	private final long inactividadMillis;
+
+	private final LongAdder permitidos = new LongAdder();
+	private final LongAdder rechazados = new LongAdder();
+	private final LongAdder desplazadas = new LongAdder();
+
+	/**
+	 * Crea un limitador.
+	 *
+	 * @param capacidad        número máximo de intentos seguidos por clave
+	 * @param intentosPorMinuto intentos que se recuperan por minuto
+	 * @param maximoClaves      número máximo de claves que se recuerdan a la vez
+	 */
+	public LimitadorIntentos(int capacidad, int intentosPorMinuto, int maximoClaves) {
+		if (capacidad <= 0 || intentosPorMinuto <= 0 || maximoClaves <= 0) {
+			throw new IllegalArgumentException("Los parámetros del limitador deben ser positivos.");
+		}
+		this.capacidad = capacidad;
+		this.fichasPorMilli = intentosPorMinuto / 60_000.0;
+		this.inactividadMillis = (long) Math.ceil(capacidad / fichasPorMilli);
+		int maximoPorFranja = Math.max(1, maximoClaves / FRANJAS);
+		for (int i = 0; i < FRANJAS; i++) {
+			franjas[i] = new Franja(maximoPorFranja);
+		}
+	}
+
+	/**
+	 * Intenta consumir una ficha de la cubeta asociada a la clave.
+	 *
+	 * @param clave clave a limitar (email, IP...)
+	 * @return true si el intento se permite; false si se ha superado el límite
+	 */
+	public boolean intentar(String clave) {
+		long ahora = System.currentTimeMillis();
+		boolean permitido = franjas[(clave.hashCode() & 0x7fffffff) % FRANJAS].intentar(clave, ahora);
+		if (permitido) {
+			permitidos.increment();
+		} else {
+			rechazados.increment();
+		}
+		return permitido;
+	}
+
+	/** @return número de intentos permitidos desde el arranque */
+	public long getPermitidos() {
+		return permitidos.sum();
+	}
+
+	/** @return número de intentos rechazados desde el arranque */
+	public long getRechazados() {
+		return rechazados.sum();
+	}
+
+	/** @return número de cubetas todavía activas descartadas para dejar sitio a claves nuevas */
+	public long getDesplazadas() {
+		return desplazadas.sum();
+	}
+
+	/** @return número de claves que se están recordando */
+	public int getClaves() {
+		int total = 0;
+		for (Franja franja : franjas) {
+			total += franja.tamano();
+		}
+		return total;
+	}
+
+	/** Cubetas de una parte de las claves, de la menos a la más recientemente usada. */
+	private final class Franja {
+
+		private final LinkedHashMap<String, Cubeta> cubetas = new LinkedHashMap<>(16, 0.75f, true);
+		private final int maximo;
+
+		Franja(int maximo) {
+			this.maximo = maximo;
+		}
+
+		synchronized boolean intentar(String clave, long ahora) {
+			Cubeta cubeta = cubetas.get(clave); // La pasa al final del orden de uso
+			if (cubeta == null) {
+				if (cubetas.size() >= maximo) {
+					desplazarMasAntigua(ahora);
+				}
+				cubeta = new Cubeta(capacidad, ahora);
+				cubetas.put(clave, cubeta);
+			}
+			double fichas = Math.min(capacidad,
+					cubeta.fichas + Math.max(0, ahora - cubeta.ultimaRecarga) * fichasPorMilli);
+			cubeta.ultimaRecarga = Math.max(ahora, cubeta.ultimaRecarga);
+			if (fichas < 1) {
+				cubeta.fichas = fichas;
+				return false;
+			}
+			cubeta.fichas = fichas - 1;
+			return true;
+		}
+
+		private void desplazarMasAntigua(long ahora) {
+			Iterator<Cubeta> iterador = cubetas.values().iterator();
+			Cubeta masAntigua = iterador.next();
+			iterador.remove();
+			if (ahora - masAntigua.ultimaRecarga < inactividadMillis) {
+				desplazadas.increment(); // Todavía no se había rellenado
+			}
+		}
+
+		synchronized int tamano() {
+			return cubetas.size();
+		}
+	}
+}
@@ -0,0 +1,25 @@
+-- Completa las bases de datos creadas antes con ddl-auto=update. Flyway las marca como
+-- versión 1 sin ejecutar V1, así que les faltan las columnas de referencia a los medios
+-- y las secuencias de los ids. En una base de datos creada con V1 no cambia nada.
+
+-- Claves de las imágenes en el almacén de medios. foto_usuario y logo_club se quedan hasta
+-- que --migrar-medios copie sus bytes al almacén
+alter table proyecto.usuarios add column if not exists ref_foto_usuario varchar(80);
+alter table proyecto.clubs add column if not exists ref_logo_club varchar(80);
+
+-- Los ids dejan de ser columnas IDENTITY: los reserva Hibernate de las secuencias en
+-- bloques de 50 (allocationSize de las entidades)
+alter table proyecto.usuarios alter column id_usuario drop identity if exists;
+alter table proyecto.clubs alter column id_club drop identity if exists;
+
+create sequence if not exists proyecto.usuarios_id_seq start with 1 increment by 50;
+create sequence if not exists proyecto.clubs_id_seq start with 1 increment by 50;
+
+-- Las secuencias empiezan por encima de los ids que ya existen
+select setval('proyecto.usuarios_id_seq', m.maximo + 50)
+from (select coalesce(max(id_usuario), 0) as maximo from proyecto.usuarios) m, proyecto.usuarios_id_seq s
+where s.last_value < m.maximo + 50;
+
+select setval('proyecto.clubs_id_seq', m.maximo + 50)
+from (select coalesce(max(id_club), 0) as maximo from proyecto.clubs) m, proyecto.clubs_id_seq s
+where s.last_value < m.maximo + 50;
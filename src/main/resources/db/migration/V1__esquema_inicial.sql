@@ -0,0 +1,36 @@
+-- Esquema inicial: tablas de usuarios y clubs y las secuencias de sus ids.
+-- Las bases de datos creadas antes con ddl-auto=update ya tienen estas tablas: Flyway
+-- las marca como versión 1 (baseline-on-migrate) y V1_1 les añade lo que les falta.
+
+create schema if not exists proyecto;
+
+-- Los ids se reservan en bloques de 50 (allocationSize de las entidades)
+create sequence if not exists proyecto.usuarios_id_seq start with 1 increment by 50;
+create sequence if not exists proyecto.clubs_id_seq start with 1 increment by 50;
+
+create table if not exists proyecto.usuarios (
+    id_usuario       bigint       not null,
+    nickname_usuario varchar(50)  not null,
+    nombre_usuario   varchar(100) not null,
+    dni_usuario      varchar(20)  not null,
+    telefono_usuario varchar(15),
+    ref_foto_usuario varchar(80),
+    email_usuario    varchar(150) not null,
+    passwd_usuario   varchar(255) not null,
+    rol_usuario      varchar(50)  not null,
+    constraint usuarios_pkey primary key (id_usuario),
+    constraint usuarios_nickname_usuario_key unique (nickname_usuario),
+    constraint usuarios_dni_usuario_key unique (dni_usuario),
+    constraint usuarios_email_usuario_key unique (email_usuario)
+);
+
+create table if not exists proyecto.clubs (
+    id_club       bigint       not null,
+    nombre_club   varchar(100) not null,
+    email_club    varchar(150) not null,
+    passwd_club   varchar(255) not null,
+    sede_club     varchar(200),
+    ref_logo_club varchar(80),
+    constraint clubs_pkey primary key (id_club),
+    constraint clubs_email_club_key unique (email_club)
+);
@@ -0,0 +1,16 @@
+-- Índices para las consultas de UsuarioRepositorios y ClubRepositorios que no cubren
+-- la clave primaria ni las restricciones únicas (nickname, DNI y email).
+
+-- Login de usuarios (findCredencialesByEmailUsuario): el índice incluye las columnas de la
+-- proyección, así que la consulta se resuelve solo con el índice
+create index if not exists usuarios_email_credenciales_idx
+    on proyecto.usuarios (email_usuario) include (id_usuario, nickname_usuario, passwd_usuario, rol_usuario);
+
+-- Listado por rol paginado por clave (findPaginaPorRol): where rol = ? and id > ? order by id limit ?
+create index if not exists usuarios_rol_id_idx on proyecto.usuarios (rol_usuario, id_usuario);
+
+-- Listado por sede paginado por clave (findPaginaPorSede): where sede = ? and id > ? order by id limit ?
+create index if not exists clubs_sede_id_idx on proyecto.clubs (sede_club, id_club);
+
+-- Borrado por nombre (eliminarPorNombre)
+create index if not exists clubs_nombre_idx on proyecto.clubs (nombre_club);
@@ -0,0 +1,12 @@
+-- Búsqueda aproximada de clubs por nombre y sede con pg_trgm (busqueda.clubs.modo=pg_trgm).
+-- La extensión necesita permisos para crearse: si el usuario de la aplicación no los tiene,
+-- la migración no falla y la búsqueda se queda con el índice en memoria, que no la necesita.
+do $$
+begin
+    create extension if not exists pg_trgm schema public;
+    create index if not exists clubs_busqueda_trgm_idx on proyecto.clubs
+        using gin ((nombre_club || ' ' || coalesce(sede_club, '')) public.gin_trgm_ops);
+exception
+    when insufficient_privilege or undefined_file then
+        raise notice 'pg_trgm no disponible (%); se omite el índice de búsqueda de clubs', sqlerrm;
+end $$;
@@ -0,0 +1,8 @@
+-- Ubicación opcional de los clubs, para buscar los más cercanos (GET /api/clubs/cercanos).
+-- Las búsquedas se resuelven con un índice espacial en memoria, así que no hace falta índice aquí.
+alter table proyecto.clubs add column if not exists latitud_club double precision;
+alter table proyecto.clubs add column if not exists longitud_club double precision;
+
+alter table proyecto.clubs add constraint clubs_ubicacion_ck check (
+    (latitud_club is null and longitud_club is null)
+    or (latitud_club between -90 and 90 and longitud_club between -180 and 180));
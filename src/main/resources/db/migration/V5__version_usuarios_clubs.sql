@@ -0,0 +1,6 @@
+-- Versión de cada fila para el bloqueo optimista (@Version en Usuario y Club), expuesta
+-- como ETag en GET/PUT /api/usuarios/{id} y /api/clubs/{id}.
+-- Con valor por defecto, así que las filas existentes y las que inserta la importación
+-- masiva empiezan en la versión 0.
+alter table proyecto.usuarios add column if not exists version_usuario bigint not null default 0;
+alter table proyecto.clubs add column if not exists version_club bigint not null default 0;
@@ -0,0 +1,62 @@
+-- Sincronización incremental (GET /api/clubs/cambios): instante del último cambio de cada
+-- fila y una tabla de bajas con los ids eliminados, ambos ordenados por (instante, id)
+-- para recorrerlos por clave desde el cursor del cliente.
+-- Los mantienen disparadores, así que los cubre cualquier escritura: las de los servicios,
+-- las consultas masivas (actualizaciones parciales, borrados JPQL y nativos) y la
+-- importación. Las altas toman el valor por defecto; no hay disparador de inserción.
+-- Se usa clock_timestamp() y no now(): dentro de una transacción larga now() es el
+-- instante de su inicio, y el cursor del cliente podría haberlo adelantado ya.
+alter table proyecto.usuarios add column if not exists actualizado_en timestamptz not null default now();
+alter table proyecto.clubs add column if not exists actualizado_en timestamptz not null default now();
+alter table proyecto.usuarios alter column actualizado_en set default clock_timestamp();
+alter table proyecto.clubs alter column actualizado_en set default clock_timestamp();
+
+create index if not exists usuarios_actualizado_idx on proyecto.usuarios (actualizado_en, id_usuario);
+create index if not exists clubs_actualizado_idx on proyecto.clubs (actualizado_en, id_club);
+
+create table if not exists proyecto.usuarios_bajas (
+    id_usuario bigint primary key,
+    eliminado_en timestamptz not null default clock_timestamp()
+);
+create table if not exists proyecto.clubs_bajas (
+    id_club bigint primary key,
+    eliminado_en timestamptz not null default clock_timestamp()
+);
+
+create index if not exists usuarios_bajas_eliminado_idx on proyecto.usuarios_bajas (eliminado_en, id_usuario);
+create index if not exists clubs_bajas_eliminado_idx on proyecto.clubs_bajas (eliminado_en, id_club);
+
+create or replace function proyecto.marcar_actualizado() returns trigger language plpgsql as $$
+begin
+    new.actualizado_en := clock_timestamp();
+    return new;
+end $$;
+
+create or replace function proyecto.registrar_baja_usuario() returns trigger language plpgsql as $$
+begin
+    insert into proyecto.usuarios_bajas (id_usuario) values (old.id_usuario)
+        on conflict (id_usuario) do update set eliminado_en = excluded.eliminado_en;
+    return old;
+end $$;
+
+create or replace function proyecto.registrar_baja_club() returns trigger language plpgsql as $$
+begin
+    insert into proyecto.clubs_bajas (id_club) values (old.id_club)
+        on conflict (id_club) do update set eliminado_en = excluded.eliminado_en;
+    return old;
+end $$;
+
+-- Solo si la fila cambia de verdad: un UPDATE que deja los mismos valores no es un cambio
+drop trigger if exists usuarios_actualizado on proyecto.usuarios;
+create trigger usuarios_actualizado before update on proyecto.usuarios
+    for each row when (old.* is distinct from new.*) execute function proyecto.marcar_actualizado();
+drop trigger if exists clubs_actualizado on proyecto.clubs;
+create trigger clubs_actualizado before update on proyecto.clubs
+    for each row when (old.* is distinct from new.*) execute function proyecto.marcar_actualizado();
+
+drop trigger if exists usuarios_baja on proyecto.usuarios;
+create trigger usuarios_baja after delete on proyecto.usuarios
+    for each row execute function proyecto.registrar_baja_usuario();
+drop trigger if exists clubs_baja on proyecto.clubs;
+create trigger clubs_baja after delete on proyecto.clubs
+    for each row execute function proyecto.registrar_baja_club();
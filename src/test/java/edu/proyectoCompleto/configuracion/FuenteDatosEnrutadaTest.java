@@ -0,0 +1,73 @@
+package edu.proyectoCompleto.configuracion;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+
+import javax.sql.DataSource;
+
+import org.h2.jdbcx.JdbcDataSource;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Comprueba a qué base de datos van las conexiones según la transacción y el estado de la réplica.
+ */
+class FuenteDatosEnrutadaTest {
+
+	private final DataSource principal = h2("jdbc:h2:mem:principal;DB_CLOSE_DELAY=-1");
+	private final DataSource replica = h2("jdbc:h2:mem:replica;DB_CLOSE_DELAY=-1");
+	private final VigilanteReplica vigilante = new VigilanteReplica(replica, 5);
+
+	@AfterEach
+	void limpiar() {
+		TransactionSynchronizationManager.setCurrentTransactionReadOnly(false);
+	}
+
+	@Test
+	void soloLasLecturasVanALaReplicaCuandoEstaAlDia() throws SQLException {
+		FuenteDatosEnrutada fuente = new FuenteDatosEnrutada(principal, replica, vigilante);
+		vigilante.registrarRetraso(0.5);
+
+		assertEquals("PRINCIPAL", baseDeDatos(fuente));
+		TransactionSynchronizationManager.setCurrentTransactionReadOnly(true);
+		assertEquals("REPLICA", baseDeDatos(fuente));
+	}
+
+	@Test
+	void lasLecturasVanALaPrincipalSiLaReplicaSeRetrasa() throws SQLException {
+		FuenteDatosEnrutada fuente = new FuenteDatosEnrutada(principal, replica, vigilante);
+		TransactionSynchronizationManager.setCurrentTransactionReadOnly(true);
+
+		assertEquals("PRINCIPAL", baseDeDatos(fuente)); // Aún sin comprobar
+		vigilante.registrarRetraso(30);
+		assertEquals("PRINCIPAL", baseDeDatos(fuente));
+	}
+
+	@Test
+	void siLaReplicaNoDaConexionSeUsaLaPrincipal() throws SQLException {
+		VigilanteReplica vigilanteCaida = new VigilanteReplica(replica, 5);
+		FuenteDatosEnrutada fuente = new FuenteDatosEnrutada(principal,
+				h2("jdbc:h2:mem:inexistente;IFEXISTS=TRUE"), vigilanteCaida);
+		vigilanteCaida.registrarRetraso(0);
+		TransactionSynchronizationManager.setCurrentTransactionReadOnly(true);
+
+		assertEquals("PRINCIPAL", baseDeDatos(fuente));
+		assertFalse(vigilanteCaida.disponible());
+	}
+
+	private static String baseDeDatos(DataSource fuente) throws SQLException {
+		try (Connection conexion = fuente.getConnection()) {
+			return conexion.getCatalog();
+		}
+	}
+
+	private static DataSource h2(String url) {
+		JdbcDataSource fuente = new JdbcDataSource();
+		fuente.setURL(url);
+		return fuente;
+	}
+}
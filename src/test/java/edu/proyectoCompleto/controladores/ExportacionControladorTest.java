@@ -0,0 +1,32 @@
+package edu.proyectoCompleto.controladores;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.mock;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+
+import java.time.Duration;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+import edu.proyectoCompleto.servicios.ExportacionServicio;
+
+class ExportacionControladorTest {
+
+	private final MockMvc mockMvc = MockMvcBuilders
+			.standaloneSetup(new ExportacionControlador(mock(ExportacionServicio.class), Duration.ofMinutes(30)))
+			.setAsyncRequestTimeout(30_000) // El general del servidor
+			.build();
+
+	@Test
+	void lasExportacionesTienenSuPropioTiempoMaximo() throws Exception {
+		for (String ruta : new String[] { "/api/export/usuarios", "/api/export/clubs" }) {
+			MvcResult resultado = mockMvc.perform(get(ruta)).andExpect(request().asyncStarted()).andReturn();
+
+			assertEquals(Duration.ofMinutes(30).toMillis(), resultado.getRequest().getAsyncContext().getTimeout());
+		}
+	}
+}
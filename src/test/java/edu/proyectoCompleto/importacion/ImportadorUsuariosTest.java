@@ -0,0 +1,148 @@
+package edu.proyectoCompleto.importacion;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.SQLException;
+import java.util.List;
+
+import javax.sql.DataSource;
+
+import org.flywaydb.core.Flyway;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import edu.proyectoCompleto.servicios.DisponibilidadServicio;
+
+/**
+ * Comprueba la lectura de filas, su validación y el fichero de rechazos de la
+ * importación masiva de usuarios.
+ * <p>
+ * La importación completa necesita PostgreSQL (usa COPY): se prueba con el mismo
+ * PostgreSQL desechable que las pruebas de repositorios y se omite sin la variable
+ * {@code PRUEBAS_POSTGRES_URL}.
+ * </p>
+ */
+class ImportadorUsuariosTest {
+
+	@TempDir
+	Path directorio;
+
+	@Test
+	void partirCsvAdmiteComillasYComillasEscapadas() {
+		assertEquals(List.of("ana", "Ana, la de \"arriba\"", "", "600000000"),
+				ImportadorUsuarios.partirCsv("ana,\"Ana, la de \"\"arriba\"\"\",,  600000000 "));
+		assertEquals(List.of(""), ImportadorUsuarios.partirCsv(""));
+		assertNull(ImportadorUsuarios.partirCsv("ana,\"sin cerrar"));
+	}
+
+	@Test
+	void validarRechazaCamposQueFaltanOSonDemasiadoLargos() {
+		String[] valida = { "ana", "Ana", "00000000T", " ", "ana@correo.es", "secreta", "USUARIO" };
+		assertNull(ImportadorUsuarios.validar(valida));
+		assertNull(valida[3]); // El teléfono es opcional: en blanco pasa a NULL
+
+		assertEquals("Falta el campo emailUsuario.", ImportadorUsuarios
+				.validar(new String[] { "ana", "Ana", "00000000T", null, "", "secreta", "USUARIO" }));
+		assertEquals("El campo nicknameUsuario supera los 50 caracteres.", ImportadorUsuarios
+				.validar(new String[] { "a".repeat(51), "Ana", "00000000T", null, "ana@correo.es", "secreta", "USUARIO" }));
+	}
+
+	@Test
+	void losRechazosSoloCreanElFicheroSiHayAlguno() throws Exception {
+		Path fichero = directorio.resolve("rechazos/usuarios.rechazos.csv");
+		try (ImportadorUsuarios.Rechazos rechazos = new ImportadorUsuarios.Rechazos(fichero)) {
+			assertEquals(0, rechazos.total());
+		}
+		assertFalse(Files.exists(fichero));
+
+		try (ImportadorUsuarios.Rechazos rechazos = new ImportadorUsuarios.Rechazos(fichero)) {
+			rechazos.registrar(3, "Comillas sin cerrar.", "ana,\"Ana");
+			assertEquals(1, rechazos.total());
+		}
+		assertEquals(List.of("linea,motivo,detalle", "3,\"Comillas sin cerrar.\",\"ana,\"\"Ana\""),
+				Files.readAllLines(fichero, StandardCharsets.UTF_8));
+	}
+
+	@Test
+	void importaLasFilasValidasYEscribeElMotivoDeLasDemas() throws Exception {
+		String url = System.getenv("PRUEBAS_POSTGRES_URL");
+		assumeTrue(url != null && !url.isBlank(), "Sin PRUEBAS_POSTGRES_URL no hay PostgreSQL para el COPY");
+		DriverManagerDataSource dataSource = new DriverManagerDataSource(url, System.getenv("PRUEBAS_POSTGRES_USUARIO"),
+				System.getenv("PRUEBAS_POSTGRES_PASSWORD"));
+		Flyway flyway = Flyway.configure().dataSource(dataSource).schemas("proyecto").cleanDisabled(false).load();
+		flyway.clean();
+		flyway.migrate();
+		JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+		DisponibilidadServicio disponibilidad = mock(DisponibilidadServicio.class);
+		ImportadorUsuarios importador = new ImportadorUsuarios(dataSource, jdbcTemplate, new BCryptPasswordEncoder(4),
+				new ObjectMapper(), 2, directorio.toString(), disponibilidad);
+
+		String csv = """
+				nicknameUsuario,nombreUsuario,dniUsuario,telefonoUsuario,emailUsuario,passwdUsuario,rol
+				ana,Ana,00000000T,600000000,ana@correo.es,secreta,USUARIO
+				luis,Luis,11111111H,,luis@correo.es,secreta,USUARIO
+				eva,"Eva,00000000T,,eva@correo.es,secreta,USUARIO
+				ana,Otra Ana,22222222J,,otra@correo.es,secreta,USUARIO
+				pepe,Pepe,33333333P,,,secreta,USUARIO
+				""";
+		Path fichero = directorio.resolve("usuarios.rechazos.csv");
+		ResultadoImportacion resultado;
+		try (InputStream entrada = new ByteArrayInputStream(csv.getBytes(StandardCharsets.UTF_8))) {
+			resultado = importador.importar(entrada, FormatoImportacion.CSV, fichero);
+		}
+
+		assertEquals(5, resultado.leidas());
+		assertEquals(2, resultado.importadas());
+		assertEquals(3, resultado.rechazadas());
+		assertEquals(fichero.toString(), resultado.ficheroRechazos());
+		assertEquals(List.of("ana", "luis"), jdbcTemplate.queryForList(
+				"select nickname_usuario from proyecto.usuarios order by id_usuario", String.class));
+		assertTrue(jdbcTemplate.queryForObject("select passwd_usuario from proyecto.usuarios where nickname_usuario = 'ana'",
+				String.class).startsWith("$2"));
+		verify(disponibilidad).solicitarReconstruccion();
+
+		// Primero los rechazados al leer y después los que chocan con usuarios existentes
+		assertEquals(List.of("linea,motivo,detalle",
+				"4,\"Comillas sin cerrar.\",\"eva,\"\"Eva,00000000T,,eva@correo.es,secreta,USUARIO\"",
+				"6,\"Falta el campo emailUsuario.\",\"pepe,Pepe,33333333P,,,secreta,USUARIO\"",
+				"5,\"El nickname, el email o el DNI ya están en uso.\",\"ana / otra@correo.es / 22222222J\""),
+				Files.readAllLines(fichero, StandardCharsets.UTF_8));
+	}
+
+	@Test
+	void soloAdmiteUnaImportacionALaVez() throws Exception {
+		DataSource dataSource = mock(DataSource.class);
+		ImportadorUsuarios importador = new ImportadorUsuarios(dataSource, null, null, new ObjectMapper(), 10,
+				directorio.toString(), null);
+		// La segunda importación se pide mientras la primera obtiene su conexión
+		when(dataSource.getConnection()).thenAnswer(invocacion -> {
+			assertThrows(ImportacionEnCursoException.class,
+					() -> importador.importar(InputStream.nullInputStream(), FormatoImportacion.CSV));
+			throw new SQLException("Sin base de datos.");
+		});
+
+		assertThrows(SQLException.class, () -> importador.importar(InputStream.nullInputStream(), FormatoImportacion.CSV));
+		// Al fallar deja de estar en curso
+		assertThrows(SQLException.class, () -> importador.importar(InputStream.nullInputStream(), FormatoImportacion.CSV));
+		verify(dataSource, times(2)).getConnection();
+	}
+}
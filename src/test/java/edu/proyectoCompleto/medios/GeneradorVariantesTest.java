@@ -0,0 +1,74 @@
+package edu.proyectoCompleto.medios;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.file.Path;
+
+import javax.imageio.ImageIO;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class GeneradorVariantesTest {
+
+	private final GeneradorVariantes generador = new GeneradorVariantes(null, new int[] { 64 }, 1, 10, 400);
+
+	@AfterEach
+	void detener() {
+		generador.detener();
+	}
+
+	@Test
+	void decodificaLasImagenesDentroDelLimite() throws IOException {
+		BufferedImage imagen = generador.leer(new ByteArrayInputStream(png(20, 20)), "a.png");
+
+		assertEquals(20, imagen.getWidth());
+	}
+
+	@Test
+	void noDecodificaLasImagenesConDemasiadosPixeles() throws IOException {
+		assertNull(generador.leer(new ByteArrayInputStream(png(21, 20)), "b.png"));
+	}
+
+	@Test
+	void ignoraLoQueNoEsUnaImagen() throws IOException {
+		assertNull(generador.leer(new ByteArrayInputStream(new byte[] { 1, 2, 3 }), "c.png"));
+	}
+
+	@Test
+	void elOriginalEsProvisionalMientrasSeGeneraLaMiniatura(@TempDir Path directorio) throws Exception {
+		AlmacenMediosLocal almacen = new AlmacenMediosLocal(directorio.toString());
+		GeneradorVariantes conAlmacen = new GeneradorVariantes(almacen, new int[] { 64 }, 1, 10, 1_000_000);
+		try {
+			String clave = almacen.guardar(png(200, 100));
+
+			GeneradorVariantes.Eleccion pendiente = conAlmacen.elegir(clave, 64);
+			assertEquals(clave, pendiente.clave());
+			assertTrue(pendiente.provisional());
+
+			String variante = GeneradorVariantes.claveVariante(clave, 64);
+			long limite = System.currentTimeMillis() + 5_000;
+			while (!almacen.existe(variante) && System.currentTimeMillis() < limite) {
+				Thread.sleep(10);
+			}
+			assertEquals(new GeneradorVariantes.Eleccion(variante, false), conAlmacen.elegir(clave, 64));
+			assertFalse(conAlmacen.elegir(clave, null).provisional()); // El original pedido como tal
+		} finally {
+			conAlmacen.detener();
+		}
+	}
+
+	private static byte[] png(int ancho, int alto) throws IOException {
+		ByteArrayOutputStream salida = new ByteArrayOutputStream();
+		ImageIO.write(new BufferedImage(ancho, alto, BufferedImage.TYPE_INT_RGB), "png", salida);
+		return salida.toByteArray();
+	}
+}
@@ -0,0 +1,55 @@
+package edu.proyectoCompleto.medios;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.io.IOException;
+import java.nio.file.Path;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.http.HttpHeaders;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+class ServidorMediosTest {
+
+	@TempDir
+	Path directorio;
+
+	private ServidorMedios servidor;
+	private String clave;
+
+	@BeforeEach
+	void preparar() throws IOException {
+		AlmacenMediosLocal almacen = new AlmacenMediosLocal(directorio.toString());
+		servidor = new ServidorMedios(almacen);
+		clave = almacen.guardar(new byte[] { (byte) 0x89, 'P', 'N', 'G', 1, 2, 3 });
+	}
+
+	@Test
+	void seRevalidaSiempreYSeRespondeNoModificadoConElMismoEtag() throws IOException {
+		MockHttpServletResponse primera = servir(false, null);
+		assertEquals(200, primera.getStatus());
+		assertEquals("no-cache", primera.getHeader(HttpHeaders.CACHE_CONTROL));
+
+		MockHttpServletResponse revalidada = servir(false, primera.getHeader(HttpHeaders.ETAG));
+		assertEquals(304, revalidada.getStatus());
+		assertEquals(0, revalidada.getContentAsByteArray().length);
+	}
+
+	@Test
+	void elContenidoProvisionalNoSeGuarda() throws IOException {
+		assertEquals("no-store", servir(true, null).getHeader(HttpHeaders.CACHE_CONTROL));
+	}
+
+	private MockHttpServletResponse servir(boolean provisional, String ifNoneMatch) throws IOException {
+		MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/usuarios/1/foto");
+		if (ifNoneMatch != null) {
+			request.addHeader(HttpHeaders.IF_NONE_MATCH, ifNoneMatch);
+		}
+		MockHttpServletResponse response = new MockHttpServletResponse();
+		servidor.servir(clave, provisional, request, response);
+		return response;
+	}
+}
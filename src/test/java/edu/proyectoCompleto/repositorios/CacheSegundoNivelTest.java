@@ -0,0 +1,129 @@
+package edu.proyectoCompleto.repositorios;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Import;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import edu.proyectoCompleto.configuracion.ConfiguracionCacheEntidades;
+import edu.proyectoCompleto.daos.Club;
+import edu.proyectoCompleto.daos.Usuario;
+import jakarta.persistence.EntityManagerFactory;
+
+/**
+ * Comprueba, contando las sentencias SQL, que las búsquedas repetidas por email y por id
+ * se resuelven desde la caché de segundo nivel y que las actualizaciones la invalidan.
+ * <p>
+ * Cada operación usa su propia transacción, como en la aplicación: la caché solo se
+ * nota entre sesiones distintas.
+ * </p>
+ */
+@PruebaJpaH2
+@Import(ConfiguracionCacheEntidades.class)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class CacheSegundoNivelTest {
+
+	@Autowired
+	private UsuarioRepositorios usuarioRepositorios;
+
+	@Autowired
+	private ClubRepositorios clubRepositorios;
+
+	@Autowired
+	private EntityManagerFactory entityManagerFactory;
+
+	@Autowired
+	private PlatformTransactionManager transactionManager;
+
+	private Statistics estadisticas;
+
+	@BeforeEach
+	void preparar() {
+		usuarioRepositorios.save(new Usuario("ana", "Ana", "00000000T", "600000000", null, "ana@correo.es",
+				"cifrada", "USUARIO"));
+		clubRepositorios.save(new Club("Club Norte", "norte@correo.es", "secreta", "Sevilla", null));
+		entityManagerFactory.getCache().evictAll();
+		estadisticas = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+		estadisticas.clear();
+		RegistroSql.SENTENCIAS.clear();
+	}
+
+	@AfterEach
+	void limpiar() {
+		usuarioRepositorios.deleteAllInBatch();
+		clubRepositorios.deleteAllInBatch();
+	}
+
+	@Test
+	void laSegundaBusquedaPorEmailNoConsultaLaBaseDeDatos() {
+		usuarioRepositorios.buscarPorEmail("ana@correo.es").orElseThrow();
+		int sentencias = RegistroSql.SENTENCIAS.size();
+		long aciertos = estadisticas.getDomainDataRegionStatistics("usuarios").getHitCount();
+
+		Usuario usuario = usuarioRepositorios.buscarPorEmail("ana@correo.es").orElseThrow();
+
+		assertTrue(sentencias > 0);
+		assertEquals(sentencias, RegistroSql.SENTENCIAS.size());
+		assertEquals("ana", usuario.getNicknameUsuario());
+		assertEquals(aciertos + 1, estadisticas.getDomainDataRegionStatistics("usuarios").getHitCount());
+		assertTrue(estadisticas.getDomainDataRegionStatistics("usuarios-email").getHitCount() > 0);
+	}
+
+	@Test
+	void laSegundaBusquedaPorIdNoConsultaLaBaseDeDatos() {
+		long idClub = clubRepositorios.buscarPorEmail("norte@correo.es").orElseThrow().getIdClub();
+		RegistroSql.SENTENCIAS.clear();
+		long fallos = estadisticas.getDomainDataRegionStatistics("clubs").getMissCount();
+
+		assertEquals("Sevilla", clubRepositorios.findById(idClub).orElseThrow().getSedeClub());
+
+		assertTrue(RegistroSql.SENTENCIAS.isEmpty(), RegistroSql.SENTENCIAS::toString);
+		assertEquals(fallos, estadisticas.getDomainDataRegionStatistics("clubs").getMissCount());
+	}
+
+	@Test
+	void unaActualizacionParcialNoDejaDatosViejosEnLaCache() {
+		long idUsuario = usuarioRepositorios.buscarPorEmail("ana@correo.es").orElseThrow().getIdUsuario();
+		new TransactionTemplate(transactionManager)
+				.executeWithoutResult(estado -> usuarioRepositorios.actualizarParcial(idUsuario, null, null, "611111111", null));
+		RegistroSql.SENTENCIAS.clear();
+
+		assertEquals("611111111", usuarioRepositorios.findById(idUsuario).orElseThrow().getTelefonoUsuario());
+		assertFalse(RegistroSql.SENTENCIAS.isEmpty());
+	}
+
+	@Test
+	void unaActualizacionParcialSoloSacaDeLaCacheLaEntidadModificada() {
+		usuarioRepositorios.save(new Usuario("luis", "Luis", "11111111H", "622222222", null, "luis@correo.es",
+				"cifrada", "USUARIO"));
+		long idAna = usuarioRepositorios.buscarPorEmail("ana@correo.es").orElseThrow().getIdUsuario();
+		long idLuis = usuarioRepositorios.buscarPorEmail("luis@correo.es").orElseThrow().getIdUsuario();
+		long idClub = clubRepositorios.buscarPorEmail("norte@correo.es").orElseThrow().getIdClub();
+		TransactionTemplate transaccion = new TransactionTemplate(transactionManager);
+		transaccion.executeWithoutResult(estado -> {
+			usuarioRepositorios.actualizarParcial(idAna, null, null, "611111111", null);
+			clubRepositorios.actualizarParcial(idClub, null, null, "Cádiz", null, null, null);
+		});
+		RegistroSql.SENTENCIAS.clear();
+
+		assertEquals("Luis", usuarioRepositorios.findById(idLuis).orElseThrow().getNombreUsuario());
+		assertEquals("luis", usuarioRepositorios.buscarPorEmail("luis@correo.es").orElseThrow().getNicknameUsuario());
+		assertTrue(RegistroSql.SENTENCIAS.isEmpty(), RegistroSql.SENTENCIAS::toString);
+
+		assertEquals("611111111", usuarioRepositorios.findById(idAna).orElseThrow().getTelefonoUsuario());
+		assertEquals("Cádiz", clubRepositorios.findById(idClub).orElseThrow().getSedeClub());
+		assertEquals(2, RegistroSql.SENTENCIAS.size(), RegistroSql.SENTENCIAS::toString);
+	}
+}
@@ -0,0 +1,204 @@
+package edu.proyectoCompleto.repositorios;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.LongStream;
+
+import org.flywaydb.core.Flyway;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+
+import edu.proyectoCompleto.dtos.CambioClub;
+import edu.proyectoCompleto.dtos.PaginaCambios;
+import edu.proyectoCompleto.servicios.CambiosServicio;
+import edu.proyectoCompleto.utils.CursorCambios;
+
+/**
+ * Comprueba contra PostgreSQL los disparadores de la migración V6 (instante de cambio y
+ * bajas) y el recorrido por clave de {@link CambiosServicio}.
+ * <p>
+ * Usa el mismo PostgreSQL desechable que {@link IndicesConsultasTest} y se omite sin
+ * la variable {@code PRUEBAS_POSTGRES_URL}.
+ * </p>
+ */
+class CambiosClubsTest {
+
+	private static DriverManagerDataSource dataSource;
+	private static JdbcTemplate jdbcTemplate;
+	private static CambiosServicio cambios;
+
+	@BeforeAll
+	static void migrar() {
+		String url = System.getenv("PRUEBAS_POSTGRES_URL");
+		assumeTrue(url != null && !url.isBlank(), "Sin PRUEBAS_POSTGRES_URL no hay PostgreSQL para los disparadores");
+
+		// Varias conexiones: una de las pruebas deja una transacción abierta mientras sincroniza
+		dataSource = new DriverManagerDataSource(url, System.getenv("PRUEBAS_POSTGRES_USUARIO"),
+				System.getenv("PRUEBAS_POSTGRES_PASSWORD"));
+		Flyway flyway = Flyway.configure().dataSource(dataSource).schemas("proyecto").cleanDisabled(false).load();
+		flyway.clean();
+		flyway.migrate();
+		jdbcTemplate = new JdbcTemplate(dataSource);
+		cambios = new CambiosServicio(jdbcTemplate, 0, 30);
+	}
+
+	@BeforeEach
+	void vaciar() {
+		jdbcTemplate.execute("truncate proyecto.clubs, proyecto.clubs_bajas"); // Sin disparadores de borrado
+	}
+
+	@Test
+	void altasModificacionesYBajasLleganUnaVezYEnOrden() {
+		insertarClub(1, "Club Uno");
+		insertarClub(2, "Club Dos");
+		PaginaCambios<CambioClub> primera = cambios.cambiosClubs(CursorCambios.INICIO, 10).orElseThrow();
+		assertEquals(List.of(1L, 2L), ids(primera));
+		assertTrue(primera.isCompleta());
+
+		jdbcTemplate.update("update proyecto.clubs set sede_club = 'Sevilla', version_club = version_club + 1 "
+				+ "where id_club = 1");
+		jdbcTemplate.update("update proyecto.clubs set nombre_club = nombre_club where id_club = 2"); // No cambia nada
+		jdbcTemplate.update("delete from proyecto.clubs where id_club = 2");
+		insertarClub(3, "Club Tres");
+
+		PaginaCambios<CambioClub> segunda = cambios.cambiosClubs(CursorCambios.leer(primera.getSiguiente()), 10)
+				.orElseThrow();
+		assertEquals(List.of(1L, 2L, 3L), ids(segunda));
+		assertEquals("Sevilla", segunda.getElementos().get(0).getSedeClub());
+		assertEquals(1L, segunda.getElementos().get(0).getVersionClub());
+		assertTrue(segunda.getElementos().get(1).isBaja());
+		assertFalse(segunda.getElementos().get(2).isBaja());
+
+		// Sin cambios nuevos no se repite nada
+		assertTrue(cambios.cambiosClubs(CursorCambios.leer(segunda.getSiguiente()), 10).orElseThrow().getElementos()
+				.isEmpty());
+	}
+
+	@Test
+	void unUpdateSinCambiosNoMueveElInstante() {
+		insertarClub(1, "Club Uno");
+		Instant antes = actualizadoEn(1);
+
+		jdbcTemplate.update("update proyecto.clubs set nombre_club = 'Club Uno' where id_club = 1");
+		assertEquals(antes, actualizadoEn(1));
+
+		jdbcTemplate.update("update proyecto.clubs set nombre_club = 'Club Uno bis' where id_club = 1");
+		assertTrue(actualizadoEn(1).isAfter(antes));
+	}
+
+	@Test
+	void lasPaginasRecorrenLosEmpatesSinSaltarNiRepetir() {
+		// Todos los cambios en el mismo instante: solo el id los ordena, y clubs y bajas se intercalan
+		jdbcTemplate.update("insert into proyecto.clubs (id_club, nombre_club, email_club, passwd_club, actualizado_en) "
+				+ "select i, 'Club ' || i, 'c' || i || '@correo.es', 'secreta', timestamptz '2024-01-01 10:00:00+00' "
+				+ "from generate_series(1, 19, 2) i");
+		jdbcTemplate.update("insert into proyecto.clubs_bajas (id_club, eliminado_en) "
+				+ "select i, timestamptz '2024-01-01 10:00:00+00' from generate_series(2, 20, 2) i");
+
+		List<Long> recibidos = new ArrayList<>();
+		List<Long> bajas = new ArrayList<>();
+		CursorCambios cursor = CursorCambios.INICIO;
+		PaginaCambios<CambioClub> pagina;
+		int paginas = 0;
+		do {
+			pagina = cambios.cambiosClubs(cursor, 3).orElseThrow();
+			pagina.getElementos().forEach(c -> {
+				recibidos.add(c.getIdClub());
+				if (c.isBaja()) {
+					bajas.add(c.getIdClub());
+				}
+			});
+			cursor = CursorCambios.leer(pagina.getSiguiente());
+			paginas++;
+		} while (!pagina.isCompleta());
+
+		assertEquals(LongStream.rangeClosed(1, 20).boxed().toList(), recibidos);
+		assertEquals(LongStream.rangeClosed(1, 10).map(i -> i * 2).boxed().toList(), bajas);
+		assertEquals(7, paginas);
+	}
+
+	@Test
+	void unaTransaccionAbiertaRetieneLosCambiosPosteriores() throws Exception {
+		insertarClub(1, "Club Uno");
+		CursorCambios cursor = CursorCambios
+				.leer(cambios.cambiosClubs(CursorCambios.INICIO, 10).orElseThrow().getSiguiente());
+
+		try (Connection lenta = dataSource.getConnection(); Statement sentencia = lenta.createStatement()) {
+			lenta.setAutoCommit(false);
+			sentencia.executeUpdate("update proyecto.clubs set sede_club = 'Cádiz' where id_club = 1");
+			insertarClub(2, "Club Dos"); // Confirmado mientras la otra sigue abierta
+
+			PaginaCambios<CambioClub> durante = cambios.cambiosClubs(cursor, 10).orElseThrow();
+			assertTrue(durante.getElementos().isEmpty()); // Ni el alta confirmada: iría por delante de la abierta
+			cursor = CursorCambios.leer(durante.getSiguiente());
+
+			lenta.commit();
+		}
+
+		PaginaCambios<CambioClub> despues = cambios.cambiosClubs(cursor, 10).orElseThrow();
+		assertEquals(List.of(1L, 2L), ids(despues));
+		assertEquals("Cádiz", despues.getElementos().get(0).getSedeClub());
+	}
+
+	@Test
+	void unaTransaccionLargaMarcadaNoRetieneLaSincronizacion() throws Exception {
+		CursorCambios cursor = CursorCambios
+				.leer(cambios.cambiosClubs(CursorCambios.INICIO, 10).orElseThrow().getSiguiente());
+
+		try (Connection exportacion = dataSource.getConnection(); Statement sentencia = exportacion.createStatement()) {
+			exportacion.setAutoCommit(false);
+			sentencia.execute(CambiosServicio.MARCAR_TRANSACCION_LARGA);
+			sentencia.execute("select count(*) from proyecto.clubs");
+			insertarClub(1, "Club Uno");
+
+			assertEquals(List.of(1L), ids(cambios.cambiosClubs(cursor, 10).orElseThrow()));
+			exportacion.commit();
+
+			// La marca solo dura la transacción
+			try (ResultSet nombre = sentencia.executeQuery("show application_name")) {
+				assertTrue(nombre.next());
+				assertNotEquals(CambiosServicio.TRANSACCION_LARGA, nombre.getString(1));
+			}
+		}
+	}
+
+	@Test
+	void elCursorCaducaPorLaUltimaSincronizacionYNoPorElUltimoCambio() {
+		Instant haceUnAno = Instant.now().minus(365, ChronoUnit.DAYS);
+		// Al día hasta hace un minuto, aunque el último cambio sea de hace un año
+		CursorCambios alDia = new CursorCambios(haceUnAno, 7, Instant.now().minus(1, ChronoUnit.MINUTES));
+		CursorCambios abandonado = new CursorCambios(haceUnAno, 7, haceUnAno);
+
+		assertTrue(cambios.cambiosClubs(alDia, 10).isPresent());
+		assertTrue(cambios.cambiosClubs(abandonado, 10).isEmpty());
+	}
+
+	private static void insertarClub(long id, String nombre) {
+		jdbcTemplate.update("insert into proyecto.clubs (id_club, nombre_club, email_club, passwd_club) "
+				+ "values (?, ?, ?, 'secreta')", id, nombre, "c" + id + "@correo.es");
+	}
+
+	private static Instant actualizadoEn(long id) {
+		return jdbcTemplate.queryForObject("select actualizado_en from proyecto.clubs where id_club = ?",
+				OffsetDateTime.class, id).toInstant();
+	}
+
+	private static List<Long> ids(PaginaCambios<CambioClub> pagina) {
+		return pagina.getElementos().stream().map(CambioClub::getIdClub).toList();
+	}
+}
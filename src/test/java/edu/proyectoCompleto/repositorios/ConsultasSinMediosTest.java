@@ -0,0 +1,148 @@
+package edu.proyectoCompleto.repositorios;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+
+import edu.proyectoCompleto.daos.Club;
+import edu.proyectoCompleto.daos.Usuario;
+import edu.proyectoCompleto.dtos.CredencialesClub;
+import edu.proyectoCompleto.dtos.CredencialesUsuario;
+import edu.proyectoCompleto.dtos.FichaUsuario;
+import edu.proyectoCompleto.dtos.IdentidadUsuario;
+import edu.proyectoCompleto.dtos.ResumenClub;
+
+/**
+ * Comprueba que el login y las búsquedas habituales no seleccionan las columnas de medios.
+ */
+@PruebaJpaH2
+class ConsultasSinMediosTest {
+
+	@Autowired
+	private TestEntityManager entityManager;
+
+	@Autowired
+	private UsuarioRepositorios usuarioRepositorios;
+
+	@Autowired
+	private ClubRepositorios clubRepositorios;
+
+	@BeforeEach
+	void preparar() {
+		entityManager.persist(new Usuario("ana", "Ana", "00000000T", "600000000", "abc.jpg", "ana@correo.es",
+				"cifrada", "USUARIO"));
+		entityManager.persist(new Club("Club Norte", "norte@correo.es", "secreta", "Sevilla", "def.png"));
+		entityManager.flush();
+		entityManager.clear();
+		RegistroSql.SENTENCIAS.clear();
+	}
+
+	@Test
+	void elLoginDeUsuarioNoLeeLaFoto() {
+		CredencialesUsuario credenciales = usuarioRepositorios.findCredencialesByEmailUsuario("ana@correo.es")
+				.orElseThrow();
+
+		assertEquals("USUARIO", credenciales.getRol());
+		assertSinMedios();
+	}
+
+	@Test
+	void buscarPorNicknameNoLeeLaFoto() {
+		IdentidadUsuario identidad = usuarioRepositorios.findIdentidadByNicknameUsuario("ana").orElseThrow();
+
+		assertEquals("ana@correo.es", identidad.getEmailUsuario());
+		assertSinMedios();
+	}
+
+	@Test
+	void elLoginDeClubNoLeeLaImagen() {
+		CredencialesClub club = clubRepositorios.findCredencialesByEmailClub("norte@correo.es").orElseThrow();
+
+		assertEquals("Club Norte", club.getNombreClub());
+		assertEquals("secreta", club.getPasswdClub());
+		assertSinMedios();
+	}
+
+	@Test
+	void elListadoDeUsuariosPaginaPorClaveSinLeerFotos() {
+		List<FichaUsuario> usuarios = usuarioRepositorios.findPagina(0, 10);
+
+		assertEquals(1, usuarios.size());
+		assertTrue(usuarioRepositorios.findPaginaPorRol("USUARIO", usuarios.get(0).getIdUsuario(), 10).isEmpty());
+		assertSinMedios();
+		RegistroSql.SENTENCIAS.forEach(sql -> assertFalse(sql.contains("offset"), sql));
+	}
+
+	@Test
+	void elListadoDeClubsPaginaPorClaveSinLeerImagenes() {
+		List<ResumenClub> clubs = clubRepositorios.findPaginaPorSede("Sevilla", 0, 10);
+
+		assertEquals(1, clubs.size());
+		assertSinMedios();
+		RegistroSql.SENTENCIAS.forEach(sql -> assertFalse(sql.contains("offset"), sql));
+	}
+
+	@Test
+	void losDatosPublicosDeLosClubsNoLeenElEmail() {
+		long idClub = clubRepositorios.findPagina(0, 10).get(0).getIdClub();
+		clubRepositorios.findPerfilByIdClub(idClub).orElseThrow();
+
+		assertEquals(2, RegistroSql.SENTENCIAS.size());
+		// Es con lo que el club inicia sesión y estas consultas se sirven sin autenticar
+		RegistroSql.SENTENCIAS.forEach(sql -> assertFalse(sql.contains("email_club"), sql));
+	}
+
+	@Test
+	void laModificacionParcialSoloEscribeLosCamposEnviados() {
+		long idUsuario = usuarioRepositorios.findIdentidadByNicknameUsuario("ana").orElseThrow().getIdUsuario();
+		RegistroSql.SENTENCIAS.clear();
+
+		assertEquals(1, usuarioRepositorios.actualizarParcial(idUsuario, null, null, "611111111", null));
+		assertEquals(0, usuarioRepositorios.actualizarParcial(idUsuario + 1000, null, null, "611111111", null));
+
+		String update = RegistroSql.SENTENCIAS.get(0);
+		assertTrue(update.startsWith("update"), update);
+		assertTrue(update.contains("telefono_usuario"), update);
+		assertFalse(update.contains("nombre_usuario") || update.contains("foto"), update);
+	}
+
+	@Test
+	void laModificacionConVersionSoloSeAplicaSobreEsaVersion() {
+		long idUsuario = usuarioRepositorios.findIdentidadByNicknameUsuario("ana").orElseThrow().getIdUsuario();
+		long version = usuarioRepositorios.findVersionUsuario(idUsuario).orElseThrow();
+
+		assertEquals(1, usuarioRepositorios.actualizarParcial(idUsuario, version, null, "611111111", null));
+		assertEquals(version + 1, usuarioRepositorios.findVersionUsuario(idUsuario).orElseThrow());
+		// Otro dispositivo con la versión anterior no pisa el cambio
+		assertEquals(0, usuarioRepositorios.actualizarParcial(idUsuario, version, null, "622222222", null));
+		assertEquals(0, usuarioRepositorios.actualizarParcial(idUsuario, version, null, null, null));
+		assertEquals(1, usuarioRepositorios.actualizarParcial(idUsuario, version + 1, null, null, null));
+		assertEquals(version + 1, usuarioRepositorios.findPerfilByIdUsuario(idUsuario).orElseThrow().getVersionUsuario());
+	}
+
+	@Test
+	void elBorradoDeClubsEsUnaSolaSentencia() {
+		long idClub = clubRepositorios.findPagina(0, 1).get(0).getIdClub();
+		RegistroSql.SENTENCIAS.clear();
+
+		assertEquals(1, clubRepositorios.eliminarPorIds(List.of(idClub, idClub + 1000)));
+
+		assertEquals(1, RegistroSql.SENTENCIAS.size());
+		RegistroSql.SENTENCIAS.forEach(sql -> assertTrue(sql.startsWith("delete"), sql));
+	}
+
+	private static void assertSinMedios() {
+		assertFalse(RegistroSql.SENTENCIAS.isEmpty());
+		for (String sql : RegistroSql.SENTENCIAS) {
+			assertTrue(sql.startsWith("select"), sql);
+			assertFalse(sql.contains("foto") || sql.contains("logo") || sql.contains("imagen"), sql);
+		}
+	}
+}
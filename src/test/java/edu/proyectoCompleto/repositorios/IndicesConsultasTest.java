@@ -0,0 +1,151 @@
+package edu.proyectoCompleto.repositorios;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfEnvironmentVariable;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.flyway.FlywayMigrationStrategy;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * Comprueba con {@code EXPLAIN} que las consultas de los repositorios usan los índices
+ * creados por las migraciones.
+ * <p>
+ * Se ejecutan los métodos de los repositorios y se explica el SQL que genera Hibernate,
+ * con la configuración normal del planificador y suficientes filas para que leer la
+ * tabla entera sea más caro que usar un índice adecuado.
+ * </p>
+ * <p>
+ * Necesita un PostgreSQL desechable: se indica con las variables de entorno
+ * {@code PRUEBAS_POSTGRES_URL}, {@code PRUEBAS_POSTGRES_USUARIO} y
+ * {@code PRUEBAS_POSTGRES_PASSWORD}. El esquema {@code proyecto} de esa base de datos se
+ * borra y se vuelve a crear con las migraciones. Sin la variable, la prueba se omite.
+ * </p>
+ */
+@EnabledIfEnvironmentVariable(named = "PRUEBAS_POSTGRES_URL", matches = ".+")
+@DataJpaTest(properties = {
+		"spring.flyway.clean-disabled=false",
+		RegistroSql.PROPIEDAD })
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Transactional(propagation = Propagation.NOT_SUPPORTED) // Las filas se confirman para que ANALYZE las vea
+class IndicesConsultasTest {
+
+	/** Parte siempre de un esquema recién migrado. */
+	@TestConfiguration
+	static class Migraciones {
+
+		@Bean
+		FlywayMigrationStrategy limpiarYMigrar() {
+			return flyway -> {
+				flyway.clean();
+				flyway.migrate();
+			};
+		}
+	}
+
+	@DynamicPropertySource
+	static void baseDeDatos(DynamicPropertyRegistry propiedades) {
+		propiedades.add("spring.datasource.url", () -> System.getenv("PRUEBAS_POSTGRES_URL"));
+		propiedades.add("spring.datasource.username", () -> System.getenv("PRUEBAS_POSTGRES_USUARIO"));
+		propiedades.add("spring.datasource.password", () -> System.getenv("PRUEBAS_POSTGRES_PASSWORD"));
+	}
+
+	private static boolean cargados;
+
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+
+	@Autowired
+	private UsuarioRepositorios usuarioRepositorios;
+
+	@Autowired
+	private ClubRepositorios clubRepositorios;
+
+	@BeforeEach
+	void cargar() {
+		if (!cargados) {
+			// Pocos administradores y muchas sedes, como en producción: cada filtro deja pocas filas
+			jdbcTemplate.update("insert into proyecto.usuarios (id_usuario, nickname_usuario, nombre_usuario, "
+					+ "dni_usuario, email_usuario, passwd_usuario, rol_usuario) select i, 'u' || i, 'Usuario ' || i, "
+					+ "'D' || i, 'u' || i || '@correo.es', 'cifrada', "
+					+ "case when i % 100 = 0 then 'ADMIN' else 'USUARIO' end from generate_series(1, 20000) i");
+			jdbcTemplate.update("insert into proyecto.clubs (id_club, nombre_club, email_club, passwd_club, sede_club) "
+					+ "select i, 'Club ' || substr(md5(i::text), 1, 8), 'c' || i || '@correo.es', 'secreta', "
+					+ "'Sede ' || (i % 200) from generate_series(1, 20000) i");
+			jdbcTemplate.execute("vacuum analyze proyecto.usuarios");
+			jdbcTemplate.execute("vacuum analyze proyecto.clubs");
+			cargados = true;
+		}
+		RegistroSql.SENTENCIAS.clear();
+	}
+
+	@Test
+	void elLoginDeUsuarioSeResuelveConElIndiceDeCredenciales() {
+		usuarioRepositorios.findCredencialesByEmailUsuario("u42@correo.es").orElseThrow();
+		assertUsa("usuarios_email_credenciales_idx", "'u42@correo.es'");
+	}
+
+	@Test
+	void elListadoPorRolUsaElIndiceDeRolEId() {
+		usuarioRepositorios.findPaginaPorRol("ADMIN", 100, 51);
+		assertUsa("usuarios_rol_id_idx", "'ADMIN'", "100", "51");
+	}
+
+	@Test
+	void elLoginDeClubUsaLaRestriccionUnicaDelEmail() {
+		clubRepositorios.findCredencialesByEmailClub("c42@correo.es").orElseThrow();
+		assertUsa("clubs_email_club_key", "'c42@correo.es'");
+	}
+
+	@Test
+	void elListadoPorSedeUsaElIndiceDeSedeEId() {
+		clubRepositorios.findPaginaPorSede("Sede 7", 100, 51);
+		assertUsa("clubs_sede_id_idx", "'Sede 7'", "100", "51");
+	}
+
+	@Test
+	void laBajaPorNombreUsaElIndiceDeNombre() {
+		// Un nombre con el formato de los demás que no existe: el DELETE no borra nada
+		String nombre = "Club " + jdbcTemplate.queryForObject("select substr(md5('20001'), 1, 8)", String.class);
+		assertTrue(clubRepositorios.eliminarPorNombre(nombre).isEmpty());
+		assertUsa("clubs_nombre_idx", "'" + nombre + "'");
+	}
+
+	@Test
+	void laBusquedaPorTrigramasUsaElIndiceGin() {
+		assumeTrue(jdbcTemplate.queryForObject("select count(*) from pg_indexes where indexname = 'clubs_busqueda_trgm_idx'",
+				Integer.class) > 0, "Sin permisos para crear pg_trgm no hay índice de trigramas");
+		String texto = jdbcTemplate.queryForObject("select substr(md5('42'), 1, 8)", String.class);
+		clubRepositorios.buscarPorTrigramas(texto, 20);
+		assertUsa("clubs_busqueda_trgm_idx", "'" + texto + "'", "'" + texto + "'", "20");
+	}
+
+	/**
+	 * Explica la única sentencia que ha generado el repositorio, con sus parámetros en orden.
+	 */
+	private void assertUsa(String indice, String... parametros) {
+		assertEquals(1, RegistroSql.SENTENCIAS.size(), RegistroSql.SENTENCIAS::toString);
+		String[] partes = RegistroSql.SENTENCIAS.get(0).split("\\?", -1);
+		assertEquals(parametros.length + 1, partes.length, RegistroSql.SENTENCIAS.get(0));
+		StringBuilder sql = new StringBuilder(partes[0]);
+		for (int i = 0; i < parametros.length; i++) {
+			sql.append(parametros[i]).append(partes[i + 1]);
+		}
+		List<String> plan = jdbcTemplate.queryForList("explain " + sql, String.class);
+		assertTrue(plan.stream().anyMatch(linea -> linea.contains(indice)), () -> sql + "\n" + String.join("\n", plan));
+	}
+}
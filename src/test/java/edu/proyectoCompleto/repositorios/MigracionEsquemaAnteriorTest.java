@@ -0,0 +1,126 @@
+package edu.proyectoCompleto.repositorios;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.List;
+
+import org.flywaydb.core.Flyway;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfEnvironmentVariable;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.flyway.FlywayMigrationStrategy;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import edu.proyectoCompleto.daos.Usuario;
+
+/**
+ * Comprueba que las migraciones actualizan una base de datos creada antes de Flyway
+ * con {@code ddl-auto=update}: IDENTITY en los ids, imágenes en {@code bytea} y sin
+ * columnas de referencia a los medios.
+ * <p>
+ * Flyway la toma como versión 1 sin ejecutar V1; el contexto solo arranca si, tras las
+ * migraciones, Hibernate valida el esquema. Usa el mismo PostgreSQL desechable que
+ * {@link IndicesConsultasTest} y se omite sin la variable {@code PRUEBAS_POSTGRES_URL}.
+ * </p>
+ */
+@EnabledIfEnvironmentVariable(named = "PRUEBAS_POSTGRES_URL", matches = ".+")
+@DataJpaTest(properties = {
+		"spring.flyway.clean-disabled=false",
+		"spring.flyway.baseline-on-migrate=true",
+		"spring.jpa.hibernate.ddl-auto=validate" })
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+class MigracionEsquemaAnteriorTest {
+
+	/** Esquema que generaba Hibernate con las entidades anteriores a las migraciones. */
+	private static final String[] ESQUEMA_ANTERIOR = {
+			"create schema if not exists proyecto",
+			"create table proyecto.usuarios (id_usuario bigint generated by default as identity, "
+					+ "dni_usuario varchar(20) not null, email_usuario varchar(150) not null, foto_usuario bytea, "
+					+ "nickname_usuario varchar(50) not null, nombre_usuario varchar(100) not null, "
+					+ "passwd_usuario varchar(255) not null, rol_usuario varchar(50) not null, "
+					+ "telefono_usuario varchar(15), primary key (id_usuario))",
+			"alter table proyecto.usuarios add constraint uk_usuarios_dni unique (dni_usuario)",
+			"alter table proyecto.usuarios add constraint uk_usuarios_email unique (email_usuario)",
+			"alter table proyecto.usuarios add constraint uk_usuarios_nickname unique (nickname_usuario)",
+			"create table proyecto.clubs (id_club bigint generated by default as identity, "
+					+ "email_club varchar(150) not null, logo_club bytea, nombre_club varchar(100) not null, "
+					+ "passwd_club varchar(255) not null, sede_club varchar(200), primary key (id_club))",
+			"alter table proyecto.clubs add constraint uk_clubs_email unique (email_club)",
+			"insert into proyecto.usuarios (dni_usuario, email_usuario, foto_usuario, nickname_usuario, nombre_usuario, "
+					+ "passwd_usuario, rol_usuario) select 'D' || i, 'u' || i || '@correo.es', '\\x89504e47', "
+					+ "'u' || i, 'Usuario ' || i, 'cifrada', 'USUARIO' from generate_series(1, 3) i",
+			"insert into proyecto.clubs (email_club, logo_club, nombre_club, passwd_club, sede_club) "
+					+ "values ('c1@correo.es', '\\xffd8ffe0', 'Club Uno', 'secreta', 'Sevilla')" };
+
+	/** Crea el esquema anterior en una base de datos vacía antes de migrar. */
+	@TestConfiguration
+	static class Migraciones {
+
+		@Bean
+		FlywayMigrationStrategy crearEsquemaAnteriorYMigrar() {
+			return flyway -> {
+				flyway.clean();
+				new JdbcTemplate(flyway.getConfiguration().getDataSource()).batchUpdate(ESQUEMA_ANTERIOR);
+				flyway.migrate();
+			};
+		}
+	}
+
+	@DynamicPropertySource
+	static void baseDeDatos(DynamicPropertyRegistry propiedades) {
+		propiedades.add("spring.datasource.url", () -> System.getenv("PRUEBAS_POSTGRES_URL"));
+		propiedades.add("spring.datasource.username", () -> System.getenv("PRUEBAS_POSTGRES_USUARIO"));
+		propiedades.add("spring.datasource.password", () -> System.getenv("PRUEBAS_POSTGRES_PASSWORD"));
+	}
+
+	@Autowired
+	private Flyway flyway;
+
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+
+	@Autowired
+	private UsuarioRepositorios usuarioRepositorios;
+
+	@Test
+	void partiendoDeLaVersionUnoSeAplicanLasDemasMigraciones() {
+		assertEquals("1", flyway.info().applied()[0].getVersion().getVersion());
+		assertEquals("BASELINE", flyway.info().applied()[0].getType().name());
+		assertEquals("1.1", flyway.info().applied()[1].getVersion().getVersion());
+		assertEquals(0, flyway.info().pending().length);
+	}
+
+	@Test
+	void lasImagenesSiguenEnSuSitioHastaMigrarLosMedios() {
+		assertEquals(List.of("foto_usuario", "ref_foto_usuario"), columnas("usuarios", "%foto_usuario"));
+		assertEquals(List.of("logo_club", "ref_logo_club"), columnas("clubs", "%logo_club"));
+		assertEquals(3, jdbcTemplate.queryForObject(
+				"select count(*) from proyecto.usuarios where foto_usuario is not null and ref_foto_usuario is null",
+				Integer.class));
+	}
+
+	@Test
+	void losIdsNuevosSalenDeLaSecuenciaPorEncimaDeLosAnteriores() {
+		assertEquals(List.of("NO", "NO"), jdbcTemplate.queryForList("select is_identity from information_schema.columns "
+				+ "where table_schema = 'proyecto' and (table_name, column_name) in (('usuarios', 'id_usuario'), "
+				+ "('clubs', 'id_club'))", String.class));
+
+		Usuario usuario = usuarioRepositorios.saveAndFlush(new Usuario("nuevo", "Nuevo", "D4", null, null,
+				"nuevo@correo.es", "cifrada", "USUARIO"));
+
+		assertTrue(usuario.getIdUsuario() > 3, () -> "id " + usuario.getIdUsuario());
+	}
+
+	private List<String> columnas(String tabla, String patron) {
+		return jdbcTemplate.queryForList("select column_name from information_schema.columns "
+				+ "where table_schema = 'proyecto' and table_name = ? and column_name like ? order by column_name",
+				String.class, tabla, patron);
+	}
+}
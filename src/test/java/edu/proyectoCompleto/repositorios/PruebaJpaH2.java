@@ -0,0 +1,25 @@
+package edu.proyectoCompleto.repositorios;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+
+/**
+ * {@link DataJpaTest} sobre H2 en memoria con el esquema generado desde las entidades
+ * y el SQL recogido en {@link RegistroSql}.
+ */
+@Target(ElementType.TYPE)
+@Retention(RetentionPolicy.RUNTIME)
+@Documented
+@DataJpaTest(properties = {
+		"spring.jpa.database-platform=org.hibernate.dialect.H2Dialect",
+		"spring.jpa.hibernate.ddl-auto=create-drop",
+		"spring.flyway.enabled=false",
+		"spring.jpa.properties.hibernate.hbm2ddl.create_namespaces=true",
+		RegistroSql.PROPIEDAD })
+public @interface PruebaJpaH2 {
+}
@@ -0,0 +1,28 @@
+package edu.proyectoCompleto.repositorios;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+
+/**
+ * Guarda el SQL que genera Hibernate para que las pruebas puedan contarlo e inspeccionarlo.
+ * <p>
+ * Se activa con la propiedad {@link #PROPIEDAD}; cada prueba vacía {@link #SENTENCIAS}
+ * antes de la operación que quiere comprobar.
+ * </p>
+ */
+public class RegistroSql implements StatementInspector {
+
+	/** Propiedad de Spring que registra este inspector en Hibernate. */
+	public static final String PROPIEDAD = "spring.jpa.properties.hibernate.session_factory.statement_inspector="
+			+ "edu.proyectoCompleto.repositorios.RegistroSql";
+
+	static final List<String> SENTENCIAS = new CopyOnWriteArrayList<>();
+
+	@Override
+	public String inspect(String sql) {
+		SENTENCIAS.add(sql);
+		return sql;
+	}
+}
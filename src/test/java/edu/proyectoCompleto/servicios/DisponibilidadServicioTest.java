@@ -0,0 +1,111 @@
+package edu.proyectoCompleto.servicios;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.SimpleTransactionStatus;
+
+import edu.proyectoCompleto.dtos.ClavesUsuario;
+import edu.proyectoCompleto.repositorios.UsuarioRepositorios;
+import edu.proyectoCompleto.servicios.DisponibilidadServicio.Campo;
+
+class DisponibilidadServicioTest {
+
+	private final UsuarioRepositorios usuarioRepositorios = mock(UsuarioRepositorios.class);
+	private final PlatformTransactionManager transactionManager = mock(PlatformTransactionManager.class);
+	private DisponibilidadServicio disponibilidad;
+
+	@BeforeEach
+	void crear() {
+		when(transactionManager.getTransaction(any())).thenReturn(new SimpleTransactionStatus());
+		when(usuarioRepositorios.count()).thenReturn(1L);
+		disponibilidad = new DisponibilidadServicio(usuarioRepositorios, transactionManager, 1_000, 0.01, 60, 0.1);
+	}
+
+	@Test
+	void laReconstruccionLeeDeLaPrincipal() {
+		when(usuarioRepositorios.streamClaves()).thenReturn(Stream.of(claves("ana", "ana@correo.es", "11111111A")));
+
+		disponibilidad.reconstruir();
+
+		ArgumentCaptor<TransactionDefinition> definicion = ArgumentCaptor.forClass(TransactionDefinition.class);
+		verify(transactionManager).getTransaction(definicion.capture());
+		assertFalse(definicion.getValue().isReadOnly()); // Las de solo lectura van a la réplica
+	}
+
+	@Test
+	void conFiltrosSoloSeConsultaLoQuePuedeEstar() {
+		when(usuarioRepositorios.streamClaves()).thenReturn(Stream.of(claves("ana", "ana@correo.es", "11111111A")));
+		when(usuarioRepositorios.existsByNicknameUsuario("ana")).thenReturn(true);
+		disponibilidad.reconstruir();
+
+		assertFalse(disponibilidad.disponible(Campo.NICKNAME, "ana"));
+		assertTrue(disponibilidad.disponible(Campo.NICKNAME, "luis"));
+
+		verify(usuarioRepositorios).existsByNicknameUsuario("ana");
+		verify(usuarioRepositorios, never()).existsByNicknameUsuario("luis");
+	}
+
+	@Test
+	void lasAltasDuranteLaReconstruccionLleganALosFiltrosNuevos() {
+		when(usuarioRepositorios.streamClaves()).thenAnswer(invocacion -> Stream
+				.of(claves("ana", "ana@correo.es", "11111111A"))
+				// Alta confirmada mientras se leen los usuarios: la lectura puede no verla
+				.peek(c -> disponibilidad.registrarAlta("luis", "luis@correo.es", "22222222B")));
+
+		disponibilidad.reconstruir();
+
+		assertTrue(disponibilidad.disponible(Campo.NICKNAME, "luis")); // La base de datos de prueba no la tiene
+		verify(usuarioRepositorios).existsByNicknameUsuario("luis"); // Pero el filtro sí: se consulta
+	}
+
+	@Test
+	void siFallaLaReconstruccionSeMantienenLosFiltrosYSeReintenta() {
+		when(usuarioRepositorios.streamClaves())
+				.thenReturn(Stream.of(claves("ana", "ana@correo.es", "11111111A")))
+				.thenThrow(new DataAccessResourceFailureException("Sin conexión"))
+				.thenReturn(Stream.of(claves("ana", "ana@correo.es", "11111111A")));
+		disponibilidad.reconstruir();
+
+		disponibilidad.solicitarReconstruccion();
+		disponibilidad.mantener(); // Falla
+		assertTrue(disponibilidad.disponible(Campo.NICKNAME, "luis"));
+		verify(usuarioRepositorios, never()).existsByNicknameUsuario("luis");
+
+		disponibilidad.mantener(); // Se reintenta sin esperar al periodo
+		verify(usuarioRepositorios, times(3)).streamClaves();
+	}
+
+	private static ClavesUsuario claves(String nickname, String email, String dni) {
+		return new ClavesUsuario() {
+			@Override
+			public String getNicknameUsuario() {
+				return nickname;
+			}
+
+			@Override
+			public String getEmailUsuario() {
+				return email;
+			}
+
+			@Override
+			public String getDniUsuario() {
+				return dni;
+			}
+		};
+	}
+}
@@ -0,0 +1,199 @@
+package edu.proyectoCompleto.servicios;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.function.BooleanSupplier;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import edu.proyectoCompleto.dtos.EventoCambio;
+import edu.proyectoCompleto.dtos.EventoCambio.Entidad;
+import edu.proyectoCompleto.dtos.EventoCambio.Tipo;
+
+class EventosServicioTest {
+
+	private final Deque<EmisorPrueba> emisores = new ArrayDeque<>(); // Los siguientes que se entregan
+	private EventosServicio eventos;
+
+	@AfterEach
+	void cerrar() {
+		if (eventos != null) {
+			eventos.cerrar();
+		}
+	}
+
+	@Test
+	void cadaSuscriptorRecibeSoloLosIdsQuePide() {
+		eventos = servicio(8, 10, 5, 10_000);
+		EmisorPrueba todos = suscribir(Entidad.CLUB, Set.of(), "10.0.0.1", new EmisorPrueba());
+		EmisorPrueba unos = suscribir(Entidad.CLUB, Set.of(2L, 3L), "10.0.0.2", new EmisorPrueba());
+		EmisorPrueba usuarios = suscribir(Entidad.USUARIO, Set.of(), "10.0.0.3", new EmisorPrueba());
+
+		for (long id = 1; id <= 4; id++) {
+			eventos.publicar(Entidad.CLUB, Tipo.MODIFICACION, id, 1L);
+		}
+
+		esperar(() -> todos.ids().size() == 4 && unos.ids().size() == 2);
+		assertEquals(List.of(1L, 2L, 3L, 4L), todos.ids());
+		assertEquals(List.of(2L, 3L), unos.ids());
+		assertTrue(usuarios.ids().isEmpty());
+	}
+
+	@Test
+	void soloSePublicaAlConfirmarseLaTransaccion() throws InterruptedException {
+		eventos = servicio(8, 10, 5, 10_000);
+		EmisorPrueba emisor = suscribir(Entidad.CLUB, Set.of(), "10.0.0.1", new EmisorPrueba());
+
+		TransactionSynchronizationManager.initSynchronization();
+		try {
+			eventos.publicar(Entidad.CLUB, Tipo.ALTA, 1, 0L);
+			eventos.publicar(Entidad.CLUB, Tipo.ALTA, 2, 0L);
+			Thread.sleep(100);
+			assertTrue(emisor.ids().isEmpty()); // Nada antes del commit
+
+			List<TransactionSynchronization> sincronizaciones = TransactionSynchronizationManager
+					.getSynchronizations();
+			sincronizaciones.get(0).afterCommit();
+			sincronizaciones.get(1).afterCompletion(TransactionSynchronization.STATUS_ROLLED_BACK);
+		} finally {
+			TransactionSynchronizationManager.clearSynchronization();
+		}
+
+		esperar(() -> !emisor.ids().isEmpty());
+		Thread.sleep(100);
+		assertEquals(List.of(1L), emisor.ids());
+	}
+
+	@Test
+	void quienNoLeeRecibeDesbordadoYSeLeCierraLaConexion() {
+		eventos = servicio(2, 10, 5, 10_000);
+		CountDownLatch lee = new CountDownLatch(1);
+		EmisorPrueba lento = suscribir(Entidad.CLUB, Set.of(), "10.0.0.1", new EmisorPrueba(lee));
+
+		for (long id = 1; id <= 5; id++) { // Más que el buffer mientras sigue sin leer
+			eventos.publicar(Entidad.CLUB, Tipo.ALTA, id, 0L);
+		}
+		assertEquals(1, eventos.getDesbordados());
+
+		lee.countDown();
+		esperar(() -> lento.completado);
+		assertTrue(lento.ids().isEmpty()); // Lo pendiente se descarta
+		assertTrue(lento.enviados.get(lento.enviados.size() - 1).contains("event:desbordado"));
+		assertEquals(0, eventos.getSuscriptores());
+	}
+
+	@Test
+	void unaEscrituraBloqueadaNoRetrasaALosDemasYAcabaCortada() throws InterruptedException {
+		eventos = servicio(8, 10, 5, 50);
+		CountDownLatch lee = new CountDownLatch(1);
+		EmisorPrueba bloqueado = suscribir(Entidad.CLUB, Set.of(), "10.0.0.1", new EmisorPrueba(lee));
+		EmisorPrueba rapido = suscribir(Entidad.CLUB, Set.of(), "10.0.0.2", new EmisorPrueba());
+
+		eventos.publicar(Entidad.CLUB, Tipo.ALTA, 1, 0L);
+		esperar(() -> rapido.ids().equals(List.of(1L)));
+
+		Thread.sleep(100); // Más que eventos.envio-maximo-ms
+		eventos.latir();
+		assertEquals(1, eventos.getDesbordados());
+		assertEquals(1, eventos.getSuscriptores());
+
+		lee.countDown(); // La escritura termina: se cierra sin enviarle nada más
+		esperar(() -> bloqueado.completado);
+		assertTrue(bloqueado.ids().isEmpty());
+		esperar(() -> rapido.enviados.stream().anyMatch(e -> e.contains("latido")));
+	}
+
+	@Test
+	void limitaLasSuscripcionesDeCadaEntidadYDeCadaCliente() {
+		eventos = servicio(8, 2, 2, 10_000);
+
+		assertTrue(eventos.suscribir(Entidad.CLUB, Set.of(), "10.0.0.1").isPresent());
+		assertTrue(eventos.suscribir(Entidad.CLUB, Set.of(), "10.0.0.2").isPresent());
+		assertTrue(eventos.suscribir(Entidad.CLUB, Set.of(), "10.0.0.3").isEmpty()); // Clubs llenos
+		// Los usuarios tienen su propio límite
+		assertTrue(eventos.suscribir(Entidad.USUARIO, Set.of(), "10.0.0.1").isPresent());
+		assertTrue(eventos.suscribir(Entidad.USUARIO, Set.of(), "10.0.0.1").isEmpty()); // 10.0.0.1 ya tiene dos
+		assertTrue(eventos.suscribir(Entidad.USUARIO, Set.of(), "10.0.0.3").isPresent());
+		assertEquals(4, eventos.getSuscriptores());
+	}
+
+	private EventosServicio servicio(int capacidad, int maximoSuscriptores, int maximoPorCliente,
+			long envioMaximoMs) {
+		return new EventosServicio(1, 4, capacidad, maximoSuscriptores, maximoPorCliente, 60_000, envioMaximoMs) {
+			@Override
+			SseEmitter crearEmisor(long duracionMs) {
+				EmisorPrueba emisor = emisores.poll();
+				return emisor != null ? emisor : new EmisorPrueba();
+			}
+		};
+	}
+
+	private EmisorPrueba suscribir(Entidad entidad, Set<Long> ids, String cliente, EmisorPrueba emisor) {
+		emisores.add(emisor);
+		assertTrue(eventos.suscribir(entidad, ids, cliente).isPresent());
+		return emisor;
+	}
+
+	private static void esperar(BooleanSupplier condicion) {
+		long limite = System.currentTimeMillis() + 5_000;
+		while (!condicion.getAsBoolean()) {
+			assertTrue(System.currentTimeMillis() < limite, "No se cumplió a tiempo");
+			Thread.onSpinWait();
+		}
+	}
+
+	/** Emisor sin conexión que guarda lo enviado y, si se le indica, no escribe hasta que el cliente lee. */
+	private static final class EmisorPrueba extends SseEmitter {
+
+		private final CountDownLatch lee;
+		private final List<String> enviados = new CopyOnWriteArrayList<>();
+		private volatile boolean completado;
+
+		EmisorPrueba() {
+			this(new CountDownLatch(0));
+		}
+
+		EmisorPrueba(CountDownLatch lee) {
+			this.lee = lee;
+		}
+
+		@Override
+		public void send(SseEventBuilder evento) throws IOException {
+			try {
+				lee.await();
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				throw new IOException(e);
+			}
+			StringBuilder texto = new StringBuilder();
+			for (ResponseBodyEmitter.DataWithMediaType parte : evento.build()) {
+				texto.append(parte.getData() instanceof EventoCambio cambio ? "#" + cambio.getId() : parte.getData());
+			}
+			enviados.add(texto.toString());
+		}
+
+		@Override
+		public void complete() {
+			completado = true;
+		}
+
+		/** @return los ids de los cambios recibidos, en orden */
+		List<Long> ids() {
+			return enviados.stream().filter(e -> e.contains("#"))
+					.map(e -> Long.parseLong(e.substring(e.indexOf('#') + 1).trim())).toList();
+		}
+	}
+}
@@ -0,0 +1,28 @@
+package edu.proyectoCompleto.utils;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.time.Instant;
+
+import org.junit.jupiter.api.Test;
+
+class CursorCambiosTest {
+
+	@Test
+	void leeElCursorQueCodifica() {
+		CursorCambios cursor = new CursorCambios(Instant.parse("2023-01-15T10:20:30.123456Z"), 42,
+				Instant.parse("2023-02-01T08:00:00.000001Z"));
+
+		assertEquals(cursor, CursorCambios.leer(cursor.codificar()));
+		assertEquals(CursorCambios.INICIO, CursorCambios.leer(null));
+		assertEquals(CursorCambios.INICIO, CursorCambios.leer(CursorCambios.INICIO.codificar()));
+	}
+
+	@Test
+	void rechazaLosCursoresQueNoSeHanEntregado() {
+		assertThrows(IllegalArgumentException.class, () -> CursorCambios.leer("no es base64!"));
+		assertThrows(IllegalArgumentException.class, () -> CursorCambios.leer("MTIzOjQ")); // "123:4", sin bajasDesde
+		assertThrows(IllegalArgumentException.class, () -> CursorCambios.leer("LTE6Mzo1")); // "-1:3:5"
+	}
+}
@@ -0,0 +1,25 @@
+package edu.proyectoCompleto.utils;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import org.junit.jupiter.api.Test;
+
+class EtagVersionTest {
+
+	@Test
+	void leeLaVersionDelEtagQueGenera() {
+		assertEquals(7L, EtagVersion.versionEsperada(EtagVersion.etag(7)));
+		assertNull(EtagVersion.versionEsperada(null));
+		assertNull(EtagVersion.versionEsperada("*"));
+	}
+
+	@Test
+	void losEtagsDebilesOAjenosNuncaCoinciden() {
+		assertEquals(EtagVersion.NINGUNA, EtagVersion.versionEsperada("W/\"7\""));
+		assertEquals(EtagVersion.NINGUNA, EtagVersion.versionEsperada("\"a1b2\""));
+		assertEquals(EtagVersion.NINGUNA, EtagVersion.versionEsperada("7"));
+		assertThrows(IllegalArgumentException.class, () -> EtagVersion.versionEsperada("\"6\", \"7\""));
+	}
+}
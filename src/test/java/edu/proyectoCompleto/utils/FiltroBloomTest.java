@@ -0,0 +1,50 @@
+package edu.proyectoCompleto.utils;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+
+class FiltroBloomTest {
+
+	@Test
+	void noTieneFalsosNegativos() {
+		FiltroBloom filtro = new FiltroBloom(10_000, 0.01);
+		for (int i = 0; i < 10_000; i++) {
+			filtro.anadir("usuario" + i + "@correo.es");
+		}
+
+		for (int i = 0; i < 10_000; i++) {
+			assertTrue(filtro.puedeContener("usuario" + i + "@correo.es"));
+		}
+		assertFalse(filtro.saturado());
+		assertFalse(filtro.puedeContener(null));
+	}
+
+	@Test
+	void losFalsosPositivosRondanLaTasaPedida() {
+		FiltroBloom filtro = new FiltroBloom(10_000, 0.01);
+		for (int i = 0; i < 10_000; i++) {
+			filtro.anadir("nick" + i);
+		}
+
+		int falsosPositivos = 0;
+		for (int i = 0; i < 100_000; i++) {
+			if (filtro.puedeContener("otro" + i)) {
+				falsosPositivos++;
+			}
+		}
+		// Se esperan unos 1.000 (el 1 %); el margen evita fallos por azar
+		assertTrue(falsosPositivos < 2_000, "Falsos positivos: " + falsosPositivos);
+	}
+
+	@Test
+	void avisaCuandoSeSuperanLosElementosEsperados() {
+		FiltroBloom filtro = new FiltroBloom(10, 0.01);
+		for (int i = 0; i <= 10; i++) {
+			filtro.anadir("dni" + i);
+		}
+
+		assertTrue(filtro.saturado());
+	}
+}
@@ -0,0 +1,53 @@
+package edu.proyectoCompleto.utils;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+/**
+ * Mide la latencia de {@link IndiceEspacial#cercanos} con un millón de clubs repartidos
+ * por la península. No se ejecuta con el resto de pruebas: {@code mvn test -Pbenchmark}.
+ */
+@Tag("benchmark")
+class IndiceEspacialBenchmarkTest {
+
+	private static final int CLUBS = 1_000_000;
+	private static final int CONSULTAS = 100_000;
+
+	@ParameterizedTest
+	@ValueSource(doubles = { 0.1, 0.02 })
+	void cercanosConUnMillonDeClubs(double ladoCeldaGrados) {
+		Random aleatorio = new Random(7);
+		IndiceEspacial<Long> indice = new IndiceEspacial<>(ladoCeldaGrados);
+		long inicio = System.nanoTime();
+		for (long id = 0; id < CLUBS; id++) {
+			indice.poner(id, 36 + aleatorio.nextDouble() * 7, -9 + aleatorio.nextDouble() * 12, id);
+		}
+		System.out.printf("Celdas de %.2f grados, construcción de %d clubs: %d ms%n", ladoCeldaGrados, CLUBS,
+				(System.nanoTime() - inicio) / 1_000_000);
+
+		for (double radioKm : new double[] { 5, 25, 100 }) {
+			medir(indice, aleatorio, radioKm, CONSULTAS / 10); // Calentamiento del JIT
+			long[] tiempos = medir(indice, aleatorio, radioKm, CONSULTAS);
+			Arrays.sort(tiempos);
+			System.out.printf("radio %5.0f km, 10 más cercanos: p50 %6.1f µs, p99 %6.1f µs, máx %7.1f µs%n", radioKm,
+					tiempos[tiempos.length / 2] / 1000.0, tiempos[tiempos.length * 99 / 100] / 1000.0,
+					tiempos[tiempos.length - 1] / 1000.0);
+		}
+	}
+
+	private static long[] medir(IndiceEspacial<Long> indice, Random aleatorio, double radioKm, int consultas) {
+		long[] tiempos = new long[consultas];
+		for (int i = 0; i < consultas; i++) {
+			double latitud = 36 + aleatorio.nextDouble() * 7;
+			double longitud = -9 + aleatorio.nextDouble() * 12;
+			long inicio = System.nanoTime();
+			indice.cercanos(latitud, longitud, radioKm, 10);
+			tiempos[i] = System.nanoTime() - inicio;
+		}
+		return tiempos;
+	}
+}
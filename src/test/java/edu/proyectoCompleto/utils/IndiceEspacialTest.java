@@ -0,0 +1,113 @@
+package edu.proyectoCompleto.utils;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.IntStream;
+
+import org.junit.jupiter.api.Test;
+
+class IndiceEspacialTest {
+
+	@Test
+	void devuelveLosMasCercanosDentroDelRadioYEnOrden() {
+		IndiceEspacial<String> indice = new IndiceEspacial<>(0.1);
+		indice.poner(1, 37.3891, -5.9845, "Sevilla");
+		indice.poner(2, 37.2842, -5.9209, "Dos Hermanas");
+		indice.poner(3, 36.7213, -4.4214, "Málaga");
+		indice.poner(4, 40.4168, -3.7038, "Madrid");
+
+		List<IndiceEspacial.Resultado<String>> cercanos = indice.cercanos(37.39, -5.99, 200, 10);
+
+		assertEquals(List.of("Sevilla", "Dos Hermanas", "Málaga"), cercanos.stream().map(r -> r.valor()).toList());
+		assertTrue(cercanos.get(0).distanciaKm() < 1);
+		assertEquals(List.of("Sevilla"), indice.cercanos(37.39, -5.99, 5, 10).stream().map(r -> r.valor()).toList());
+	}
+
+	@Test
+	void coincideConRecorrerTodosLosPuntos() {
+		IndiceEspacial<Integer> indice = new IndiceEspacial<>(0.1);
+		Random aleatorio = new Random(42);
+		double[][] puntos = new double[20_000][];
+		for (int i = 0; i < puntos.length; i++) {
+			puntos[i] = new double[] { 36 + aleatorio.nextDouble() * 7, -9 + aleatorio.nextDouble() * 12 };
+			indice.poner(i, puntos[i][0], puntos[i][1], i);
+		}
+
+		for (int consulta = 0; consulta < 200; consulta++) {
+			double latitud = 36 + aleatorio.nextDouble() * 7;
+			double longitud = -9 + aleatorio.nextDouble() * 12;
+			double radio = 1 + aleatorio.nextDouble() * 50;
+
+			assertEquals(recorriendoTodos(puntos, latitud, longitud, radio, 10),
+					indice.cercanos(latitud, longitud, radio, 10).stream().map(r -> r.valor()).toList());
+		}
+	}
+
+	@Test
+	void cercaDeLosPolosEncuentraLosPuntosDeCualquierLongitud() {
+		IndiceEspacial<Integer> indice = new IndiceEspacial<>(0.1);
+		Random aleatorio = new Random(7);
+		double[][] puntos = new double[2_000][];
+		for (int i = 0; i < puntos.length; i++) {
+			double latitud = 89.5 + aleatorio.nextDouble() * 0.5;
+			puntos[i] = new double[] { i % 2 == 0 ? latitud : -latitud, -180 + aleatorio.nextDouble() * 360 };
+			indice.poner(i, puntos[i][0], puntos[i][1], i);
+		}
+
+		for (double latitud : new double[] { 89.9, 90, -89.9, -90 }) {
+			for (double radio : new double[] { 1, 20, 60 }) {
+				double longitud = -180 + aleatorio.nextDouble() * 360;
+				assertEquals(recorriendoTodos(puntos, latitud, longitud, radio, 10),
+						indice.cercanos(latitud, longitud, radio, 10).stream().map(r -> r.valor()).toList());
+			}
+		}
+
+		// Al otro lado del polo, a 180 grados de longitud
+		IndiceEspacial<String> otroLado = new IndiceEspacial<>(0.1);
+		otroLado.poner(1, 89.95, 10, "Enfrente");
+		assertEquals(List.of("Enfrente"), otroLado.cercanos(89.95, -170, 12, 10).stream().map(r -> r.valor()).toList());
+	}
+
+	@Test
+	void lasBusquedasCruzanElAntimeridiano() {
+		IndiceEspacial<String> indice = new IndiceEspacial<>(0.1);
+		indice.poner(1, -17.77, 177.95, "Nadi");
+		indice.poner(2, -16.80, 179.99, "Este");
+		indice.poner(3, -16.80, -179.99, "Oeste");
+		indice.poner(4, 65.0, 180, "Diómedes");
+
+		assertEquals(List.of("Oeste", "Este"),
+				indice.cercanos(-16.80, -179.98, 10, 10).stream().map(r -> r.valor()).toList());
+		assertEquals(List.of("Este", "Oeste", "Nadi"),
+				indice.cercanos(-16.80, 179.98, 250, 10).stream().map(r -> r.valor()).toList());
+		assertEquals(List.of("Diómedes"), indice.cercanos(65.0, -179.9, 10, 10).stream().map(r -> r.valor()).toList());
+	}
+
+	@Test
+	void lasModificacionesMuevenYQuitanPuntos() {
+		IndiceEspacial<String> indice = new IndiceEspacial<>(0.1);
+		indice.poner(1, 37.3891, -5.9845, "Club Norte");
+		indice.poner(2, 37.2842, -5.9209, "Club Sur");
+
+		indice.poner(1, 40.4168, -3.7038, "Club Norte");
+		indice.quitarSi(nombre -> nombre.endsWith("Sur"));
+
+		assertTrue(indice.cercanos(37.39, -5.99, 50, 10).isEmpty());
+		assertEquals(1, indice.cercanos(40.41, -3.70, 5, 10).size());
+		assertEquals(1, indice.tamano());
+	}
+
+	private static List<Integer> recorriendoTodos(double[][] puntos, double latitud, double longitud, double radio,
+			int limite) {
+		return IntStream.range(0, puntos.length)
+				.filter(i -> IndiceEspacial.distanciaKm(latitud, longitud, puntos[i][0], puntos[i][1]) <= radio)
+				.boxed()
+				.sorted(Comparator.comparingDouble((Integer i) -> IndiceEspacial.distanciaKm(latitud, longitud,
+						puntos[i][0], puntos[i][1])).thenComparing(i -> i))
+				.limit(limite).toList();
+	}
+}
@@ -0,0 +1,57 @@
+package edu.proyectoCompleto.utils;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class IndiceTrigramasTest {
+
+	private final IndiceTrigramas<String> indice = new IndiceTrigramas<>();
+
+	@BeforeEach
+	void preparar() {
+		indice.poner(1, "Club Norte", "Club Norte", "Sevilla");
+		indice.poner(2, "Atlético Sur", "Atlético Sur", "Málaga");
+		indice.poner(3, "Club Náutico", "Club Náutico", "Cádiz");
+		indice.poner(4, "Peña Bética", "Peña Bética", "Sevilla");
+	}
+
+	@Test
+	void encuentraPorPrefijoSinTildesNiMayusculas() {
+		assertEquals(List.of("Club Náutico"), indice.buscar("NAUT", 10, 0.3));
+		assertEquals("Atlético Sur", indice.buscar("atletico", 10, 0.3).get(0));
+	}
+
+	@Test
+	void toleraErratas() {
+		assertEquals("Club Norte", indice.buscar("nrote", 10, 0.3).get(0));
+		assertEquals("Peña Bética", indice.buscar("pena betca", 10, 0.3).get(0));
+	}
+
+	@Test
+	void buscaTambienPorSedeYOrdenaPorParecido() {
+		List<String> sevilla = indice.buscar("sevilla", 10, 0.3);
+
+		assertEquals(2, sevilla.size());
+		assertTrue(sevilla.containsAll(List.of("Club Norte", "Peña Bética")));
+		assertEquals(List.of("Club Norte"), indice.buscar("club norte", 1, 0.3));
+	}
+
+	@Test
+	void lasModificacionesYBajasSeReflejanAlMomento() {
+		indice.poner(1, "Club Levante", "Club Levante", "Valencia");
+		indice.quitar(3);
+		indice.quitarSi(nombre -> nombre.startsWith("Peña"));
+
+		assertFalse(indice.buscar("norte", 10, 0.3).contains("Club Norte"));
+		assertFalse(indice.buscar("nautico", 10, 0.3).contains("Club Náutico"));
+		assertFalse(indice.buscar("betica", 10, 0.3).contains("Peña Bética"));
+		assertEquals(List.of("Club Levante"), indice.buscar("levante", 10, 0.3));
+		assertEquals(2, indice.tamano());
+	}
+}
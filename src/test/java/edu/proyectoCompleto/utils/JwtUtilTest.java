@@ -0,0 +1,60 @@
+package edu.proyectoCompleto.utils;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+
+import edu.proyectoCompleto.utils.JwtUtil.TokenVerificado;
+
+class JwtUtilTest {
+
+	/** Secreto solo para las pruebas ("secreto-de-pruebas-de-JwtUtil-solo-para-tests" en Base64). */
+	private static final String SECRETO = "c2VjcmV0by1kZS1wcnVlYmFzLWRlLUp3dFV0aWwtc29sby1wYXJhLXRlc3Rz";
+
+	@Test
+	void verificaUnaVezYReutilizaElResultado() {
+		JwtUtil jwtUtil = new JwtUtil(SECRETO, 100, 15);
+		String token = jwtUtil.generarToken("ana@correo.es", 7, "ADMIN");
+
+		TokenVerificado primero = jwtUtil.verificarToken(token).orElseThrow();
+		TokenVerificado segundo = jwtUtil.verificarToken(token).orElseThrow();
+
+		assertSame(primero, segundo);
+		assertEquals(new TokenVerificado("ana@correo.es", 7L, "ADMIN", primero.emitidoEn(), primero.expiraEn()), primero);
+		assertTrue(jwtUtil.validarToken(token));
+		assertEquals("ana@correo.es", jwtUtil.obtenerUsuarioDelToken(token));
+	}
+
+	@Test
+	void sinSecretoNoArranca() {
+		assertThrows(IllegalStateException.class, () -> new JwtUtil("", 100, 15));
+		assertThrows(IllegalStateException.class, () -> new JwtUtil(null, 100, 15));
+	}
+
+	@Test
+	void rechazaTokensManipulados() {
+		JwtUtil jwtUtil = new JwtUtil(SECRETO, 100, 15);
+		String token = jwtUtil.generarToken("ana@correo.es");
+		String manipulado = token.substring(0, token.length() - 2) + (token.endsWith("A") ? "BB" : "AA");
+
+		assertFalse(jwtUtil.validarToken(manipulado));
+		assertFalse(jwtUtil.validarToken("no-es-un-token"));
+	}
+
+	@Test
+	void lasRevocacionesNoSeDescartanAunqueHayaMuchas() {
+		JwtUtil jwtUtil = new JwtUtil(SECRETO, 100, 15);
+		String token = jwtUtil.generarToken("ana@correo.es", 1, "USUARIO");
+		jwtUtil.revocarTokensDe("ana@correo.es");
+
+		for (int i = 0; i < 1_000; i++) { // Muchas más que el tamaño de la caché de tokens
+			jwtUtil.revocarTokensDe("usuario" + i + "@correo.es");
+		}
+
+		assertFalse(jwtUtil.validarToken(token));
+	}
+}
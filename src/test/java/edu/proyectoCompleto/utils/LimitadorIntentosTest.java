@@ -0,0 +1,50 @@
+package edu.proyectoCompleto.utils;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+
+class LimitadorIntentosTest {
+
+	@Test
+	void limitaLosIntentosSeguidosDeCadaClave() {
+		LimitadorIntentos limitador = new LimitadorIntentos(3, 1, 1_000);
+
+		assertTrue(limitador.intentar("ana@correo.es"));
+		assertTrue(limitador.intentar("ana@correo.es"));
+		assertTrue(limitador.intentar("ana@correo.es"));
+		assertFalse(limitador.intentar("ana@correo.es"));
+		assertTrue(limitador.intentar("luis@correo.es")); // Cada clave tiene su cubeta
+
+		assertEquals(4, limitador.getPermitidos());
+		assertEquals(1, limitador.getRechazados());
+	}
+
+	@Test
+	void conLasFranjasLlenasLasClavesNuevasDesplazanALasMasAntiguas() {
+		LimitadorIntentos limitador = new LimitadorIntentos(1, 1, 16); // Una cubeta por franja
+		assertTrue(limitador.intentar("ana@correo.es"));
+		assertFalse(limitador.intentar("ana@correo.es"));
+
+		for (int i = 0; i < 10_000; i++) {
+			assertTrue(limitador.intentar("clave" + i)); // Nunca se rechaza una clave nueva por falta de sitio
+		}
+
+		assertEquals(1, limitador.getRechazados());
+		assertTrue(limitador.getClaves() <= 16);
+		assertTrue(limitador.getDesplazadas() > 0); // Cubetas recién usadas, todavía sin rellenar
+	}
+
+	@Test
+	void laClaveMasUsadaNoSeDesplazaAntesQueLasInactivas() {
+		LimitadorIntentos limitador = new LimitadorIntentos(1, 1, 16 * 4); // Cuatro cubetas por franja
+		assertTrue(limitador.intentar("ana@correo.es"));
+
+		for (int i = 0; i < 1_000; i++) {
+			assertFalse(limitador.intentar("ana@correo.es")); // Sigue siendo la más reciente de su franja
+			limitador.intentar("clave" + i);
+		}
+	}
+}